@@ -0,0 +1,63 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.ChessPosition;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBenchmark {
+	//move generation and evaluation, the two things the chess engine does at every node of its search.
+
+	//the start position is quiet, kiwipete has every kind of move in it: castling both ways, en passant, promotions and pins.
+
+	public static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+	@Param({ "start", "kiwipete" })
+	public String position;
+
+	private ChessPosition chessPosition;
+	private int[] moves;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.chessPosition = this.position.equals("start") ? new ChessPosition() : new ChessPosition(KIWIPETE);
+		this.moves = new int[ChessPosition.MAX_MOVES];
+	}
+
+	//what the engine calls, fills a reused array
+	@Benchmark
+	public int generateLegalMoves() {
+		return this.chessPosition.generateLegalMoves(this.moves);
+	}
+
+	//what the game calls, allocates a list of squares
+	@Benchmark
+	public ArrayList<int[]> generateAllLegalMoves() {
+		return this.chessPosition.generateAllLegalMoves(this.chessPosition.whiteMove);
+	}
+
+	@Benchmark
+	public double calculateFitness() {
+		return this.chessPosition.calculateFitness();
+	}
+
+}
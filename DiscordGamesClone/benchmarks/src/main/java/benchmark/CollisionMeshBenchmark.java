@@ -0,0 +1,83 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.CollisionMesh;
+import util.Mat4;
+import util.Vec3;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionMeshBenchmark {
+	//ray casts against a mesh, like the ones used to pick things with the mouse.
+
+	//the mesh is a flat grid of gridSize by gridSize quads, and the ray points straight down at it, so it hits exactly one quad.
+
+	@Param({ "8", "32" })
+	public int gridSize;
+
+	private CollisionMesh mesh;
+	private Vec3 rayOrigin;
+	private Vec3 rayDir;
+	private Mat4 transform;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		int n = this.gridSize + 1;
+		float[] vertices = new float[n * n * 3];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				int v = (i * n + j) * 3;
+				vertices[v + 0] = j;
+				vertices[v + 1] = 0;
+				vertices[v + 2] = i;
+			}
+		}
+
+		int[] indices = new int[this.gridSize * this.gridSize * 6];
+		int ptr = 0;
+		for (int i = 0; i < this.gridSize; i++) {
+			for (int j = 0; j < this.gridSize; j++) {
+				int a = i * n + j;
+				int b = a + 1;
+				int c = a + n;
+				int d = c + 1;
+				indices[ptr++] = a;
+				indices[ptr++] = c;
+				indices[ptr++] = b;
+				indices[ptr++] = b;
+				indices[ptr++] = c;
+				indices[ptr++] = d;
+			}
+		}
+
+		this.mesh = new CollisionMesh(vertices, indices);
+		this.rayOrigin = new Vec3(this.gridSize / 2f + 0.3f, 10, this.gridSize / 2f + 0.6f);
+		this.rayDir = new Vec3(0, -1, 0);
+		this.transform = Mat4.identity();
+	}
+
+	@Benchmark
+	public ArrayList<Vec3[]> rayIntersect() {
+		return this.mesh.rayIntersect(this.rayOrigin, this.rayDir, this.transform);
+	}
+
+}
@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.RocketLeagueGame;
+import impulse2d.Body;
+import impulse2d.Circle;
+import impulse2d.ImpulseScene;
+import impulse2d.Polygon;
+import util.Vec2;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImpulseSceneBenchmark {
+	//physics ticks of a top down scene like rocket league's, with pegs bouncing around inside four walls.
+
+	//every invocation rebuilds the scene from the same seed, and runs the first TICKS_PER_INVOCATION ticks of it.
+	//surface friction stops the pegs after about a minute of game time, so a scene that is ticked for longer than that
+	//would mostly be measuring pegs that aren't touching anything. The score is the time per tick.
+
+	private static final float ARENA_SIZE = 100;
+	private static final long SEED = 12345;
+	private static final int TICKS_PER_INVOCATION = 2 * RocketLeagueGame.TICK_RATE; //long enough for the pegs to reach the walls
+
+	@Param({ "10", "50", "200" })
+	public int bodyAmt;
+
+	private ImpulseScene scene;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		Random random = new Random(SEED);
+
+		this.scene = new ImpulseScene();
+		this.scene.setDoGravity(false);
+		this.scene.setSimulateOnSurface(true);
+		this.scene.setSurfaceFrictionCoefficient(0.3f);
+		this.scene.setDt(1f / RocketLeagueGame.TICK_RATE);
+
+		float half = ARENA_SIZE / 2;
+		this.addWall(half, -1, ARENA_SIZE + 2, 2);
+		this.addWall(half, ARENA_SIZE + 1, ARENA_SIZE + 2, 2);
+		this.addWall(-1, half, 2, ARENA_SIZE + 2);
+		this.addWall(ARENA_SIZE + 1, half, 2, ARENA_SIZE + 2);
+
+		for (int i = 0; i < this.bodyAmt; i++) {
+			float x = 2 + random.nextFloat() * (ARENA_SIZE - 4);
+			float y = 2 + random.nextFloat() * (ARENA_SIZE - 4);
+			Body b = this.scene.addBody(new Circle(1), x, y);
+			b.setOrient(0);
+			b.setVelocity(new Vec2(random.nextFloat() * 40 - 20, random.nextFloat() * 40 - 20));
+		}
+	}
+
+	private void addWall(float x, float y, float width, float height) {
+		Body b = this.scene.addBody(new Polygon(width, height), x, y);
+		b.setStatic();
+		b.setOrient(0);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TICKS_PER_INVOCATION)
+	public ImpulseScene tick() {
+		for (int i = 0; i < TICKS_PER_INVOCATION; i++) {
+			this.scene.tick();
+		}
+		return this.scene;
+	}
+
+}
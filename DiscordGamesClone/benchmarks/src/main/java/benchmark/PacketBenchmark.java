@@ -0,0 +1,145 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import server.PacketListener;
+import server.PacketSender;
+import server.SectionRegistry;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+	//encoding and decoding of a typical server packet, a rocket league update going out to one client.
+
+	//decoding reads the packet through a channel, the same way the server reads from a socket, then drains every section.
+
+	private static final int PEG_AMT = 32;
+	private static final String[] PLAYER_NAMES = { "alice", "bob", "carol", "dave" };
+
+	private PacketSender packetSender;
+	private PacketListener packetListener;
+
+	private ByteBuffer packet;
+	private PacketChannel channel;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.packetSender = new PacketSender();
+		this.packetSender.setSectionRegistry(SectionRegistry.DEFAULT);
+
+		this.packetListener = new PacketListener("benchmark");
+		this.packetListener.setSectionRegistry(SectionRegistry.DEFAULT);
+
+		this.encode();
+		ByteBuffer sections = this.packetSender.getSections();
+		this.packet = ByteBuffer.allocate(4 + sections.remaining());
+		this.packet.putInt(sections.remaining());
+		this.packet.put(sections);
+		this.packet.flip();
+		this.packetSender.clear();
+
+		this.channel = new PacketChannel();
+	}
+
+	private int encode() {
+		PacketSender p = this.packetSender;
+		p.startSection("rocket_league_peg_info");
+		p.write(PEG_AMT);
+		for (int i = 0; i < PEG_AMT; i++) {
+			p.writeVarInt(i);
+			p.write(i * 0.5f);
+			p.write(i * 0.25f);
+			p.write(1.5f);
+			p.write(-0.75f);
+		}
+		p.startSection("rocket_league_batched_launches");
+		p.write(2);
+		for (int i = 0; i < 2; i++) {
+			p.write(i);
+			p.write(new float[] { 0.5f, 0.25f });
+		}
+		p.startSection("rocket_league_score");
+		p.write(3);
+		p.write(2);
+		for (int i = 0; i < PLAYER_NAMES.length; i++) {
+			p.startSection("player_info");
+			p.write(i);
+			p.write(PLAYER_NAMES[i]);
+		}
+		return p.getPacketSize();
+	}
+
+	@Benchmark
+	public int encodePacket() {
+		int size = this.encode();
+		this.packetSender.clear();
+		return size;
+	}
+
+	@Benchmark
+	public void decodePacket(Blackhole bh) throws IOException {
+		this.channel.reset(this.packet);
+		while (this.channel.hasRemaining()) {
+			this.packetListener.readFrom(this.channel);
+		}
+		while (this.packetListener.nextSection()) {
+			bh.consume(this.packetListener.getSectionName());
+			bh.consume(this.packetListener.getSectionSize());
+		}
+	}
+
+	//hands out the packet in socket sized reads
+	private static class PacketChannel implements ReadableByteChannel {
+		private static final int READ_SIZE = 512;
+
+		private ByteBuffer src;
+
+		void reset(ByteBuffer packet) {
+			this.src = packet.duplicate();
+		}
+
+		boolean hasRemaining() {
+			return this.src.hasRemaining();
+		}
+
+		@Override
+		public int read(ByteBuffer dst) {
+			int amt = Math.min(READ_SIZE, Math.min(dst.remaining(), this.src.remaining()));
+			ByteBuffer slice = this.src.duplicate();
+			slice.limit(slice.position() + amt);
+			dst.put(slice);
+			this.src.position(this.src.position() + amt);
+			return amt;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
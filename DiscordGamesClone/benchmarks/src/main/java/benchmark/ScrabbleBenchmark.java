@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.ScrabbleGame;
+import util.Pair;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScrabbleBenchmark {
+	//the scrabble computer's move search, and the move validation every player move goes through, on a mid game board.
+
+	//the board is made by having the computer play a few turns with fixed hands, so it's the same board every run.
+	//the dictionary is read from res, so this has to be run from the DiscordGamesClone folder.
+
+	private static final String[] OPENING_HANDS = { "RETAINS", "QUOTHED", "WAXINGS", "FJORDIC", "BLAZERS", "MOVIEST" };
+	private static final String HAND = "AEINRST";
+
+	private ScrabbleGame game;
+	private ArrayList<Character> hand;
+	private ArrayList<Pair<int[], Character>> move;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.game = new ScrabbleGame();
+		if (ScrabbleGame.dictionary.getWordCount() == 0) {
+			throw new IllegalStateException("Scrabble dictionary is empty, run the benchmarks from the DiscordGamesClone folder");
+		}
+
+		for (String letters : OPENING_HANDS) {
+			ArrayList<Pair<int[], Character>> tiles = this.game.generateBestMove(toHand(letters));
+			if (tiles != null) {
+				this.game.makeMove(tiles);
+			}
+		}
+
+		this.hand = toHand(HAND);
+		this.move = this.game.generateBestMove(this.hand);
+		if (this.move == null) {
+			throw new IllegalStateException("No valid move on the benchmark board");
+		}
+	}
+
+	private static ArrayList<Character> toHand(String letters) {
+		ArrayList<Character> hand = new ArrayList<>();
+		for (char c : letters.toCharArray()) {
+			hand.add(c);
+		}
+		return hand;
+	}
+
+	@Benchmark
+	public ArrayList<Pair<int[], Character>> generateBestMove() {
+		return this.game.generateBestMove(this.hand);
+	}
+
+	@Benchmark
+	public int getMoveScore() {
+		return this.game.getMoveScore(this.move);
+	}
+
+}
@@ -0,0 +1,106 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ChessGameTest {
+	//round trips through the formats games get saved and loaded in, FEN and PGN, and the checkpoints used to look back in a game
+
+	//1. e4 d5 2. e5 f5 3. exf6 is en passant, 5. gxh8=N is an underpromotion, and both sides castle at the end
+	public static final String[] SPECIAL_MOVES_GAME = { "e4", "d5", "e5", "f5", "exf6", "e6", "fxg7", "Nf6", "gxh8=N", "Bd7", "Nf3", "Nc6", "Be2", "Qe7", "O-O", "O-O-O" };
+
+	@Test
+	public void fenRoundTrip() {
+		String[] fens = { ChessGame.START_FEN, //
+				"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", //en passant square
+				"r3k2r/8/8/8/8/8/8/R3K2R b Kq - 5 20", //partial castling rights
+				"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", //
+				ChessPositionPerftTest.KIWIPETE, //
+				ChessPositionPerftTest.POSITION_4_MIRRORED, //
+				ChessPositionPerftTest.POSITION_5, };
+		for (String fen : fens) {
+			assertEquals(fen, new ChessPosition(fen).toFEN());
+		}
+	}
+
+	@Test
+	public void fenDropsUncapturableEnPassantSquare() {
+		//no black pawn can take on e3, so the square isn't part of the position
+		ChessPosition p = new ChessPosition("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+		assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", p.toFEN());
+	}
+
+	@Test
+	public void pgnRoundTripWithSpecialMoves() {
+		ChessGame game = play(new ChessGame(), SPECIAL_MOVES_GAME);
+		assertTrue(ChessMove.isCastle(game.getMove(game.getMoveCount() - 1)));
+		assertEquals(ChessPosition.KNIGHT, ChessMove.getPromotion(game.getMove(8)));
+
+		String pgn = game.toPGN("white", "black");
+		ChessGame loaded = ChessGame.fromPGN(pgn);
+		assertSameGame(game, loaded);
+		assertEquals(pgn, loaded.toPGN("white", "black"));
+	}
+
+	@Test
+	public void pgnRoundTripFromFEN() {
+		//games set up from a position are saved with a FEN tag, and start with black's move here
+		String fen = "r3k3/7P/8/8/8/8/1p6/R3K2R b KQq - 0 1";
+		ChessGame game = play(new ChessGame(fen), new String[] { "bxa1=B", "O-O", "O-O-O", "h8=N" });
+
+		ChessGame loaded = ChessGame.fromPGN(game.toPGN("white", "black"));
+		assertEquals(fen, loaded.getStartFEN());
+		assertSameGame(game, loaded);
+	}
+
+	@Test
+	public void positionAtThroughCheckpoints() {
+		//a few hundred random plies, so the game goes through several checkpoints
+		ChessGame game = new ChessGame();
+		ArrayList<String> fens = new ArrayList<>();
+		fens.add(game.getCurPosition().toFEN());
+		Random random = new Random(1234);
+		int[] moves = new int[ChessPosition.MAX_MOVES];
+		for (int ply = 0; ply < 200; ply++) {
+			int cnt = game.getCurPosition().generateLegalMoves(moves);
+			if (cnt == 0) {
+				break;
+			}
+			assertTrue(game.performMove(moves[random.nextInt(cnt)]));
+			fens.add(game.getCurPosition().toFEN());
+		}
+		assertTrue(game.getMoveCount() > 64, "game ended after " + game.getMoveCount() + " plies");
+
+		for (int ply = 0; ply <= game.getMoveCount(); ply++) {
+			assertEquals(fens.get(ply), game.getPositionAt(ply).toFEN(), "ply " + ply);
+		}
+
+		//the position handed back is a copy
+		ChessPosition p = game.getPositionAt(0);
+		p.makeMove(p.parseSAN("e4"));
+		assertEquals(fens.get(0), game.getPositionAt(0).toFEN());
+	}
+
+	private static ChessGame play(ChessGame game, String[] sans) {
+		for (String san : sans) {
+			int move = game.getCurPosition().parseSAN(san);
+			assertNotEquals(ChessMove.NONE, move, san);
+			assertTrue(game.performMove(move), san);
+		}
+		return game;
+	}
+
+	private static void assertSameGame(ChessGame expected, ChessGame actual) {
+		assertEquals(expected.getMoveCount(), actual.getMoveCount());
+		for (int i = 0; i < expected.getMoveCount(); i++) {
+			assertEquals(expected.getMove(i), actual.getMove(i), "ply " + i);
+		}
+		assertEquals(expected.getCurPosition().toFEN(), actual.getCurPosition().toFEN());
+	}
+}
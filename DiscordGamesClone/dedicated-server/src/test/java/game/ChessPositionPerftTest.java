@@ -0,0 +1,66 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class ChessPositionPerftTest {
+	//checks the move generator against the well known perft node counts, see https://www.chessprogramming.org/Perft_Results
+
+	//between them the positions cover castling, en passant, promotions and underpromotions, pins and checks.
+	//depths are kept shallow so the whole suite runs in about a second.
+
+	public static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+	public static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+	public static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+	public static final String POSITION_4_MIRRORED = "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1";
+	public static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+	@Test
+	public void startPosition() {
+		assertPerft(new ChessPosition(), 20, 400, 8902, 197281);
+	}
+
+	@Test
+	public void kiwipete() {
+		assertPerft(new ChessPosition(KIWIPETE), 48, 2039, 97862);
+	}
+
+	@Test
+	public void position3() {
+		assertPerft(new ChessPosition(POSITION_3), 14, 191, 2812, 43238);
+	}
+
+	@Test
+	public void position4() {
+		assertPerft(new ChessPosition(POSITION_4), 6, 264, 9467);
+	}
+
+	@Test
+	public void position4Mirrored() {
+		assertPerft(new ChessPosition(POSITION_4_MIRRORED), 6, 264, 9467);
+	}
+
+	@Test
+	public void position5() {
+		assertPerft(new ChessPosition(POSITION_5), 44, 1486, 62379);
+	}
+
+	@Test
+	public void perftLeavesPositionUnchanged() {
+		ChessPosition position = new ChessPosition(KIWIPETE);
+		String fen = position.toFEN();
+		long hash = position.getHash();
+		position.perft(3);
+		assertEquals(fen, position.toFEN());
+		assertEquals(hash, position.getHash());
+	}
+
+	//counts[i] is the expected node count at depth i + 1
+	private static void assertPerft(ChessPosition position, long... counts) {
+		for (int depth = 1; depth <= counts.length; depth++) {
+			assertEquals(counts[depth - 1], position.perft(depth), "perft(" + depth + ") of " + position.toFEN());
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+package client;
+
+import java.util.HashMap;
+
+import impulse2d.Body;
+
+public class BodyInterpolator {
+	//keeps a short history of timestamped snapshots for each body, and renders them a fixed delay in the past.
+	//this way there is almost always a snapshot on either side of the render time to interpolate between,
+	//even when server packets arrive unevenly.
+
+	//if we run out of snapshots, the body is extrapolated using its last known velocity for a little bit,
+	//and then it just stays put until the next snapshot arrives.
+
+	private long delayNanos = 100 * 1000000L;
+	private long maxExtrapolationNanos = 250 * 1000000L;
+
+	private HashMap<Integer, SnapshotHistory> histories;
+
+	public BodyInterpolator() {
+		this.histories = new HashMap<>();
+	}
+
+	public void setDelayMillis(long millis) {
+		this.delayNanos = millis * 1000000L;
+	}
+
+	public long getDelayMillis() {
+		return this.delayNanos / 1000000L;
+	}
+
+	public void setMaxExtrapolationMillis(long millis) {
+		this.maxExtrapolationNanos = millis * 1000000L;
+	}
+
+	/**
+	 * Records the current state of the body.
+	 * @param id
+	 * @param timeNanos when the state was received, in terms of {@link System#nanoTime()}
+	 * @param b
+	 */
+	public void push(int id, long timeNanos, Body b) {
+		SnapshotHistory h = this.histories.get(id);
+		if (h == null) {
+			h = new SnapshotHistory();
+			this.histories.put(id, h);
+		}
+		h.push(timeNanos, b);
+	}
+
+	public void remove(int id) {
+		this.histories.remove(id);
+	}
+
+	public void clear() {
+		this.histories.clear();
+	}
+
+	/**
+	 * Sets the position and orientation of out to where the body was at nowNanos minus the delay.
+	 * @param id
+	 * @param nowNanos
+	 * @param out
+	 * @return false if there are no snapshots of this body
+	 */
+	public boolean sample(int id, long nowNanos, Body out) {
+		SnapshotHistory h = this.histories.get(id);
+		if (h == null || h.size == 0) {
+			return false;
+		}
+
+		long renderTime = nowNanos - this.delayNanos;
+
+		//find the newest snapshot at or before the render time
+		int prev = -1;
+		for (int i = h.size - 1; i >= 0; i--) {
+			if (h.getTime(i) <= renderTime) {
+				prev = i;
+				break;
+			}
+		}
+
+		//render time is older than anything we have
+		if (prev == -1) {
+			h.copyTo(0, out);
+			return true;
+		}
+
+		//interpolate between the two snapshots around the render time
+		if (prev != h.size - 1) {
+			int next = prev + 1;
+			long t0 = h.getTime(prev);
+			long t1 = h.getTime(next);
+			float alpha = (float) (renderTime - t0) / (float) (t1 - t0);
+			h.interpolate(prev, next, alpha, out);
+			return true;
+		}
+
+		//ran out of snapshots, extrapolate for a bit
+		long dt = Math.min(renderTime - h.getTime(prev), this.maxExtrapolationNanos);
+		h.extrapolate(prev, dt / 1000000000f, out);
+		return true;
+	}
+
+}
+
+class SnapshotHistory {
+	//ring buffer, index 0 is the oldest snapshot
+
+	private static final int CAPACITY = 32;
+
+	private long[] times = new long[CAPACITY];
+	private float[] x = new float[CAPACITY];
+	private float[] y = new float[CAPACITY];
+	private float[] vx = new float[CAPACITY];
+	private float[] vy = new float[CAPACITY];
+	private float[] orient = new float[CAPACITY];
+
+	private int start = 0;
+	public int size = 0;
+
+	private int index(int i) {
+		return (this.start + i) % CAPACITY;
+	}
+
+	public long getTime(int i) {
+		return this.times[this.index(i)];
+	}
+
+	public void push(long time, Body b) {
+		int slot;
+		if (this.size != 0 && this.getTime(this.size - 1) >= time) {
+			//same packet burst, the newer state wins
+			slot = this.index(this.size - 1);
+		}
+		else if (this.size == CAPACITY) {
+			slot = this.start;
+			this.start = (this.start + 1) % CAPACITY;
+		}
+		else {
+			slot = this.index(this.size);
+			this.size++;
+		}
+		this.times[slot] = time;
+		this.x[slot] = b.position.x;
+		this.y[slot] = b.position.y;
+		this.vx[slot] = b.velocity.x;
+		this.vy[slot] = b.velocity.y;
+		this.orient[slot] = b.orient;
+	}
+
+	public void copyTo(int i, Body out) {
+		int a = this.index(i);
+		out.position.set(this.x[a], this.y[a]);
+		out.velocity.set(this.vx[a], this.vy[a]);
+		out.setOrient(this.orient[a]);
+	}
+
+	public void interpolate(int i, int j, float alpha, Body out) {
+		int a = this.index(i);
+		int b = this.index(j);
+		out.position.set(this.x[a] + (this.x[b] - this.x[a]) * alpha, this.y[a] + (this.y[b] - this.y[a]) * alpha);
+		out.velocity.set(this.vx[a] + (this.vx[b] - this.vx[a]) * alpha, this.vy[a] + (this.vy[b] - this.vy[a]) * alpha);
+
+		//take the short way around
+		float diff = this.orient[b] - this.orient[a];
+		diff -= (float) (Math.PI * 2 * Math.round(diff / (Math.PI * 2)));
+		out.setOrient(this.orient[a] + diff * alpha);
+	}
+
+	public void extrapolate(int i, float dtSeconds, Body out) {
+		int a = this.index(i);
+		out.position.set(this.x[a] + this.vx[a] * dtSeconds, this.y[a] + this.vy[a] * dtSeconds);
+		out.velocity.set(this.vx[a], this.vy[a]);
+		out.setOrient(this.orient[a]);
+	}
+}
@@ -12,6 +12,7 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.HashSet;
 
+import server.FixedTimestep;
 import server.PacketListener;
 import server.PacketSender;
 
@@ -19,14 +20,17 @@ public abstract class Client implements Runnable {
 
 	public static HashSet<Client> clients = new HashSet<>();
 
-	private boolean isRunning = true;
+	private volatile boolean isRunning = true;
 	private Thread thread;
 
-	private int FPS = 60;
-	private long targetTime = 1000 / FPS;
+	public static final int DEFAULT_TICK_RATE = 60;
+
+	private FixedTimestep timestep;
 
 	private String ip;
 	private int port;
+	private String room; //null if the server isn't a room host
+	private boolean joinedRoom = false;
 
 	private boolean connectedToServer = false;
 	private boolean connectionAttemptFailed = false;
@@ -37,6 +41,7 @@ public abstract class Client implements Runnable {
 	protected int ID; //your client id assigned by the server
 
 	public Client() {
+		this.timestep = new FixedTimestep(DEFAULT_TICK_RATE);
 		this.packetSender = new PacketSender();
 
 		Client.clients.add(this);
@@ -51,26 +56,23 @@ public abstract class Client implements Runnable {
 
 	@Override
 	public void run() {
-		long start, elapsed, wait;
-		while (isRunning) {
-			start = System.nanoTime();
-
-			update();
+		this.timestep.run(() -> this.isRunning, this::update);
+	}
 
-			elapsed = System.nanoTime() - start;
-			wait = targetTime - elapsed / 1000000;
+	/**
+	 * Sets how many times a second the client reads from and writes to the server.
+	 * @param tickRate
+	 */
+	public void setTickRate(int tickRate) {
+		this.timestep.setTickRate(tickRate);
+	}
 
-			if (wait < 0) {
-				wait = 5;
-			}
+	public int getTickRate() {
+		return this.timestep.getTickRate();
+	}
 
-			try {
-				this.thread.sleep(wait);
-			}
-			catch (Exception e) {
-				e.printStackTrace();
-			}
-		}
+	public FixedTimestep getTimestep() {
+		return this.timestep;
 	}
 
 	public abstract void _update();
@@ -103,7 +105,17 @@ public abstract class Client implements Runnable {
 			_update();
 
 			// -- WRITE --
+			//once the server has told us the section ids, we can start using them
+			if (this.packetSender.getSectionRegistry() == null) {
+				this.packetSender.setSectionRegistry(this.packetListener.getSectionRegistry());
+			}
 			try {
+				//a room host routes us by the first section we send
+				if (this.room != null && !this.joinedRoom) {
+					this.packetSender.startSection("join_room");
+					this.packetSender.write(this.room);
+					this.joinedRoom = true;
+				}
 				this.writePacket(this.packetSender);
 				this.packetSender.flush(this.socket);
 			}
@@ -120,8 +132,21 @@ public abstract class Client implements Runnable {
 	public abstract void readSection(PacketListener packetListener) throws IOException;
 
 	public boolean connect(String ip, int port) {
+		return this.connect(ip, port, null);
+	}
+
+	/**
+	 * Connects to a server. If room isn't null, the server is expected to be a room host, and we ask it to join the room.
+	 * @param ip
+	 * @param port
+	 * @param room
+	 * @return
+	 */
+	public boolean connect(String ip, int port, String room) {
 		this.ip = ip;
 		this.port = port;
+		this.room = room;
+		this.joinedRoom = false;
 		this.connectionAttemptFailed = false;
 		try {
 			this.socket = new Socket(this.ip, this.port);
@@ -153,6 +178,9 @@ public abstract class Client implements Runnable {
 		if (this.packetListener != null) {
 			this.packetListener.exit();
 		}
+
+		//the next server might use different section ids
+		this.packetSender.setSectionRegistry(null);
 	}
 
 	public boolean isConnected() {
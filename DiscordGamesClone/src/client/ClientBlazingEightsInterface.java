@@ -4,9 +4,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import game.BlazingEightsGame;
 import server.PacketListener;
 import server.PacketSender;
-import state.BlazingEightsState;
 
 public class ClientBlazingEightsInterface extends ClientGameInterface {
 
@@ -85,12 +85,12 @@ public class ClientBlazingEightsInterface extends ClientGameInterface {
 			this.blazingEightsMoveIndex = packetListener.readInt();
 
 			switch (this.blazingEightsMoveType) {
-			case BlazingEightsState.MOVE_PLAY: {
+			case BlazingEightsGame.MOVE_PLAY: {
 				this.blazingEightsCardAmt.put(this.blazingEightsMovePlayer, this.blazingEightsCardAmt.get(this.blazingEightsMovePlayer) - 1);
 				break;
 			}
 
-			case BlazingEightsState.MOVE_DRAW: {
+			case BlazingEightsGame.MOVE_DRAW: {
 				this.blazingEightsCardAmt.put(this.blazingEightsMovePlayer, this.blazingEightsCardAmt.get(this.blazingEightsMovePlayer) + this.blazingEightsMoveValue);
 				break;
 			}
@@ -16,6 +16,7 @@ public class ClientChessInterface extends ClientGameInterface {
 	private int chessCurGameID = -1;
 	private boolean chessIsSpectating = false;
 	private boolean chessCreateGame = false;
+	private boolean chessCreateComputerGame = false;
 
 	private boolean chessJoinGame = false;
 	private int chessJoinWhichGame = -1;
@@ -46,6 +47,11 @@ public class ClientChessInterface extends ClientGameInterface {
 			this.chessCreateGame = false;
 		}
 
+		if (this.chessCreateComputerGame) {
+			packetSender.startSection("chess_create_computer_game");
+			this.chessCreateComputerGame = false;
+		}
+
 		if (this.chessJoinGame) {
 			packetSender.startSection("chess_join_game");
 			packetSender.write(this.chessJoinWhichGame);
@@ -130,13 +136,15 @@ public class ClientChessInterface extends ClientGameInterface {
 			for (int i = 0; i < elementAmt; i++) {
 				int whichGame = packetListener.readInt();
 				int playerID = packetListener.readInt();
-				int[] from = packetListener.readNInts(2);
-				int[] to = packetListener.readNInts(2);
+				int move = packetListener.readInt();
 
 				if (playerID != this.client.getID()) {
 					ChessGame game = this.chessGames.get(whichGame);
+					if (game == null) {
+						continue;
+					}
 					//this should always work, client and server desync if this didn't work
-					game.performMove(from, to);
+					game.performMove(move);
 
 					if (whichGame == this.chessCurGameID) {
 						this.chessCurGameHasMoveUpdate = true;
@@ -154,6 +162,7 @@ public class ClientChessInterface extends ClientGameInterface {
 		chessCurGameID = -1;
 		chessIsSpectating = false;
 		chessCreateGame = false;
+		chessCreateComputerGame = false;
 
 		chessJoinGame = false;
 		chessJoinWhichGame = -1;
@@ -228,4 +237,9 @@ public class ClientChessInterface extends ClientGameInterface {
 		this.chessCreateGame = true;
 	}
 
+	//same as chessCreateGame, but the server plays black
+	public void chessCreateComputerGame() {
+		this.chessCreateComputerGame = true;
+	}
+
 }
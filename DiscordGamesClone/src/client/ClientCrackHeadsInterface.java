@@ -7,14 +7,17 @@ import java.util.HashSet;
 
 import server.PacketListener;
 import server.PacketSender;
+import server.StrokeCodec;
+import server.StrokeCodec.Stroke;
 import util.Pair;
 import util.Quad;
 import util.Vec2;
 
 public class ClientCrackHeadsInterface extends ClientGameInterface {
 
-	private ArrayList<Quad<Vec2, Vec2, Float, Integer>> crackHeadsOutgoingLines; //a, b, size, color index
-	private ArrayList<Quad<Vec2, Vec2, Float, Integer>> crackHeadsIncomingLines;
+	//lines drawn since the last packet, joined into strokes
+	private ArrayList<Stroke> crackHeadsOutgoingStrokes;
+	private ArrayList<Quad<Vec2, Vec2, Float, Integer>> crackHeadsIncomingLines; //a, b, size, color index
 
 	private ArrayList<Pair<Integer, String>> crackHeadsIncomingGuesses;
 
@@ -47,7 +50,7 @@ public class ClientCrackHeadsInterface extends ClientGameInterface {
 	public ClientCrackHeadsInterface(GameClient client) {
 		super(client);
 
-		this.crackHeadsOutgoingLines = new ArrayList<>();
+		this.crackHeadsOutgoingStrokes = new ArrayList<>();
 		this.crackHeadsIncomingLines = new ArrayList<>();
 		this.crackHeadsIncomingGuesses = new ArrayList<>();
 	}
@@ -60,17 +63,10 @@ public class ClientCrackHeadsInterface extends ClientGameInterface {
 
 	@Override
 	public void writePacket(PacketSender packetSender) {
-		if (this.crackHeadsOutgoingLines.size() != 0) {
-			packetSender.startSection("crack_heads_draw_line");
-			packetSender.write(this.crackHeadsOutgoingLines.size());
-			for (int ind = 0; ind < this.crackHeadsOutgoingLines.size(); ind++) {
-				Quad<Vec2, Vec2, Float, Integer> i = this.crackHeadsOutgoingLines.get(ind);
-				packetSender.write(i.first);
-				packetSender.write(i.second);
-				packetSender.write(i.third);
-				packetSender.write(i.fourth);
-			}
-			this.crackHeadsOutgoingLines.clear();
+		if (this.crackHeadsOutgoingStrokes.size() != 0) {
+			packetSender.startSection("crack_heads_draw_stroke");
+			StrokeCodec.write(packetSender, this.crackHeadsOutgoingStrokes);
+			this.crackHeadsOutgoingStrokes.clear();
 		}
 
 		if (this.crackHeadsGuess != null) {
@@ -104,14 +100,9 @@ public class ClientCrackHeadsInterface extends ClientGameInterface {
 	@Override
 	public void readSection(PacketListener packetListener) throws IOException {
 		switch (packetListener.getSectionName()) {
-		case "crack_heads_draw_line": {
-			int amt = packetListener.readInt();
-			for (int i = 0; i < amt; i++) {
-				Vec2 a = packetListener.readVec2();
-				Vec2 b = packetListener.readVec2();
-				float size = packetListener.readFloat();
-				int colorIndex = packetListener.readInt();
-				this.crackHeadsIncomingLines.add(new Quad<Vec2, Vec2, Float, Integer>(a, b, size, colorIndex));
+		case "crack_heads_draw_stroke": {
+			for (Stroke stroke : StrokeCodec.read(packetListener)) {
+				stroke.toLines(this.crackHeadsIncomingLines);
 			}
 			break;
 		}
@@ -193,7 +184,7 @@ public class ClientCrackHeadsInterface extends ClientGameInterface {
 
 	public void resetCrackHeadsGameInfo() {
 		this.crackHeadsIncomingLines.clear();
-		this.crackHeadsOutgoingLines.clear();
+		this.crackHeadsOutgoingStrokes.clear();
 	}
 
 	public HashMap<Integer, Integer> crackHeadsGetCrackLevels() {
@@ -311,6 +302,6 @@ public class ClientCrackHeadsInterface extends ClientGameInterface {
 	}
 
 	public void crackHeadsDrawLine(Vec2 a, Vec2 b, float size, int colorIndex) {
-		this.crackHeadsOutgoingLines.add(new Quad<Vec2, Vec2, Float, Integer>(a, b, size, colorIndex));
+		StrokeCodec.addLine(this.crackHeadsOutgoingStrokes, a, b, size, colorIndex);
 	}
 }
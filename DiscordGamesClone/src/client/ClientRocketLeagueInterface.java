@@ -7,6 +7,7 @@ import java.util.HashSet;
 
 import impulse2d.Body;
 import impulse2d.Circle;
+import server.BodySnapshotCodec;
 import server.PacketListener;
 import server.PacketSender;
 import util.Pair;
@@ -15,8 +16,18 @@ import util.Vec3;
 
 public class ClientRocketLeagueInterface extends ClientGameInterface {
 
+	private static final long KEYFRAME_REQUEST_RETRY_MILLIS = 1000;
+
 	//each peg will belong to one player, and have a type. The type of the peg determines its mass. 
 	private HashMap<Integer, Body> pegs;
+	private BodySnapshotCodec pegSnapshotCodec;
+	private long lastKeyframeRequestMillis = 0;
+
+	//the state of the pegs as of the latest packet. Every packet is recorded into the interpolator, 
+	//and the pegs that get rendered are sampled from it a little bit in the past. 
+	private HashMap<Integer, Body> serverPegs;
+	private BodyInterpolator pegInterpolator;
+	private long pendingSnapshotTime = -1;
 
 	private HashMap<Integer, Integer> pegToPlayer;
 	private HashMap<Integer, Integer> pegTypes;
@@ -59,6 +70,9 @@ public class ClientRocketLeagueInterface extends ClientGameInterface {
 		super(client);
 
 		this.pegs = new HashMap<>();
+		this.pegSnapshotCodec = new BodySnapshotCodec();
+		this.serverPegs = new HashMap<>();
+		this.pegInterpolator = new BodyInterpolator();
 
 		this.pegToPlayer = new HashMap<>();
 		this.pegTypes = new HashMap<>();
@@ -79,11 +93,29 @@ public class ClientRocketLeagueInterface extends ClientGameInterface {
 
 	@Override
 	public void update() {
+		//all sections read this tick have been applied
+		this.recordPendingSnapshot();
+	}
 
+	//records the state of the pegs as of the last packet that was fully read
+	private synchronized void recordPendingSnapshot() {
+		if (this.pendingSnapshotTime == -1) {
+			return;
+		}
+		for (int pegID : this.serverPegs.keySet()) {
+			this.pegInterpolator.push(pegID, this.pendingSnapshotTime, this.serverPegs.get(pegID));
+		}
+		this.pendingSnapshotTime = -1;
 	}
 
 	@Override
 	public void writePacket(PacketSender packetSender) {
+		//the request itself can be dropped too, so it's sent again if no keyframe shows up for a while
+		if (this.pegSnapshotCodec.needsKeyframe() && System.currentTimeMillis() - this.lastKeyframeRequestMillis > KEYFRAME_REQUEST_RETRY_MILLIS) {
+			packetSender.startSection("rocket_league_request_keyframe");
+			this.lastKeyframeRequestMillis = System.currentTimeMillis();
+		}
+
 		if (this.writeLaunch) {
 			packetSender.startSection("rocket_league_write_launch");
 			packetSender.write(this.launchPegID);
@@ -98,9 +130,18 @@ public class ClientRocketLeagueInterface extends ClientGameInterface {
 		}
 	}
 
+	//synchronized, since sections add and remove pegs, and change the maps that the render thread reads through the
+	//synchronized getters and interpolatePegs. Reading a section never blocks, so the render thread doesn't wait long
 	@Override
-	public void readSection(PacketListener packetListener) throws IOException {
+	public synchronized void readSection(PacketListener packetListener) throws IOException {
 		switch (packetListener.getSectionName()) {
+		case "_base_server_": {
+			//start of a new packet, so the previous one is done
+			this.recordPendingSnapshot();
+			this.pendingSnapshotTime = packetListener.getSectionReceiveTime();
+			break;
+		}
+
 		case "rocket_league_start_game": {
 			this.teamRedScore = 0;
 			this.teamBlueScore = 0;
@@ -139,8 +180,8 @@ public class ClientRocketLeagueInterface extends ClientGameInterface {
 				int pegType = packetListener.readInt();
 				int playerID = packetListener.readInt();
 
-				Body b = new Body(new Circle(1f), 0, 0);
-				this.pegs.put(pegID, b);
+				this.pegs.put(pegID, new Body(new Circle(1f), 0, 0));
+				this.serverPegs.put(pegID, new Body(new Circle(1f), 0, 0));
 				this.pegToPlayer.put(pegID, playerID);
 				this.pegTypes.put(pegID, pegType);
 				this.addedPegs.add(pegID);
@@ -154,6 +195,9 @@ public class ClientRocketLeagueInterface extends ClientGameInterface {
 				int pegID = packetListener.readInt();
 
 				this.pegs.remove(pegID);
+				this.serverPegs.remove(pegID);
+				this.pegSnapshotCodec.remove(pegID);
+				this.pegInterpolator.remove(pegID);
 				this.pegToPlayer.remove(pegID);
 				this.pegTypes.remove(pegID);
 				this.removedPegs.add(pegID);
@@ -221,18 +265,7 @@ public class ClientRocketLeagueInterface extends ClientGameInterface {
 		}
 
 		case "rocket_league_peg_info": {
-			int amt = packetListener.readInt();
-			for (int i = 0; i < amt; i++) {
-				int pegID = packetListener.readInt();
-				Vec2 position = packetListener.readVec2();
-				Vec2 velocity = packetListener.readVec2();
-				float orient = packetListener.readFloat();
-
-				Body b = this.pegs.get(pegID);
-				b.setOrient(orient);
-				b.setPosition(position);
-				b.setVelocity(velocity);
-			}
+			this.pegSnapshotCodec.read(packetListener, this.serverPegs);
 			break;
 		}
 
@@ -343,6 +376,25 @@ public class ClientRocketLeagueInterface extends ClientGameInterface {
 		this.launchStillDragging = stillDragging;
 	}
 
+	/**
+	 * Moves the pegs returned by {@link #getPegs()} to where they should be rendered right now. 
+	 * Should be called once per frame before reading the pegs. 
+	 */
+	public synchronized void interpolatePegs() {
+		long now = System.nanoTime();
+		for (int pegID : this.pegs.keySet()) {
+			this.pegInterpolator.sample(pegID, now, this.pegs.get(pegID));
+		}
+	}
+
+	/**
+	 * How far in the past the pegs are rendered. Larger delays hide more network jitter, but make the game feel less responsive. 
+	 * @param millis
+	 */
+	public synchronized void setInterpolationDelayMillis(long millis) {
+		this.pegInterpolator.setDelayMillis(millis);
+	}
+
 	public synchronized HashMap<Integer, Body> getPegs() {
 		return this.pegs;
 	}
@@ -15,6 +15,8 @@ public class ClientScrabbleInterface extends ClientGameInterface {
 
 	private boolean scrabbleStartGame = false;
 	private int scrabbleStartGameRoundAmt = 0;
+	private int scrabbleStartGameComputerAmt = 0;
+	private int scrabbleStartGameComputerStrength = 0;
 	private boolean scrabbleIsGameStarting = false;
 	private boolean scrabbleIsGameEnding = false;
 
@@ -62,7 +64,10 @@ public class ClientScrabbleInterface extends ClientGameInterface {
 		if (this.scrabbleStartGame) {
 			packetSender.startSection("scrabble_start_game");
 			packetSender.write(this.scrabbleStartGameRoundAmt);
+			packetSender.write(this.scrabbleStartGameComputerAmt);
+			packetSender.write(this.scrabbleStartGameComputerStrength);
 			this.scrabbleStartGameRoundAmt = 0;
+			this.scrabbleStartGameComputerAmt = 0;
 			this.scrabbleStartGame = false;
 		}
 
@@ -201,11 +206,23 @@ public class ClientScrabbleInterface extends ClientGameInterface {
 	}
 
 	public void scrabbleStartGame(int roundAmt) {
+		this.scrabbleStartGame(roundAmt, 0, 0);
+	}
+
+	/**
+	 * Starts the game with computer players seated after everyone in the lobby.
+	 * @param roundAmt
+	 * @param computerAmt
+	 * @param computerStrength one of the ScrabbleComputer strengths
+	 */
+	public void scrabbleStartGame(int roundAmt, int computerAmt, int computerStrength) {
 		if (!this.client.isHost()) {
 			return;
 		}
 		this.scrabbleStartGame = true;
 		this.scrabbleStartGameRoundAmt = roundAmt;
+		this.scrabbleStartGameComputerAmt = computerAmt;
+		this.scrabbleStartGameComputerStrength = computerStrength;
 	}
 
 	public boolean scrabbleMakeMove(ArrayList<Pair<int[], Character>> move) {
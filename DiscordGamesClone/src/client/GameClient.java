@@ -51,7 +51,9 @@ public class GameClient extends Client {
 
 	@Override
 	public void _update() {
-
+		if (this.curGame != GameServer.LOBBY) {
+			this.gameInterface.update();
+		}
 	}
 
 	@Override
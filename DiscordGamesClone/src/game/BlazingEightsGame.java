@@ -0,0 +1,65 @@
+package game;
+
+public class BlazingEightsGame {
+
+	//card types and rules that both the server and the clients need.
+
+	//a card type is a single int, suit * NR_VALUES + value.
+
+	public static final int SUIT_DIAMOND = 0;
+	public static final int SUIT_CLUB = 1;
+	public static final int SUIT_HEART = 2;
+	public static final int SUIT_SPADE = 3;
+
+	public static final int VALUE_ACE = 0;
+	public static final int VALUE_TWO = 1;
+	public static final int VALUE_THREE = 2;
+	public static final int VALUE_FOUR = 3;
+	public static final int VALUE_FIVE = 4;
+	public static final int VALUE_SIX = 5;
+	public static final int VALUE_SEVEN = 6;
+	public static final int VALUE_EIGHT = 7;
+	public static final int VALUE_NINE = 8;
+	public static final int VALUE_TEN = 9;
+	public static final int VALUE_SKIP = 10;
+	public static final int VALUE_REVERSE = 11;
+	public static final int VALUE_ADDTWO = 12;
+	public static final int VALUE_ADDTWOHUNDRED = 13;
+	public static final int VALUE_WILDCARD = 14;
+	public static final int VALUE_WILDCARDADDFOUR = 15;
+
+	public static final int NR_SUITS = 4;
+	public static final int NR_VALUES = 16;
+	public static final int NR_CARDS = NR_SUITS * NR_VALUES;
+
+	public static final int MOVE_PLAY = 0;
+	public static final int MOVE_DRAW = 1;
+
+	public static final int CARD_AMT_LIMIT = 200;
+
+	//suit major card sorting. 
+	public static int getCardType(int suit, int value) {
+		return suit * NR_VALUES + value;
+	}
+
+	public static int[] getCardSuitAndValue(int type) {
+		return new int[] { type / NR_VALUES, type % NR_VALUES };
+	}
+
+	public static int generateRandomCardType() {
+		if (Math.random() < 0.001) {
+			return getCardType((int) (Math.random() * NR_SUITS), VALUE_ADDTWOHUNDRED);
+		}
+		int type = -1;
+		while (type == -1 || getCardSuitAndValue(type)[1] == VALUE_ADDTWOHUNDRED) {
+			type = (int) (Math.random() * NR_CARDS);
+		}
+		return type;
+	}
+
+	public static boolean isWildcard(int type) {
+		int value = getCardSuitAndValue(type)[1];
+		return value == VALUE_WILDCARD || value == VALUE_WILDCARDADDFOUR;
+	}
+
+}
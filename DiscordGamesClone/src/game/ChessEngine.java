@@ -0,0 +1,404 @@
+package game;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChessEngine {
+
+	//iterative deepening negamax with alpha beta pruning.
+
+	//each iteration searches one ply deeper than the last, and the best move from the last iteration is searched first.
+	//this way there is always a best move ready when the time runs out, and the earlier iterations are cheap compared to the last one.
+
+	//at the leaves, a quiescence search keeps looking at captures until the position is quiet, so that the evaluation
+	//doesn't stop in the middle of a trade.
+
+	//results are stored in a transposition table by zobrist key, so positions reached through different move orders,
+	//or searched in an earlier iteration, don't have to be searched again, and their best move can be tried first.
+	//the table is shared by every engine by default.
+
+	//quiet moves that caused a cutoff are remembered per ply as killer moves, and tried right after captures in sibling
+	//positions, since the same refutation often works there too.
+
+	//a position that has come up before is scored as a draw.
+
+	//under these rules, running out of legal moves loses the game, even if you aren't in check.
+
+	public static final int MATE_SCORE = 1000000;
+	private static final int INFINITY = MATE_SCORE + 1;
+
+	//anything above this is a forced mate
+	private static final int MATE_THRESHOLD = MATE_SCORE - 1000;
+
+	private static final int MAX_PLY = 128;
+
+	//how often to check the clock
+	private static final int TIME_CHECK_INTERVAL = 1024;
+
+	//for move ordering
+	private static final int[] PIECE_ORDER_VALUES = { 0, 100, 300, 300, 500, 900, 1200 };
+
+	private static final int DEFAULT_TABLE_SIZE_MEGABYTES = 32;
+	private static final TranspositionTable sharedTable = new TranspositionTable(DEFAULT_TABLE_SIZE_MEGABYTES);
+
+	//searches are run on a few daemon threads shared by every server, so that they don't hold up the server tick.
+	private static final ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+		private final AtomicInteger threadCnt = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "ChessEngine-" + this.threadCnt.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private ChessPosition position;
+	private TranspositionTable table;
+
+	private int maxDepth = 64;
+	private long deadline;
+	private volatile boolean stopped = false;
+	private boolean timeUp = false;
+	private long nodes = 0;
+
+	private int[][] moveBuffers;
+	private int[][] scoreBuffers;
+	private int[][] killers;
+
+	private int completedDepth = 0;
+	private int bestScore = 0;
+
+	public ChessEngine() {
+		this(sharedTable);
+	}
+
+	public ChessEngine(TranspositionTable table) {
+		this.table = table;
+		this.moveBuffers = new int[MAX_PLY][ChessPosition.MAX_MOVES];
+		this.scoreBuffers = new int[MAX_PLY][ChessPosition.MAX_MOVES];
+		this.killers = new int[MAX_PLY][2];
+	}
+
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = Math.min(maxDepth, MAX_PLY - 1);
+	}
+
+	/**
+	 * Stops the current search as soon as possible. The best move found so far is still returned.
+	 */
+	public void stop() {
+		this.stopped = true;
+	}
+
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	public int getCompletedDepth() {
+		return this.completedDepth;
+	}
+
+	/**
+	 * Score of the best move from the side to move's point of view, in hundredths of a pawn.
+	 * @return
+	 */
+	public int getBestScore() {
+		return this.bestScore;
+	}
+
+	/**
+	 * Searches a copy of the position on one of the worker threads.
+	 * @param position
+	 * @param timeMillis
+	 * @return the best move, or ChessMove.NONE if there are no legal moves
+	 */
+	public static Future<Integer> searchAsync(ChessPosition position, long timeMillis) {
+		ChessPosition copy = new ChessPosition(position);
+		return workers.submit(() -> new ChessEngine().search(copy, timeMillis));
+	}
+
+	/**
+	 * Finds the best move for the side to move. The position is searched in place, and is back to how it was when this returns.
+	 * @param position
+	 * @param timeMillis
+	 * @return the best move, or ChessMove.NONE if there are no legal moves
+	 */
+	public int search(ChessPosition position, long timeMillis) {
+		this.position = position;
+		this.deadline = System.nanoTime() + timeMillis * 1000000L;
+		this.stopped = false;
+		this.timeUp = false;
+		this.nodes = 0;
+		this.completedDepth = 0;
+		this.table.newSearch();
+		for (int[] k : this.killers) {
+			k[0] = ChessMove.NONE;
+			k[1] = ChessMove.NONE;
+		}
+
+		int[] rootMoves = this.moveBuffers[0];
+		int rootCnt = position.generateLegalMoves(rootMoves);
+		if (rootCnt == 0) {
+			return ChessMove.NONE;
+		}
+		this.orderMoves(rootMoves, this.scoreBuffers[0], rootCnt, 0, TranspositionTable.getMove(this.table.probe(position.getHash())));
+
+		int bestMove = rootMoves[0];
+		for (int depth = 1; depth <= this.maxDepth; depth++) {
+			int alpha = -INFINITY;
+			int iterationBest = ChessMove.NONE;
+			for (int i = 0; i < rootCnt; i++) {
+				position.makeMove(rootMoves[i]);
+				int score = -this.negamax(depth - 1, -INFINITY, -alpha, 1);
+				position.unmakeMove();
+				if (this.timeUp) {
+					break;
+				}
+				if (score > alpha) {
+					alpha = score;
+					iterationBest = rootMoves[i];
+				}
+			}
+
+			//the best move from last iteration is always searched first, so even a partial iteration can only improve on it
+			if (iterationBest != ChessMove.NONE) {
+				bestMove = iterationBest;
+				this.bestScore = alpha;
+			}
+			if (this.timeUp) {
+				break;
+			}
+			this.completedDepth = depth;
+			this.table.store(position.getHash(), bestMove, depth, TranspositionTable.BOUND_EXACT, scoreToTable(alpha, 0));
+
+			//move the best move to the front for the next iteration
+			for (int i = 0; i < rootCnt; i++) {
+				if (rootMoves[i] == bestMove) {
+					System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+					rootMoves[0] = bestMove;
+					break;
+				}
+			}
+
+			if (Math.abs(alpha) >= MATE_THRESHOLD) {
+				break;
+			}
+		}
+
+		return bestMove;
+	}
+
+	private boolean checkTime() {
+		if ((++this.nodes & (TIME_CHECK_INTERVAL - 1)) == 0) {
+			if (this.stopped || System.nanoTime() > this.deadline) {
+				this.timeUp = true;
+			}
+		}
+		return this.timeUp;
+	}
+
+	private int negamax(int depth, int alpha, int beta, int ply) {
+		if (this.checkTime()) {
+			return 0;
+		}
+		if (this.position.isRepetition()) {
+			return 0;
+		}
+		if (depth <= 0 || ply >= MAX_PLY - 1) {
+			return this.quiescence(alpha, beta, ply);
+		}
+
+		long key = this.position.getHash();
+		long entry = this.table.probe(key);
+		int tableMove = ChessMove.NONE;
+		if (entry != 0) {
+			tableMove = TranspositionTable.getMove(entry);
+			if (TranspositionTable.getDepth(entry) >= depth) {
+				int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+				switch (TranspositionTable.getBound(entry)) {
+				case TranspositionTable.BOUND_EXACT:
+					return Math.max(alpha, Math.min(beta, score));
+				case TranspositionTable.BOUND_LOWER:
+					if (score >= beta) {
+						return beta;
+					}
+					break;
+				case TranspositionTable.BOUND_UPPER:
+					if (score <= alpha) {
+						return alpha;
+					}
+					break;
+				}
+			}
+		}
+
+		int[] moves = this.moveBuffers[ply];
+		int cnt = this.position.generateLegalMoves(moves);
+		if (cnt == 0) {
+			//prefer faster mates
+			return -MATE_SCORE + ply;
+		}
+		this.orderMoves(moves, this.scoreBuffers[ply], cnt, ply, tableMove);
+
+		int originalAlpha = alpha;
+		int bestMove = ChessMove.NONE;
+		for (int i = 0; i < cnt; i++) {
+			this.position.makeMove(moves[i]);
+			int score = -this.negamax(depth - 1, -beta, -alpha, ply + 1);
+			this.position.unmakeMove();
+			if (this.timeUp) {
+				return 0;
+			}
+			if (score >= beta) {
+				if (!this.position.isCapture(moves[i])) {
+					this.addKiller(ply, moves[i]);
+				}
+				this.table.store(key, moves[i], depth, TranspositionTable.BOUND_LOWER, scoreToTable(beta, ply));
+				return beta;
+			}
+			if (score > alpha) {
+				alpha = score;
+				bestMove = moves[i];
+			}
+		}
+
+		if (alpha > originalAlpha) {
+			this.table.store(key, bestMove, depth, TranspositionTable.BOUND_EXACT, scoreToTable(alpha, ply));
+		}
+		else {
+			this.table.store(key, ChessMove.NONE, depth, TranspositionTable.BOUND_UPPER, scoreToTable(alpha, ply));
+		}
+		return alpha;
+	}
+
+	//mate scores are stored as distance from the stored position rather than from the root,
+	//since the same position can be reached at different plies
+	private static int scoreToTable(int score, int ply) {
+		if (score >= MATE_THRESHOLD) {
+			return score + ply;
+		}
+		if (score <= -MATE_THRESHOLD) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int scoreFromTable(int score, int ply) {
+		if (score >= MATE_THRESHOLD) {
+			return score - ply;
+		}
+		if (score <= -MATE_THRESHOLD) {
+			return score + ply;
+		}
+		return score;
+	}
+
+	//only looks at captures and promotions, and assumes that the side to move can choose to stop capturing
+	private int quiescence(int alpha, int beta, int ply) {
+		if (this.checkTime()) {
+			return 0;
+		}
+
+		int[] moves = this.moveBuffers[ply];
+		int cnt = this.position.generateLegalMoves(moves);
+		if (cnt == 0) {
+			return -MATE_SCORE + ply;
+		}
+
+		int standPat = this.evaluate();
+		if (standPat >= beta || ply >= MAX_PLY - 1) {
+			return standPat;
+		}
+		if (standPat > alpha) {
+			alpha = standPat;
+		}
+
+		int tacticalCnt = 0;
+		for (int i = 0; i < cnt; i++) {
+			int move = moves[i];
+			if (this.position.isCapture(move) || ChessMove.getPromotion(move) != 0) {
+				moves[tacticalCnt++] = move;
+			}
+		}
+		this.orderMoves(moves, this.scoreBuffers[ply], tacticalCnt, ply, ChessMove.NONE);
+
+		for (int i = 0; i < tacticalCnt; i++) {
+			this.position.makeMove(moves[i]);
+			int score = -this.quiescence(-beta, -alpha, ply + 1);
+			this.position.unmakeMove();
+			if (this.timeUp) {
+				return 0;
+			}
+			if (score >= beta) {
+				return beta;
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+		}
+		return alpha;
+	}
+
+	//score from the side to move's point of view
+	private int evaluate() {
+		int score = this.position.evaluate() / 10;
+		return this.position.whiteMove ? score : -score;
+	}
+
+	private void addKiller(int ply, int move) {
+		int[] k = this.killers[ply];
+		if (k[0] != move) {
+			k[1] = k[0];
+			k[0] = move;
+		}
+	}
+
+	//sorts the moves so that the ones most likely to be good come first: the given best move, then captures of
+	//valuable pieces by cheap ones, then promotions, then killer moves, then everything else
+	private void orderMoves(int[] moves, int[] scores, int cnt, int ply, int bestMove) {
+		int[] k = this.killers[ply];
+		for (int i = 0; i < cnt; i++) {
+			int move = moves[i];
+			int score = 0;
+			if (move == bestMove) {
+				score = 1 << 20;
+			}
+			else {
+				int victim = Math.abs(this.position.getPiece(ChessMove.getTo(move)));
+				if (victim == 0 && this.position.isCapture(move)) {
+					victim = ChessPosition.PAWN; //en passant
+				}
+				if (victim != 0) {
+					int attacker = Math.abs(this.position.getPiece(ChessMove.getFrom(move)));
+					score = 10000 + PIECE_ORDER_VALUES[victim] * 10 - PIECE_ORDER_VALUES[attacker];
+				}
+				if (ChessMove.getPromotion(move) != 0) {
+					score += 9000;
+				}
+				if (score == 0 && (move == k[0] || move == k[1])) {
+					score = 5000;
+				}
+			}
+			scores[i] = score;
+		}
+
+		//insertion sort, move lists are short
+		for (int i = 1; i < cnt; i++) {
+			int move = moves[i];
+			int score = scores[i];
+			int j = i - 1;
+			while (j >= 0 && scores[j] < score) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+		}
+	}
+
+}
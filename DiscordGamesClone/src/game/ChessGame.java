@@ -1,32 +1,52 @@
 package game;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Stack;
 
 public class ChessGame {
 
-	private static HashMap<Integer, ChessGame> chessGames = new HashMap<>();
-
-	private int gameID;
+	//ids are handed out by whoever keeps track of the games, like the server's chess interface. -1 until then
+	private int gameID = -1;
 	private int whiteID, blackID;
 
 	private HashSet<Integer> spectators;
 
-	private Stack<ChessPosition> positions;
-	private Stack<int[][]> moves;
+	public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	//every this many plies, the position is saved as FEN, so that older positions can be rebuilt by replaying
+	//at most this many moves
+	private static final int CHECKPOINT_INTERVAL = 32;
+
+	//moves are made in place, the position keeps its own undo stack
+	private ChessPosition position;
+
+	//history is kept as 16 bit moves (see ChessMove), so a long game is still well under a kilobyte
+	private short[] history;
+	private int historySize;
+
+	//checkpoints.get(i) is the position after i * CHECKPOINT_INTERVAL plies
+	private ArrayList<String> checkpoints;
 
 	public ChessGame() {
-		this.positions = new Stack<>();
-		this.positions.add(new ChessPosition());
+		this(START_FEN);
+	}
 
-		this.moves = new Stack<>();
+	/**
+	 * Starts a game from the position described by the FEN string.
+	 * @param fen
+	 * @throws IllegalArgumentException if the string isn't valid FEN
+	 */
+	public ChessGame(String fen) {
+		this.position = new ChessPosition(fen);
 
-		this.spectators = new HashSet<>();
+		this.history = new short[64];
+		this.historySize = 0;
+		this.checkpoints = new ArrayList<>();
+		this.checkpoints.add(this.position.toFEN());
 
-		this.gameID = generateNewID();
-		chessGames.put(this.gameID, this);
+		this.spectators = new HashSet<>();
 
 		this.whiteID = -1;
 		this.blackID = -1;
@@ -56,40 +76,278 @@ public class ChessGame {
 		return this.blackID;
 	}
 
-	private static int generateNewID() {
-		int newID = -1;
-		while (newID == -1 || chessGames.containsKey(newID)) {
-			newID = (int) (Math.random() * 1000000.0);
-		}
-		return newID;
-	}
-
-	public void kill() {
-		chessGames.remove(this.gameID);
-	}
-
 	public ChessPosition getCurPosition() {
-		return this.positions.peek();
+		return this.position;
 	}
 
 	public int[][] getPrevMove() {
-		if (this.moves.size() == 0) {
+		if (this.historySize == 0) {
 			return null;
 		}
-		return this.moves.peek();
+		int move = this.getMove(this.historySize - 1);
+		int from = ChessMove.getFrom(move);
+		int to = ChessMove.getTo(move);
+		return new int[][] { { ChessMove.getRow(from), ChessMove.getColumn(from) }, { ChessMove.getRow(to), ChessMove.getColumn(to) } };
 	}
 
 	public boolean performMove(int[] from, int[] to) {
-		ChessPosition nextPosition = new ChessPosition(this.getCurPosition());
-		if (!nextPosition.move(from, to)) {
+		if (!this.position.move(from, to)) {
 			System.out.println("INVALID MOVE " + from[0] + " " + from[1] + " " + to[0] + " " + to[1]);
 			return false;
 		}
-		this.positions.push(nextPosition);
-		this.moves.push(new int[][] { from, to });
+		this.addToHistory(this.position.getLastMove());
 		return true;
 	}
 
+	/**
+	 * Same as {@link #performMove(int[], int[])}, but takes a packed move.
+	 * @param move
+	 * @return
+	 */
+	public boolean performMove(int move) {
+		if (!this.position.move(move)) {
+			System.out.println("INVALID MOVE " + ChessMove.toString(move));
+			return false;
+		}
+		this.addToHistory(move);
+		return true;
+	}
+
+	private void addToHistory(int move) {
+		if (this.historySize == this.history.length) {
+			this.history = Arrays.copyOf(this.history, this.historySize * 2);
+		}
+		this.history[this.historySize++] = (short) move;
+		if (this.historySize % CHECKPOINT_INTERVAL == 0) {
+			this.checkpoints.add(this.position.toFEN());
+		}
+	}
+
+	/**
+	 * Returns the amount of plies that have been played in this game.
+	 * @return
+	 */
+	public int getMoveCount() {
+		return this.historySize;
+	}
+
+	/**
+	 * Returns the packed move (see ChessMove) played at the given ply.
+	 * @param ply
+	 * @return
+	 */
+	public int getMove(int ply) {
+		return this.history[ply] & 0xFFFF;
+	}
+
+	/**
+	 * Rebuilds the position after the given amount of plies, starting from the closest checkpoint before it.
+	 * @param ply
+	 * @return a new position, changes to it don't affect this game
+	 */
+	public ChessPosition getPositionAt(int ply) {
+		if (ply < 0 || ply > this.historySize) {
+			throw new IndexOutOfBoundsException("Ply " + ply + " out of range, game has " + this.historySize + " plies");
+		}
+		if (ply == this.historySize) {
+			return new ChessPosition(this.position);
+		}
+		int checkpoint = ply / CHECKPOINT_INTERVAL;
+		ChessPosition p = new ChessPosition(this.checkpoints.get(checkpoint));
+		for (int i = checkpoint * CHECKPOINT_INTERVAL; i < ply; i++) {
+			p.move(this.getMove(i));
+		}
+		return p;
+	}
+
+	public String getStartFEN() {
+		return this.checkpoints.get(0);
+	}
+
+	/**
+	 * Returns the PGN result of the game: "1-0", "0-1", "1/2-1/2", or "*" if it's still going.
+	 * @return
+	 */
+	public String getResult() {
+		if (this.position.whiteWin) {
+			return "1-0";
+		}
+		if (this.position.blackWin) {
+			return "0-1";
+		}
+		if (this.position.draw || this.position.stalemate) {
+			return "1/2-1/2";
+		}
+		return "*";
+	}
+
+	// -- PGN --
+
+	public String toPGN(String whiteName, String blackName) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			this.writePGN(sb, whiteName, blackName);
+		}
+		catch (IOException e) {
+			//StringBuilder doesn't throw
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the game in PGN format, so it can be appended straight to an archive file.
+	 * @param out
+	 * @param whiteName
+	 * @param blackName
+	 * @throws IOException
+	 */
+	public void writePGN(Appendable out, String whiteName, String blackName) throws IOException {
+		String result = this.getResult();
+		writeTag(out, "Event", "Discord Games Chess");
+		writeTag(out, "Site", "?");
+		writeTag(out, "Date", "????.??.??");
+		writeTag(out, "Round", "-");
+		writeTag(out, "White", whiteName);
+		writeTag(out, "Black", blackName);
+		writeTag(out, "Result", result);
+		if (!this.getStartFEN().equals(START_FEN)) {
+			writeTag(out, "SetUp", "1");
+			writeTag(out, "FEN", this.getStartFEN());
+		}
+		out.append('\n');
+
+		//replay the game one checkpoint at a time, so the whole history never has to be rebuilt as positions
+		int lineLength = 0;
+		ChessPosition p = null;
+		int[] moves = new int[ChessPosition.MAX_MOVES];
+		for (int i = 0; i <= this.historySize; i++) {
+			String token;
+			if (i == this.historySize) {
+				token = result;
+			}
+			else {
+				if (i % CHECKPOINT_INTERVAL == 0) {
+					p = new ChessPosition(this.checkpoints.get(i / CHECKPOINT_INTERVAL));
+				}
+				int move = this.getMove(i);
+				String san = p.toSAN(move);
+				if (p.whiteMove) {
+					token = p.getFullmoveNumber() + ". " + san;
+				}
+				else if (i == 0) {
+					token = p.getFullmoveNumber() + "... " + san;
+				}
+				else {
+					token = san;
+				}
+				p.makeMove(move);
+			}
+
+			//export format keeps lines under 80 characters
+			if (lineLength != 0 && lineLength + 1 + token.length() > 79) {
+				out.append('\n');
+				lineLength = 0;
+			}
+			if (lineLength != 0) {
+				out.append(' ');
+				lineLength++;
+			}
+			out.append(token);
+			lineLength += token.length();
+		}
+		out.append("\n\n");
+	}
+
+	private static void writeTag(Appendable out, String name, String value) throws IOException {
+		out.append('[').append(name).append(" \"").append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+	}
+
+	/**
+	 * Loads the first game in the PGN string, along with any FEN setup tag. Comments and variations are skipped.
+	 * @param pgn
+	 * @return
+	 * @throws IllegalArgumentException if the PGN is malformed, or contains an illegal move
+	 */
+	public static ChessGame fromPGN(String pgn) {
+		String fen = START_FEN;
+		StringBuilder movetext = new StringBuilder();
+		int depth = 0; //inside comments or variations
+		boolean seenMoves = false;
+
+		int i = 0;
+		while (i < pgn.length()) {
+			char ch = pgn.charAt(i);
+			if (depth == 0 && ch == '[' && !seenMoves) {
+				int end = pgn.indexOf(']', i);
+				if (end == -1) {
+					throw new IllegalArgumentException("Unterminated PGN tag");
+				}
+				String tag = pgn.substring(i + 1, end).trim();
+				if (tag.startsWith("FEN")) {
+					int q0 = tag.indexOf('"');
+					int q1 = tag.lastIndexOf('"');
+					if (q0 == -1 || q1 <= q0) {
+						throw new IllegalArgumentException("Bad FEN tag: " + tag);
+					}
+					fen = tag.substring(q0 + 1, q1);
+				}
+				i = end + 1;
+				continue;
+			}
+			if (ch == '{') {
+				int end = pgn.indexOf('}', i);
+				if (end == -1) {
+					throw new IllegalArgumentException("Unterminated PGN comment");
+				}
+				i = end + 1;
+				movetext.append(' ');
+				continue;
+			}
+			if (ch == ';') {
+				int end = pgn.indexOf('\n', i);
+				i = end == -1 ? pgn.length() : end + 1;
+				movetext.append(' ');
+				continue;
+			}
+			if (ch == '(') {
+				depth++;
+			}
+			else if (ch == ')') {
+				depth--;
+				movetext.append(' ');
+			}
+			else if (depth == 0) {
+				if (!Character.isWhitespace(ch)) {
+					seenMoves = true;
+				}
+				movetext.append(ch);
+
+				//a blank line after the moves ends the game
+				if (seenMoves && ch == '\n' && i + 1 < pgn.length() && pgn.charAt(i + 1) == '[') {
+					break;
+				}
+			}
+			i++;
+		}
+
+		ChessGame game = new ChessGame(fen);
+		for (String token : movetext.toString().split("\\s+")) {
+			//move numbers can be written right next to the move, like "1.e4"
+			token = token.replaceAll("^\\d+\\.+", "");
+			if (token.length() == 0 || token.startsWith("$")) {
+				continue;
+			}
+			if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+				break;
+			}
+			int move = game.position.parseSAN(token);
+			if (move == ChessMove.NONE || !game.performMove(move)) {
+				throw new IllegalArgumentException("Illegal move in PGN: " + token);
+			}
+		}
+		return game;
+	}
+
 	public boolean isLegalMove(int[] from, int[] to) {
 		return this.getCurPosition().isLegalMove(from, to);
 	}
@@ -0,0 +1,69 @@
+package game;
+
+public class ChessMove {
+
+	//moves are packed into a single int so that move lists and the undo stack don't have to allocate anything
+	//bits 0 - 5 : from square
+	//bits 6 - 11 : to square
+	//bits 12 - 14 : piece type to promote to, 0 if not a promotion
+	//bit 15 : castling, the rook also has to be moved
+
+	//squares are numbered row * 8 + column, where row 0 is black's back rank, same as ChessPosition.board
+
+	public static final int NONE = 0;
+
+	public static final int FLAG_CASTLE = 1 << 15;
+
+	public static int create(int from, int to) {
+		return from | (to << 6);
+	}
+
+	public static int create(int from, int to, int promotion) {
+		return from | (to << 6) | (promotion << 12);
+	}
+
+	public static int createCastle(int from, int to) {
+		return from | (to << 6) | FLAG_CASTLE;
+	}
+
+	public static int getFrom(int move) {
+		return move & 63;
+	}
+
+	public static int getTo(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	public static int getPromotion(int move) {
+		return (move >>> 12) & 7;
+	}
+
+	public static boolean isCastle(int move) {
+		return (move & FLAG_CASTLE) != 0;
+	}
+
+	public static int getRow(int square) {
+		return square >>> 3;
+	}
+
+	public static int getColumn(int square) {
+		return square & 7;
+	}
+
+	public static int getSquare(int row, int column) {
+		return row * 8 + column;
+	}
+
+	public static String toString(int move) {
+		int from = getFrom(move);
+		int to = getTo(move);
+		int promotion = getPromotion(move);
+		return squareToString(from) + squareToString(to) + (promotion != 0 ? String.valueOf(" pnbrqk".charAt(promotion)) : "");
+	}
+
+	//a1 is the bottom left from white's point of view, which is row 7, column 0
+	public static String squareToString(int square) {
+		return "" + (char) ('a' + getColumn(square)) + (char) ('8' - getRow(square));
+	}
+
+}
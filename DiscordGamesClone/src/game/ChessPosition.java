@@ -2,12 +2,23 @@ package game;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Random;
 
 public class ChessPosition {
 
-	//by valid move, i mean that the piece can move there according to it's own moveset. We disregard checks to the king, 
-	//and we can even take the other team's king. 
+	//the position is stored as a set of bitboards, one long per piece type per color, where bit (row * 8 + column)
+	//is set if there is a piece of that type on that square. Row 0 is black's back rank.
+	//there is also a 64 byte mailbox so we can look up what piece is on a square without checking every bitboard.
+
+	//moves are packed into ints (see ChessMove), and are made and unmade in place. Each made move pushes whatever
+	//is needed to take it back onto the undo stack, so searching doesn't have to copy the position.
+
+	//each position also has a 64 bit zobrist key, which is the xor of a random number for every (color, piece, square),
+	//one for the castling rights, and one if it's black to move. It's updated along with the bitboards, so it never has
+	//to be recomputed. Two different positions can have the same key, but it's very unlikely.
+
+	//by pseudo legal move, i mean that the piece can move there according to it's own moveset. We disregard checks to the king.
+	//a legal move is a pseudo legal move that doesn't leave your own king in check.
 
 	public static final int BOARD_SIZE = 8;
 
@@ -18,19 +29,19 @@ public class ChessPosition {
 	public static final byte QUEEN = 5;
 	public static final byte KING = 6;
 
-	public static HashMap<Byte, Double> pieceValues = new HashMap<Byte, Double>() {
-		{
-			put(PAWN, 1d);
-			put(KNIGHT, 3d);
-			put(BISHOP, 3d);
-			put(ROOK, 5d);
-			put(QUEEN, 9d);
-			put(KING, 12d); //matters for checks
-		}
-	};
+	public static final int WHITE = 0;
+	public static final int BLACK = 1;
+
+	//no position has more legal moves than this
+	public static final int MAX_MOVES = 256;
+
+	//indexed by piece type. The king's value matters for checks
+	public static final double[] pieceValues = { 0, 1, 3, 3, 5, 9, 12 };
 
+	//negative values represent black pieces.
+	//only updated by move(), so it always shows the last move that was actually played, even while a search is
+	//making and unmaking moves on this position.
 	public byte[][] board;
-	public boolean[][] moved; //records whether the piece has been moved yet
 
 	public boolean whiteMove = true;
 
@@ -39,6 +50,9 @@ public class ChessPosition {
 
 	public boolean stalemate = false;
 
+	//threefold repetition
+	public boolean draw = false;
+
 	/*
 	 * CASTLING: DONE
 	 * 1. Neither the king or rook in question has moved previously
@@ -48,651 +62,1277 @@ public class ChessPosition {
 	 * 5. The king does not end up in check
 	 */
 
-	//EN PASSANT
+	//EN PASSANT: DONE
+	//the square is only kept when an enemy pawn is next to the pawn that moved two squares, so that it's only part of
+	//the hash, and FEN, when it actually changes what moves can be made
 
 	//PAWN PROMOTION
-	//for now just going to automatically promote to queen
+	//all four promotions are generated, queen first. Moves made with from and to, like the ones clients send, always
+	//promote to a queen
+
+	private static final int CASTLE_WHITE_KING_SIDE = 1;
+	private static final int CASTLE_WHITE_QUEEN_SIDE = 2;
+	private static final int CASTLE_BLACK_KING_SIDE = 4;
+	private static final int CASTLE_BLACK_QUEEN_SIDE = 8;
+
+	private long[][] pieces; //[color][piece type], index 0 is unused
+	private long[] occupied; //[color]
+	private long allOccupied;
+	private byte[] squares;
+
+	private int castlingRights;
+
+	//square a pawn can capture en passant onto, for the side to move, NO_SQUARE if none
+	private int enPassantSquare = NO_SQUARE;
+
+	private long hash;
+
+	//material plus piece square values, positive for white. Kept up to date by setPiece and clearPiece.
+	private int pieceSquareScore;
+
+	//moves since the last capture or pawn move. Positions before that can't come up again.
+	private int halfmoveClock = 0;
+
+	//plies played before this position was set up, so that a position loaded from FEN keeps its move number
+	private int startPly = 0;
+
+	//undo stack, this also doubles as the history of keys for repetition detection
+	private int[] undoMoves;
+	private byte[] undoCaptured;
+	private int[] undoCastlingRights;
+	private int[] undoEnPassantSquares;
+	private int[] undoHalfmoveClocks;
+	private long[] undoHashes;
+	private int undoSize = 0;
 
 	//make a starting board
 	public ChessPosition() {
-		//negative values represent black pieces. 
-		this.board = new byte[][] { { -ROOK, -KNIGHT, -BISHOP, -QUEEN, -KING, -BISHOP, -KNIGHT, -ROOK }, { -PAWN, -PAWN, -PAWN, -PAWN, -PAWN, -PAWN, -PAWN, -PAWN }, { 0, 0, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 0, 0 },
-				{ PAWN, PAWN, PAWN, PAWN, PAWN, PAWN, PAWN, PAWN }, { ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK } };
-
-		this.moved = new boolean[BOARD_SIZE][BOARD_SIZE];
+		this.init();
 
-		//so if a piece moves into an empty square, they won't be counted as not moved
+		byte[] backRank = { ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK };
 		for (int i = 0; i < BOARD_SIZE; i++) {
-			for (int j = 0; j < BOARD_SIZE; j++) {
-				if (this.board[i][j] == 0) {
-					this.moved[i][j] = true;
-				}
-			}
+			this.setPiece(ChessMove.getSquare(0, i), (byte) -backRank[i]);
+			this.setPiece(ChessMove.getSquare(1, i), (byte) -PAWN);
+			this.setPiece(ChessMove.getSquare(6, i), PAWN);
+			this.setPiece(ChessMove.getSquare(7, i), backRank[i]);
 		}
+		this.castlingRights = CASTLE_WHITE_KING_SIDE | CASTLE_WHITE_QUEEN_SIDE | CASTLE_BLACK_KING_SIDE | CASTLE_BLACK_QUEEN_SIDE;
+		this.hash ^= ZOBRIST_CASTLING[this.castlingRights];
 
 		this.whiteMove = true;
+		this.updateBoard();
 	}
 
-	//makes copy of chess position
+	//makes copy of chess position, including the move history, so that repetitions are still detected in the copy
 	public ChessPosition(ChessPosition c) {
-		this.board = new byte[BOARD_SIZE][BOARD_SIZE];
-		this.moved = new boolean[BOARD_SIZE][BOARD_SIZE];
-		for (int i = 0; i < BOARD_SIZE; i++) {
-			for (int j = 0; j < BOARD_SIZE; j++) {
-				this.board[i][j] = c.board[i][j];
-				this.moved[i][j] = c.moved[i][j];
+		this.init();
+		synchronized (c) {
+			for (int i = 0; i < 64; i++) {
+				if (c.squares[i] != 0) {
+					this.setPiece(i, c.squares[i]);
+				}
 			}
+			this.castlingRights = c.castlingRights;
+			this.enPassantSquare = c.enPassantSquare;
+			this.whiteMove = c.whiteMove;
+			this.halfmoveClock = c.halfmoveClock;
+			this.startPly = c.startPly;
+
+			this.undoMoves = Arrays.copyOf(c.undoMoves, c.undoMoves.length);
+			this.undoCaptured = Arrays.copyOf(c.undoCaptured, c.undoCaptured.length);
+			this.undoCastlingRights = Arrays.copyOf(c.undoCastlingRights, c.undoCastlingRights.length);
+			this.undoEnPassantSquares = Arrays.copyOf(c.undoEnPassantSquares, c.undoEnPassantSquares.length);
+			this.undoHalfmoveClocks = Arrays.copyOf(c.undoHalfmoveClocks, c.undoHalfmoveClocks.length);
+			this.undoHashes = Arrays.copyOf(c.undoHashes, c.undoHashes.length);
+			this.undoSize = c.undoSize;
+
+			this.whiteWin = c.whiteWin;
+			this.blackWin = c.blackWin;
+			this.draw = c.draw;
 		}
-
-		this.whiteMove = c.whiteMove;
+		this.hash ^= ZOBRIST_CASTLING[this.castlingRights];
+		if (!this.whiteMove) {
+			this.hash ^= ZOBRIST_BLACK_TO_MOVE;
+		}
+		if (this.enPassantSquare != NO_SQUARE) {
+			this.hash ^= ZOBRIST_EN_PASSANT[ChessMove.getColumn(this.enPassantSquare)];
+		}
+		this.updateBoard();
 	}
 
-	//returns the fitness of the current position
-	//positive for white and negative for black
-	public double calculateFitness() {
-		double ans = 0;
-
-		//calc material
-		ans += this.calculateMaterialFitness();
-
-		//MIDGAME
-
-		//calc control advantage:
-		//give 0.1x val of enemy piece if attacked
-		//give extra points for control of the center
-		//divide attack points by value of piece to prevent sacking a queen for a minor piece or checking the enemy king
-		ArrayList<int[]> whiteMoves = this.generateAllLegalMoves(true);
-		ArrayList<int[]> blackMoves = this.generateAllLegalMoves(false);
-
-		double attackWeight = 0.1;
-		double controlWeight = 0.05;
-		double centerWeight = 0.15;
+	/**
+	 * Sets up the position described by the FEN string. The en passant square is dropped if no pawn can capture onto it.
+	 * @param fen
+	 * @throws IllegalArgumentException if the string isn't valid FEN
+	 */
+	public ChessPosition(String fen) {
+		this.init();
 
-		int r, c;
-		double pieceVal, atkPiece;
+		String[] fields = fen.trim().split("\\s+");
+		if (fields.length < 2) {
+			throw new IllegalArgumentException("Invalid FEN: " + fen);
+		}
 
-		for (int[] i : whiteMoves) {
-			r = i[2];
-			c = i[3];
-			atkPiece = this.board[i[2]][i[3]];
-			pieceVal = pieceValues.get((byte) Math.abs(this.board[i[0]][i[1]]));
-			if (atkPiece < 0) { //attacking a black piece
-				ans += pieceValues.get((byte) Math.abs(atkPiece)) * attackWeight / pieceVal;
-			}
-			if ((r == 3 || r == 4) && (c == 3 || c == 4)) {
-				ans += centerWeight / pieceVal;
+		String[] ranks = fields[0].split("/");
+		if (ranks.length != BOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid FEN, expected 8 ranks: " + fen);
+		}
+		for (int r = 0; r < BOARD_SIZE; r++) {
+			int c = 0;
+			for (char ch : ranks[r].toCharArray()) {
+				if (ch >= '1' && ch <= '8') {
+					c += ch - '0';
+					continue;
+				}
+				int type = FEN_PIECES.indexOf(Character.toLowerCase(ch));
+				if (type <= 0 || c >= BOARD_SIZE) {
+					throw new IllegalArgumentException("Invalid FEN, bad rank " + ranks[r] + ": " + fen);
+				}
+				this.setPiece(ChessMove.getSquare(r, c), (byte) (Character.isUpperCase(ch) ? type : -type));
+				c++;
 			}
-			else {
-				ans += controlWeight / pieceVal;
+			if (c != BOARD_SIZE) {
+				throw new IllegalArgumentException("Invalid FEN, bad rank " + ranks[r] + ": " + fen);
 			}
 		}
+		if (Long.bitCount(this.pieces[WHITE][KING]) != 1 || Long.bitCount(this.pieces[BLACK][KING]) != 1) {
+			throw new IllegalArgumentException("Invalid FEN, each side needs one king: " + fen);
+		}
+
+		switch (fields[1]) {
+		case "w":
+			this.whiteMove = true;
+			break;
+		case "b":
+			this.whiteMove = false;
+			this.hash ^= ZOBRIST_BLACK_TO_MOVE;
+			break;
+		default:
+			throw new IllegalArgumentException("Invalid FEN, bad side to move: " + fen);
+		}
 
-		for (int[] i : blackMoves) {
-			r = i[2];
-			c = i[3];
-			atkPiece = this.board[i[2]][i[3]];
-			pieceVal = pieceValues.get((byte) Math.abs(this.board[i[0]][i[1]]));
-			if (atkPiece > 0) { //attacking a white piece
-				ans -= pieceValues.get((byte) Math.abs(atkPiece)) * attackWeight / pieceVal;
+		this.castlingRights = 0;
+		if (fields.length > 2 && !fields[2].equals("-")) {
+			for (char ch : fields[2].toCharArray()) {
+				switch (ch) {
+				case 'K':
+					this.castlingRights |= CASTLE_WHITE_KING_SIDE;
+					break;
+				case 'Q':
+					this.castlingRights |= CASTLE_WHITE_QUEEN_SIDE;
+					break;
+				case 'k':
+					this.castlingRights |= CASTLE_BLACK_KING_SIDE;
+					break;
+				case 'q':
+					this.castlingRights |= CASTLE_BLACK_QUEEN_SIDE;
+					break;
+				default:
+					throw new IllegalArgumentException("Invalid FEN, bad castling rights: " + fen);
+				}
 			}
-			if ((r == 3 || r == 4) && (c == 3 || c == 4)) {
-				ans -= centerWeight / pieceVal;
+		}
+		//drop rights that don't have the king and rook in place, so they can't cause illegal castles
+		for (int i = 0; i < 64; i++) {
+			byte expected = CASTLE_PIECES[i];
+			if (expected != 0 && this.squares[i] != expected) {
+				this.castlingRights &= CASTLE_MASK[i];
 			}
-			else {
-				ans -= controlWeight / pieceVal;
+		}
+		this.hash ^= ZOBRIST_CASTLING[this.castlingRights];
+
+		if (fields.length > 3 && !fields[3].equals("-")) {
+			String ep = fields[3];
+			int row = ep.length() == 2 ? '8' - ep.charAt(1) : -1;
+			int column = ep.length() == 2 ? ep.charAt(0) - 'a' : -1;
+			if (!onBoard(row, column) || row != (this.whiteMove ? 2 : 5)) {
+				throw new IllegalArgumentException("Invalid FEN, bad en passant square: " + fen);
+			}
+			int sq = ChessMove.getSquare(row, column);
+			int pushed = this.whiteMove ? sq + 8 : sq - 8;
+			if (this.squares[pushed] == (this.whiteMove ? -PAWN : PAWN) && this.squares[sq] == 0) {
+				this.setEnPassantSquare(sq, this.getSideToMove() ^ 1);
 			}
 		}
 
-		//checkmate
-		if (whiteWin) { //white mated black
-			ans += 1e7;
+		try {
+			if (fields.length > 4) {
+				this.halfmoveClock = Integer.parseInt(fields[4]);
+			}
+			if (fields.length > 5) {
+				this.startPly = Math.max(0, Integer.parseInt(fields[5]) - 1) * 2 + (this.whiteMove ? 0 : 1);
+			}
 		}
-		if (blackWin) { //black mated white
-			ans -= 1e7;
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid FEN, bad move counters: " + fen);
 		}
-		//TODO: this actually doesn't check for stalemates, they are viewed the same, as in a stalemate, one side doesn't have any moves.
-		//to fix, just make sure that if white mates black, that white is actually attacking the black king. 
 
-		return ans;
+		this.updateBoard();
+		this.updateResult();
 	}
 
-	//returns the material fitness of the board
-	public double calculateMaterialFitness() {
-		double ans = 0;
+	private void init() {
+		this.board = new byte[BOARD_SIZE][BOARD_SIZE];
+		this.pieces = new long[2][KING + 1];
+		this.occupied = new long[2];
+		this.allOccupied = 0;
+		this.squares = new byte[64];
+		this.hash = 0;
+		this.pieceSquareScore = 0;
+
+		this.undoMoves = new int[64];
+		this.undoCaptured = new byte[64];
+		this.undoCastlingRights = new int[64];
+		this.undoEnPassantSquares = new int[64];
+		this.undoHalfmoveClocks = new int[64];
+		this.undoHashes = new long[64];
+	}
+
+	//copies the mailbox into board
+	private void updateBoard() {
 		for (int i = 0; i < BOARD_SIZE; i++) {
 			for (int j = 0; j < BOARD_SIZE; j++) {
-				int val = this.board[i][j];
-				if (val == 0) {
-					continue;
-				}
-				ans += pieceValues.get((byte) Math.abs(val)) * (val < 0 ? -1 : 1);
+				this.board[i][j] = this.squares[ChessMove.getSquare(i, j)];
 			}
 		}
-		return ans;
 	}
 
-	//coordinates are in the form r, c
-	//checks whether move is valid. If move is valid, then it performs the move, and returns true, 
-	//otherwise it returns false and does nothing.
+	// -- ATTACK TABLES --
 
-	//it accounts for discovered checks. 
-	public boolean move(int[] from, int[] to) {
+	//0 - 3 are rook directions, 4 - 7 are bishop directions
+	private static final int[] DIR_DR = { -1, 1, 0, 0, -1, -1, 1, 1 };
+	private static final int[] DIR_DC = { 0, 0, -1, 1, -1, 1, -1, 1 };
 
-		//from cell is out of bounds
-		if (from[0] < 0 || from[1] < 0 || from[0] >= BOARD_SIZE || from[1] >= BOARD_SIZE) {
-			return false;
+	//whether moving in this direction increases the square index.
+	//the closest blocker along the ray is the lowest set bit for these, and the highest set bit for the others.
+	private static final boolean[] DIR_POSITIVE = { false, true, false, true, false, false, true, true };
+
+	private static final long[][] RAYS = new long[8][64];
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+	private static final long[] KING_ATTACKS = new long[64];
+	private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+	//castling rights that are kept when a piece moves from or to this square
+	private static final int[] CASTLE_MASK = new int[64];
+
+	//the king or rook that has to be on this square for castling to be possible, 0 if none
+	private static final byte[] CASTLE_PIECES = new byte[64];
+
+	//FEN letter for each piece type
+	private static final String FEN_PIECES = " pnbrqk";
+
+	//zobrist keys. The seed is fixed so that the keys are the same on every machine.
+	private static final long[][][] ZOBRIST_PIECES = new long[2][KING + 1][64];
+	private static final long[] ZOBRIST_CASTLING = new long[16];
+	private static final long ZOBRIST_BLACK_TO_MOVE;
+	private static final long[] ZOBRIST_EN_PASSANT = new long[BOARD_SIZE]; //by column
+
+	private static final int NO_SQUARE = -1;
+
+	static {
+		Random random = new Random(0x5eedc4e55L);
+		for (int color = 0; color < 2; color++) {
+			for (int type = PAWN; type <= KING; type++) {
+				for (int sq = 0; sq < 64; sq++) {
+					ZOBRIST_PIECES[color][type][sq] = random.nextLong();
+				}
+			}
+		}
+		for (int i = 0; i < ZOBRIST_CASTLING.length; i++) {
+			ZOBRIST_CASTLING[i] = random.nextLong();
 		}
+		ZOBRIST_BLACK_TO_MOVE = random.nextLong();
+		for (int i = 0; i < ZOBRIST_EN_PASSANT.length; i++) {
+			ZOBRIST_EN_PASSANT[i] = random.nextLong();
+		}
+	}
 
-		//to cell is out of bounds
-		if (to[0] < 0 || to[1] < 0 || to[0] >= BOARD_SIZE || to[1] >= BOARD_SIZE) {
-			return false;
+	static {
+		int[] knightDR = { -1, -1, 1, 1, -2, -2, 2, 2 };
+		int[] knightDC = { -2, 2, -2, 2, -1, 1, -1, 1 };
+
+		for (int r = 0; r < BOARD_SIZE; r++) {
+			for (int c = 0; c < BOARD_SIZE; c++) {
+				int sq = ChessMove.getSquare(r, c);
+
+				for (int d = 0; d < 8; d++) {
+					int curR = r + DIR_DR[d];
+					int curC = c + DIR_DC[d];
+					while (onBoard(curR, curC)) {
+						RAYS[d][sq] |= bit(curR, curC);
+						curR += DIR_DR[d];
+						curC += DIR_DC[d];
+					}
+					if (onBoard(r + DIR_DR[d], c + DIR_DC[d])) {
+						KING_ATTACKS[sq] |= bit(r + DIR_DR[d], c + DIR_DC[d]);
+					}
+				}
+
+				for (int k = 0; k < knightDR.length; k++) {
+					if (onBoard(r + knightDR[k], c + knightDC[k])) {
+						KNIGHT_ATTACKS[sq] |= bit(r + knightDR[k], c + knightDC[k]);
+					}
+				}
+
+				//white pawns move towards row 0
+				for (int dc = -1; dc <= 1; dc += 2) {
+					if (onBoard(r - 1, c + dc)) {
+						PAWN_ATTACKS[WHITE][sq] |= bit(r - 1, c + dc);
+					}
+					if (onBoard(r + 1, c + dc)) {
+						PAWN_ATTACKS[BLACK][sq] |= bit(r + 1, c + dc);
+					}
+				}
+
+				CASTLE_MASK[sq] = ~0;
+			}
 		}
 
-		//from and to cell are the same
-		if (from[0] == to[0] && from[1] == to[1]) {
-			return false;
+		CASTLE_MASK[ChessMove.getSquare(7, 4)] &= ~(CASTLE_WHITE_KING_SIDE | CASTLE_WHITE_QUEEN_SIDE);
+		CASTLE_MASK[ChessMove.getSquare(7, 7)] &= ~CASTLE_WHITE_KING_SIDE;
+		CASTLE_MASK[ChessMove.getSquare(7, 0)] &= ~CASTLE_WHITE_QUEEN_SIDE;
+		CASTLE_MASK[ChessMove.getSquare(0, 4)] &= ~(CASTLE_BLACK_KING_SIDE | CASTLE_BLACK_QUEEN_SIDE);
+		CASTLE_MASK[ChessMove.getSquare(0, 7)] &= ~CASTLE_BLACK_KING_SIDE;
+		CASTLE_MASK[ChessMove.getSquare(0, 0)] &= ~CASTLE_BLACK_QUEEN_SIDE;
+
+		CASTLE_PIECES[ChessMove.getSquare(7, 4)] = KING;
+		CASTLE_PIECES[ChessMove.getSquare(7, 7)] = ROOK;
+		CASTLE_PIECES[ChessMove.getSquare(7, 0)] = ROOK;
+		CASTLE_PIECES[ChessMove.getSquare(0, 4)] = -KING;
+		CASTLE_PIECES[ChessMove.getSquare(0, 7)] = -ROOK;
+		CASTLE_PIECES[ChessMove.getSquare(0, 0)] = -ROOK;
+	}
+
+	private static boolean onBoard(int r, int c) {
+		return r >= 0 && c >= 0 && r < BOARD_SIZE && c < BOARD_SIZE;
+	}
+
+	private static long bit(int r, int c) {
+		return 1L << ChessMove.getSquare(r, c);
+	}
+
+	private static long rayAttacks(int dir, int sq, long occ) {
+		long ray = RAYS[dir][sq];
+		long blockers = ray & occ;
+		if (blockers != 0) {
+			int b = DIR_POSITIVE[dir] ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+			ray ^= RAYS[dir][b];
 		}
+		return ray;
+	}
 
-		//from cell is empty
-		if (board[from[0]][from[1]] == 0) {
-			return false;
+	private static long rookAttacks(int sq, long occ) {
+		return rayAttacks(0, sq, occ) | rayAttacks(1, sq, occ) | rayAttacks(2, sq, occ) | rayAttacks(3, sq, occ);
+	}
+
+	private static long bishopAttacks(int sq, long occ) {
+		return rayAttacks(4, sq, occ) | rayAttacks(5, sq, occ) | rayAttacks(6, sq, occ) | rayAttacks(7, sq, occ);
+	}
+
+	// -- BOARD --
+
+	private static int colorOf(byte piece) {
+		return piece > 0 ? WHITE : BLACK;
+	}
+
+	private void setPiece(int sq, byte piece) {
+		int color = colorOf(piece);
+		long b = 1L << sq;
+		this.pieces[color][Math.abs(piece)] |= b;
+		this.occupied[color] |= b;
+		this.allOccupied |= b;
+		this.squares[sq] = piece;
+		this.hash ^= ZOBRIST_PIECES[color][Math.abs(piece)][sq];
+		this.pieceSquareScore += PIECE_SQUARE[color][Math.abs(piece)][sq];
+	}
+
+	private void clearPiece(int sq) {
+		byte piece = this.squares[sq];
+		int color = colorOf(piece);
+		long b = ~(1L << sq);
+		this.pieces[color][Math.abs(piece)] &= b;
+		this.occupied[color] &= b;
+		this.allOccupied &= b;
+		this.squares[sq] = 0;
+		this.hash ^= ZOBRIST_PIECES[color][Math.abs(piece)][sq];
+		this.pieceSquareScore -= PIECE_SQUARE[color][Math.abs(piece)][sq];
+	}
+
+	/**
+	 * Returns the piece on the square, negative for black, 0 if empty.
+	 * Unlike board, this also reflects moves made with {@link #makeMove(int)}.
+	 * @param square
+	 * @return
+	 */
+	public byte getPiece(int square) {
+		return this.squares[square];
+	}
+
+	public long getPieces(int color, int pieceType) {
+		return this.pieces[color][pieceType];
+	}
+
+	public long getOccupied(int color) {
+		return this.occupied[color];
+	}
+
+	public int getSideToMove() {
+		return this.whiteMove ? WHITE : BLACK;
+	}
+
+	/**
+	 * Returns the zobrist key of the position. Positions that are the same, with the same side to move, castling
+	 * rights and en passant square, always have the same key.
+	 * @return
+	 */
+	public long getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * Counts how many times the current position has come up before in this game, including moves made with
+	 * {@link #makeMove(int)}. Only positions with the same side to move, and since the last capture or pawn move
+	 * are checked, since no others can be the same.
+	 * @return
+	 */
+	public int getRepetitionCount() {
+		int cnt = 0;
+		int oldest = Math.max(0, this.undoSize - this.halfmoveClock);
+		for (int i = this.undoSize - 2; i >= oldest; i -= 2) {
+			if (this.undoHashes[i] == this.hash) {
+				cnt++;
+			}
 		}
+		return cnt;
+	}
 
-		//check if move tries to take the king
-		//obviously this shouldn't be possible if this method actually works, but it doesn't hurt to put in an extra check
-		if (Math.abs(board[to[0]][to[1]]) == KING) {
-			return false;
+	/**
+	 * Whether the current position has come up at least once before. Searches can score this as a draw, since if it's
+	 * good for one side to repeat, it will be good to repeat again.
+	 * @return
+	 */
+	public boolean isRepetition() {
+		int oldest = Math.max(0, this.undoSize - this.halfmoveClock);
+		for (int i = this.undoSize - 2; i >= oldest; i -= 2) {
+			if (this.undoHashes[i] == this.hash) {
+				return true;
+			}
 		}
+		return false;
+	}
 
-		//check if move can be performed by piece
-		int piece = board[from[0]][from[1]];
-		boolean white = piece > 0;
+	public synchronized boolean isThreefoldRepetition() {
+		return this.getRepetitionCount() >= 2;
+	}
 
-		//wrong player is moving right now
-		if ((white && !whiteMove) || (!white && whiteMove)) {
-			return false;
+	/**
+	 * Returns the last move that was made, or ChessMove.NONE if there isn't one.
+	 * @return
+	 */
+	public int getLastMove() {
+		return this.undoSize == 0 ? ChessMove.NONE : this.undoMoves[this.undoSize - 1];
+	}
+
+	/**
+	 * Returns the number of the current full move, which starts at 1 and goes up after black moves, same as in FEN.
+	 * @return
+	 */
+	public int getFullmoveNumber() {
+		return (this.startPly + this.undoSize) / 2 + 1;
+	}
+
+	//returns true if a piece of the given color is attacking the square
+	private boolean isSquareAttacked(int sq, int byColor) {
+		long[] p = this.pieces[byColor];
+		if ((PAWN_ATTACKS[byColor ^ 1][sq] & p[PAWN]) != 0) {
+			return true;
+		}
+		if ((KNIGHT_ATTACKS[sq] & p[KNIGHT]) != 0) {
+			return true;
+		}
+		if ((KING_ATTACKS[sq] & p[KING]) != 0) {
+			return true;
 		}
+		long rooks = p[ROOK] | p[QUEEN];
+		if (rooks != 0 && (rookAttacks(sq, this.allOccupied) & rooks) != 0) {
+			return true;
+		}
+		long bishops = p[BISHOP] | p[QUEEN];
+		if (bishops != 0 && (bishopAttacks(sq, this.allOccupied) & bishops) != 0) {
+			return true;
+		}
+		return false;
+	}
 
-		//check for legality of move
-		if (!this.isLegalMove(from, to)) {
+	public boolean isInCheck(int color) {
+		long king = this.pieces[color][KING];
+		if (king == 0) {
 			return false;
 		}
+		return this.isSquareAttacked(Long.numberOfTrailingZeros(king), color ^ 1);
+	}
 
-		//perform move
-		board[to[0]][to[1]] = board[from[0]][from[1]];
-		board[from[0]][from[1]] = 0;
-
-		//move is locked in now
-		//mark pos as moved
-		this.moved[from[0]][from[1]] = true;
-		this.moved[to[0]][to[1]] = true;
+	// -- MAKE / UNMAKE --
 
-		//handle special moves
-		if (piece == PAWN && to[0] == 0) { //white pawn promote
-			board[to[0]][to[1]] = QUEEN;
+	/**
+	 * Performs the move without checking if it's legal. It can be taken back with {@link #unmakeMove()}.
+	 * Doesn't update board, or check for wins.
+	 * @param move
+	 */
+	public void makeMove(int move) {
+		int from = ChessMove.getFrom(move);
+		int to = ChessMove.getTo(move);
+		byte piece = this.squares[from];
+		int capturedSq = this.getCapturedSquare(move);
+		byte captured = this.squares[capturedSq];
+
+		if (this.undoSize == this.undoMoves.length) {
+			int newSize = this.undoSize * 2;
+			this.undoMoves = Arrays.copyOf(this.undoMoves, newSize);
+			this.undoCaptured = Arrays.copyOf(this.undoCaptured, newSize);
+			this.undoCastlingRights = Arrays.copyOf(this.undoCastlingRights, newSize);
+			this.undoEnPassantSquares = Arrays.copyOf(this.undoEnPassantSquares, newSize);
+			this.undoHalfmoveClocks = Arrays.copyOf(this.undoHalfmoveClocks, newSize);
+			this.undoHashes = Arrays.copyOf(this.undoHashes, newSize);
+		}
+		this.undoMoves[this.undoSize] = move;
+		this.undoCaptured[this.undoSize] = captured;
+		this.undoCastlingRights[this.undoSize] = this.castlingRights;
+		this.undoEnPassantSquares[this.undoSize] = this.enPassantSquare;
+		this.undoHalfmoveClocks[this.undoSize] = this.halfmoveClock;
+		this.undoHashes[this.undoSize] = this.hash;
+		this.undoSize++;
+
+		if (captured != 0 || Math.abs(piece) == PAWN) {
+			this.halfmoveClock = 0;
 		}
-		if (piece == -PAWN && to[0] == BOARD_SIZE - 1) { //black pawn promote
-			board[to[0]][to[1]] = -QUEEN;
+		else {
+			this.halfmoveClock++;
 		}
 
-		//castling
-		if (Math.abs(piece) == KING && Math.abs(to[1] - from[1]) == 2) {
-			//we have to move the rook
-			if (to[1] - from[1] == 2) { //queen side
-				board[from[0]][5] = board[from[0]][7];
-				board[from[0]][7] = 0;
-				this.moved[from[0]][7] = true;
-				this.moved[from[0]][5] = true;
-			}
-			else if (to[1] - from[1] == -2) { //king side
-				board[from[0]][3] = board[from[0]][0];
-				board[from[0]][0] = 0;
-				this.moved[from[0]][0] = true;
-				this.moved[from[0]][3] = true;
-			}
+		if (captured != 0) {
+			this.clearPiece(capturedSq);
 		}
+		this.clearPiece(from);
 
-		//check for win
-		ArrayList<int[]> opponentMoves = this.generateAllLegalMoves(!this.whiteMove);
-		if (opponentMoves.size() == 0) {
-			if (this.whiteMove) {
-				this.whiteWin = true;
-			}
-			else if (!this.whiteMove) {
-				this.blackWin = true;
-			}
+		int promotion = ChessMove.getPromotion(move);
+		if (promotion != 0) {
+			piece = (byte) (piece > 0 ? promotion : -promotion);
+		}
+		this.setPiece(to, piece);
+
+		if (ChessMove.isCastle(move)) {
+			int rookFrom = to > from ? from + 3 : from - 4;
+			int rookTo = to > from ? from + 1 : from - 1;
+			byte rook = this.squares[rookFrom];
+			this.clearPiece(rookFrom);
+			this.setPiece(rookTo, rook);
 		}
 
-		this.whiteMove = !whiteMove; //next person to move
+		this.hash ^= ZOBRIST_CASTLING[this.castlingRights];
+		this.castlingRights &= CASTLE_MASK[from] & CASTLE_MASK[to];
+		this.hash ^= ZOBRIST_CASTLING[this.castlingRights];
 
-		return true; //valid move
-	}
+		if (this.enPassantSquare != NO_SQUARE) {
+			this.hash ^= ZOBRIST_EN_PASSANT[ChessMove.getColumn(this.enPassantSquare)];
+			this.enPassantSquare = NO_SQUARE;
+		}
+		if (Math.abs(piece) == PAWN && Math.abs(to - from) == 16) {
+			this.setEnPassantSquare((from + to) / 2, colorOf(piece));
+		}
 
-	//if from and to form a diagonal path, then it'll check along that path
-	//if they form a straight path, then it'll check along that path
-	//else, it won't check, and return false;
+		this.whiteMove = !this.whiteMove;
+		this.hash ^= ZOBRIST_BLACK_TO_MOVE;
+	}
 
-	//it checks all tiles excluding the first and last tile in the path
-	public boolean isPathEmpty(int[] from, int[] to) {
-		int rDiff = to[0] - from[0];
-		int cDiff = to[1] - from[1];
+	/**
+	 * Takes back the last move made with {@link #makeMove(int)}.
+	 */
+	public void unmakeMove() {
+		this.undoSize--;
+		int move = this.undoMoves[this.undoSize];
+		byte captured = this.undoCaptured[this.undoSize];
+		this.castlingRights = this.undoCastlingRights[this.undoSize];
+		this.enPassantSquare = this.undoEnPassantSquares[this.undoSize];
+		this.halfmoveClock = this.undoHalfmoveClocks[this.undoSize];
+
+		int from = ChessMove.getFrom(move);
+		int to = ChessMove.getTo(move);
+		byte piece = this.squares[to];
+		if (ChessMove.getPromotion(move) != 0) {
+			piece = piece > 0 ? PAWN : -PAWN;
+		}
 
-		//from and to are same
-		if (rDiff == 0 && cDiff == 0) {
-			return false;
+		if (ChessMove.isCastle(move)) {
+			int rookFrom = to > from ? from + 3 : from - 4;
+			int rookTo = to > from ? from + 1 : from - 1;
+			byte rook = this.squares[rookTo];
+			this.clearPiece(rookTo);
+			this.setPiece(rookFrom, rook);
 		}
 
-		//it is not diagonal or straight line
-		if (!(Math.abs(rDiff) - Math.abs(cDiff) == 0 || Math.min(Math.abs(rDiff), Math.abs(cDiff)) == 0)) {
-			return false;
+		this.clearPiece(to);
+		this.setPiece(from, piece);
+		if (captured != 0) {
+			this.setPiece(this.getCapturedSquare(move), captured);
 		}
 
-		int rUnitDiff = rDiff == 0 ? 0 : (rDiff < 0 ? -1 : 1);
-		int cUnitDiff = cDiff == 0 ? 0 : (cDiff < 0 ? -1 : 1);
+		this.whiteMove = !this.whiteMove;
+		this.hash = this.undoHashes[this.undoSize];
+	}
 
-		int curR = from[0] + rUnitDiff;
-		int curC = from[1] + cUnitDiff;
+	//pawnColor is the side that just moved a pawn two squares, sq is the square it skipped over
+	private void setEnPassantSquare(int sq, int pawnColor) {
+		if ((PAWN_ATTACKS[pawnColor][sq] & this.pieces[pawnColor ^ 1][PAWN]) != 0) {
+			this.enPassantSquare = sq;
+			this.hash ^= ZOBRIST_EN_PASSANT[ChessMove.getColumn(sq)];
+		}
+	}
 
-		while (curR != to[0] || curC != to[1]) {
-			if (board[curR][curC] != 0) {
-				return false;
-			}
-			curR += rUnitDiff;
-			curC += cUnitDiff;
+	//a pawn moving onto the en passant square captures the pawn behind it. The en passant square is always empty,
+	//and a pawn can only get onto it diagonally, so moves don't need a flag for it.
+	//only valid while the move hasn't been made yet, or right after it's been taken back
+	private int getCapturedSquare(int move) {
+		int from = ChessMove.getFrom(move);
+		int to = ChessMove.getTo(move);
+		if (to == this.enPassantSquare && Math.abs(this.squares[from]) == PAWN) {
+			return ChessMove.getSquare(ChessMove.getRow(from), ChessMove.getColumn(to));
 		}
+		return to;
+	}
 
-		return true;
+	/**
+	 * Whether the move, which hasn't been made yet, captures a piece. Includes en passant.
+	 * @param move
+	 * @return
+	 */
+	public boolean isCapture(int move) {
+		return this.squares[this.getCapturedSquare(move)] != 0;
 	}
 
-	//checks if pawn can move to space; not to be confused with attacking
-	public boolean isValidPawnMove(int[] from, int[] to) {
-		int piece = board[from[0]][from[1]];
-		boolean validMove = false;
+	// -- MOVE GENERATION --
 
-		int rDiff = to[0] - from[0];
-		int cDiff = to[1] - from[1];
+	/**
+	 * Generates all pseudo legal moves for the color, starting from the squares in fromMask.
+	 * @param color
+	 * @param fromMask
+	 * @param moves
+	 * @return the amount of moves generated
+	 */
+	private int generatePseudoLegalMoves(int color, long fromMask, int[] moves) {
+		int cnt = 0;
+		long[] p = this.pieces[color];
+		int enemy = color ^ 1;
+
+		//can't move onto your own pieces, and the king can't be taken
+		long targets = ~this.occupied[color] & ~this.pieces[enemy][KING];
+		long empty = ~this.allOccupied;
+
+		//pawns
+		int forward = color == WHITE ? -8 : 8;
+		int startRow = color == WHITE ? 6 : 1;
+		int promoteRow = color == WHITE ? 0 : 7;
+		long pawns = p[PAWN] & fromMask;
+		while (pawns != 0) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			pawns &= pawns - 1;
+
+			long dest = PAWN_ATTACKS[color][from] & this.occupied[enemy] & targets;
+			if (this.enPassantSquare != NO_SQUARE && color == this.getSideToMove()) {
+				dest |= PAWN_ATTACKS[color][from] & (1L << this.enPassantSquare);
+			}
+			int one = from + forward;
+			if ((empty & (1L << one)) != 0) {
+				dest |= 1L << one;
+				int two = one + forward;
+				if (ChessMove.getRow(from) == startRow && (empty & (1L << two)) != 0) {
+					dest |= 1L << two;
+				}
+			}
 
-		if (piece == PAWN) { //white
-			if (rDiff == -2 && cDiff == 0 && !this.moved[from[0]][from[1]] && board[to[0]][to[1]] == 0 && board[to[0] + 1][to[1]] == 0) { //first move, 2 moves forward
-				validMove = true;
+			while (dest != 0) {
+				int to = Long.numberOfTrailingZeros(dest);
+				dest &= dest - 1;
+				if (ChessMove.getRow(to) == promoteRow) {
+					moves[cnt++] = ChessMove.create(from, to, QUEEN);
+					moves[cnt++] = ChessMove.create(from, to, ROOK);
+					moves[cnt++] = ChessMove.create(from, to, BISHOP);
+					moves[cnt++] = ChessMove.create(from, to, KNIGHT);
+				}
+				else {
+					moves[cnt++] = ChessMove.create(from, to);
+				}
 			}
-			else if (rDiff == -1 && cDiff == 0 && board[to[0]][to[1]] == 0) { //normal move
-				validMove = true;
+		}
+
+		//everything else
+		for (int type = KNIGHT; type <= KING; type++) {
+			long bb = p[type] & fromMask;
+			while (bb != 0) {
+				int from = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+
+				long dest;
+				switch (type) {
+				case KNIGHT:
+					dest = KNIGHT_ATTACKS[from];
+					break;
+				case BISHOP:
+					dest = bishopAttacks(from, this.allOccupied);
+					break;
+				case ROOK:
+					dest = rookAttacks(from, this.allOccupied);
+					break;
+				case QUEEN:
+					dest = rookAttacks(from, this.allOccupied) | bishopAttacks(from, this.allOccupied);
+					break;
+				default:
+					dest = KING_ATTACKS[from];
+					break;
+				}
+				dest &= targets;
+
+				while (dest != 0) {
+					int to = Long.numberOfTrailingZeros(dest);
+					dest &= dest - 1;
+					moves[cnt++] = ChessMove.create(from, to);
+				}
 			}
 		}
-		else if (piece == -PAWN) { //black
-			if (rDiff == 2 && cDiff == 0 && !this.moved[from[0]][from[1]] && board[to[0]][to[1]] == 0 && board[to[0] - 1][to[1]] == 0) { //first move, 2 moves forward
-				validMove = true;
+
+		//castling
+		int kingSideRight = color == WHITE ? CASTLE_WHITE_KING_SIDE : CASTLE_BLACK_KING_SIDE;
+		int queenSideRight = color == WHITE ? CASTLE_WHITE_QUEEN_SIDE : CASTLE_BLACK_QUEEN_SIDE;
+		int kingSq = ChessMove.getSquare(color == WHITE ? 7 : 0, 4);
+		if ((this.castlingRights & (kingSideRight | queenSideRight)) != 0 && (fromMask & (1L << kingSq)) != 0 && !this.isSquareAttacked(kingSq, enemy)) {
+			if ((this.castlingRights & kingSideRight) != 0 && this.squares[kingSq + 1] == 0 && this.squares[kingSq + 2] == 0 && !this.isSquareAttacked(kingSq + 1, enemy)) {
+				moves[cnt++] = ChessMove.createCastle(kingSq, kingSq + 2);
 			}
-			else if (rDiff == 1 && cDiff == 0 && board[to[0]][to[1]] == 0) { //normal move
-				validMove = true;
+			if ((this.castlingRights & queenSideRight) != 0 && this.squares[kingSq - 1] == 0 && this.squares[kingSq - 2] == 0 && this.squares[kingSq - 3] == 0 && !this.isSquareAttacked(kingSq - 1, enemy)) {
+				moves[cnt++] = ChessMove.createCastle(kingSq, kingSq - 2);
 			}
 		}
 
-		return validMove;
+		return cnt;
 	}
 
-	//checks if pawn can attack into a space; not to be confused with moving. 
-	public boolean isValidPawnAttack(int[] from, int[] to) {
-		int piece = board[from[0]][from[1]];
-		boolean validMove = false;
+	//removes the moves that leave the king in check
+	private int filterLegalMoves(int color, int[] moves, int cnt) {
+		int legalCnt = 0;
+		for (int i = 0; i < cnt; i++) {
+			this.makeMove(moves[i]);
+			if (!this.isInCheck(color)) {
+				moves[legalCnt++] = moves[i];
+			}
+			this.unmakeMove();
+		}
+		return legalCnt;
+	}
+
+	/**
+	 * Writes all legal moves for the side to move into moves, which should have room for at least {@link #MAX_MOVES}.
+	 * @param moves
+	 * @return the amount of moves
+	 */
+	public synchronized int generateLegalMoves(int[] moves) {
+		return this.generateLegalMoves(this.getSideToMove(), moves);
+	}
 
-		int rDiff = to[0] - from[0];
-		int cDiff = to[1] - from[1];
+	public synchronized int generateLegalMoves(int color, int[] moves) {
+		int cnt = this.generatePseudoLegalMoves(color, ~0L, moves);
+		return this.filterLegalMoves(color, moves, cnt);
+	}
 
-		if (piece == PAWN) { //white
-			if (rDiff == -1 && Math.abs(cDiff) == 1 && board[to[0]][to[1]] < 0) { //taking
-				validMove = true;
+	private boolean hasLegalMoves(int color) {
+		int[] moves = new int[MAX_MOVES];
+		int cnt = this.generatePseudoLegalMoves(color, ~0L, moves);
+		for (int i = 0; i < cnt; i++) {
+			this.makeMove(moves[i]);
+			boolean legal = !this.isInCheck(color);
+			this.unmakeMove();
+			if (legal) {
+				return true;
 			}
 		}
-		else if (piece == -PAWN) { //black
-			if (rDiff == 1 && Math.abs(cDiff) == 1 && board[to[0]][to[1]] > 0) { //taking
-				validMove = true;
+		return false;
+	}
+
+	//whether the move is one of the legal moves of the piece on its from square
+	private boolean isLegalMove(int move) {
+		int from = ChessMove.getFrom(move);
+		int color = colorOf(this.squares[from]);
+		int[] moves = new int[MAX_MOVES];
+		int cnt = this.generatePseudoLegalMoves(color, 1L << from, moves);
+		cnt = this.filterLegalMoves(color, moves, cnt);
+		for (int i = 0; i < cnt; i++) {
+			if (moves[i] == move) {
+				return true;
 			}
 		}
+		return false;
+	}
 
-		return validMove;
+	//returns the legal move that goes from from to to, or ChessMove.NONE if there isn't one.
+	//promotions are always to a queen
+	private int findLegalMove(int from, int to) {
+		byte piece = this.squares[from];
+		if (piece == 0) {
+			return ChessMove.NONE;
+		}
+		int color = colorOf(piece);
+		int[] moves = new int[MAX_MOVES];
+		int cnt = this.generatePseudoLegalMoves(color, 1L << from, moves);
+		cnt = this.filterLegalMoves(color, moves, cnt);
+		for (int i = 0; i < cnt; i++) {
+			if (ChessMove.getTo(moves[i]) == to) {
+				return moves[i];
+			}
+		}
+		return ChessMove.NONE;
 	}
 
-	//checks if the move is allowed in a normal game. 
-	//accounts for checks
-	public boolean isLegalMove(int[] from, int[] to) {
+	/**
+	 * Counts the leaf nodes of the legal move tree to the given depth.
+	 * Used to check the move generator against known node counts.
+	 * @param depth
+	 * @return
+	 */
+	public synchronized long perft(int depth) {
+		return this.perft(depth, new int[depth + 1][MAX_MOVES]);
+	}
 
-		//from cell is out of bounds
-		if (from[0] < 0 || from[1] < 0 || from[0] >= BOARD_SIZE || from[1] >= BOARD_SIZE) {
-			return false;
+	private long perft(int depth, int[][] moveBuffers) {
+		if (depth == 0) {
+			return 1;
 		}
+		int[] moves = moveBuffers[depth];
+		int cnt = this.generateLegalMoves(this.getSideToMove(), moves);
+		if (depth == 1) {
+			return cnt;
+		}
+		long nodes = 0;
+		for (int i = 0; i < cnt; i++) {
+			this.makeMove(moves[i]);
+			nodes += this.perft(depth - 1, moveBuffers);
+			this.unmakeMove();
+		}
+		return nodes;
+	}
+
+	// -- OLD INTERFACE --
+
+	private static boolean inBounds(int[] cell) {
+		return cell[0] >= 0 && cell[1] >= 0 && cell[0] < BOARD_SIZE && cell[1] < BOARD_SIZE;
+	}
 
-		//to cell is out of bounds
-		if (to[0] < 0 || to[1] < 0 || to[0] >= BOARD_SIZE || to[1] >= BOARD_SIZE) {
+	//coordinates are in the form r, c
+	//checks whether move is valid. If move is valid, then it performs the move, and returns true,
+	//otherwise it returns false and does nothing.
+	public synchronized boolean move(int[] from, int[] to) {
+		if (!inBounds(from) || !inBounds(to)) {
 			return false;
 		}
 
-		int piece = board[from[0]][from[1]];
-		boolean white = piece > 0;
-		piece = Math.abs(piece);
+		int fromSq = ChessMove.getSquare(from[0], from[1]);
+		int toSq = ChessMove.getSquare(to[0], to[1]);
 
-		//trying to take piece of same color, or trying to take king
-		int toVal = board[to[0]][to[1]];
-		if (Math.abs(toVal) == KING) {
+		//wrong player is moving right now
+		byte piece = this.squares[fromSq];
+		if (piece == 0 || colorOf(piece) != this.getSideToMove()) {
 			return false;
 		}
 
-		if (piece == PAWN && !(this.isValidPawnAttack(from, to) || this.isValidPawnMove(from, to))) {
+		int move = this.findLegalMove(fromSq, toSq);
+		if (move == ChessMove.NONE) {
 			return false;
 		}
-		else if (piece != PAWN && !this.isValidPieceMove(from, to)) {
+
+		this.makeMove(move);
+		this.updateBoard();
+		this.updateResult();
+
+		return true; //valid move
+	}
+
+	/**
+	 * Same as {@link #move(int[], int[])}, but takes a packed move.
+	 * @param move
+	 * @return whether the move was legal, and was made
+	 */
+	public synchronized boolean move(int move) {
+		int from = ChessMove.getFrom(move);
+		if (this.squares[from] == 0 || colorOf(this.squares[from]) != this.getSideToMove() || !this.isLegalMove(move)) {
 			return false;
 		}
 
-		ChessPosition nextPos = new ChessPosition(this);
+		this.makeMove(move);
+		this.updateBoard();
+		this.updateResult();
+		return true;
+	}
 
-		//castling
-		if (piece == KING) {
-			int rDiff = to[0] - from[0];
-			int cDiff = to[1] - from[1];
-			if (cDiff == 2 && rDiff == 0) {
-				//move da rook
-				nextPos.board[from[0]][5] = nextPos.board[from[0]][7];
-				nextPos.board[from[0]][7] = 0;
+	//checks for wins and draws
+	private void updateResult() {
+		if (!this.hasLegalMoves(this.getSideToMove())) {
+			if (this.whiteMove) {
+				this.blackWin = true;
 			}
-			else if (cDiff == -2 && rDiff == 0) {
-				//move rook
-				nextPos.board[from[0]][3] = nextPos.board[from[0]][0];
-				nextPos.board[from[0]][0] = 0;
+			else {
+				this.whiteWin = true;
 			}
 		}
-
-		boolean legalMove = false;
-
-		//check if king is in check
-		//perform move on temp board
-		nextPos.board[to[0]][to[1]] = nextPos.board[from[0]][from[1]];
-		nextPos.board[from[0]][from[1]] = 0;
-
-		if (white) {
-			legalMove = !nextPos.isWhiteInCheck();
-		}
-		else if (!white) {
-			legalMove = !nextPos.isBlackInCheck();
+		else if (this.isThreefoldRepetition()) {
+			this.draw = true;
 		}
-		//System.out.println(legalMove? "NOT IN CHECK" : "IN CHECK");
-
-		return legalMove;
 	}
 
-	//checks if the move is valid according to the rules of the piece.
-	//doesn't account for illegal moves due to discovered checks
-	//also, taking the other teams king is a valid move. This is to make check detection easier
-	public boolean isValidPieceMove(int[] from, int[] to) {
-		int piece = board[from[0]][from[1]];
-		boolean white = piece > 0;
-		piece = Math.abs(piece);
+	// -- NOTATION --
 
-		//check if trying to take piece of same color, or trying to take king
-		int toVal = board[to[0]][to[1]];
-		if (toVal != 0 && ((toVal > 0 && white) || (toVal < 0 && !white))) {
-			return false;
+	/**
+	 * Writes the position as a FEN string. The en passant field is only filled in if a pawn can capture en passant.
+	 * @return
+	 */
+	public synchronized String toFEN() {
+		StringBuilder sb = new StringBuilder();
+		for (int r = 0; r < BOARD_SIZE; r++) {
+			int empty = 0;
+			for (int c = 0; c < BOARD_SIZE; c++) {
+				byte piece = this.squares[ChessMove.getSquare(r, c)];
+				if (piece == 0) {
+					empty++;
+					continue;
+				}
+				if (empty != 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				char ch = FEN_PIECES.charAt(Math.abs(piece));
+				sb.append(piece > 0 ? Character.toUpperCase(ch) : ch);
+			}
+			if (empty != 0) {
+				sb.append(empty);
+			}
+			if (r != BOARD_SIZE - 1) {
+				sb.append('/');
+			}
 		}
 
-		boolean validMove = false;
+		sb.append(this.whiteMove ? " w " : " b ");
 
-		if (piece == KNIGHT) {
-			int rDiff = Math.abs(from[0] - to[0]);
-			int cDiff = Math.abs(from[1] - to[1]);
-			if (Math.min(rDiff, cDiff) == 1 && Math.max(rDiff, cDiff) == 2) { //making sure it's an L shape
-				validMove = true;
-			}
+		if (this.castlingRights == 0) {
+			sb.append('-');
 		}
-		else if (piece == BISHOP) {
-			int rDiff = Math.abs(from[0] - to[0]);
-			int cDiff = Math.abs(from[1] - to[1]);
-			if (rDiff == cDiff && this.isPathEmpty(from, to)) { //diagonal move
-				validMove = true;
-			}
+		if ((this.castlingRights & CASTLE_WHITE_KING_SIDE) != 0) {
+			sb.append('K');
 		}
-		else if (piece == ROOK) {
-			int rDiff = Math.abs(from[0] - to[0]);
-			int cDiff = Math.abs(from[1] - to[1]);
-			if (Math.min(rDiff, cDiff) == 0 && this.isPathEmpty(from, to)) { //moving in straight lines
-				validMove = true;
-			}
+		if ((this.castlingRights & CASTLE_WHITE_QUEEN_SIDE) != 0) {
+			sb.append('Q');
 		}
-		else if (piece == QUEEN) {
-			int rDiff = Math.abs(from[0] - to[0]);
-			int cDiff = Math.abs(from[1] - to[1]);
-			if ((rDiff == cDiff || Math.min(rDiff, cDiff) == 0) && this.isPathEmpty(from, to)) { //bishop or rook behavior
-				validMove = true;
-			}
+		if ((this.castlingRights & CASTLE_BLACK_KING_SIDE) != 0) {
+			sb.append('k');
 		}
-		else if (piece == KING) {
-			int rDiff = to[0] - from[0];
-			int cDiff = to[1] - from[1];
-			if (Math.max(Math.abs(rDiff), Math.abs(cDiff)) == 1) { //maximum 1 cell diff for normal moves
-				validMove = true;
-			}
-			//castling
-			if (!this.isPathEmpty(from, to)) {
-				validMove = false;
-			}
-			else if (cDiff == 2 && rDiff == 0 && !this.moved[from[0]][4] && !this.moved[from[0]][7] && !(white ? this.isWhiteInCheck() : this.isBlackInCheck()) && //can't castle in check
-					!this.isCellAttacked(new int[] { from[0], from[1] + 1 }, !white)) { //castling queen side
-				validMove = true;
-			}
-			else if (cDiff == -2 && rDiff == 0 && !this.moved[from[0]][4] && !this.moved[from[0]][0] && !(white ? this.isWhiteInCheck() : this.isBlackInCheck()) && !this.isCellAttacked(new int[] { from[0], from[1] - 1 }, !white)) { //castling king side
-				validMove = true;
-			}
+		if ((this.castlingRights & CASTLE_BLACK_QUEEN_SIDE) != 0) {
+			sb.append('q');
 		}
-		return validMove;
+
+		sb.append(' ').append(this.enPassantSquare == NO_SQUARE ? "-" : ChessMove.squareToString(this.enPassantSquare));
+		sb.append(' ').append(this.halfmoveClock).append(' ').append(this.getFullmoveNumber());
+		return sb.toString();
 	}
 
-	//returns true if a piece from the white team (if byWhite) or black team (if !byWhite) is attacking
-	//the specified cell. Returns false otherwise
-	public boolean isCellAttacked(int[] cell, boolean byWhite) {
-		for (int i = 0; i < BOARD_SIZE; i++) {
-			for (int j = 0; j < BOARD_SIZE; j++) {
-				int val = board[i][j];
-				if ((val < 0 && byWhite) || (val > 0 && !byWhite)) { //checking the wrong team
-					continue;
+	/**
+	 * Writes a legal move in standard algebraic notation, such as "Nf3", "exd5", "O-O" or "e8=Q+".
+	 * @param move
+	 * @return
+	 */
+	public synchronized String toSAN(int move) {
+		int[] moves = new int[MAX_MOVES];
+		int cnt = this.generateLegalMoves(moves);
+		return this.toSAN(move, moves, cnt);
+	}
+
+	//legalMoves are all the legal moves in this position, used to tell apart pieces of the same type that can reach the same square
+	private String toSAN(int move, int[] legalMoves, int legalCnt) {
+		int from = ChessMove.getFrom(move);
+		int to = ChessMove.getTo(move);
+		int type = Math.abs(this.squares[from]);
+		boolean capture = this.isCapture(move);
+
+		StringBuilder sb = new StringBuilder();
+		if (ChessMove.isCastle(move)) {
+			sb.append(to > from ? "O-O" : "O-O-O");
+		}
+		else {
+			if (type == PAWN) {
+				if (capture) {
+					sb.append((char) ('a' + ChessMove.getColumn(from)));
 				}
-				if (Math.abs(val) == PAWN) {
-					if (this.isValidPawnAttack(new int[] { i, j }, cell)) {
-						return true;
+			}
+			else {
+				sb.append(Character.toUpperCase(FEN_PIECES.charAt(type)));
+
+				//same type of piece can go to the same square
+				boolean ambiguous = false;
+				boolean sameColumn = false;
+				boolean sameRow = false;
+				for (int i = 0; i < legalCnt; i++) {
+					int other = legalMoves[i];
+					int otherFrom = ChessMove.getFrom(other);
+					if (otherFrom == from || ChessMove.getTo(other) != to || Math.abs(this.squares[otherFrom]) != type) {
+						continue;
 					}
+					ambiguous = true;
+					sameColumn |= ChessMove.getColumn(otherFrom) == ChessMove.getColumn(from);
+					sameRow |= ChessMove.getRow(otherFrom) == ChessMove.getRow(from);
 				}
-				else if (val != 0) {
-					if (this.isValidPieceMove(new int[] { i, j }, cell)) {
-						return true;
+				if (ambiguous) {
+					String fromStr = ChessMove.squareToString(from);
+					if (!sameColumn) {
+						sb.append(fromStr.charAt(0));
+					}
+					else if (!sameRow) {
+						sb.append(fromStr.charAt(1));
+					}
+					else {
+						sb.append(fromStr);
 					}
 				}
 			}
+			if (capture) {
+				sb.append('x');
+			}
+			sb.append(ChessMove.squareToString(to));
+			if (ChessMove.getPromotion(move) != 0) {
+				sb.append('=').append(Character.toUpperCase(FEN_PIECES.charAt(ChessMove.getPromotion(move))));
+			}
 		}
-		return false;
+
+		this.makeMove(move);
+		int enemy = this.getSideToMove();
+		if (this.isInCheck(enemy)) {
+			sb.append(this.hasLegalMoves(enemy) ? '+' : '#');
+		}
+		this.unmakeMove();
+
+		return sb.toString();
 	}
 
-	public boolean isWhiteInCheck() {
-		int[] kingPos = new int[2];
+	/**
+	 * Finds the legal move written in standard algebraic notation. Check marks and annotations like "!?" are ignored.
+	 * @param san
+	 * @return the move, or ChessMove.NONE if it isn't a legal move in this position
+	 */
+	public synchronized int parseSAN(String san) {
+		String target = normalizeSAN(san);
+		int[] moves = new int[MAX_MOVES];
+		int cnt = this.generateLegalMoves(moves);
+		for (int i = 0; i < cnt; i++) {
+			if (normalizeSAN(this.toSAN(moves[i], moves, cnt)).equals(target)) {
+				return moves[i];
+			}
+		}
+		return ChessMove.NONE;
+	}
 
-		//find king
-		for (int i = 0; i < BOARD_SIZE; i++) {
-			for (int j = 0; j < BOARD_SIZE; j++) {
-				if (board[i][j] == KING) {
-					kingPos[0] = i;
-					kingPos[1] = j;
-				}
+	private static String normalizeSAN(String san) {
+		StringBuilder sb = new StringBuilder();
+		for (char ch : san.toCharArray()) {
+			if (ch == '0') {
+				ch = 'O';
 			}
+			if (ch == '+' || ch == '#' || ch == '!' || ch == '?' || ch == '=') {
+				continue;
+			}
+			sb.append(ch);
 		}
+		return sb.toString();
+	}
 
-		//for each piece on the other team, check if it is a valid move from that piece location to the king location
-		boolean inCheck = isCellAttacked(kingPos, false);
+	//checks if the move is allowed in a normal game, for whichever side owns the piece on from.
+	//accounts for checks
+	public synchronized boolean isLegalMove(int[] from, int[] to) {
+		if (!inBounds(from) || !inBounds(to)) {
+			return false;
+		}
+		return this.findLegalMove(ChessMove.getSquare(from[0], from[1]), ChessMove.getSquare(to[0], to[1])) != ChessMove.NONE;
+	}
 
-		return inCheck;
+	//returns true if a piece from the white team (if byWhite) or black team (if !byWhite) is attacking
+	//the specified cell. Returns false otherwise
+	public synchronized boolean isCellAttacked(int[] cell, boolean byWhite) {
+		return this.isSquareAttacked(ChessMove.getSquare(cell[0], cell[1]), byWhite ? WHITE : BLACK);
 	}
 
-	public boolean isBlackInCheck() {
-		int[] kingPos = new int[2];
+	public synchronized boolean isWhiteInCheck() {
+		return this.isInCheck(WHITE);
+	}
 
-		//find king
-		for (int i = 0; i < BOARD_SIZE; i++) {
-			for (int j = 0; j < BOARD_SIZE; j++) {
-				if (board[i][j] == -KING) {
-					kingPos[0] = i;
-					kingPos[1] = j;
-				}
-			}
+	public synchronized boolean isBlackInCheck() {
+		return this.isInCheck(BLACK);
+	}
+
+	//generates the list of all possible moves in the form: fromRow, fromColumn, toRow, toColumn
+	//(if white), then generate all white moves, else, generate black moves
+	public synchronized ArrayList<int[]> generateAllLegalMoves(boolean white) {
+		int[] moves = new int[MAX_MOVES];
+		int cnt = this.generateLegalMoves(white ? WHITE : BLACK, moves);
+		ArrayList<int[]> ret = new ArrayList<>();
+		for (int i = 0; i < cnt; i++) {
+			int from = ChessMove.getFrom(moves[i]);
+			int to = ChessMove.getTo(moves[i]);
+			ret.add(new int[] { ChessMove.getRow(from), ChessMove.getColumn(from), ChessMove.getRow(to), ChessMove.getColumn(to) });
 		}
+		return ret;
+	}
 
-		//for each piece on the other team, check if it is a valid move from that piece location to the king location
-		boolean inCheck = isCellAttacked(kingPos, true);
+	// -- EVALUATION --
 
-		return inCheck;
-	}
+	//scores are kept in thousandths of a pawn, so that the small control bonuses don't round away.
 
-	int[] bishopDR = new int[] { 1, 1, -1, -1 };
-	int[] bishopDC = new int[] { -1, 1, -1, 1 };
+	//the evaluation has the same terms as it always had:
+	//material, 0.1x the value of every enemy piece that is attacked, divided by the value of the attacker,
+	//and for every square a piece can move to, 0.15 if it's in the center and 0.05 otherwise, again divided by the value of the piece.
 
-	int[] rookDR = new int[] { -1, 1, 0, 0 };
-	int[] rookDC = new int[] { 0, 0, -1, 1 };
+	//the control term used to need both sides' legal moves. Now it's baked into a piece square table, along with material,
+	//by counting the squares each piece can reach from each square on an empty board. That sum is kept up to date as pieces
+	//are set and cleared, so making and unmaking moves keeps it current for free.
+	//attacks still depend on where the other pieces are, so they're found from the attack tables when evaluating,
+	//which is a few lookups per piece.
 
-	int[] knightDR = new int[] { -1, -1, 1, 1, -2, -2, 2, 2 };
-	int[] knightDC = new int[] { -2, 2, -2, 2, -1, 1, -1, 1 };
+	private static final double ATTACK_WEIGHT = 0.1;
+	private static final double CONTROL_WEIGHT = 0.05;
+	private static final double CENTER_WEIGHT = 0.15;
 
-	//generates the list of all possible moves in the form: fromRow, fromColumn, toRow, toColumn
-	//(if white), then generate all white moves, else, generate black moves
-	public ArrayList<int[]> generateAllLegalMoves(boolean white) {
-		ArrayList<int[]> moves = new ArrayList<>();
-		for (int i = 0; i < BOARD_SIZE; i++) {
-			for (int j = 0; j < BOARD_SIZE; j++) {
-				int val = this.board[i][j];
-				if (val == 0 || (white && val < 0) || (!white && val > 0)) { //not a piece, or piece on the wrong side
-					continue;
-				}
+	private static final long CENTER = bit(3, 3) | bit(3, 4) | bit(4, 3) | bit(4, 4);
 
-				int[] from = new int[] { i, j };
+	//[color][piece type][square], negative for black
+	private static final int[][][] PIECE_SQUARE = new int[2][KING + 1][64];
 
-				val = Math.abs(val);
+	//[attacker type][victim type]
+	private static final int[][] ATTACK_BONUS = new int[KING + 1][KING + 1];
 
-				if (val == PAWN) {
-					//moves
-					if (this.isLegalMove(from, new int[] { i + 2, j })) {
-						moves.add(new int[] { i, j, i + 2, j });
-					}
-					if (this.isLegalMove(from, new int[] { i + 1, j })) {
-						moves.add(new int[] { i, j, i + 1, j });
-					}
-					if (this.isLegalMove(from, new int[] { i - 2, j })) {
-						moves.add(new int[] { i, j, i - 2, j });
-					}
-					if (this.isLegalMove(from, new int[] { i - 1, j })) {
-						moves.add(new int[] { i, j, i - 1, j });
-					}
+	static {
+		for (int type = PAWN; type <= KING; type++) {
+			for (int victim = PAWN; victim <= KING; victim++) {
+				ATTACK_BONUS[type][victim] = (int) Math.round(pieceValues[victim] * ATTACK_WEIGHT / pieceValues[type] * 1000);
+			}
 
-					//attacks
-					if (this.isLegalMove(from, new int[] { i + 1, j + 1 })) {
-						moves.add(new int[] { i, j, i + 1, j + 1 });
-					}
-					if (this.isLegalMove(from, new int[] { i - 1, j + 1 })) {
-						moves.add(new int[] { i, j, i - 1, j + 1 });
-					}
-					if (this.isLegalMove(from, new int[] { i - 1, j - 1 })) {
-						moves.add(new int[] { i, j, i - 1, j - 1 });
-					}
-					if (this.isLegalMove(from, new int[] { i + 1, j - 1 })) {
-						moves.add(new int[] { i, j, i + 1, j - 1 });
-					}
+			for (int sq = 0; sq < 64; sq++) {
+				for (int color = WHITE; color <= BLACK; color++) {
+					long reach = emptyBoardMoves(color, type, sq);
+					double control = Long.bitCount(reach & CENTER) * CENTER_WEIGHT + Long.bitCount(reach & ~CENTER) * CONTROL_WEIGHT;
+					int value = (int) Math.round((pieceValues[type] + control / pieceValues[type]) * 1000);
+					PIECE_SQUARE[color][type][sq] = color == WHITE ? value : -value;
 				}
-				else if (val == KNIGHT) {
-					for (int k = 0; k < knightDR.length; k++) {
-						int nextR = i + knightDR[k];
-						int nextC = j + knightDC[k];
-						if (this.isLegalMove(from, new int[] { nextR, nextC })) {
-							moves.add(new int[] { i, j, nextR, nextC });
-						}
-					}
-				}
-				else if (val == BISHOP) {
-					for (int k = 0; k < bishopDR.length; k++) {
-						int dr = bishopDR[k];
-						int dc = bishopDC[k];
-						int curR = i + dr;
-						int curC = j + dc;
-						while (this.isLegalMove(from, new int[] { curR, curC })) {
-							moves.add(new int[] { i, j, curR, curC });
-							curR += dr;
-							curC += dc;
-						}
-					}
-				}
-				else if (val == ROOK) {
-					for (int k = 0; k < rookDR.length; k++) {
-						int dr = rookDR[k];
-						int dc = rookDC[k];
-						int curR = i + dr;
-						int curC = j + dc;
-						while (this.isLegalMove(from, new int[] { curR, curC })) {
-							moves.add(new int[] { i, j, curR, curC });
-							curR += dr;
-							curC += dc;
-						}
-					}
-				}
-				else if (val == QUEEN) {
-					//combination of rook and bishop
-					for (int k = 0; k < bishopDR.length; k++) {
-						int dr = bishopDR[k];
-						int dc = bishopDC[k];
-						int curR = i + dr;
-						int curC = j + dc;
-						while (this.isLegalMove(from, new int[] { curR, curC })) {
-							moves.add(new int[] { i, j, curR, curC });
-							curR += dr;
-							curC += dc;
-						}
-					}
-					for (int k = 0; k < rookDR.length; k++) {
-						int dr = rookDR[k];
-						int dc = rookDC[k];
-						int curR = i + dr;
-						int curC = j + dc;
-						while (this.isLegalMove(from, new int[] { curR, curC })) {
-							moves.add(new int[] { i, j, curR, curC });
-							curR += dr;
-							curC += dc;
-						}
-					}
+			}
+		}
+	}
+
+	private static long emptyBoardMoves(int color, int type, int sq) {
+		switch (type) {
+		case PAWN: {
+			int row = ChessMove.getRow(sq);
+			int forward = color == WHITE ? -1 : 1;
+			if (row + forward < 0 || row + forward >= BOARD_SIZE) {
+				return 0;
+			}
+			long moves = 1L << (sq + forward * 8);
+			if (row == (color == WHITE ? 6 : 1)) {
+				moves |= 1L << (sq + forward * 16);
+			}
+			return moves;
+		}
+		case KNIGHT:
+			return KNIGHT_ATTACKS[sq];
+		case BISHOP:
+			return bishopAttacks(sq, 0);
+		case ROOK:
+			return rookAttacks(sq, 0);
+		case QUEEN:
+			return rookAttacks(sq, 0) | bishopAttacks(sq, 0);
+		default:
+			return KING_ATTACKS[sq];
+		}
+	}
+
+	//sums the attack bonuses for every enemy piece attacked by the given color
+	private int attackScore(int color) {
+		long[] enemy = this.pieces[color ^ 1];
+		long enemyOccupied = this.occupied[color ^ 1];
+		int score = 0;
+		for (int type = PAWN; type <= KING; type++) {
+			long bb = this.pieces[color][type];
+			while (bb != 0) {
+				int sq = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+
+				long attacks;
+				switch (type) {
+				case PAWN:
+					attacks = PAWN_ATTACKS[color][sq];
+					break;
+				case KNIGHT:
+					attacks = KNIGHT_ATTACKS[sq];
+					break;
+				case BISHOP:
+					attacks = bishopAttacks(sq, this.allOccupied);
+					break;
+				case ROOK:
+					attacks = rookAttacks(sq, this.allOccupied);
+					break;
+				case QUEEN:
+					attacks = rookAttacks(sq, this.allOccupied) | bishopAttacks(sq, this.allOccupied);
+					break;
+				default:
+					attacks = KING_ATTACKS[sq];
+					break;
 				}
-				else if (val == KING) {
-					//combination of rook and bishop, but only 1 move in each direction
-					for (int k = 0; k < bishopDR.length; k++) {
-						int dr = bishopDR[k];
-						int dc = bishopDC[k];
-						int curR = i + dr;
-						int curC = j + dc;
-						if (this.isLegalMove(from, new int[] { curR, curC })) {
-							moves.add(new int[] { i, j, curR, curC });
-						}
-					}
-					for (int k = 0; k < rookDR.length; k++) {
-						int dr = rookDR[k];
-						int dc = rookDC[k];
-						int curR = i + dr;
-						int curC = j + dc;
-						if (this.isLegalMove(from, new int[] { curR, curC })) {
-							moves.add(new int[] { i, j, curR, curC });
-						}
-					}
 
-					//castling
-					if (this.isLegalMove(from, new int[] { i, j + 2 })) {
-						moves.add(new int[] { i, j, i, j + 2 });
-					}
-					if (this.isLegalMove(from, new int[] { i, j - 2 })) {
-						moves.add(new int[] { i, j, i, j - 2 });
-					}
+				attacks &= enemyOccupied;
+				while (attacks != 0) {
+					int target = Long.numberOfTrailingZeros(attacks);
+					attacks &= attacks - 1;
+					score += ATTACK_BONUS[type][Math.abs(this.squares[target])];
 				}
 			}
 		}
-		return moves;
+		return score;
+	}
+
+	/**
+	 * Evaluates the current position, including moves made with {@link #makeMove(int)}.
+	 * Doesn't look at whether the game is over.
+	 * @return the score in thousandths of a pawn, positive for white and negative for black
+	 */
+	public int evaluate() {
+		return this.pieceSquareScore + this.attackScore(WHITE) - this.attackScore(BLACK);
+	}
+
+	//returns the fitness of the current position
+	//positive for white and negative for black
+	public double calculateFitness() {
+		double ans = this.evaluate() / 1000.0;
+
+		//checkmate
+		if (whiteWin) { //white mated black
+			ans += 1e7;
+		}
+		if (blackWin) { //black mated white
+			ans -= 1e7;
+		}
+
+		return ans;
+	}
+
+	//returns the material fitness of the board
+	public double calculateMaterialFitness() {
+		double ans = 0;
+		for (int color = WHITE; color <= BLACK; color++) {
+			for (int type = PAWN; type <= KING; type++) {
+				ans += Long.bitCount(this.pieces[color][type]) * pieceValues[type] * (color == WHITE ? 1 : -1);
+			}
+		}
+		return ans;
 	}
 
 }
@@ -0,0 +1,40 @@
+package game;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import util.FileUtils;
+
+public class CrackHeadsGame {
+
+	//the words that can come up to draw. The server picks them, so this can't live with the client state.
+
+	private static ArrayList<String> wordList;
+
+	public static synchronized void loadWordList() {
+		if (wordList != null) {
+			return;
+		}
+		wordList = new ArrayList<String>();
+		try (BufferedReader fin = new BufferedReader(new FileReader(FileUtils.loadFile("/crack_heads/crack_heads_words.txt")))) {
+			String next = fin.readLine();
+			while (next != null) {
+				next = next.toUpperCase();
+				next = next.trim();
+				wordList.add(next);
+				next = fin.readLine();
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public static String getRandomWord() {
+		loadWordList();
+		return wordList.get((int) (Math.random() * wordList.size()));
+	}
+
+}
@@ -0,0 +1,46 @@
+package game;
+
+import java.util.HashMap;
+
+public class RocketLeagueGame {
+
+	//peg types and teams, shared by the server's physics and the client's rendering.
+
+	public static final int PEG_TYPE_BALL = -1;
+	public static final int PEG_TYPE_OCTANE = 0;
+	public static final int PEG_TYPE_DOMINUS = 1;
+	public static final int PEG_TYPE_FENNEC = 2;
+	public static final int PEG_TYPE_DINGUS = 3;
+	public static final int PEG_TYPE_TANK = 4;
+	public static final int PEG_TYPE_SMART_CAR = 5;
+
+	//the physics steps by a fixed dt of one tick
+	public static final int TICK_RATE = 60;
+
+	public static final int TEAM_WHITE = 0;
+	public static final int TEAM_RED = 1;
+	public static final int TEAM_BLUE = 2;
+
+	public static HashMap<Integer, Float> pegTypeMasses = new HashMap<Integer, Float>() {
+		{
+			put(PEG_TYPE_BALL, 1f);
+			put(PEG_TYPE_OCTANE, 1f);
+			put(PEG_TYPE_DOMINUS, 1f);
+			put(PEG_TYPE_FENNEC, 1f);
+			put(PEG_TYPE_DINGUS, 4f);
+			put(PEG_TYPE_TANK, 2f);
+			put(PEG_TYPE_SMART_CAR, 0.5f);
+		}
+	};
+
+	public static int getRandomBasicPegType() {
+		int[] basicPegs = new int[] { PEG_TYPE_OCTANE, PEG_TYPE_DOMINUS, PEG_TYPE_FENNEC };
+		return basicPegs[(int) (Math.random() * basicPegs.length)];
+	}
+
+	public static int getRandomAdvancedPegType() {
+		int[] advPegs = new int[] { PEG_TYPE_DINGUS, PEG_TYPE_TANK, PEG_TYPE_SMART_CAR };
+		return advPegs[(int) (Math.random() * advPegs.length)];
+	}
+
+}
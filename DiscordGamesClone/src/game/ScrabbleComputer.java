@@ -0,0 +1,215 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import game.ScrabbleMoveGenerator.Candidate;
+import util.Pair;
+
+public class ScrabbleComputer {
+
+	//a computer scrabble player.
+
+	//moves along different rows and columns don't depend on each other, so the lines are split between the threads of a
+	//fork join pool, each with its own move generator, and each keeps only the best few moves it finds. Those get merged together,
+	//and the move to play is picked from the best of them.
+
+	//how strong the computer plays is controlled by how many of the best moves it picks from, and by whether it thinks about
+	//the tiles it keeps. A move that scores a little less but keeps a good hand is usually worth more over the next few turns.
+
+	//there's always a deadline. Lines that haven't been searched by then are skipped, so a move comes back on time even on a slow server.
+
+	public static final int STRENGTH_EASY = 0;
+	public static final int STRENGTH_MEDIUM = 1;
+	public static final int STRENGTH_HARD = 2;
+
+	public static final String[] STRENGTH_NAMES = { "Easy", "Medium", "Hard" };
+
+	//the move is picked at random from this many of the best moves
+	private static final int[] STRENGTH_TOP_N = { 20, 5, 1 };
+	private static final boolean[] STRENGTH_EVALUATE_LEAVES = { false, true, true };
+
+	//equity is in tenths of a point
+	public static final int EQUITY_SCALE = 10;
+
+	//what each letter is worth to keep in the hand, in tenths of a point, from A to Z.
+	//S and E are good to hold on to, letters that are hard to play like Q and V are not.
+	private static final int[] LEAVE_VALUES = { 10, -20, -5, 0, 25, -20, -25, 5, -5, -30, -25, -5, 5, 0, -10, -10, -70, 10, 80, 0, -30, -55, -35, 30, -5, 20 };
+
+	//for every extra copy of the same letter
+	private static final int DUPLICATE_PENALTY = -30;
+
+	//for every vowel too many or too few, a hand works best when about two fifths of it are vowels
+	private static final int VOWEL_BALANCE_PENALTY = -20;
+
+	//how many lines one task searches before it stops splitting
+	private static final int LINES_PER_TASK = 2;
+
+	//searches are run on a few daemon threads shared by every server, so that they don't hold up the server tick.
+	private static final ForkJoinPool workers = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+		private final AtomicInteger threadCnt = new AtomicInteger();
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			t.setName("ScrabbleComputer-" + this.threadCnt.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}, null, false);
+
+	private final int strength;
+	private final Random random;
+
+	public ScrabbleComputer(int strength) {
+		this(strength, new Random());
+	}
+
+	public ScrabbleComputer(int strength, Random random) {
+		this.strength = Math.max(STRENGTH_EASY, Math.min(STRENGTH_HARD, strength));
+		this.random = random;
+	}
+
+	public int getStrength() {
+		return this.strength;
+	}
+
+	/**
+	 * Finds a move on a copy of the game on the worker threads.
+	 * @param game
+	 * @param hand
+	 * @param timeMillis
+	 * @return the tiles to place, or null if there is no valid move
+	 */
+	public Future<ArrayList<Pair<int[], Character>>> findMoveAsync(ScrabbleGame game, ArrayList<Character> hand, long timeMillis) {
+		ScrabbleGame copy = new ScrabbleGame(game);
+		ArrayList<Character> handCopy = new ArrayList<>(hand);
+		long deadline = System.nanoTime() + timeMillis * 1000000L;
+		return workers.submit(() -> this.findMove(copy.getLetterBoard(), copy.getBonusBoard(), handCopy, deadline));
+	}
+
+	/**
+	 * Finds a move, searching the lines of the board in parallel. The board isn't changed, and shouldn't be changed by anything else
+	 * until this returns.
+	 * @param board
+	 * @param bonusBoard
+	 * @param hand
+	 * @param deadline a {@link System#nanoTime()} value to stop searching at
+	 * @return the tiles to place, or null if there is no valid move
+	 */
+	public ArrayList<Pair<int[], Character>> findMove(char[][] board, int[][] bonusBoard, ArrayList<Character> hand, long deadline) {
+		ScrabbleGame.loadDictionary();
+
+		int topN = STRENGTH_TOP_N[this.strength];
+		LineTask task = new LineTask(ScrabbleGame.dictionary, board, bonusBoard, hand, STRENGTH_EVALUATE_LEAVES[this.strength], topN, deadline, 0, board.length * 2);
+		ArrayList<Candidate> candidates = workers.invoke(task);
+		if (candidates.size() == 0) {
+			return null;
+		}
+
+		Candidate pick;
+		synchronized (this.random) {
+			pick = candidates.get(this.random.nextInt(Math.min(topN, candidates.size())));
+		}
+		return pick.move;
+	}
+
+	/**
+	 * How much the tiles left in a hand are worth, in tenths of a point.
+	 * @param counts how many of each letter there are, from A to Z
+	 * @return
+	 */
+	public static int evaluateLeave(int[] counts) {
+		int value = 0;
+		int tiles = 0;
+		int vowels = 0;
+		for (int i = 0; i < 26; i++) {
+			int cnt = counts[i];
+			if (cnt == 0) {
+				continue;
+			}
+			value += LEAVE_VALUES[i] * cnt + DUPLICATE_PENALTY * (cnt - 1);
+			tiles += cnt;
+			if (isVowel((char) ('A' + i))) {
+				vowels += cnt;
+			}
+		}
+
+		int idealVowels = (tiles * 2 + 2) / 5;
+		value += VOWEL_BALANCE_PENALTY * Math.abs(vowels - idealVowels);
+		return value;
+	}
+
+	private static boolean isVowel(char c) {
+		return c == 'A' || c == 'E' || c == 'I' || c == 'O' || c == 'U';
+	}
+
+	//keeps the best n candidates out of both lists
+	private static ArrayList<Candidate> merge(ArrayList<Candidate> a, ArrayList<Candidate> b, int n) {
+		ArrayList<Candidate> ret = new ArrayList<>(a.size() + b.size());
+		ret.addAll(a);
+		ret.addAll(b);
+		Collections.sort(ret, Collections.reverseOrder());
+		while (ret.size() > n) {
+			ret.remove(ret.size() - 1);
+		}
+		return ret;
+	}
+
+	//searches lines from (inclusive) to to (exclusive). Lines are the rows, then the columns
+	private static class LineTask extends RecursiveTask<ArrayList<Candidate>> {
+		private static final long serialVersionUID = 1L;
+
+		private final ScrabbleDictionary dict;
+		private final char[][] board;
+		private final int[][] bonusBoard;
+		private final ArrayList<Character> hand;
+		private final boolean evaluateLeaves;
+		private final int maxCandidates;
+		private final long deadline;
+		private final int from, to;
+
+		LineTask(ScrabbleDictionary dict, char[][] board, int[][] bonusBoard, ArrayList<Character> hand, boolean evaluateLeaves, int maxCandidates, long deadline, int from, int to) {
+			this.dict = dict;
+			this.board = board;
+			this.bonusBoard = bonusBoard;
+			this.hand = hand;
+			this.evaluateLeaves = evaluateLeaves;
+			this.maxCandidates = maxCandidates;
+			this.deadline = deadline;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected ArrayList<Candidate> compute() {
+			if (this.to - this.from <= LINES_PER_TASK) {
+				ScrabbleMoveGenerator generator = new ScrabbleMoveGenerator(this.dict);
+				generator.setDeadline(this.deadline);
+				generator.setEvaluateLeaves(this.evaluateLeaves);
+
+				ArrayList<Candidate> ret = new ArrayList<>();
+				for (int i = this.from; i < this.to && !generator.isTimeUp(); i++) {
+					boolean vertical = i >= this.board.length;
+					int line = i % this.board.length;
+					ret = merge(ret, generator.generateMoves(this.board, this.bonusBoard, this.hand, vertical, line, this.maxCandidates), this.maxCandidates);
+				}
+				return ret;
+			}
+
+			int mid = (this.from + this.to) / 2;
+			LineTask left = new LineTask(this.dict, this.board, this.bonusBoard, this.hand, this.evaluateLeaves, this.maxCandidates, this.deadline, this.from, mid);
+			LineTask right = new LineTask(this.dict, this.board, this.bonusBoard, this.hand, this.evaluateLeaves, this.maxCandidates, this.deadline, mid, this.to);
+			left.fork();
+			ArrayList<Candidate> rightResult = right.compute();
+			return merge(left.join(), rightResult, this.maxCandidates);
+		}
+	}
+
+}
@@ -0,0 +1,305 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+public class ScrabbleDictionary {
+
+	//the word list is stored as a directed acyclic word graph: a trie where identical subtrees are merged,
+	//so words that end the same way share their endings. The whole dictionary ends up well under a megabyte.
+
+	//the graph is flattened into an array of ints, and a node is the index of its header:
+	//bit 31 : a word ends at this node
+	//bits 0 - 25 : which letters lead out of this node, bit 0 is 'A'
+	//the header is followed by the indices of the child nodes, one per set bit, in letter order.
+	//so the child for a letter is found with a single bit count, no searching.
+
+	//the binary file is built offline from the word list (see main), and memory mapped when loading,
+	//so loading doesn't have to parse or allocate anything.
+
+	//file format, all ints big endian:
+	//magic, version, word count, root node, amount of ints, then the ints
+
+	public static final int NONE = -1;
+
+	private static final int MAGIC = 0x44415747; //"DAWG"
+	private static final int VERSION = 1;
+	private static final int HEADER_INTS = 5;
+
+	private static final int TERMINAL = 1 << 31;
+	private static final int LETTER_MASK = (1 << 26) - 1;
+
+	private final IntBuffer data;
+	private final int root;
+	private final int wordCount;
+
+	private ScrabbleDictionary(IntBuffer data, int root, int wordCount) {
+		this.data = data;
+		this.root = root;
+		this.wordCount = wordCount;
+	}
+
+	/**
+	 * Memory maps a dictionary written by {@link #write(File)}.
+	 * @param file
+	 * @return
+	 * @throws IOException if the file can't be read or isn't a dictionary
+	 */
+	public static ScrabbleDictionary load(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.capacity() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+				throw new IOException("Not a scrabble dictionary: " + file);
+			}
+			int wordCount = buffer.getInt(8);
+			int root = buffer.getInt(12);
+			int length = buffer.getInt(16);
+			if (buffer.capacity() != (HEADER_INTS + length) * 4) {
+				throw new IOException("Truncated scrabble dictionary: " + file);
+			}
+			buffer.position(HEADER_INTS * 4);
+			return new ScrabbleDictionary(buffer.slice().asIntBuffer(), root, wordCount);
+		}
+	}
+
+	/**
+	 * Builds a dictionary in memory from a plain word list file, one word per line.
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static ScrabbleDictionary loadWordList(File file) throws IOException {
+		ArrayList<String> words = new ArrayList<>();
+		try (BufferedReader fin = new BufferedReader(new FileReader(file))) {
+			String next = fin.readLine();
+			while (next != null) {
+				words.add(next.trim());
+				next = fin.readLine();
+			}
+		}
+		return build(words);
+	}
+
+	/**
+	 * Builds a dictionary from the words. Words are converted to upper case, and words with anything other than
+	 * the letters A to Z in them are skipped.
+	 * @param words
+	 * @return
+	 */
+	public static ScrabbleDictionary build(Collection<String> words) {
+		TrieNode trieRoot = new TrieNode();
+		int wordCount = 0;
+		for (String w : words) {
+			String word = w.toUpperCase();
+			if (word.length() == 0 || !isLetters(word)) {
+				continue;
+			}
+			TrieNode cur = trieRoot;
+			for (int i = 0; i < word.length(); i++) {
+				int letter = word.charAt(i) - 'A';
+				if (cur.children[letter] == null) {
+					cur.children[letter] = new TrieNode();
+				}
+				cur = cur.children[letter];
+			}
+			if (!cur.terminal) {
+				cur.terminal = true;
+				wordCount++;
+			}
+		}
+
+		//merge identical subtrees, children first so that identical subtrees have identical child indices
+		GraphWriter writer = new GraphWriter();
+		int root = writer.write(trieRoot);
+		return new ScrabbleDictionary(IntBuffer.wrap(Arrays.copyOf(writer.out, writer.size)), root, wordCount);
+	}
+
+	private static boolean isLetters(String word) {
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			if (c < 'A' || c > 'Z') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void write(File file) throws IOException {
+		try (DataOutputStream fout = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			fout.writeInt(MAGIC);
+			fout.writeInt(VERSION);
+			fout.writeInt(this.wordCount);
+			fout.writeInt(this.root);
+			fout.writeInt(this.data.limit());
+			for (int i = 0; i < this.data.limit(); i++) {
+				fout.writeInt(this.data.get(i));
+			}
+		}
+	}
+
+	// -- LOOKUP --
+
+	public int getWordCount() {
+		return this.wordCount;
+	}
+
+	/**
+	 * Returns the node for the empty prefix.
+	 * @return
+	 */
+	public int getRoot() {
+		return this.root;
+	}
+
+	/**
+	 * Returns the node reached by following the letter from node, or NONE if no word continues with that letter.
+	 * @param node
+	 * @param letter an upper case letter
+	 * @return
+	 */
+	public int getChild(int node, char letter) {
+		int l = letter - 'A';
+		if (node == NONE || l < 0 || l >= 26) {
+			return NONE;
+		}
+		int header = this.data.get(node);
+		int bit = 1 << l;
+		if ((header & bit) == 0) {
+			return NONE;
+		}
+		return this.data.get(node + 1 + Integer.bitCount(header & (bit - 1)));
+	}
+
+	/**
+	 * Returns the letters that continue some word from this node, bit 0 is 'A'.
+	 * @param node
+	 * @return
+	 */
+	public int getChildMask(int node) {
+		if (node == NONE) {
+			return 0;
+		}
+		return this.data.get(node) & LETTER_MASK;
+	}
+
+	/**
+	 * Returns whether the letters followed to reach this node form a word.
+	 * @param node
+	 * @return
+	 */
+	public boolean isWord(int node) {
+		return node != NONE && (this.data.get(node) & TERMINAL) != 0;
+	}
+
+	/**
+	 * Follows the letters of prefix from the root.
+	 * @param prefix
+	 * @return the node, or NONE if no word starts with prefix
+	 */
+	public int getNode(CharSequence prefix) {
+		int node = this.root;
+		for (int i = 0; i < prefix.length() && node != NONE; i++) {
+			node = this.getChild(node, prefix.charAt(i));
+		}
+		return node;
+	}
+
+	public boolean contains(CharSequence word) {
+		return this.isWord(this.getNode(word));
+	}
+
+	public boolean isPrefix(CharSequence prefix) {
+		return this.getNode(prefix) != NONE;
+	}
+
+	/**
+	 * Builds the binary dictionary from a word list.
+	 * Usage: ScrabbleDictionary &lt;word list&gt; &lt;output file&gt;
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: ScrabbleDictionary <word list> <output file>");
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		ScrabbleDictionary dict = loadWordList(new File(args[0]));
+		dict.write(new File(args[1]));
+		System.out.println("Wrote " + dict.getWordCount() + " words, " + (HEADER_INTS + dict.data.limit()) * 4 + " bytes in " + (System.currentTimeMillis() - startTime) + " ms");
+	}
+
+	private static class TrieNode {
+		TrieNode[] children = new TrieNode[26];
+		boolean terminal = false;
+	}
+
+	//writes out trie nodes, reusing the index of any identical node that was already written
+	private static class GraphWriter {
+		int[] out = new int[1024];
+		int size = 0;
+		HashMap<NodeKey, Integer> written = new HashMap<>();
+
+		int write(TrieNode n) {
+			int mask = 0;
+			int childCnt = 0;
+			int[] node = new int[27];
+			for (int i = 0; i < 26; i++) {
+				if (n.children[i] != null) {
+					mask |= 1 << i;
+					node[1 + childCnt++] = this.write(n.children[i]);
+				}
+			}
+			node[0] = mask | (n.terminal ? TERMINAL : 0);
+
+			NodeKey key = new NodeKey(Arrays.copyOf(node, 1 + childCnt));
+			Integer index = this.written.get(key);
+			if (index != null) {
+				return index;
+			}
+
+			if (this.size + key.ints.length > this.out.length) {
+				this.out = Arrays.copyOf(this.out, Math.max(this.out.length * 2, this.size + key.ints.length));
+			}
+			int start = this.size;
+			System.arraycopy(key.ints, 0, this.out, start, key.ints.length);
+			this.size += key.ints.length;
+			this.written.put(key, start);
+			return start;
+		}
+	}
+
+	private static class NodeKey {
+		final int[] ints;
+		final int hash;
+
+		NodeKey(int[] ints) {
+			this.ints = ints;
+			this.hash = Arrays.hashCode(ints);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof NodeKey && Arrays.equals(this.ints, ((NodeKey) o).ints);
+		}
+	}
+
+}
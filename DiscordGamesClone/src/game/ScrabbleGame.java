@@ -1,14 +1,10 @@
 package game;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 
 import util.FileUtils;
 import util.Pair;
@@ -30,7 +26,7 @@ public class ScrabbleGame {
 	public static int boardSize = 15;
 	public static int handSize = 7;
 
-	public static HashSet<String> wordList;
+	public static ScrabbleDictionary dictionary;
 	public static HashMap<Character, Integer> letterScore = new HashMap<Character, Integer>() {
 		{
 			put('A', 1);
@@ -62,6 +58,15 @@ public class ScrabbleGame {
 		}
 	};
 
+	//letterScore as an array, index 0 is 'A'
+	static final int[] letterScores = new int[26];
+
+	static {
+		for (char c : letterScore.keySet()) {
+			letterScores[c - 'A'] = letterScore.get(c);
+		}
+	}
+
 	//(1 point) - A, E, I, O, U, L, N, S, T, R
 	//(2 points) - D, G
 	//(3 points) - B, C, M, P
@@ -125,8 +130,8 @@ public class ScrabbleGame {
 		this.letterBoard = new char[boardSize][boardSize];
 		this.bonusBoard = new int[boardSize][boardSize];
 
-		if (ScrabbleGame.wordList == null) {
-			ScrabbleGame.loadWordList();
+		if (ScrabbleGame.dictionary == null) {
+			ScrabbleGame.loadDictionary();
 		}
 
 		for (char[] i : this.letterBoard) {
@@ -143,8 +148,8 @@ public class ScrabbleGame {
 		this.letterBoard = new char[boardSize][boardSize];
 		this.bonusBoard = new int[boardSize][boardSize];
 
-		if (ScrabbleGame.wordList == null) {
-			ScrabbleGame.loadWordList();
+		if (ScrabbleGame.dictionary == null) {
+			ScrabbleGame.loadDictionary();
 		}
 
 		for (char[] i : this.letterBoard) {
@@ -159,30 +164,32 @@ public class ScrabbleGame {
 		}
 	}
 
-	public static void loadWordList() {
-		ScrabbleGame.wordList = new HashSet<String>();
-
-		File f = FileUtils.loadFile("/scrabble/scrabble_dict.txt");
-		BufferedReader fin;
+	//memory maps the prebuilt dictionary. If it's missing, builds it from the word list instead, which is a lot slower.
+	//to rebuild it after changing the word list, run ScrabbleDictionary.main
+	public static synchronized void loadDictionary() {
+		if (ScrabbleGame.dictionary != null) {
+			return;
+		}
 
+		File dawg = FileUtils.loadFile("/scrabble/scrabble_dict.dawg");
 		try {
-			fin = new BufferedReader(new FileReader(f));
-
-			String next = fin.readLine();
-			while (next != null) {
-				ScrabbleGame.wordList.add(next.toUpperCase());
-				next = fin.readLine();
+			if (dawg.exists()) {
+				ScrabbleGame.dictionary = ScrabbleDictionary.load(dawg);
+				return;
 			}
-
-			fin.close();
 		}
-		catch (FileNotFoundException e) {
-			System.err.println("Unable to load scrabble dictionary");
+		catch (IOException e) {
+			System.err.println("A problem occurred when reading scrabble dictionary, falling back to word list");
 			e.printStackTrace();
 		}
+
+		try {
+			ScrabbleGame.dictionary = ScrabbleDictionary.loadWordList(FileUtils.loadFile("/scrabble/scrabble_dict.txt"));
+		}
 		catch (IOException e) {
-			System.err.println("A problem occurred when reading scrabble dictionary");
+			System.err.println("Unable to load scrabble dictionary");
 			e.printStackTrace();
+			ScrabbleGame.dictionary = ScrabbleDictionary.build(new ArrayList<String>());
 		}
 	}
 
@@ -211,6 +218,25 @@ public class ScrabbleGame {
 	//if the move is invalid, then returns -1
 	//else, returns the score of the move, and applies the move to the board
 	public int makeMove(ArrayList<Pair<int[], Character>> tiles) {
+		int score = this.scoreMove(tiles);
+		if (score == -1) {
+			return -1;
+		}
+		for (Pair<int[], Character> i : tiles) {
+			this.letterBoard[i.first[0]][i.first[1]] = i.second;
+		}
+		return score;
+	}
+
+	//returns the score of the move without making it, or -1 if it's invalid
+	public int getMoveScore(ArrayList<Pair<int[], Character>> tiles) {
+		return this.scoreMove(tiles);
+	}
+
+	//only the main word and the words going across it through each new tile can change, so those are the only ones
+	//that get validated and scored. The board is never copied; the new tiles sit in a separate array, and are read
+	//on top of the board.
+	private int scoreMove(ArrayList<Pair<int[], Character>> tiles) {
 		// - you must place down at least 2 tiles
 		if (tiles.size() <= 1) {
 			//System.err.println("MUST PLACE AT LEAST 2 TILES");
@@ -231,6 +257,16 @@ public class ScrabbleGame {
 			br[0] = Math.max(br[0], r);
 			br[1] = Math.max(br[1], c);
 
+			// - all tiles must be on the board
+			if (r < 0 || c < 0 || r >= boardSize || c >= boardSize) {
+				//System.err.println("ALL TILES MUST BE ON BOARD");
+				return -1;
+			}
+
+			if (i.second < 'A' || i.second > 'Z') {
+				return -1;
+			}
+
 			if (this.bonusBoard[r][c] == BONUS_START) {
 				overStartTile = true;
 			}
@@ -263,280 +299,110 @@ public class ScrabbleGame {
 			return -1;
 		}
 
-		// - all tiles must be on the board
-		if (tl[0] < 0 || tl[1] < 0 || br[0] >= boardSize || br[1] >= boardSize) {
-			//System.err.println("ALL TILES MUST BE ON BOARD");
-			return -1;
-		}
-
 		// - all of the new tiles can't replace old ones
-		char[][] nextBoard = new char[boardSize][boardSize];
-		boolean[][] isNewTile = new boolean[boardSize][boardSize];
-		for (int i = 0; i < boardSize; i++) {
-			for (int j = 0; j < boardSize; j++) {
-				nextBoard[i][j] = this.letterBoard[i][j];
-			}
-		}
+		char[] placed = new char[boardSize * boardSize];
 		for (Pair<int[], Character> i : tiles) {
 			int r = i.first[0];
 			int c = i.first[1];
-			if (nextBoard[r][c] != LETTER_EMPTY) {
+			if (this.letterBoard[r][c] != LETTER_EMPTY || placed[r * boardSize + c] != LETTER_EMPTY) {
 				//System.err.println("NEW TILES MUST NOT REPLACE OLD TILES");
 				return -1;
 			}
-			nextBoard[r][c] = i.second;
-			isNewTile[r][c] = true;
+			placed[r * boardSize + c] = i.second;
 		}
 
 		// - there must be no gaps between the first tile and last tile
 		for (int i = tl[0]; i <= br[0]; i++) {
 			for (int j = tl[1]; j <= br[1]; j++) {
-				if (nextBoard[i][j] == LETTER_EMPTY) {
+				if (getCell(this.letterBoard, placed, i, j) == LETTER_EMPTY) {
 					//System.err.println("THERE MUST BE NO GAPS BETWEEN FIRST AND LAST TILE");
 					return -1;
 				}
 			}
 		}
 
-		// - all of the new words have to be valid
-		if (!isLetterBoardValid(nextBoard)) {
+		// - all of the new words have to be valid, calculate score and return
+		boolean vertical = tl[0] != br[0];
+		int score = scoreWord(this.letterBoard, placed, this.bonusBoard, tl[0], tl[1], vertical);
+		if (score == -1) {
 			//System.err.println("ALL WORDS MUST BE VALID");
 			return -1;
 		}
-
-		// - calculate score and return
-		this.letterBoard = nextBoard;
-		int score = 0;
-		for (int i = 0; i < boardSize; i++) {
-			int rowWordScore = 0;
-			int rowWordMultiplier = 1;
-			int rowWordLength = 0;
-			boolean rowWordNew = false;
-
-			int colWordScore = 0;
-			int colWordMultiplier = 1;
-			int colWordLength = 0;
-			boolean colWordNew = false;
-			for (int j = 0; j < boardSize; j++) {
-				if (this.letterBoard[i][j] != LETTER_EMPTY) {
-					int lScore = ScrabbleGame.letterScore.get(this.letterBoard[i][j]);
-					rowWordLength++;
-					if (this.bonusBoard[i][j] == BONUS_LETTER_DOUBLE) {
-						lScore *= 2;
-					}
-					else if (this.bonusBoard[i][j] == BONUS_LETTER_TRIPLE) {
-						lScore *= 3;
-					}
-					rowWordScore += lScore;
-
-					if (this.bonusBoard[i][j] == BONUS_WORD_DOUBLE) {
-						rowWordMultiplier *= 2;
-					}
-					else if (this.bonusBoard[i][j] == BONUS_WORD_TRIPLE) {
-						rowWordMultiplier *= 3;
-					}
-
-					if (isNewTile[i][j]) {
-						rowWordNew = true;
-					}
-				}
-				if (this.letterBoard[j][i] != LETTER_EMPTY) {
-					int lScore = ScrabbleGame.letterScore.get(this.letterBoard[j][i]);
-					colWordLength++;
-					if (this.bonusBoard[j][i] == BONUS_LETTER_DOUBLE) {
-						lScore *= 2;
-					}
-					else if (this.bonusBoard[j][i] == BONUS_LETTER_TRIPLE) {
-						lScore *= 3;
-					}
-					colWordScore += lScore;
-
-					if (this.bonusBoard[j][i] == BONUS_WORD_DOUBLE) {
-						colWordMultiplier *= 2;
-					}
-					else if (this.bonusBoard[j][i] == BONUS_WORD_TRIPLE) {
-						colWordMultiplier *= 3;
-					}
-
-					if (isNewTile[j][i]) {
-						colWordNew = true;
-					}
-				}
-
-				// - add score to counter
-				if (this.letterBoard[i][j] == LETTER_EMPTY || j == boardSize - 1) {
-					if (rowWordNew && rowWordLength >= 2) {
-						score += rowWordScore * rowWordMultiplier;
-					}
-					rowWordScore = 0;
-					rowWordMultiplier = 1;
-					rowWordNew = false;
-				}
-				if (this.letterBoard[j][i] == LETTER_EMPTY || j == boardSize - 1) {
-					if (colWordNew && colWordLength >= 2) {
-						score += colWordScore * colWordMultiplier;
-					}
-					colWordScore = 0;
-					colWordMultiplier = 1;
-					colWordNew = false;
-				}
+		for (Pair<int[], Character> i : tiles) {
+			int crossScore = scoreWord(this.letterBoard, placed, this.bonusBoard, i.first[0], i.first[1], !vertical);
+			if (crossScore == -1) {
+				return -1;
 			}
+			score += crossScore;
 		}
 
 		return score;
 	}
 
-	public int getMoveScore(ArrayList<Pair<int[], Character>> tiles) {
-		ScrabbleGame nextPos = new ScrabbleGame(this);
-		return nextPos.makeMove(tiles);
+	//letter at r, c, with the tiles being placed on top of the board. placed is indexed by r * boardSize + c
+	private static char getCell(char[][] board, char[] placed, int r, int c) {
+		char p = placed[r * boardSize + c];
+		return p != LETTER_EMPTY ? p : board[r][c];
 	}
 
-	private boolean isLetterBoardValid(char[][] board) {
-		for (int i = 0; i < boardSize; i++) {
-			String rowWord = "";
-			String colWord = "";
-			for (int j = 0; j < boardSize; j++) {
-				if (board[i][j] != LETTER_EMPTY) {
-					rowWord += board[i][j];
-				}
-				if (board[j][i] != LETTER_EMPTY) {
-					colWord += board[j][i];
-				}
+	//finds the word going through r, c, walks it through the dictionary and scores it, all in one pass.
+	//returns 0 if it's only a single letter, and -1 if it isn't a word
+	static int scoreWord(char[][] board, char[] placed, int[][] bonusBoard, int r, int c, boolean vertical) {
+		int dr = vertical ? 1 : 0;
+		int dc = vertical ? 0 : 1;
 
-				// - check against dictionary
-				if (rowWord.length() != 0 && (board[i][j] == LETTER_EMPTY || j == boardSize - 1)) {
-					if (rowWord.length() >= 2 && !ScrabbleGame.wordList.contains(rowWord)) {
-						return false;
-					}
-					rowWord = "";
-				}
-				if (colWord.length() != 0 && (board[j][i] == LETTER_EMPTY || j == boardSize - 1)) {
-					if (colWord.length() >= 2 && !ScrabbleGame.wordList.contains(colWord)) {
-						return false;
-					}
-					colWord = "";
-				}
-			}
+		//back up to the start of the word
+		while (r - dr >= 0 && c - dc >= 0 && getCell(board, placed, r - dr, c - dc) != LETTER_EMPTY) {
+			r -= dr;
+			c -= dc;
 		}
-		return true;
-	}
-
-	private <T> ArrayList<ArrayList<T>> generatePermutations(ArrayList<T> a) {
-		ArrayList<ArrayList<T>> ans = new ArrayList<>();
-		this.generatePermutations(a, a.size(), a.size(), ans);
-		return ans;
-	}
 
-	private <T> void generatePermutations(ArrayList<T> a, int s, int n, ArrayList<ArrayList<T>> ans) {
-		if (s == 1) {
-			ArrayList<T> next = new ArrayList<>();
-			next.addAll(a);
-			ans.add(next);
-		}
+		ScrabbleDictionary dict = ScrabbleGame.dictionary;
+		int node = dict.getRoot();
+		int wordLength = 0;
+		int wordScore = 0;
+		int wordMultiplier = 1;
+		for (; r < boardSize && c < boardSize; r += dr, c += dc) {
+			char letter = getCell(board, placed, r, c);
+			if (letter == LETTER_EMPTY) {
+				break;
+			}
+			node = dict.getChild(node, letter);
+			wordLength++;
 
-		for (int i = 0; i < s; i++) {
-			this.generatePermutations(a, s - 1, n, ans);
-			if (s % 2 == 1) {
-				T temp = a.get(0);
-				a.set(0, a.get(a.size() - 1));
-				a.set(a.size() - 1, temp);
+			int lScore = letterScores[letter - 'A'];
+			if (bonusBoard[r][c] == BONUS_LETTER_DOUBLE) {
+				lScore *= 2;
 			}
-			else {
-				T temp = a.get(i);
-				a.set(i, a.get(a.size() - 1));
-				a.set(a.size() - 1, temp);
+			else if (bonusBoard[r][c] == BONUS_LETTER_TRIPLE) {
+				lScore *= 3;
 			}
-		}
-	}
-
-	//returns the maximum scoring move, and returns null if no move exists. 
-	public ArrayList<Pair<int[], Character>> generateBestMove(ArrayList<Character> hand) {
-		int maxScore = 0;
-		ArrayList<Pair<int[], Character>> ans = null;
-
-		ArrayList<ArrayList<Character>> permutations = this.generatePermutations(hand);
+			wordScore += lScore;
 
-		//for each cell, try to make a word to the right
-		for (int i = 0; i < boardSize; i++) {
-			//find the cells that you can place stuff on
-			ArrayList<int[]> openCells = new ArrayList<>();
-			for (int j = 0; j < boardSize; j++) {
-				if (this.letterBoard[i][j] == LETTER_EMPTY) {
-					openCells.add(new int[] { i, j });
-				}
+			if (bonusBoard[r][c] == BONUS_WORD_DOUBLE) {
+				wordMultiplier *= 2;
 			}
-
-			//generate the moves, and test them
-			for (int j = 0; j < openCells.size(); j++) {
-				//go through all move sizes
-				for (int k = 2; k <= hand.size() && j + k < openCells.size(); k++) {
-					int amtOfMoves = 1;
-					for (int l = hand.size(); l > hand.size() - k; l--) {
-						amtOfMoves *= l;
-					}
-
-					//go through each permutation
-					for (int l = 0; l < amtOfMoves; l++) {
-						ArrayList<Pair<int[], Character>> move = new ArrayList<>();
-						for (int r = 0; r < k; r++) {
-							int[] coord = openCells.get(r + j);
-							char c = permutations.get(l).get(r);
-							Pair<int[], Character> next = new Pair<>(coord, c);
-							move.add(next);
-						}
-
-						//test the move
-						int score = this.getMoveScore(move);
-						if (score > maxScore) {
-							ans = move;
-							maxScore = score;
-						}
-					}
-				}
+			else if (bonusBoard[r][c] == BONUS_WORD_TRIPLE) {
+				wordMultiplier *= 3;
 			}
 		}
 
-		//now do the same, but up to down
-		for (int i = 0; i < boardSize; i++) {
-			//find the cells that you can place stuff on
-			ArrayList<int[]> openCells = new ArrayList<>();
-			for (int j = 0; j < boardSize; j++) {
-				if (this.letterBoard[j][i] == LETTER_EMPTY) {
-					openCells.add(new int[] { j, i });
-				}
-			}
-
-			//generate the moves, and test them
-			for (int j = 0; j < openCells.size(); j++) {
-				//go through all move sizes
-				for (int k = 2; k <= hand.size() && j + k < openCells.size(); k++) {
-					int amtOfMoves = 1;
-					for (int l = hand.size(); l > hand.size() - k; l--) {
-						amtOfMoves *= l;
-					}
-
-					//go through each permutation
-					for (int l = 0; l < amtOfMoves; l++) {
-						ArrayList<Pair<int[], Character>> move = new ArrayList<>();
-						for (int r = 0; r < k; r++) {
-							int[] coord = openCells.get(r + j);
-							char c = permutations.get(l).get(r);
-							Pair<int[], Character> next = new Pair<>(coord, c);
-							move.add(next);
-						}
-
-						//test the move
-						int score = this.getMoveScore(move);
-						if (score > maxScore) {
-							ans = move;
-							maxScore = score;
-						}
-					}
-				}
-			}
+		if (wordLength < 2) {
+			return 0;
+		}
+		if (!dict.isWord(node)) {
+			return -1;
 		}
+		return wordScore * wordMultiplier;
+	}
 
-		return ans;
+	/**
+	 * Finds the highest scoring move that can be made with the letters in hand.
+	 * @param hand
+	 * @return the tiles to place, or null if there is no valid move
+	 */
+	public ArrayList<Pair<int[], Character>> generateBestMove(ArrayList<Character> hand) {
+		return new ScrabbleMoveGenerator(ScrabbleGame.dictionary).generateBestMove(this.letterBoard, this.bonusBoard, hand);
 	}
 
 }
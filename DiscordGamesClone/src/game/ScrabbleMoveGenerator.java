@@ -0,0 +1,441 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+import util.Pair;
+
+public class ScrabbleMoveGenerator {
+
+	//finds the best move using the algorithm from Appel and Jacobson, "The World's Fastest Scrabble Program".
+
+	//every word that gets played has to go through an anchor: an empty square next to a tile that's already on the board,
+	//or the start square if the board is empty. For every anchor, we build the part of the word to the left of it,
+	//then extend it to the right through the anchor, following the dictionary graph the whole time, so we only ever
+	//try letters that continue some word.
+
+	//each empty square also has a cross check: the set of letters that form a valid word with the tiles above and below it.
+	//since placing a letter can only make one word in the other direction, checking it against the cross check is all
+	//that's needed to make sure the perpendicular words are valid.
+
+	//columns are handled by doing the same thing with rows and columns swapped.
+
+	//a generator keeps scratch state while searching, so it should only be used by one thread at a time.
+	//to search in parallel, give each thread its own generator and split the lines between them, see ScrabbleComputer.
+
+	private static final int ALL_LETTERS = (1 << 26) - 1;
+
+	private final ScrabbleDictionary dict;
+
+	private char[][] board;
+	private int[][] bonusBoard;
+	private int size;
+
+	private int[] handCounts;
+
+	//the line being searched
+	private boolean vertical;
+	private int line;
+	private int[] crossChecks;
+	private boolean[] anchors;
+
+	//the move being built, positions are along the line
+	private int[] placedPos;
+	private char[] placedLetter;
+	private int placedCnt;
+
+	//the tiles being scored, indexed by r * size + c
+	private char[] placed;
+
+	private int bestScore;
+	private ArrayList<Pair<int[], Character>> bestMove;
+
+	//when collecting candidates, the best ones found so far, worst on top
+	private PriorityQueue<Candidate> candidates;
+	private int maxCandidates;
+	private boolean evaluateLeaves = false;
+
+	//System.nanoTime() to give up at, lines are searched anchor by anchor and whatever was found by then is kept
+	private boolean timed = false;
+	private long deadline;
+	private boolean timeUp;
+
+	public ScrabbleMoveGenerator(ScrabbleDictionary dict) {
+		this.dict = dict;
+	}
+
+	/**
+	 * Stops searching at the given time. Whatever was found before then is still returned.
+	 * @param deadline a {@link System#nanoTime()} value
+	 */
+	public void setDeadline(long deadline) {
+		this.timed = true;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Whether collected candidates should have the tiles left in the hand taken into account, see {@link ScrabbleComputer#evaluateLeave(int[])}.
+	 * @param evaluateLeaves
+	 */
+	public void setEvaluateLeaves(boolean evaluateLeaves) {
+		this.evaluateLeaves = evaluateLeaves;
+	}
+
+	public boolean isTimeUp() {
+		return this.timeUp;
+	}
+
+	/**
+	 * Finds the highest scoring move. Like {@link ScrabbleGame#makeMove(ArrayList)}, a move has to place at least two tiles.
+	 * @param board
+	 * @param bonusBoard
+	 * @param hand
+	 * @return the tiles to place, or null if there is no valid move
+	 */
+	public ArrayList<Pair<int[], Character>> generateBestMove(char[][] board, int[][] bonusBoard, ArrayList<Character> hand) {
+		boolean boardEmpty = this.prepare(board, bonusBoard, hand);
+		this.candidates = null;
+
+		for (int d = 0; d < 2; d++) {
+			for (int l = 0; l < this.size; l++) {
+				this.searchLine(d == 1, l, boardEmpty);
+			}
+		}
+
+		return this.bestMove;
+	}
+
+	/**
+	 * Collects the best moves that go along one line of the board. Lines are independent of each other,
+	 * so different lines can be searched by different generators at the same time.
+	 * @param board
+	 * @param bonusBoard
+	 * @param hand
+	 * @param vertical whether line is a column instead of a row
+	 * @param line
+	 * @param maxCandidates how many of the best moves to keep
+	 * @return the moves, best first
+	 */
+	public ArrayList<Candidate> generateMoves(char[][] board, int[][] bonusBoard, ArrayList<Character> hand, boolean vertical, int line, int maxCandidates) {
+		boolean boardEmpty = this.prepare(board, bonusBoard, hand);
+		this.candidates = new PriorityQueue<>();
+		this.maxCandidates = maxCandidates;
+
+		this.searchLine(vertical, line, boardEmpty);
+
+		ArrayList<Candidate> ret = new ArrayList<>(this.candidates);
+		Collections.sort(ret, Collections.reverseOrder());
+		this.candidates = null;
+		return ret;
+	}
+
+	//returns whether the board is empty
+	private boolean prepare(char[][] board, int[][] bonusBoard, ArrayList<Character> hand) {
+		this.board = board;
+		this.bonusBoard = bonusBoard;
+		this.size = board.length;
+
+		//the scratch arrays can be reused, the overlay is always cleared after scoring a move
+		if (this.crossChecks == null || this.crossChecks.length != this.size) {
+			this.crossChecks = new int[this.size];
+			this.anchors = new boolean[this.size];
+			this.placedPos = new int[this.size];
+			this.placedLetter = new char[this.size];
+			this.placed = new char[this.size * this.size];
+			this.handCounts = new int[26];
+		}
+
+		Arrays.fill(this.handCounts, 0);
+		for (char c : hand) {
+			char upper = Character.toUpperCase(c);
+			if (upper >= 'A' && upper <= 'Z') {
+				this.handCounts[upper - 'A']++;
+			}
+		}
+
+		this.bestScore = 0;
+		this.bestMove = null;
+		this.timeUp = false;
+
+		boolean boardEmpty = true;
+		for (char[] row : board) {
+			for (char c : row) {
+				if (c != ScrabbleGame.LETTER_EMPTY) {
+					boardEmpty = false;
+				}
+			}
+		}
+		return boardEmpty;
+	}
+
+	private void searchLine(boolean vertical, int line, boolean boardEmpty) {
+		this.vertical = vertical;
+		this.line = line;
+		this.findAnchorsAndCrossChecks(boardEmpty);
+		this.searchLine();
+	}
+
+	// -- BOARD ACCESS ALONG THE CURRENT LINE --
+
+	//letter at position j along the current line, offset perpendicular to it
+	private char get(int j, int offset) {
+		int r = this.vertical ? j : this.line + offset;
+		int c = this.vertical ? this.line + offset : j;
+		if (r < 0 || c < 0 || r >= this.size || c >= this.size) {
+			return ScrabbleGame.LETTER_EMPTY;
+		}
+		return this.board[r][c];
+	}
+
+	private char get(int j) {
+		return this.get(j, 0);
+	}
+
+	private boolean isEmpty(int j) {
+		return this.get(j) == ScrabbleGame.LETTER_EMPTY;
+	}
+
+	private void findAnchorsAndCrossChecks(boolean boardEmpty) {
+		for (int j = 0; j < this.size; j++) {
+			this.anchors[j] = false;
+			this.crossChecks[j] = 0;
+			if (!this.isEmpty(j)) {
+				continue;
+			}
+
+			boolean above = this.get(j, -1) != ScrabbleGame.LETTER_EMPTY;
+			boolean below = this.get(j, 1) != ScrabbleGame.LETTER_EMPTY;
+			boolean side = (j > 0 && !this.isEmpty(j - 1)) || (j < this.size - 1 && !this.isEmpty(j + 1));
+
+			if (boardEmpty) {
+				int r = this.vertical ? j : this.line;
+				int c = this.vertical ? this.line : j;
+				this.anchors[j] = this.bonusBoard[r][c] == ScrabbleGame.BONUS_START;
+			}
+			else {
+				this.anchors[j] = above || below || side;
+			}
+
+			if (!above && !below) {
+				this.crossChecks[j] = ALL_LETTERS;
+				continue;
+			}
+
+			//follow the tiles above down to this square
+			int top = 0;
+			while (this.get(j, top - 1) != ScrabbleGame.LETTER_EMPTY) {
+				top--;
+			}
+			int node = this.dict.getRoot();
+			for (int k = top; k < 0 && node != ScrabbleDictionary.NONE; k++) {
+				node = this.dict.getChild(node, this.get(j, k));
+			}
+
+			//then try each letter that can continue, and see if the tiles below finish a word
+			int mask = this.dict.getChildMask(node);
+			int check = 0;
+			while (mask != 0) {
+				int l = Integer.numberOfTrailingZeros(mask);
+				mask &= mask - 1;
+				int n = this.dict.getChild(node, (char) ('A' + l));
+				for (int k = 1; this.get(j, k) != ScrabbleGame.LETTER_EMPTY && n != ScrabbleDictionary.NONE; k++) {
+					n = this.dict.getChild(n, this.get(j, k));
+				}
+				if (this.dict.isWord(n)) {
+					check |= 1 << l;
+				}
+			}
+			this.crossChecks[j] = check;
+		}
+	}
+
+	// -- SEARCH --
+
+	private void searchLine() {
+		for (int anchor = 0; anchor < this.size; anchor++) {
+			if (!this.anchors[anchor]) {
+				continue;
+			}
+			if (this.timed && System.nanoTime() - this.deadline > 0) {
+				this.timeUp = true;
+				return;
+			}
+
+			if (anchor > 0 && !this.isEmpty(anchor - 1)) {
+				//the left part is the tiles already on the board
+				int start = anchor - 1;
+				while (start > 0 && !this.isEmpty(start - 1)) {
+					start--;
+				}
+				int node = this.dict.getRoot();
+				for (int k = start; k < anchor && node != ScrabbleDictionary.NONE; k++) {
+					node = this.dict.getChild(node, this.get(k));
+				}
+				if (node != ScrabbleDictionary.NONE) {
+					this.placedCnt = 0;
+					this.extendRight(node, anchor, anchor);
+				}
+			}
+			else {
+				//the left part can go over empty squares that aren't anchors, otherwise those moves would be found
+				//from the other anchor as well
+				int limit = 0;
+				while (anchor - limit - 1 >= 0 && this.isEmpty(anchor - limit - 1) && !this.anchors[anchor - limit - 1]) {
+					limit++;
+				}
+				this.leftPart(this.dict.getRoot(), 0, limit, anchor);
+			}
+		}
+	}
+
+	//builds every left part of up to limit letters from the hand. The letters are placed right to left once the length is known,
+	//so they're kept in placedLetter in order, and their positions are filled in before extending right.
+	private void leftPart(int node, int length, int limit, int anchor) {
+		for (int i = 0; i < length; i++) {
+			this.placedPos[i] = anchor - length + i;
+		}
+		this.placedCnt = length;
+		this.extendRight(node, anchor, anchor);
+
+		if (length == limit) {
+			return;
+		}
+		int mask = this.dict.getChildMask(node);
+		while (mask != 0) {
+			int l = Integer.numberOfTrailingZeros(mask);
+			mask &= mask - 1;
+			if (this.handCounts[l] == 0) {
+				continue;
+			}
+			this.handCounts[l]--;
+			this.placedLetter[length] = (char) ('A' + l);
+			this.leftPart(this.dict.getChild(node, (char) ('A' + l)), length + 1, limit, anchor);
+			this.handCounts[l]++;
+		}
+	}
+
+	private void extendRight(int node, int j, int anchor) {
+		if (j >= this.size || this.isEmpty(j)) {
+			//the word ends here, as long as it went through the anchor
+			if (j > anchor && this.dict.isWord(node)) {
+				this.recordMove();
+			}
+			if (j >= this.size) {
+				return;
+			}
+
+			int mask = this.dict.getChildMask(node) & this.crossChecks[j];
+			while (mask != 0) {
+				int l = Integer.numberOfTrailingZeros(mask);
+				mask &= mask - 1;
+				if (this.handCounts[l] == 0) {
+					continue;
+				}
+				this.handCounts[l]--;
+				this.placedPos[this.placedCnt] = j;
+				this.placedLetter[this.placedCnt] = (char) ('A' + l);
+				this.placedCnt++;
+				this.extendRight(this.dict.getChild(node, (char) ('A' + l)), j + 1, anchor);
+				this.placedCnt--;
+				this.handCounts[l]++;
+			}
+		}
+		else {
+			int next = this.dict.getChild(node, this.get(j));
+			if (next != ScrabbleDictionary.NONE) {
+				this.extendRight(next, j + 1, anchor);
+			}
+		}
+	}
+
+	private void recordMove() {
+		if (this.placedCnt < 2) {
+			return;
+		}
+
+		//score the main word plus the word each tile makes the other way. The words are already known to be valid
+		for (int i = 0; i < this.placedCnt; i++) {
+			int r = this.vertical ? this.placedPos[i] : this.line;
+			int c = this.vertical ? this.line : this.placedPos[i];
+			this.placed[r * this.size + c] = this.placedLetter[i];
+		}
+
+		int r0 = this.vertical ? this.placedPos[0] : this.line;
+		int c0 = this.vertical ? this.line : this.placedPos[0];
+		int score = ScrabbleGame.scoreWord(this.board, this.placed, this.bonusBoard, r0, c0, this.vertical);
+		for (int i = 0; i < this.placedCnt; i++) {
+			int r = this.vertical ? this.placedPos[i] : this.line;
+			int c = this.vertical ? this.line : this.placedPos[i];
+			score += ScrabbleGame.scoreWord(this.board, this.placed, this.bonusBoard, r, c, !this.vertical);
+		}
+
+		for (int i = 0; i < this.placedCnt; i++) {
+			int r = this.vertical ? this.placedPos[i] : this.line;
+			int c = this.vertical ? this.line : this.placedPos[i];
+			this.placed[r * this.size + c] = ScrabbleGame.LETTER_EMPTY;
+		}
+
+		if (this.candidates != null) {
+			this.recordCandidate(score);
+			return;
+		}
+
+		if (score > this.bestScore) {
+			this.bestScore = score;
+			this.bestMove = new ArrayList<>();
+			for (int i = 0; i < this.placedCnt; i++) {
+				int r = this.vertical ? this.placedPos[i] : this.line;
+				int c = this.vertical ? this.line : this.placedPos[i];
+				this.bestMove.add(new Pair<>(new int[] { r, c }, this.placedLetter[i]));
+			}
+		}
+	}
+
+	private void recordCandidate(int score) {
+		int equity = score * ScrabbleComputer.EQUITY_SCALE;
+		if (this.evaluateLeaves) {
+			//the hand counts are what's left after this move
+			equity += ScrabbleComputer.evaluateLeave(this.handCounts);
+		}
+		if (this.candidates.size() >= this.maxCandidates) {
+			if (equity <= this.candidates.peek().equity) {
+				return;
+			}
+			this.candidates.poll();
+		}
+
+		ArrayList<Pair<int[], Character>> move = new ArrayList<>();
+		for (int i = 0; i < this.placedCnt; i++) {
+			int r = this.vertical ? this.placedPos[i] : this.line;
+			int c = this.vertical ? this.line : this.placedPos[i];
+			move.add(new Pair<>(new int[] { r, c }, this.placedLetter[i]));
+		}
+		this.candidates.add(new Candidate(move, score, equity));
+	}
+
+	public int getBestScore() {
+		return this.bestScore;
+	}
+
+	public static class Candidate implements Comparable<Candidate> {
+		public final ArrayList<Pair<int[], Character>> move;
+		public final int score;
+
+		//how good the move is, score plus the value of the tiles that are left, see ScrabbleComputer.EQUITY_SCALE
+		public final int equity;
+
+		public Candidate(ArrayList<Pair<int[], Character>> move, int score, int equity) {
+			this.move = move;
+			this.score = score;
+			this.equity = equity;
+		}
+
+		@Override
+		public int compareTo(Candidate o) {
+			return Integer.compare(this.equity, o.equity);
+		}
+	}
+
+}
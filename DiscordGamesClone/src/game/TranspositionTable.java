@@ -0,0 +1,122 @@
+package game;
+
+public class TranspositionTable {
+
+	//fixed size hash table of search results, indexed by zobrist key.
+
+	//each entry is two longs, the key xor'd with the data, and the data. This way the table can be shared between
+	//search threads without locking: if two threads write the same entry at the same time and the halves get mixed up,
+	//the key won't match the data anymore, and the entry is just treated as a miss.
+
+	//data layout:
+	//bits 0 - 15 : best move
+	//bits 16 - 23 : depth
+	//bits 24 - 25 : bound type
+	//bits 26 - 31 : generation
+	//bits 32 - 63 : score
+
+	//replacement policy: an entry from an older search is always replaced. Within the same search, an entry is only
+	//replaced by a result that is at least as deep, or by any result for the same position.
+
+	public static final int BOUND_NONE = 0;
+	public static final int BOUND_EXACT = 1;
+	public static final int BOUND_LOWER = 2; //score is at least this
+	public static final int BOUND_UPPER = 3; //score is at most this
+
+	private static final int GENERATION_MASK = 63;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+
+	private volatile int generation = 0;
+
+	/**
+	 * @param sizeMegabytes rounded down to a power of two amount of entries
+	 */
+	public TranspositionTable(int sizeMegabytes) {
+		long entries = Math.max(1, (long) sizeMegabytes * 1024 * 1024 / 16);
+		int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+		this.keys = new long[size];
+		this.data = new long[size];
+		this.mask = size - 1;
+	}
+
+	public int size() {
+		return this.keys.length;
+	}
+
+	/**
+	 * Should be called at the start of every search, so that entries from old searches get replaced first.
+	 * Concurrent searches can share a generation, which doesn't matter.
+	 */
+	public void newSearch() {
+		this.generation = (this.generation + 1) & GENERATION_MASK;
+	}
+
+	public void clear() {
+		for (int i = 0; i < this.keys.length; i++) {
+			this.keys[i] = 0;
+			this.data[i] = 0;
+		}
+	}
+
+	private int index(long key) {
+		return (int) (key ^ (key >>> 32)) & this.mask;
+	}
+
+	/**
+	 * Returns the data stored for this key, or 0 if there isn't any. Use the static getters to unpack it.
+	 * @param key
+	 * @return
+	 */
+	public long probe(long key) {
+		int i = this.index(key);
+		long d = this.data[i];
+		if ((this.keys[i] ^ d) != key) {
+			return 0;
+		}
+		return d;
+	}
+
+	public void store(long key, int move, int depth, int bound, int score) {
+		int i = this.index(key);
+		long oldData = this.data[i];
+		long oldKey = this.keys[i] ^ oldData;
+		int generation = this.generation;
+
+		if (oldData != 0 && oldKey != key && getGeneration(oldData) == generation && getDepth(oldData) > depth) {
+			return;
+		}
+
+		//keep the old best move if we don't have one
+		if (move == ChessMove.NONE && oldKey == key) {
+			move = getMove(oldData);
+		}
+
+		long d = (move & 0xFFFFL) | ((long) (Math.min(depth, 255) & 0xFF) << 16) | ((long) bound << 24) | ((long) generation << 26) | ((long) score << 32);
+		this.data[i] = d;
+		this.keys[i] = key ^ d;
+	}
+
+	public static int getMove(long data) {
+		return (int) (data & 0xFFFF);
+	}
+
+	public static int getDepth(long data) {
+		return (int) ((data >>> 16) & 0xFF);
+	}
+
+	public static int getBound(long data) {
+		return (int) ((data >>> 24) & 3);
+	}
+
+	public static int getScore(long data) {
+		return (int) (data >> 32);
+	}
+
+	private static int getGeneration(long data) {
+		return (int) ((data >>> 26) & GENERATION_MASK);
+	}
+
+}
@@ -0,0 +1,23 @@
+package impulse2d;
+
+public class AABB {
+	//axis aligned bounding box, in world space
+
+	public float minX, minY;
+	public float maxX, maxY;
+
+	public AABB() {
+
+	}
+
+	public void set(float minX, float minY, float maxX, float maxY) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+	}
+
+	public boolean overlaps(AABB other) {
+		return this.minX <= other.maxX && other.minX <= this.maxX && this.minY <= other.maxY && other.minY <= this.maxY;
+	}
+}
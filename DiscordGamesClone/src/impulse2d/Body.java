@@ -43,8 +43,13 @@ public class Body {
 		// velocity += im * impulse;
 		// angularVelocity += iI * Cross( contactVector, impulse );
 
-		velocity.addi(impulse.mul(invMass));
-		angularVelocity += invInertia * Vec2.cross(contactVector, impulse);
+		applyImpulse(impulse.x, impulse.y, contactVector);
+	}
+
+	public void applyImpulse(float impulseX, float impulseY, Vec2 contactVector) {
+		velocity.x += invMass * impulseX;
+		velocity.y += invMass * impulseY;
+		angularVelocity += invInertia * (contactVector.x * impulseY - contactVector.y * impulseX);
 	}
 
 	public void setRestitution(float restitution) {
@@ -0,0 +1,49 @@
+package impulse2d;
+
+import java.util.Arrays;
+
+public class BodyPairs {
+	//list of pairs of body indices, reused between ticks. 
+	//each pair is packed into a long as (lower index << 32) | higher index, so sorting the list puts the pairs
+	//in the same order as the old all pairs loop, no matter which broad phase produced them. 
+
+	private long[] pairs;
+	private int size = 0;
+
+	public BodyPairs() {
+		this.pairs = new long[64];
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+
+	public void add(int a, int b) {
+		if (this.size == this.pairs.length) {
+			this.pairs = Arrays.copyOf(this.pairs, this.pairs.length * 2);
+		}
+		int lo = Math.min(a, b);
+		int hi = Math.max(a, b);
+		this.pairs[this.size++] = ((long) lo << 32) | hi;
+	}
+
+	public void sort() {
+		Arrays.sort(this.pairs, 0, this.size);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public long getKey(int i) {
+		return this.pairs[i];
+	}
+
+	public int getA(int i) {
+		return (int) (this.pairs[i] >>> 32);
+	}
+
+	public int getB(int i) {
+		return (int) this.pairs[i];
+	}
+}
@@ -0,0 +1,16 @@
+package impulse2d;
+
+import java.util.ArrayList;
+
+public interface BroadPhase {
+	//quickly finds the pairs of bodies that might be colliding, so that the narrow phase only has to look at those. 
+
+	/**
+	 * Adds every pair of bodies whose bounding boxes overlap to pairs. 
+	 * Pairs where both bodies are static are skipped, and each pair should only be added once. 
+	 * @param bodies
+	 * @param bounds bounds.get(i) is the bounding box of bodies.get(i)
+	 * @param pairs
+	 */
+	public void computePairs(ArrayList<Body> bodies, ArrayList<AABB> bounds, BodyPairs pairs);
+}
@@ -24,6 +24,11 @@ public class Circle extends Shape {
 	public void setOrient(float radians) {
 	}
 
+	@Override
+	public void computeAABB(AABB out) {
+		out.set(body.position.x - radius, body.position.y - radius, body.position.x + radius, body.position.y + radius);
+	}
+
 	@Override
 	public Type getType() {
 		return Type.Circle;
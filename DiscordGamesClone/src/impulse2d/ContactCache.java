@@ -0,0 +1,141 @@
+package impulse2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ContactCache {
+	//keeps the manifold for each pair of bodies around between ticks, so that its accumulated impulses can be used
+	//to warm start the solver. Pairs are keyed by the packed body indices from BodyPairs. 
+
+	//there are two open addressing tables, one for last tick and one for this tick. Manifolds that are found again
+	//are moved to this tick's table, and whatever is left over in last tick's table goes back to the pool. 
+	//this way nothing has to be removed from a hash table, and nothing is allocated once the pool is warm. 
+
+	private static final long EMPTY = -1;
+
+	private long[] prevKeys, curKeys;
+	private Manifold[] prevValues, curValues;
+	private int curSize = 0;
+
+	private ArrayList<Manifold> pool;
+
+	public ContactCache() {
+		this.prevKeys = new long[64];
+		this.curKeys = new long[64];
+		this.prevValues = new Manifold[64];
+		this.curValues = new Manifold[64];
+		Arrays.fill(this.prevKeys, EMPTY);
+		Arrays.fill(this.curKeys, EMPTY);
+
+		this.pool = new ArrayList<>();
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & mask;
+	}
+
+	/**
+	 * Returns the manifold this pair had on the last tick, or a fresh one if they weren't touching. 
+	 * Must be called at most once per pair per tick, between {@link #endTick()} calls. 
+	 * @param key
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public Manifold get(long key, Body a, Body b) {
+		Manifold m = null;
+
+		int mask = this.prevKeys.length - 1;
+		int i = slot(key, mask);
+		while (this.prevKeys[i] != EMPTY) {
+			if (this.prevKeys[i] == key) {
+				m = this.prevValues[i];
+				//mark it as taken, but keep the slot occupied so that probing still works
+				this.prevValues[i] = null;
+				break;
+			}
+			i = (i + 1) & mask;
+		}
+
+		if (m == null) {
+			if (this.pool.isEmpty()) {
+				m = new Manifold(a, b);
+			}
+			else {
+				m = this.pool.remove(this.pool.size() - 1);
+				m.set(a, b);
+			}
+		}
+
+		this.put(key, m);
+		return m;
+	}
+
+	private void put(long key, Manifold m) {
+		//keep the load factor under 1/2
+		if ((this.curSize + 1) * 2 > this.curKeys.length) {
+			this.growCurrent();
+		}
+		int mask = this.curKeys.length - 1;
+		int i = slot(key, mask);
+		while (this.curKeys[i] != EMPTY) {
+			i = (i + 1) & mask;
+		}
+		this.curKeys[i] = key;
+		this.curValues[i] = m;
+		this.curSize++;
+	}
+
+	private void growCurrent() {
+		long[] oldKeys = this.curKeys;
+		Manifold[] oldValues = this.curValues;
+		this.curKeys = new long[oldKeys.length * 2];
+		this.curValues = new Manifold[oldKeys.length * 2];
+		Arrays.fill(this.curKeys, EMPTY);
+		this.curSize = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				this.put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the manifolds of pairs that weren't asked for this tick to the pool, 
+	 * and makes this tick's manifolds the ones that {@link #get(long, Body, Body)} looks at next tick. 
+	 */
+	public void endTick() {
+		for (int i = 0; i < this.prevKeys.length; i++) {
+			if (this.prevKeys[i] != EMPTY && this.prevValues[i] != null) {
+				this.pool.add(this.prevValues[i]);
+			}
+			this.prevKeys[i] = EMPTY;
+			this.prevValues[i] = null;
+		}
+
+		long[] tmpKeys = this.prevKeys;
+		Manifold[] tmpValues = this.prevValues;
+		this.prevKeys = this.curKeys;
+		this.prevValues = this.curValues;
+		this.curKeys = tmpKeys;
+		this.curValues = tmpValues;
+
+		//the new current table has to be at least as big as the one we just filled
+		if (this.curKeys.length < this.prevKeys.length) {
+			this.curKeys = new long[this.prevKeys.length];
+			this.curValues = new Manifold[this.prevKeys.length];
+			Arrays.fill(this.curKeys, EMPTY);
+		}
+		this.curSize = 0;
+	}
+
+	/**
+	 * Forgets every cached manifold. 
+	 * Needed whenever body indices change, like when a body is removed from the scene. 
+	 */
+	public void clear() {
+		this.endTick();
+		this.endTick();
+	}
+}
@@ -5,6 +5,7 @@ import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import util.Vec2;
 
@@ -14,6 +15,15 @@ public class ImpulseScene {
 	private ArrayList<Body> bodies;
 	private ArrayList<Manifold> contacts;
 
+	//finds the pairs of bodies that are close enough to collide, so we don't have to check every pair. 
+	private BroadPhase broadPhase;
+	private ArrayList<AABB> bounds;
+	private BodyPairs pairs;
+
+	//reuses manifolds between ticks, and lets the solver start from last tick's impulses
+	private ContactCache contactCache;
+	private boolean doWarmStarting = true;
+
 	//adds a force in the -y direction every iteration
 	private boolean doGravity = true;
 
@@ -29,6 +39,15 @@ public class ImpulseScene {
 	public ImpulseScene() {
 		bodies = new ArrayList<>();
 		contacts = new ArrayList<>();
+
+		broadPhase = new SweepAndPrune();
+		bounds = new ArrayList<>();
+		pairs = new BodyPairs();
+		contactCache = new ContactCache();
+	}
+
+	public void setBroadPhase(BroadPhase broadPhase) {
+		this.broadPhase = broadPhase;
 	}
 
 	public void setDoGravity(boolean b) {
@@ -47,32 +66,53 @@ public class ImpulseScene {
 		this.surfaceFrictionCoefficient = f;
 	}
 
+	public void setDoWarmStarting(boolean b) {
+		this.doWarmStarting = b;
+	}
+
 	public void setIterations(int iterations) {
 		this.iterations = iterations;
 	}
 
+	/**
+	 * Sets how many seconds each tick steps forward. To keep up with the wall clock, this should be one over the rate tick is called at.
+	 * @param dt
+	 */
+	public void setDt(float dt) {
+		this.dt = dt;
+	}
+
+	public float getDt() {
+		return this.dt;
+	}
+
 	public void tick() {
 		if (doCollision) {
 			// Generate new collision info
 			contacts.clear();
+			while (bounds.size() < bodies.size()) {
+				bounds.add(new AABB());
+			}
 			for (int i = 0; i < bodies.size(); ++i) {
-				Body A = bodies.get(i);
+				bodies.get(i).shape.computeAABB(bounds.get(i));
+			}
 
-				for (int j = i + 1; j < bodies.size(); ++j) {
-					Body B = bodies.get(j);
+			pairs.clear();
+			broadPhase.computePairs(bodies, bounds, pairs);
+			pairs.sort();
 
-					if (A.invMass == 0 && B.invMass == 0) {
-						continue;
-					}
+			for (int i = 0; i < pairs.size(); ++i) {
+				Body A = bodies.get(pairs.getA(i));
+				Body B = bodies.get(pairs.getB(i));
 
-					Manifold m = new Manifold(A, B);
-					m.solve();
+				Manifold m = contactCache.get(pairs.getKey(i), A, B);
+				m.solve();
 
-					if (m.contactCount > 0) {
-						contacts.add(m);
-					}
+				if (m.contactCount > 0) {
+					contacts.add(m);
 				}
 			}
+			contactCache.endTick();
 		}
 
 		// Integrate forces
@@ -84,6 +124,16 @@ public class ImpulseScene {
 		for (int i = 0; i < contacts.size(); ++i) {
 			contacts.get(i).initialize();
 		}
+		for (int i = 0; i < contacts.size(); ++i) {
+			Manifold m = contacts.get(i);
+			if (doWarmStarting) {
+				m.warmStart();
+			}
+			else {
+				Arrays.fill(m.normalImpulse, 0);
+				Arrays.fill(m.tangentImpulse, 0);
+			}
+		}
 		// Solve collisions
 		for (int j = 0; j < iterations; ++j) {
 			for (int i = 0; i < contacts.size(); ++i) {
@@ -121,6 +171,9 @@ public class ImpulseScene {
 
 	public void removeBody(Body b) {
 		this.bodies.remove(b);
+
+		//the cache is keyed by body index, and those just shifted
+		this.contactCache.clear();
 	}
 
 	public void integrateForces(Body b, float dt) {
@@ -13,16 +13,92 @@ public class Manifold {
 	public float df;
 	public float sf;
 
+	//manifolds are kept between ticks for as long as the two bodies stay in contact. 
+	//the impulse applied at each contact point is accumulated over the solver iterations, and is used to 
+	//warm start the solver on the next tick, so it needs far fewer iterations to settle. 
+
+	//contact points closer than this to a contact point from last tick are considered to be the same point
+	private static final float WARM_START_DISTANCE_SQ = 0.1f * 0.1f;
+
+	public final float[] normalImpulse = new float[2];
+	public final float[] tangentImpulse = new float[2];
+
+	private final Vec2[] prevContacts = { new Vec2(), new Vec2() };
+	private final float[] prevNormalImpulse = new float[2];
+	private final float[] prevTangentImpulse = new float[2];
+	private int prevContactCount = 0;
+
+	//per contact values that don't change between solver iterations, computed in initialize()
+	private final Vec2[] ra = { new Vec2(), new Vec2() };
+	private final Vec2[] rb = { new Vec2(), new Vec2() };
+	private final float[] normalMass = new float[2];
+	private final float[] tangentMass = new float[2];
+	private final float[] velocityBias = new float[2];
+	private final Vec2 tangent = new Vec2();
+
+	//scratch
+	private final Vec2 rv = new Vec2();
+
 	public Manifold(Body a, Body b) {
+		this.set(a, b);
+	}
+
+	/**
+	 * Reuses this manifold for a new pair of bodies, forgetting any accumulated impulses. 
+	 * @param a
+	 * @param b
+	 */
+	public void set(Body a, Body b) {
 		A = a;
 		B = b;
+		contactCount = 0;
+		prevContactCount = 0;
+		for (int i = 0; i < 2; i++) {
+			normalImpulse[i] = 0;
+			tangentImpulse[i] = 0;
+		}
 	}
 
 	public void solve() {
+		//remember last tick's contacts so we can carry their impulses over
+		prevContactCount = contactCount;
+		for (int i = 0; i < contactCount; i++) {
+			prevContacts[i].set(contacts[i]);
+			prevNormalImpulse[i] = normalImpulse[i];
+			prevTangentImpulse[i] = tangentImpulse[i];
+		}
+
 		int ia = A.shape.getType().ordinal();
 		int ib = B.shape.getType().ordinal();
 
 		Collisions.dispatch[ia][ib].handleCollision(this, A, B);
+
+		for (int i = 0; i < contactCount; i++) {
+			normalImpulse[i] = 0;
+			tangentImpulse[i] = 0;
+			for (int j = 0; j < prevContactCount; j++) {
+				if (Vec2.distanceSq(contacts[i], prevContacts[j]) < WARM_START_DISTANCE_SQ) {
+					normalImpulse[i] = prevNormalImpulse[j];
+					tangentImpulse[i] = prevTangentImpulse[j];
+					break;
+				}
+			}
+		}
+	}
+
+	//relative velocity of B with respect to A at contact i, stored in rv
+	private Vec2 relativeVelocity(int i) {
+		// Vec2 rv = B->velocity + Cross( B->angularVelocity, rb ) -
+		// A->velocity - Cross( A->angularVelocity, ra );
+		Vec2 ra = this.ra[i];
+		Vec2 rb = this.rb[i];
+		rv.set(B.velocity.x - B.angularVelocity * rb.y - A.velocity.x + A.angularVelocity * ra.y, B.velocity.y + B.angularVelocity * rb.x - A.velocity.y - A.angularVelocity * ra.x);
+		return rv;
+	}
+
+	private void applyImpulse(int i, float px, float py) {
+		A.applyImpulse(-px, -py, ra[i]);
+		B.applyImpulse(px, py, rb[i]);
 	}
 
 	public void initialize() {
@@ -36,27 +112,52 @@ public class Manifold {
 		sf = (float) StrictMath.sqrt(A.staticFriction * A.staticFriction + B.staticFriction * B.staticFriction);
 		df = (float) StrictMath.sqrt(A.dynamicFriction * A.dynamicFriction + B.dynamicFriction * B.dynamicFriction);
 
+		//friction is accumulated along a fixed tangent, so the impulse from last tick still means the same thing
+		tangent.set(normal.y, -normal.x);
+
 		for (int i = 0; i < contactCount; ++i) {
 			// Calculate radii from COM to contact
 			// Vec2 ra = contacts[i] - A->position;
 			// Vec2 rb = contacts[i] - B->position;
-			Vec2 ra = contacts[i].sub(A.position);
-			Vec2 rb = contacts[i].sub(B.position);
+			contacts[i].sub(A.position, ra[i]);
+			contacts[i].sub(B.position, rb[i]);
+
+			float raCrossN = Vec2.cross(ra[i], normal);
+			float rbCrossN = Vec2.cross(rb[i], normal);
+			float invMassSum = A.invMass + B.invMass + (raCrossN * raCrossN) * A.invInertia + (rbCrossN * rbCrossN) * B.invInertia;
+			normalMass[i] = invMassSum > 0 ? 1.0f / invMassSum : 0;
 
-			// Vec2 rv = B->velocity + Cross( B->angularVelocity, rb ) -
-			// A->velocity - Cross( A->angularVelocity, ra );
-			Vec2 rv = B.velocity.add(Vec2.cross(B.angularVelocity, rb, new Vec2())).subi(A.velocity).subi(Vec2.cross(A.angularVelocity, ra, new Vec2()));
+			float raCrossT = Vec2.cross(ra[i], tangent);
+			float rbCrossT = Vec2.cross(rb[i], tangent);
+			float invMassSumT = A.invMass + B.invMass + (raCrossT * raCrossT) * A.invInertia + (rbCrossT * rbCrossT) * B.invInertia;
+			tangentMass[i] = invMassSumT > 0 ? 1.0f / invMassSumT : 0;
 
 			// Determine if we should perform a resting collision or not
 			// The idea is if the only thing moving this object is gravity,
 			// then the collision should be performed without any restitution
 			// if(rv.LenSqr( ) < (dt * gravity).LenSqr( ) + EPSILON)
-			if (rv.lengthSq() < ImpulseMath.RESTING) {
-				e = 0.0f;
+			Vec2 rv = relativeVelocity(i);
+			float contactVel = Vec2.dot(rv, normal);
+			if (rv.lengthSq() < ImpulseMath.RESTING || contactVel > 0) {
+				velocityBias[i] = 0;
+			}
+			else {
+				velocityBias[i] = -e * contactVel;
 			}
 		}
 	}
 
+	/**
+	 * Applies the impulses accumulated on the last tick. Should be called after {@link #initialize()}. 
+	 */
+	public void warmStart() {
+		for (int i = 0; i < contactCount; ++i) {
+			float px = normal.x * normalImpulse[i] + tangent.x * tangentImpulse[i];
+			float py = normal.y * normalImpulse[i] + tangent.y * tangentImpulse[i];
+			applyImpulse(i, px, py);
+		}
+	}
+
 	public void applyImpulse() {
 		// Early out and positional correct if both objects have infinite mass
 		// if(Equal( A->im + B->im, 0 ))
@@ -66,82 +167,35 @@ public class Manifold {
 		}
 
 		for (int i = 0; i < contactCount; ++i) {
-			// Calculate radii from COM to contact
-			// Vec2 ra = contacts[i] - A->position;
-			// Vec2 rb = contacts[i] - B->position;
-			Vec2 ra = contacts[i].sub(A.position);
-			Vec2 rb = contacts[i].sub(B.position);
-
-			// Relative velocity
-			// Vec2 rv = B->velocity + Cross( B->angularVelocity, rb ) -
-			// A->velocity - Cross( A->angularVelocity, ra );
-			Vec2 rv = B.velocity.add(Vec2.cross(B.angularVelocity, rb, new Vec2())).subi(A.velocity).subi(Vec2.cross(A.angularVelocity, ra, new Vec2()));
-
 			// Relative velocity along the normal
-			// real contactVel = Dot( rv, normal );
-			float contactVel = Vec2.dot(rv, normal);
-
-			// Do not resolve if velocities are separating
-			if (contactVel > 0) {
-				return;
-			}
+			float contactVel = Vec2.dot(relativeVelocity(i), normal);
 
-			// real raCrossN = Cross( ra, normal );
-			// real rbCrossN = Cross( rb, normal );
-			// real invMassSum = A->im + B->im + Sqr( raCrossN ) * A->iI + Sqr(
-			// rbCrossN ) * B->iI;
-			float raCrossN = Vec2.cross(ra, normal);
-			float rbCrossN = Vec2.cross(rb, normal);
-			float invMassSum = A.invMass + B.invMass + (raCrossN * raCrossN) * A.invInertia + (rbCrossN * rbCrossN) * B.invInertia;
-
-			// Calculate impulse scalar
-			float j = -(1.0f + e) * contactVel;
-			j /= invMassSum;
-			j /= contactCount;
+			// Calculate impulse scalar. 
+			// The total impulse applied at this contact can push the bodies apart, but never pull them together. 
+			float j = -(contactVel - velocityBias[i]) * normalMass[i];
+			float total = StrictMath.max(normalImpulse[i] + j, 0.0f);
+			j = total - normalImpulse[i];
+			normalImpulse[i] = total;
 
 			// Apply impulse
-			Vec2 impulse = normal.mul(j);
-			A.applyImpulse(impulse.neg(), ra);
-			B.applyImpulse(impulse, rb);
+			applyImpulse(i, normal.x * j, normal.y * j);
 
 			// Friction impulse
-			// rv = B->velocity + Cross( B->angularVelocity, rb ) -
-			// A->velocity - Cross( A->angularVelocity, ra );
-			rv = B.velocity.add(Vec2.cross(B.angularVelocity, rb, new Vec2())).subi(A.velocity).subi(Vec2.cross(A.angularVelocity, ra, new Vec2()));
-
-			// Vec2 t = rv - (normal * Dot( rv, normal ));
-			// t.Normalize( );
-			Vec2 t = new Vec2(rv);
-			t.addsi(normal, -Vec2.dot(rv, normal));
-			t.normalize();
-
-			// j tangent magnitude
-			float jt = -Vec2.dot(rv, t);
-			jt /= invMassSum;
-			jt /= contactCount;
-
-			// Don't apply tiny friction impulses
-			if (ImpulseMath.equal(jt, 0.0f)) {
-				return;
-			}
+			float jt = -Vec2.dot(relativeVelocity(i), tangent) * tangentMass[i];
 
 			// Coulumb's law
-			Vec2 tangentImpulse;
 			// if(std::abs( jt ) < j * sf)
-			if (StrictMath.abs(jt) < j * sf) {
-				// tangentImpulse = t * jt;
-				tangentImpulse = t.mul(jt);
-			}
-			else {
-				// tangentImpulse = t * -j * df;
-				tangentImpulse = t.mul(j).muli(-df);
+			float totalT = tangentImpulse[i] + jt;
+			float maxStatic = normalImpulse[i] * sf;
+			if (StrictMath.abs(totalT) > maxStatic) {
+				float maxDynamic = normalImpulse[i] * df;
+				totalT = (float) ImpulseMath.clamp(-maxDynamic, maxDynamic, totalT);
 			}
+			jt = totalT - tangentImpulse[i];
+			tangentImpulse[i] = totalT;
 
 			// Apply friction impulse
-			// A->ApplyImpulse( -tangentImpulse, ra );
-			// B->ApplyImpulse( tangentImpulse, rb );
-			A.applyImpulse(tangentImpulse.neg(), ra);
-			B.applyImpulse(tangentImpulse, rb);
+			applyImpulse(i, tangent.x * jt, tangent.y * jt);
 		}
 	}
 
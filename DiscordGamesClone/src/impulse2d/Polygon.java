@@ -107,6 +107,23 @@ public class Polygon extends Shape {
 		u.set(radians);
 	}
 
+	@Override
+	public void computeAABB(AABB out) {
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < vertexCount; i++) {
+			//world space vertex is u * v + position
+			Vec2 v = vertices[i];
+			float x = u.m00 * v.x + u.m01 * v.y;
+			float y = u.m10 * v.x + u.m11 * v.y;
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+		out.set(body.position.x + minX, body.position.y + minY, body.position.x + maxX, body.position.y + maxY);
+	}
+
 	@Override
 	public Type getType() {
 		return Type.Poly;
@@ -28,5 +28,7 @@ public abstract class Shape {
 
 	public abstract void setOrient(float radians);
 
+	public abstract void computeAABB(AABB out);
+
 	public abstract Type getType();
 }
@@ -0,0 +1,54 @@
+package impulse2d;
+
+import java.util.ArrayList;
+
+public class SweepAndPrune implements BroadPhase {
+	//sorts the bodies along the x axis by the left side of their bounding box, then sweeps from left to right. 
+	//each body only has to be checked against the bodies that start before it ends. 
+
+	//bodies don't move much between ticks, so the order from last tick is kept, and is almost sorted already. 
+	//insertion sort is close to linear on that. 
+
+	private int[] order = new int[0];
+
+	@Override
+	public void computePairs(ArrayList<Body> bodies, ArrayList<AABB> bounds, BodyPairs pairs) {
+		int n = bodies.size();
+		if (this.order.length != n) {
+			this.order = new int[n];
+			for (int i = 0; i < n; i++) {
+				this.order[i] = i;
+			}
+		}
+
+		for (int i = 1; i < n; i++) {
+			int cur = this.order[i];
+			float key = bounds.get(cur).minX;
+			int j = i - 1;
+			while (j >= 0 && bounds.get(this.order[j]).minX > key) {
+				this.order[j + 1] = this.order[j];
+				j--;
+			}
+			this.order[j + 1] = cur;
+		}
+
+		for (int i = 0; i < n; i++) {
+			int a = this.order[i];
+			AABB boxA = bounds.get(a);
+			boolean staticA = bodies.get(a).invMass == 0;
+			for (int j = i + 1; j < n; j++) {
+				int b = this.order[j];
+				AABB boxB = bounds.get(b);
+				if (boxB.minX > boxA.maxX) {
+					break;
+				}
+				if (staticA && bodies.get(b).invMass == 0) {
+					continue;
+				}
+				if (boxA.minY <= boxB.maxY && boxB.minY <= boxA.maxY) {
+					pairs.add(a, b);
+				}
+			}
+		}
+	}
+}
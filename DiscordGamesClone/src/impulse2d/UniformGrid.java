@@ -0,0 +1,137 @@
+package impulse2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class UniformGrid implements BroadPhase {
+	//splits space into square cells, and only checks bodies that share a cell. 
+	//works best when most bodies are about the same size as a cell. 
+
+	//the grid is unbounded, cells are hashed into buckets. Every (bucket, body) entry is packed into a long, 
+	//and sorting them groups the bodies in each bucket together, so we don't need any per cell lists. 
+
+	//a pair that shares more than one cell is only added in the first cell they share, so there are no duplicates. 
+
+	//bodies that cover more than this many cells, like long walls, are checked against everything instead. 
+	private static final int MAX_CELLS_PER_BODY = 64;
+
+	private float cellSize;
+	private float invCellSize;
+
+	private long[] entries = new long[256];
+	private int entryAmt = 0;
+
+	private int[] oversized = new int[16];
+	private int oversizedAmt = 0;
+
+	public UniformGrid(float cellSize) {
+		this.cellSize = cellSize;
+		this.invCellSize = 1f / cellSize;
+	}
+
+	public float getCellSize() {
+		return this.cellSize;
+	}
+
+	private int cell(float a) {
+		return (int) Math.floor(a * this.invCellSize);
+	}
+
+	private static int hash(int cx, int cy) {
+		//kept non negative so that the sorted order is the bucket order
+		return ((cx * 73856093) ^ (cy * 19349663)) & 0x7fffffff;
+	}
+
+	@Override
+	public void computePairs(ArrayList<Body> bodies, ArrayList<AABB> bounds, BodyPairs pairs) {
+		int n = bodies.size();
+		this.entryAmt = 0;
+		this.oversizedAmt = 0;
+
+		for (int i = 0; i < n; i++) {
+			AABB box = bounds.get(i);
+			int x1 = this.cell(box.minX);
+			int y1 = this.cell(box.minY);
+			int x2 = this.cell(box.maxX);
+			int y2 = this.cell(box.maxY);
+			if ((long) (x2 - x1 + 1) * (y2 - y1 + 1) > MAX_CELLS_PER_BODY) {
+				if (this.oversizedAmt == this.oversized.length) {
+					this.oversized = Arrays.copyOf(this.oversized, this.oversized.length * 2);
+				}
+				this.oversized[this.oversizedAmt++] = i;
+				continue;
+			}
+			for (int x = x1; x <= x2; x++) {
+				for (int y = y1; y <= y2; y++) {
+					if (this.entryAmt == this.entries.length) {
+						this.entries = Arrays.copyOf(this.entries, this.entries.length * 2);
+					}
+					this.entries[this.entryAmt++] = ((long) hash(x, y) << 32) | i;
+				}
+			}
+		}
+
+		Arrays.sort(this.entries, 0, this.entryAmt);
+
+		//check every pair inside each bucket
+		int start = 0;
+		while (start < this.entryAmt) {
+			int bucket = (int) (this.entries[start] >>> 32);
+			int end = start + 1;
+			while (end < this.entryAmt && (int) (this.entries[end] >>> 32) == bucket) {
+				end++;
+			}
+
+			for (int i = start; i < end; i++) {
+				int a = (int) this.entries[i];
+				//a body covering two different cells that hash to the same bucket shows up twice in a row
+				if (i != start && (int) this.entries[i - 1] == a) {
+					continue;
+				}
+				AABB boxA = bounds.get(a);
+				boolean staticA = bodies.get(a).invMass == 0;
+				for (int j = i + 1; j < end; j++) {
+					int b = (int) this.entries[j];
+					if (b == (int) this.entries[j - 1]) {
+						continue;
+					}
+					if (staticA && bodies.get(b).invMass == 0) {
+						continue;
+					}
+					AABB boxB = bounds.get(b);
+					if (!boxA.overlaps(boxB)) {
+						continue;
+					}
+					//only add the pair in the first cell that both bodies are in
+					int fx = Math.max(this.cell(boxA.minX), this.cell(boxB.minX));
+					int fy = Math.max(this.cell(boxA.minY), this.cell(boxB.minY));
+					if (hash(fx, fy) != bucket) {
+						continue;
+					}
+					pairs.add(a, b);
+				}
+			}
+
+			start = end;
+		}
+
+		//oversized bodies get checked against everything. 
+		//a pair of two oversized bodies is only added when visiting the one with the lower index
+		for (int k = 0; k < this.oversizedAmt; k++) {
+			int a = this.oversized[k];
+			AABB boxA = bounds.get(a);
+			boolean staticA = bodies.get(a).invMass == 0;
+			for (int b = 0; b < n; b++) {
+				if (b == a || (staticA && bodies.get(b).invMass == 0)) {
+					continue;
+				}
+				if (b < a && Arrays.binarySearch(this.oversized, 0, this.oversizedAmt, b) >= 0) {
+					continue;
+				}
+				if (boxA.overlaps(bounds.get(b))) {
+					pairs.add(a, b);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package server;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import impulse2d.Body;
+
+public class BodySnapshotCodec {
+	//encodes the state of a set of physics bodies as a delta against the last state that was sent.
+
+	//positions and velocities are quantized to 1/1000 of a unit, and orientation to 1/65536 of a full turn.
+	//the baseline is kept in quantized form on both sides, so rounding error never builds up.
+	//each body that changed writes its id, a bitmask of the fields that changed, and then the change in each of those fields.
+	//bodies that haven't changed don't write anything.
+
+	//there is one baseline on the server, the last state that was sent, and clients that don't have a baseline yet are sent a
+	//keyframe, which is every body relative to 0. Packets arrive in order, but a client can still miss a delta, as sections
+	//are dropped when its section queue is full. So every delta is numbered, and a client that sees a gap in the numbers stops
+	//applying deltas, and asks for a new keyframe with needsKeyframe().
+
+	public static final int CHANGED_POSITION = 1;
+	public static final int CHANGED_VELOCITY = 2;
+	public static final int CHANGED_ORIENT = 4;
+	public static final int CHANGED_ALL = CHANGED_POSITION | CHANGED_VELOCITY | CHANGED_ORIENT;
+
+	private static final float LINEAR_SCALE = 1000f;
+	private static final int ORIENT_STEPS = 65536;
+
+	//x, y, vx, vy, orient
+	private static final int STATE_SIZE = 5;
+
+	private HashMap<Integer, int[]> baselines;
+	private int[] scratch;
+
+	//server: number of the last delta written. client: number of the last delta or keyframe applied
+	private int sequence = 0;
+
+	private boolean hasBaseline = false;
+	private boolean needsKeyframe = false;
+
+	public BodySnapshotCodec() {
+		this.baselines = new HashMap<>();
+		this.scratch = new int[STATE_SIZE];
+	}
+
+	private static void quantize(Body b, int[] out) {
+		out[0] = Math.round(b.position.x * LINEAR_SCALE);
+		out[1] = Math.round(b.position.y * LINEAR_SCALE);
+		out[2] = Math.round(b.velocity.x * LINEAR_SCALE);
+		out[3] = Math.round(b.velocity.y * LINEAR_SCALE);
+		out[4] = (int) Math.round(b.orient / (Math.PI * 2) * ORIENT_STEPS) & (ORIENT_STEPS - 1);
+	}
+
+	private static int getChangedFields(int[] a, int[] b) {
+		int mask = 0;
+		if (a[0] != b[0] || a[1] != b[1]) {
+			mask |= CHANGED_POSITION;
+		}
+		if (a[2] != b[2] || a[3] != b[3]) {
+			mask |= CHANGED_VELOCITY;
+		}
+		if (a[4] != b[4]) {
+			mask |= CHANGED_ORIENT;
+		}
+		return mask;
+	}
+
+	// -- SERVER --
+
+	/**
+	 * Writes every body that has changed since the last call, and updates the baseline.
+	 * Doesn't write anything if nothing changed.
+	 * @param packetSender
+	 * @param sectionName
+	 * @param bodies
+	 */
+	public void writeDelta(PacketSender packetSender, String sectionName, HashMap<Integer, Body> bodies) {
+		//forget about bodies that have been removed
+		Iterator<Integer> it = this.baselines.keySet().iterator();
+		while (it.hasNext()) {
+			if (!bodies.containsKey(it.next())) {
+				it.remove();
+			}
+		}
+
+		int changedAmt = 0;
+		for (int id : bodies.keySet()) {
+			int[] baseline = this.baselines.get(id);
+			quantize(bodies.get(id), this.scratch);
+			if (baseline == null || getChangedFields(baseline, this.scratch) != 0) {
+				changedAmt++;
+			}
+		}
+		if (changedAmt == 0) {
+			return;
+		}
+
+		this.sequence++;
+		packetSender.startSection(sectionName);
+		packetSender.write((byte) 0);
+		packetSender.writeVarInt(this.sequence);
+		packetSender.writeVarInt(changedAmt);
+		for (int id : bodies.keySet()) {
+			quantize(bodies.get(id), this.scratch);
+			int[] baseline = this.baselines.get(id);
+			int mask = CHANGED_ALL;
+			if (baseline == null) {
+				baseline = new int[STATE_SIZE];
+				this.baselines.put(id, baseline);
+			}
+			else {
+				mask = getChangedFields(baseline, this.scratch);
+				if (mask == 0) {
+					continue;
+				}
+			}
+			this.writeBody(packetSender, id, mask, baseline, this.scratch);
+			System.arraycopy(this.scratch, 0, baseline, 0, STATE_SIZE);
+		}
+	}
+
+	/**
+	 * Writes the current baseline of every body relative to 0, so that a client without a baseline can start receiving deltas.
+	 * Should be called after {@link #writeDelta(PacketSender, String, HashMap)} for the current tick.
+	 * @param packetSender
+	 * @param sectionName
+	 */
+	public void writeKeyframe(PacketSender packetSender, String sectionName) {
+		int[] zero = new int[STATE_SIZE];
+		packetSender.startSection(sectionName);
+		packetSender.write((byte) 1);
+		packetSender.writeVarInt(this.sequence);
+		packetSender.writeVarInt(this.baselines.size());
+		for (int id : this.baselines.keySet()) {
+			this.writeBody(packetSender, id, CHANGED_ALL, zero, this.baselines.get(id));
+		}
+	}
+
+	private void writeBody(PacketSender packetSender, int id, int mask, int[] from, int[] to) {
+		packetSender.writeVarInt(id);
+		packetSender.write((byte) mask);
+		if ((mask & CHANGED_POSITION) != 0) {
+			packetSender.writeSignedVarInt(to[0] - from[0]);
+			packetSender.writeSignedVarInt(to[1] - from[1]);
+		}
+		if ((mask & CHANGED_VELOCITY) != 0) {
+			packetSender.writeSignedVarInt(to[2] - from[2]);
+			packetSender.writeSignedVarInt(to[3] - from[3]);
+		}
+		if ((mask & CHANGED_ORIENT) != 0) {
+			//take the short way around
+			packetSender.writeSignedVarInt((short) (to[4] - from[4]));
+		}
+	}
+
+	// -- CLIENT --
+
+	/**
+	 * Reads a delta or keyframe, and applies it to the bodies.
+	 * Deltas are ignored until the first keyframe has been read, and after a delta has been missed, until the next keyframe.
+	 * @param packetListener
+	 * @param bodies
+	 * @throws IOException
+	 */
+	public void read(PacketListener packetListener, HashMap<Integer, Body> bodies) throws IOException {
+		boolean isKeyframe = packetListener.readByte() == 1;
+		int sequence = packetListener.readVarInt();
+		if (isKeyframe) {
+			this.baselines.clear();
+			this.hasBaseline = true;
+			this.needsKeyframe = false;
+		}
+		else if (this.hasBaseline && sequence != this.sequence + 1) {
+			//missed a delta, so the baseline doesn't match the server's anymore
+			this.hasBaseline = false;
+		}
+		if (!this.hasBaseline) {
+			this.needsKeyframe = true;
+			return;
+		}
+		this.sequence = sequence;
+
+		int amt = packetListener.readVarInt();
+		for (int i = 0; i < amt; i++) {
+			int id = packetListener.readVarInt();
+			int mask = packetListener.readByte();
+
+			int[] baseline = this.baselines.get(id);
+			if (baseline == null) {
+				baseline = new int[STATE_SIZE];
+				this.baselines.put(id, baseline);
+			}
+			if ((mask & CHANGED_POSITION) != 0) {
+				baseline[0] += packetListener.readSignedVarInt();
+				baseline[1] += packetListener.readSignedVarInt();
+			}
+			if ((mask & CHANGED_VELOCITY) != 0) {
+				baseline[2] += packetListener.readSignedVarInt();
+				baseline[3] += packetListener.readSignedVarInt();
+			}
+			if ((mask & CHANGED_ORIENT) != 0) {
+				baseline[4] = (baseline[4] + packetListener.readSignedVarInt()) & (ORIENT_STEPS - 1);
+			}
+
+			Body b = bodies.get(id);
+			if (b != null) {
+				b.position.set(baseline[0] / LINEAR_SCALE, baseline[1] / LINEAR_SCALE);
+				b.velocity.set(baseline[2] / LINEAR_SCALE, baseline[3] / LINEAR_SCALE);
+				b.setOrient((float) (baseline[4] * Math.PI * 2 / ORIENT_STEPS));
+			}
+		}
+	}
+
+	/**
+	 * Whether a delta arrived that couldn't be applied, because there's no baseline, or a delta before it was missed.
+	 * The server should be asked for a keyframe.
+	 * @return
+	 */
+	public boolean needsKeyframe() {
+		return this.needsKeyframe;
+	}
+
+	/**
+	 * Drops the baseline of a body that no longer exists.
+	 * @param id
+	 */
+	public void remove(int id) {
+		this.baselines.remove(id);
+	}
+
+}
@@ -0,0 +1,154 @@
+package server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class DedicatedServer {
+
+	//runs a game server on its own, without the client. Nothing in the server packages touches OpenGL, GLFW or OpenAL,
+	//so this can run on a machine without a gpu or sound card, with just the server, game, impulse2d and util classes on the class path.
+
+	//unlike a server hosted from the lobby, it doesn't shut down when everyone leaves.
+
+	//game resources, like the scrabble dictionary, are loaded from the res folder in the working directory.
+
+	//with -metrics-port, the metrics of every server are served to prometheus on the loopback address, see MetricsHttpServer.
+	//they're always available over JMX.
+
+	//with -rooms, it instead hosts any amount of rooms on the port, see RoomHost. Clients pick a room when they join.
+
+	//listen on every interface by default
+	public static final String DEFAULT_IP = "0.0.0.0";
+
+	public static final int DEFAULT_MAX_ROOMS = 500;
+
+	private static final String USAGE = "Usage: DedicatedServer <port> [ip] [-rooms [-workers <amt>] [-max-rooms <amt>]] [-metrics-port <port>]";
+
+	/**
+	 * Usage: DedicatedServer &lt;port&gt; [ip] [-rooms [-workers &lt;amt&gt;] [-max-rooms &lt;amt&gt;]] [-metrics-port &lt;port&gt;]
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		ArrayList<String> positional = new ArrayList<>();
+		boolean rooms = false;
+		int workerAmt = Runtime.getRuntime().availableProcessors();
+		int maxRooms = DEFAULT_MAX_ROOMS;
+		int metricsPort = -1;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-rooms":
+				rooms = true;
+				break;
+
+			case "-workers":
+			case "-max-rooms":
+			case "-metrics-port": {
+				if (i + 1 == args.length) {
+					exitWithUsage();
+				}
+				int amt = parseInt(args[i + 1]);
+				if (amt <= 0) {
+					exitWithUsage();
+				}
+				if (args[i].equals("-workers")) {
+					workerAmt = amt;
+				}
+				else if (args[i].equals("-max-rooms")) {
+					maxRooms = amt;
+				}
+				else {
+					metricsPort = amt;
+				}
+				i++;
+				break;
+			}
+
+			default:
+				positional.add(args[i]);
+				break;
+			}
+		}
+		if (positional.size() < 1 || positional.size() > 2) {
+			exitWithUsage();
+		}
+
+		int port = parseInt(positional.get(0));
+		if (port < 0) {
+			System.err.println("BAD PORT: " + positional.get(0));
+			System.exit(1);
+		}
+		String ip = positional.size() == 2 ? positional.get(1) : DEFAULT_IP;
+
+		if (rooms) {
+			startRoomHost(ip, port, workerAmt, maxRooms);
+		}
+		else {
+			startServer(ip, port);
+		}
+
+		if (metricsPort != -1) {
+			startMetrics(metricsPort);
+		}
+	}
+
+	private static void startMetrics(int port) {
+		try {
+			MetricsHttpServer metrics = new MetricsHttpServer(MetricsHttpServer.DEFAULT_IP, port);
+			Runtime.getRuntime().addShutdownHook(new Thread(metrics::exit, "DedicatedServer-metrics-shutdown"));
+		}
+		catch (IOException e) {
+			System.err.println("Couldn't serve metrics on port " + port);
+			e.printStackTrace();
+		}
+	}
+
+	private static void startServer(String ip, int port) {
+		GameServer server = new GameServer(ip, port);
+		if (!server.isListening()) {
+			System.err.println("Couldn't start server at " + ip + ":" + port);
+			server.exit();
+			System.exit(1);
+		}
+		server.setNoClientTimeoutMillis(0);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			if (server.isRunning()) {
+				server.exit();
+			}
+		}, "DedicatedServer-shutdown"));
+
+		System.out.println("Dedicated server running at " + ip + ":" + port);
+	}
+
+	private static void startRoomHost(String ip, int port, int workerAmt, int maxRooms) {
+		RoomHost host = new RoomHost(ip, port, workerAmt, maxRooms);
+		if (!host.isListening()) {
+			System.err.println("Couldn't start room host at " + ip + ":" + port);
+			System.exit(1);
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			if (host.isRunning()) {
+				host.exit();
+			}
+		}, "DedicatedServer-shutdown"));
+
+		System.out.println("Dedicated room host running at " + ip + ":" + port + " with " + workerAmt + " workers, up to " + maxRooms + " rooms");
+	}
+
+	//returns -1 if it isn't a number
+	private static int parseInt(String s) {
+		try {
+			return Integer.parseInt(s);
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static void exitWithUsage() {
+		System.err.println(USAGE);
+		System.exit(1);
+	}
+
+}
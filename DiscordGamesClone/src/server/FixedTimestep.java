@@ -0,0 +1,143 @@
+package server;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+public class FixedTimestep {
+	//keeps a loop ticking at a fixed rate.
+
+	//instead of sleeping for however much of the period is left after each tick, which rounds to whole milliseconds and lets every
+	//sleep that wakes up late push all the ticks after it back, we keep the time the next tick is due, and move it forward by
+	//exactly one period every tick. Waking up late then just means the next wait is shorter, and the rate averages out to
+	//exactly the tick rate. This is what lets physics step by a fixed dt, and still keep up with the wall clock.
+
+	//if a tick runs long, or the machine stalls, the ticks that are due get run back to back to catch up, but only up to a limit.
+	//anything behind that is dropped instead, so a long stall doesn't turn into a burst of hundreds of ticks.
+
+	//ticks that take longer than a period are counted as overruns, and every tick's duration goes into a histogram.
+
+	public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
+	private volatile int tickRate;
+	private volatile long periodNanos;
+	private volatile int maxCatchUpTicks = DEFAULT_MAX_CATCH_UP_TICKS;
+
+	private long nextTickTime; //nanoTime at which the next tick is due
+	private boolean started = false;
+
+	private volatile long tickCount = 0;
+	private volatile long overrunCount = 0;
+	private volatile long droppedTickCount = 0;
+	private TickHistogram tickDurations;
+
+	public FixedTimestep(int tickRate) {
+		this.setTickRate(tickRate);
+		this.tickDurations = new TickHistogram();
+	}
+
+	public void setTickRate(int tickRate) {
+		this.tickRate = Math.max(1, tickRate);
+		this.periodNanos = 1000000000L / this.tickRate;
+	}
+
+	public int getTickRate() {
+		return this.tickRate;
+	}
+
+	public long getPeriodNanos() {
+		return this.periodNanos;
+	}
+
+	/**
+	 * How many ticks that are due can be run back to back to catch up. Ticks behind that are dropped.
+	 * @param maxCatchUpTicks
+	 */
+	public void setMaxCatchUpTicks(int maxCatchUpTicks) {
+		this.maxCatchUpTicks = Math.max(0, maxCatchUpTicks);
+	}
+
+	/**
+	 * Returns the {@link System#nanoTime()} at which the next tick is due.
+	 * @return
+	 */
+	public long getNextTickTime() {
+		if (!this.started) {
+			this.nextTickTime = System.nanoTime();
+			this.started = true;
+		}
+		return this.nextTickTime;
+	}
+
+	/**
+	 * Runs one tick if it's due, catching up if we're behind.
+	 * @param tick
+	 * @return true if a tick was run
+	 */
+	public boolean tickIfDue(Runnable tick) {
+		long now = System.nanoTime();
+		if (now - this.getNextTickTime() < 0) {
+			return false;
+		}
+
+		long period = this.periodNanos;
+		long behind = (now - this.nextTickTime) / period; //ticks that are due, not counting this one
+		if (behind > this.maxCatchUpTicks) {
+			long dropped = behind - this.maxCatchUpTicks;
+			this.nextTickTime += dropped * period;
+			this.droppedTickCount += dropped;
+		}
+
+		tick.run();
+
+		long duration = System.nanoTime() - now;
+		this.tickDurations.record(duration);
+		this.tickCount++;
+		if (duration > period) {
+			this.overrunCount++;
+		}
+		//the tick might have changed the tick rate
+		this.nextTickTime += this.periodNanos;
+		return true;
+	}
+
+	/**
+	 * Ticks until isRunning returns false, waiting in between ticks.
+	 * @param isRunning
+	 * @param tick
+	 */
+	public void run(BooleanSupplier isRunning, Runnable tick) {
+		while (isRunning.getAsBoolean()) {
+			if (!this.tickIfDue(tick)) {
+				long wait = this.getNextTickTime() - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			}
+		}
+	}
+
+	public long getTickCount() {
+		return this.tickCount;
+	}
+
+	/**
+	 * How many ticks took longer than one period.
+	 * @return
+	 */
+	public long getOverrunCount() {
+		return this.overrunCount;
+	}
+
+	/**
+	 * How many ticks were skipped because we were too far behind to catch up.
+	 * @return
+	 */
+	public long getDroppedTickCount() {
+		return this.droppedTickCount;
+	}
+
+	public TickHistogram getTickDurations() {
+		return this.tickDurations;
+	}
+
+}
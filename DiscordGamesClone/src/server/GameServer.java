@@ -2,26 +2,9 @@ package server;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 
-import entity.Capsule;
-import game.ChessGame;
-import game.ScrabbleGame;
-import graphics.Material;
-import model.Model;
-import state.BlazingEightsState;
-import state.CrackHeadsState;
-import util.Mat4;
-import util.MathUtils;
-import util.Pair;
-import util.Quad;
-import util.Triple;
-import util.Vec2;
-import util.Vec3;
-import util.Vec4;
-
 public class GameServer extends Server {
 
 	private HashSet<Integer> players;
@@ -55,7 +38,19 @@ public class GameServer extends Server {
 
 	public GameServer(String ip, int port) {
 		super(ip, port);
+		this.init();
+	}
+
+	/**
+	 * Creates a room hosted by a {@link RoomHost}.
+	 * @param roomName
+	 */
+	public GameServer(String roomName) {
+		super(roomName);
+		this.init();
+	}
 
+	private void init() {
 		this.players = new HashSet<>();
 		this.playerNicknames = new HashMap<>();
 
@@ -75,7 +70,7 @@ public class GameServer extends Server {
 	}
 
 	@Override
-	public void writePacket(PacketSender packetSender, int clientID) {
+	public void writeBroadcast(PacketSender packetSender) {
 		// -- NORMAL SERVER STUFF --
 		if (this.disconnect.size() != 0) {
 			packetSender.startSection("disconnect");
@@ -121,6 +116,13 @@ public class GameServer extends Server {
 		packetSender.startSection("host_id");
 		packetSender.write(this.hostID);
 
+		if (this.curGame != LOBBY) {
+			this.gameInterface.writeBroadcast(packetSender);
+		}
+	}
+
+	@Override
+	public void writePacket(PacketSender packetSender, int clientID) {
 		if (this.curGame != LOBBY) {
 			this.gameInterface.writePacket(packetSender, clientID);
 		}
@@ -179,6 +181,9 @@ public class GameServer extends Server {
 				this.gameInterface = new ServerRocketLeagueInterface(this);
 				break;
 			}
+			if (this.gameInterface != null) {
+				this.setTickRate(this.gameInterface.getTickRate());
+			}
 			break;
 		}
 
@@ -186,6 +191,7 @@ public class GameServer extends Server {
 			this.returnToMainLobby = true;
 			this.curGame = LOBBY;
 			this.gameInterface = null;
+			this.setTickRate(DEFAULT_TICK_RATE);
 			break;
 		}
 		}
@@ -217,6 +223,9 @@ public class GameServer extends Server {
 		this.serverMessages.add(this.playerNicknames.get(clientID) + " disconnected");
 		this.playerNicknames.remove(clientID);
 		this.players.remove(clientID);
+		if (this.gameInterface != null) {
+			this.gameInterface.clientDisconnected(clientID);
+		}
 
 		this.disconnect.add(clientID);
 	}
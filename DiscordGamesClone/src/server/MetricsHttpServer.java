@@ -0,0 +1,221 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class MetricsHttpServer {
+	//serves the metrics of every server in this process, along with some jvm metrics, in the prometheus text format.
+
+	//it's a tiny http server on its own thread, that only answers GET /metrics. It only listens on the loopback address
+	//unless told otherwise, as the metrics include things like client ids that shouldn't be public.
+
+	//the metrics are read while the servers keep ticking, so the numbers in one scrape can be off from each other by a tick.
+
+	public static final String DEFAULT_IP = "127.0.0.1";
+
+	private static final String PREFIX = "dgc_";
+
+	private HttpServer httpServer;
+
+	public MetricsHttpServer(String ip, int port) throws IOException {
+		this.httpServer = HttpServer.create(new InetSocketAddress(ip, port), 0);
+		this.httpServer.createContext("/metrics", this::handle);
+		this.httpServer.start();
+		System.out.println("Serving metrics at http://" + ip + ":" + port + "/metrics");
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = writeMetrics().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(body);
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	public void exit() {
+		this.httpServer.stop(0);
+	}
+
+	/**
+	 * Writes the metrics of every running server, and the jvm, in the prometheus text format.
+	 * @return
+	 */
+	public static String writeMetrics() {
+		ArrayList<ServerMetrics> servers = new ArrayList<>();
+		for (Server s : Server.servers) {
+			servers.add(s.getMetrics());
+		}
+		StringBuilder sb = new StringBuilder();
+
+		// -- TICKS --
+		header(sb, "server_tick_rate", "gauge", "Ticks per second the server is trying to run at");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_tick_rate", m, null, m.getTickRate());
+		}
+		header(sb, "server_ticks_total", "counter", "Ticks run");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_ticks_total", m, null, m.getTickCount());
+		}
+		header(sb, "server_tick_overruns_total", "counter", "Ticks that took longer than one period");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_tick_overruns_total", m, null, m.getOverrunCount());
+		}
+		header(sb, "server_dropped_ticks_total", "counter", "Ticks skipped because the server was too far behind to catch up");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_dropped_ticks_total", m, null, m.getDroppedTickCount());
+		}
+		header(sb, "server_tick_seconds", "histogram", "How long whole ticks took");
+		for (ServerMetrics m : servers) {
+			histogram(sb, "server_tick_seconds", m, null, m.getTickDurations());
+		}
+		header(sb, "server_tick_phase_seconds", "histogram", "How long each phase of a tick took");
+		for (ServerMetrics m : servers) {
+			for (int i = 0; i < ServerMetrics.PHASE_NAMES.length; i++) {
+				histogram(sb, "server_tick_phase_seconds", m, "phase=\"" + ServerMetrics.PHASE_NAMES[i] + "\"", m.getPhaseDurations(i));
+			}
+		}
+		header(sb, "server_allocated_bytes_total", "counter", "Bytes allocated by the tick thread while ticking");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_allocated_bytes_total", m, null, m.getAllocatedBytes());
+		}
+
+		// -- TRAFFIC --
+		header(sb, "server_clients", "gauge", "Connected clients");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_clients", m, null, m.getClientAmt());
+		}
+		header(sb, "server_received_bytes_total", "counter", "Bytes read from clients");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_received_bytes_total", m, null, m.getBytesIn());
+		}
+		header(sb, "server_sent_bytes_total", "counter", "Bytes sent to clients");
+		for (ServerMetrics m : servers) {
+			sample(sb, "server_sent_bytes_total", m, null, m.getBytesOut());
+		}
+		header(sb, "server_sections_received_total", "counter", "Sections read from clients, by section name");
+		for (ServerMetrics m : servers) {
+			sectionSamples(sb, "server_sections_received_total", m, m.getSectionsInStats(), false);
+		}
+		header(sb, "server_section_received_bytes_total", "counter", "Contents of sections read from clients in bytes, by section name");
+		for (ServerMetrics m : servers) {
+			sectionSamples(sb, "server_section_received_bytes_total", m, m.getSectionsInStats(), true);
+		}
+		header(sb, "server_sections_sent_total", "counter", "Sections sent to clients, by section name");
+		for (ServerMetrics m : servers) {
+			sectionSamples(sb, "server_sections_sent_total", m, m.getSectionsOutStats(), false);
+		}
+		header(sb, "server_section_sent_bytes_total", "counter", "Sections sent to clients in bytes, including headers, by section name");
+		for (ServerMetrics m : servers) {
+			sectionSamples(sb, "server_section_sent_bytes_total", m, m.getSectionsOutStats(), true);
+		}
+
+		// -- PER CLIENT --
+		clientFamily(sb, servers, "client_received_bytes_total", "counter", "Bytes read from the client", c -> c.getBytesIn());
+		clientFamily(sb, servers, "client_sent_bytes_total", "counter", "Bytes sent to the client", c -> c.getBytesOut());
+		clientFamily(sb, servers, "client_sections_received_total", "counter", "Sections read from the client", c -> c.getSectionsIn());
+		clientFamily(sb, servers, "client_sections_sent_total", "counter", "Sections sent to the client", c -> c.getSectionsOut());
+		clientFamily(sb, servers, "client_queue_depth", "gauge", "Sections read from the client that the server hasn't processed yet", c -> c.getQueueDepth());
+		clientFamily(sb, servers, "client_peak_queue_depth", "gauge", "Most sections that have been waiting to be processed at once", c -> c.getPeakQueueDepth());
+		clientFamily(sb, servers, "client_dropped_sections_total", "counter", "Sections dropped because the queue was full", c -> c.getDroppedSections());
+		clientFamily(sb, servers, "client_pending_write_bytes", "gauge", "Bytes waiting for the client's socket to take them", c -> c.getPendingBytes());
+
+		// -- JVM --
+		List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+		header(sb, "jvm_gc_collections_total", "counter", "Garbage collections, by collector");
+		for (GarbageCollectorMXBean gc : gcs) {
+			sb.append(PREFIX).append("jvm_gc_collections_total{gc=\"").append(escape(gc.getName())).append("\"} ").append(gc.getCollectionCount()).append('\n');
+		}
+		header(sb, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection, by collector");
+		for (GarbageCollectorMXBean gc : gcs) {
+			sb.append(PREFIX).append("jvm_gc_collection_seconds_total{gc=\"").append(escape(gc.getName())).append("\"} ").append(gc.getCollectionTime() / 1000.0).append('\n');
+		}
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		header(sb, "jvm_heap_used_bytes", "gauge", "Heap in use");
+		sb.append(PREFIX).append("jvm_heap_used_bytes ").append(heap.getUsed()).append('\n');
+		header(sb, "jvm_heap_committed_bytes", "gauge", "Heap reserved from the os");
+		sb.append(PREFIX).append("jvm_heap_committed_bytes ").append(heap.getCommitted()).append('\n');
+		header(sb, "jvm_threads", "gauge", "Live threads");
+		sb.append(PREFIX).append("jvm_threads ").append(ManagementFactory.getThreadMXBean().getThreadCount()).append('\n');
+
+		return sb.toString();
+	}
+
+	private static void header(StringBuilder sb, String name, String type, String help) {
+		sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder sb, String name, ServerMetrics m, String extraLabels, double value) {
+		sb.append(PREFIX).append(name).append("{server=\"").append(escape(m.getName())).append('"');
+		if (extraLabels != null) {
+			sb.append(',').append(extraLabels);
+		}
+		sb.append("} ");
+		if (value == (long) value) {
+			sb.append((long) value);
+		}
+		else {
+			sb.append(value);
+		}
+		sb.append('\n');
+	}
+
+	private static void clientFamily(StringBuilder sb, ArrayList<ServerMetrics> servers, String name, String type, String help, ToLongFunction<ServerMetrics.ClientMetrics> value) {
+		header(sb, name, type, help);
+		for (ServerMetrics m : servers) {
+			for (ServerMetrics.ClientMetrics c : m.getClients()) {
+				sample(sb, name, m, "client=\"" + c.getClientID() + "\"", value.applyAsLong(c));
+			}
+		}
+	}
+
+	private static void sectionSamples(StringBuilder sb, String name, ServerMetrics m, SectionStats stats, boolean bytes) {
+		for (int i = 0; i < stats.size(); i++) {
+			if (stats.getCount(i) == 0) {
+				continue;
+			}
+			sample(sb, name, m, "section=\"" + escape(stats.getName(i)) + "\"", bytes ? stats.getBytes(i) : stats.getCount(i));
+		}
+	}
+
+	//buckets in prometheus histograms count everything at or below their bound
+	private static void histogram(StringBuilder sb, String name, ServerMetrics m, String extraLabels, TickHistogram h) {
+		String labels = extraLabels == null ? "" : extraLabels + ",";
+		long cumulative = 0;
+		for (int i = 0; i < h.getBucketAmt() - 1; i++) {
+			cumulative += h.getBucketCount(i);
+			sample(sb, name + "_bucket", m, labels + "le=\"" + h.getBucketUpperBoundNanos(i) / 1e9 + "\"", cumulative);
+		}
+		//counted from the buckets, so it can't be less than the last bucket if a tick is recorded while we're reading
+		cumulative += h.getBucketCount(h.getBucketAmt() - 1);
+		sample(sb, name + "_bucket", m, labels + "le=\"+Inf\"", cumulative);
+		sample(sb, name + "_sum", m, extraLabels, h.getTotalNanos() / 1e9);
+		sample(sb, name + "_count", m, extraLabels, cumulative);
+	}
+
+	private static String escape(String s) {
+		return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
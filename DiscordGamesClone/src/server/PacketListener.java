@@ -3,45 +3,88 @@ package server;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.net.Socket;
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 
-import util.Pair;
 import util.Vec2;
 import util.Vec3;
 
 public class PacketListener implements Runnable {
 	//each packet starts with an int denoting it's length
 
-	//then, each section starts with a string header, followed by it's length. 
-	//we should read each section in, and the server or client should process each section one by one. 
+	//then, each section starts with a header, followed by it's length. The header is the section id as a varint,
+	//and if the id is 0, the name of the section as a string.
+	//we should read each section in, and the server or client should process each section one by one.
 
-	private boolean isRunning = true;
+	//sections are handed from the reading thread to the tick thread through a ring buffer.
+	//if the tick thread falls too far behind, new sections are dropped.
+	private static final int SECTION_QUEUE_CAPACITY = 4096;
+
+	//packet and section lengths come straight from the other side, so anything bigger than this is treated as malformed
+	//instead of being allocated
+	public static final int MAX_PACKET_SIZE = 1 << 24;
+
+	private volatile boolean isRunning = true;
 	private Thread thread;
 	private String name;
 
 	private Socket socket; // socket on which to listen for packets
-	private Queue<Pair<String, byte[]>> sectionQueue;
+	private DataInputStream dis;
+	private SectionQueue sectionQueue;
 
-	private boolean isConnected;
+	private volatile boolean isConnected;
 
-	private long lastPacketTime;
+	private volatile long lastPacketTime;
 	private long timeoutMillis = 5000;
 
-	private byte[] section;
+	//section currently being read by the consumer, points into the section queue
+	private ByteBuffer section;
 	private String sectionName;
-	private int readPtr;
+	private int sectionSize;
+
+	//used to turn section ids back into names. Either given by the owner, or read in from the other side. 
+	private volatile SectionRegistry sectionRegistry;
+
+	//section names repeat every packet, so we keep the strings around instead of making new ones.
+	//only touched by the reading thread.
+	private String[] sectionNameCache = new String[64];
+
+	//when reading from a socket, each packet is read whole into this buffer.
+	//when bytes are fed in from a channel, this holds bytes that don't yet make up a full packet.
+	private ByteBuffer readBuffer;
 
+	/**
+	 * Starts a thread that blocks on the socket, and reads in packets as they arrive.
+	 * @param socket
+	 * @param name
+	 */
 	public PacketListener(Socket socket, String name) {
 		this.socket = socket;
-		this.sectionQueue = new ArrayDeque<>();
+		this.sectionQueue = new SectionQueue(SECTION_QUEUE_CAPACITY);
 		this.name = name;
 		this.isConnected = true;
 		this.lastPacketTime = System.currentTimeMillis();
 
+		this.readBuffer = ByteBuffer.allocate(1024);
+
 		this.start();
 	}
 
+	/**
+	 * Doesn't start a thread. Instead, whoever owns the connection should call {@link #readFrom(ReadableByteChannel)}
+	 * whenever there are bytes ready to be read.
+	 * @param name
+	 */
+	public PacketListener(String name) {
+		this.sectionQueue = new SectionQueue(SECTION_QUEUE_CAPACITY);
+		this.name = name;
+		this.isConnected = true;
+		this.lastPacketTime = System.currentTimeMillis();
+
+		this.readBuffer = ByteBuffer.allocate(1024);
+	}
+
 	private void start() {
 		this.thread = new Thread(this);
 		this.thread.start();
@@ -49,22 +92,79 @@ public class PacketListener implements Runnable {
 
 	@Override
 	public void run() {
+		try {
+			this.dis = new DataInputStream(this.socket.getInputStream());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			this.isConnected = false;
+			this.exit();
+		}
+
 		while (this.isRunning) {
 			this.listenForPackets();
 		}
 	}
 
+	/**
+	 * Moves on to the next section. The contents of the previous section are no longer valid after this is called.
+	 * @return false if there are no more sections
+	 */
 	public boolean nextSection() {
-		if (this.sectionQueue.size() == 0) {
+		if (!this.sectionQueue.next()) {
 			return false;
 		}
-		this.section = this.sectionQueue.peek().second;
-		this.sectionName = this.sectionQueue.peek().first;
-		this.sectionQueue.poll();
-		this.readPtr = 0;
+		this.section = this.sectionQueue.getContents();
+		this.sectionName = this.sectionQueue.getName();
+		this.sectionSize = this.section.remaining();
 		return true;
 	}
 
+	/**
+	 * Returns the size of the contents of the current section in bytes, including any bytes that have already been read.
+	 * @return
+	 */
+	public int getSectionSize() {
+		return this.sectionSize;
+	}
+
+	public int getQueueDepth() {
+		return this.sectionQueue.getDepth();
+	}
+
+	public int getPeakQueueDepth() {
+		return this.sectionQueue.getPeakDepth();
+	}
+
+	public long getDroppedSections() {
+		return this.sectionQueue.getDroppedSections();
+	}
+
+	/**
+	 * Sets the registry used to look up the names of incoming section ids. 
+	 * If the other side sends its registry, it will replace this one. 
+	 * @param sectionRegistry
+	 */
+	public void setSectionRegistry(SectionRegistry sectionRegistry) {
+		this.sectionRegistry = sectionRegistry;
+	}
+
+	/**
+	 * Returns the registry that incoming section ids are read with, or null if we haven't received one yet. 
+	 * @return
+	 */
+	public SectionRegistry getSectionRegistry() {
+		return this.sectionRegistry;
+	}
+
+	/**
+	 * Returns the {@link System#nanoTime()} at which the packet containing the current section was received.
+	 * @return
+	 */
+	public long getSectionReceiveTime() {
+		return this.sectionQueue.getReceiveTime();
+	}
+
 	public String getSectionName() {
 		return this.sectionName;
 	}
@@ -75,122 +175,185 @@ public class PacketListener implements Runnable {
 	}
 
 	public boolean hasMoreBytes() {
-		return this.readPtr < this.section.length;
+		return this.section.hasRemaining();
+	}
+
+	/**
+	 * Returns how many bytes of the current section haven't been read yet. Counts read from the section can be checked
+	 * against this before anything is allocated for them.
+	 * @return
+	 */
+	public int getRemainingBytes() {
+		return this.section.remaining();
+	}
+
+	//makes sure that the current section has enough bytes left
+	private void require(int amt) throws IOException {
+		if (amt < 0) {
+			throw new IOException("Negative length " + amt + " in section " + this.sectionName);
+		}
+		if (this.section.remaining() < amt) {
+			throw new IOException("Tried to read past the end of section " + this.sectionName);
+		}
+	}
+
+	//same as require, but for n elements of elementSize bytes each. n * elementSize could overflow, so it's divided instead
+	private void require(int n, int elementSize) throws IOException {
+		if (n < 0) {
+			throw new IOException("Negative length " + n + " in section " + this.sectionName);
+		}
+		if (this.section.remaining() / elementSize < n) {
+			throw new IOException("Tried to read past the end of section " + this.sectionName);
+		}
 	}
 
 	public byte readByte() throws IOException {
-		byte ans = this.section[this.readPtr];
-		this.readPtr++;
-		return ans;
+		this.require(1);
+		return this.section.get();
 	}
 
 	public byte[] readNBytes(int n) throws IOException {
+		this.require(n);
 		byte[] ans = new byte[n];
-		for (int i = 0; i < n; i++) {
-			ans[i] = this.readByte();
-		}
+		this.section.get(ans);
 		return ans;
 	}
 
 	public int readInt() throws IOException {
-		int ans = 0;
-		for (int i = 0; i < 4; i++) {
-			ans <<= 8;
-			ans |= this.readByte() & 0xFF;
-		}
-		return ans;
+		this.require(4);
+		return this.section.getInt();
 	}
 
 	public int[] readNInts(int n) throws IOException {
+		this.require(n, 4);
 		int[] ans = new int[n];
-		for (int i = 0; i < n; i++) {
-			ans[i] = this.readInt();
-		}
+		this.readNInts(ans, 0, n);
 		return ans;
 	}
 
-	public long readLong() throws IOException {
-		long ans = 0;
-		for (int i = 0; i < 8; i++) {
-			ans <<= 8;
-			ans |= this.readByte() & 0xFF;
+	/**
+	 * Reads n ints into dst starting at offset.
+	 * @param dst
+	 * @param offset
+	 * @param n
+	 * @throws IOException
+	 */
+	public void readNInts(int[] dst, int offset, int n) throws IOException {
+		this.require(n, 4);
+		this.section.asIntBuffer().get(dst, offset, n);
+		this.section.position(this.section.position() + n * 4);
+	}
+
+	/**
+	 * Reads an int written with {@link PacketSender#writeVarInt(int)}.
+	 * @return
+	 * @throws IOException
+	 */
+	public int readVarInt() throws IOException {
+		int ans = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = this.readByte();
+			ans |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return ans;
+			}
 		}
-		return ans;
+		throw new IOException("Malformed varint in section " + this.sectionName);
+	}
+
+	/**
+	 * Reads an int written with {@link PacketSender#writeSignedVarInt(int)}.
+	 * @return
+	 * @throws IOException
+	 */
+	public int readSignedVarInt() throws IOException {
+		int a = this.readVarInt();
+		return (a >>> 1) ^ -(a & 1);
+	}
+
+	public long readLong() throws IOException {
+		this.require(8);
+		return this.section.getLong();
 	}
 
 	public float readFloat() throws IOException {
-		return Float.intBitsToFloat(this.readInt());
+		this.require(4);
+		return this.section.getFloat();
 	}
 
 	public float[] readNFloats(int n) throws IOException {
+		this.require(n, 4);
 		float[] ans = new float[n];
-		for (int i = 0; i < n; i++) {
-			ans[i] = this.readFloat();
-		}
+		this.readNFloats(ans, 0, n);
 		return ans;
 	}
 
+	/**
+	 * Reads n floats into dst starting at offset.
+	 * @param dst
+	 * @param offset
+	 * @param n
+	 * @throws IOException
+	 */
+	public void readNFloats(float[] dst, int offset, int n) throws IOException {
+		this.require(n, 4);
+		this.section.asFloatBuffer().get(dst, offset, n);
+		this.section.position(this.section.position() + n * 4);
+	}
+
 	public Vec3 readVec3() throws IOException {
-		return new Vec3(this.readFloat(), this.readFloat(), this.readFloat());
+		this.require(12);
+		return new Vec3(this.section.getFloat(), this.section.getFloat(), this.section.getFloat());
 	}
 
 	public Vec2 readVec2() throws IOException {
-		return new Vec2(this.readFloat(), this.readFloat());
+		this.require(8);
+		return new Vec2(this.section.getFloat(), this.section.getFloat());
 	}
 
 	public char readChar() throws IOException {
-		return (char) this.readByte();
+		return (char) (this.readByte() & 0xFF);
 	}
 
 	public char[] readNChars(int n) throws IOException {
+		this.require(n);
 		char[] ans = new char[n];
 		for (int i = 0; i < n; i++) {
-			ans[i] = this.readChar();
+			ans[i] = (char) (this.section.get() & 0xFF);
 		}
 		return ans;
 	}
 
 	/**
-	 * First reads an int, len, then reads a string of size len. 
-	 * @param len
+	 * First reads an int, len, then reads a UTF-8 encoded string that is len bytes long.
 	 * @return
 	 * @throws IOException
 	 */
 	public String readString() throws IOException {
 		int len = this.readInt();
-		return new String(this.readNChars(len));
+		this.require(len);
+		String ans = new String(this.section.array(), this.section.arrayOffset() + this.section.position(), len, StandardCharsets.UTF_8);
+		this.section.position(this.section.position() + len);
+		return ans;
 	}
 
 	private void listenForPackets() {
 		try {
-			DataInputStream dis = new DataInputStream(this.socket.getInputStream());
-			int packetSize = dis.readInt();
+			//read the whole packet in one go
+			int packetSize = this.dis.readInt();
+			checkPacketSize(packetSize);
+			if (this.readBuffer.capacity() < packetSize) {
+				this.readBuffer = ByteBuffer.allocate(Math.max(packetSize, this.readBuffer.capacity() * 2));
+			}
+			this.dis.readFully(this.readBuffer.array(), 0, packetSize);
 
 			//parse the packet into sections
-			int ptr = 0;
-			while (ptr < packetSize) {
-				int sectionNameLength = this.readInt(dis);
-				ptr += 4;
-
-				char[] cstr = new char[sectionNameLength];
-				for (int i = 0; i < sectionNameLength; i++) {
-					cstr[i] = (char) dis.readByte();
-					ptr += 1;
-				}
-				String sectionName = new String(cstr);
-
-				int sectionContentsLength = this.readInt(dis);
-				ptr += 4;
-
-				byte[] sectionContents = new byte[sectionContentsLength];
-				for (int i = 0; i < sectionContentsLength; i++) {
-					sectionContents[i] = dis.readByte();
-					ptr += 1;
-				}
-
-				this.sectionQueue.add(new Pair<String, byte[]>(sectionName, sectionContents));
+			long receiveTime = System.nanoTime();
+			this.readBuffer.clear();
+			this.readBuffer.limit(packetSize);
+			while (this.readBuffer.hasRemaining()) {
+				this.decodeSection(this.readBuffer, packetSize, receiveTime);
 			}
-
 		}
 		catch (IOException e) {
 			// probably closed connection
@@ -202,21 +365,161 @@ public class PacketListener implements Runnable {
 		this.lastPacketTime = System.currentTimeMillis();
 	}
 
-	private int readInt(DataInputStream dis) throws IOException {
+	/**
+	 * Reads whatever bytes are available on the channel, and decodes every complete packet into sections.
+	 * Incomplete packets are kept until the rest of their bytes arrive.
+	 * @param channel
+	 * @return the amount of bytes read, or -1 if the channel has reached end of stream
+	 * @throws IOException
+	 */
+	public int readFrom(ReadableByteChannel channel) throws IOException {
+		int amt = channel.read(this.readBuffer);
+		if (amt == -1) {
+			System.err.println(this.name + " closed connection");
+			this.isConnected = false;
+			return amt;
+		}
+
+		long receiveTime = System.nanoTime();
+		this.readBuffer.flip();
+		while (this.readBuffer.remaining() >= 4) {
+			int packetSize = this.readBuffer.getInt(this.readBuffer.position());
+			checkPacketSize(packetSize);
+			if (this.readBuffer.remaining() < 4 + packetSize) {
+				break;
+			}
+			this.readBuffer.getInt();
+			int packetEnd = this.readBuffer.position() + packetSize;
+			while (this.readBuffer.position() < packetEnd) {
+				this.decodeSection(this.readBuffer, packetEnd, receiveTime);
+			}
+			this.lastPacketTime = System.currentTimeMillis();
+		}
+		this.readBuffer.compact();
+
+		//make sure the next packet is able to fit
+		if (this.readBuffer.position() >= 4) {
+			int packetSize = this.readBuffer.getInt(0);
+			checkPacketSize(packetSize);
+			if (this.readBuffer.capacity() < 4 + packetSize) {
+				ByteBuffer next = ByteBuffer.allocate(4 + packetSize);
+				this.readBuffer.flip();
+				next.put(this.readBuffer);
+				this.readBuffer = next;
+			}
+		}
+		return amt;
+	}
+
+	private static void checkPacketSize(int packetSize) throws IOException {
+		if (packetSize < 0 || packetSize > MAX_PACKET_SIZE) {
+			throw new IOException("Malformed packet length " + packetSize);
+		}
+	}
+
+	//slices the next section out of the packet, and hands it off to the section queue.
+	//nothing in the section header is trusted to stay inside the packet, every length is checked against packetEnd
+	private void decodeSection(ByteBuffer packet, int packetEnd, long receiveTime) throws IOException {
+		int id = this.readVarInt(packet, packetEnd);
+		String sectionName = null;
+		if (id == 0) {
+			int sectionNameLength = readLength(packet, packetEnd);
+			sectionName = this.getSectionName(packet.array(), packet.arrayOffset() + packet.position(), sectionNameLength);
+			packet.position(packet.position() + sectionNameLength);
+		}
+		else {
+			SectionRegistry registry = this.sectionRegistry;
+			if (registry != null) {
+				sectionName = registry.getName(id);
+			}
+			if (sectionName == null) {
+				throw new IOException("Unknown section id " + id);
+			}
+		}
+
+		int sectionContentsLength;
+		try {
+			sectionContentsLength = readLength(packet, packetEnd);
+		}
+		catch (IOException e) {
+			throw new IOException("Malformed section " + sectionName, e);
+		}
+
+		//the registry has to be applied right away, since the next section header might already use it
+		if (sectionName.equals(SectionRegistry.REGISTRY_SECTION_NAME)) {
+			int sectionEnd = packet.position() + sectionContentsLength;
+			this.sectionRegistry = this.readSectionRegistry(packet, sectionEnd);
+			packet.position(sectionEnd);
+			return;
+		}
+
+		this.sectionQueue.offer(sectionName, packet.array(), packet.arrayOffset() + packet.position(), sectionContentsLength, receiveTime);
+		packet.position(packet.position() + sectionContentsLength);
+	}
+
+	private SectionRegistry readSectionRegistry(ByteBuffer packet, int sectionEnd) throws IOException {
+		int amt = readLength(packet, sectionEnd);
+		if (amt > (sectionEnd - packet.position()) / 4) {
+			throw new IOException("Malformed section registry");
+		}
+		String[] names = new String[amt];
+		for (int i = 0; i < amt; i++) {
+			int len = readLength(packet, sectionEnd);
+			names[i] = new String(packet.array(), packet.arrayOffset() + packet.position(), len, StandardCharsets.UTF_8);
+			packet.position(packet.position() + len);
+		}
+		return new SectionRegistry(names);
+	}
+
+	//reads a length, and makes sure that many bytes are left before end
+	private static int readLength(ByteBuffer packet, int end) throws IOException {
+		if (end - packet.position() < 4) {
+			throw new IOException("Malformed length, packet ended early");
+		}
+		int len = packet.getInt();
+		if (len < 0 || len > end - packet.position()) {
+			throw new IOException("Malformed length " + len);
+		}
+		return len;
+	}
+
+	private int readVarInt(ByteBuffer packet, int packetEnd) throws IOException {
 		int ans = 0;
-		for (int i = 0; i < 4; i++) {
-			ans <<= 8;
-			ans |= dis.readByte() & 0xFF;
+		for (int shift = 0; shift < 32 && packet.position() < packetEnd; shift += 7) {
+			byte b = packet.get();
+			ans |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return ans;
+			}
 		}
-		return ans;
+		throw new IOException("Malformed section id");
 	}
 
-	private byte[] readNBytes(int n, DataInputStream dis) throws IOException {
-		byte[] packet = new byte[n];
-		for (int i = 0; i < n; i++) {
-			packet[i] = dis.readByte();
+	//returns the cached string if we've seen this section name before
+	private String getSectionName(byte[] arr, int offset, int len) {
+		int hash = len;
+		for (int i = 0; i < len; i++) {
+			hash = hash * 31 + (arr[offset + i] & 0xFF);
 		}
-		return packet;
+		int index = (hash ^ (hash >>> 16)) & (this.sectionNameCache.length - 1);
+
+		String cached = this.sectionNameCache[index];
+		if (cached != null && cached.length() == len) {
+			boolean matches = true;
+			for (int i = 0; i < len; i++) {
+				if (cached.charAt(i) != (char) (arr[offset + i] & 0xFF)) {
+					matches = false;
+					break;
+				}
+			}
+			if (matches) {
+				return cached;
+			}
+		}
+
+		String sectionName = new String(arr, offset, len, StandardCharsets.ISO_8859_1).intern();
+		this.sectionNameCache[index] = sectionName;
+		return sectionName;
 	}
 
 	public void exit() {
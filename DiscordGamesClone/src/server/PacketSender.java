@@ -1,9 +1,10 @@
 package server;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import util.Vec2;
 import util.Vec3;
@@ -11,164 +12,291 @@ import util.Vec3;
 public class PacketSender {
 	// packets always start with an int denoting the length of the packet
 
-	//each section starts with a section header, and the length of the section in bytes. 
+	//each section starts with a section header, and the length of the section in bytes.
+	//the header is the section id as a varint. If the id is 0, the section name follows it as a string.
 
-	private ArrayList<Byte> packet;
+	//everything is written straight into one reusable buffer. When a section is started, we write the header
+	//and leave a 4 byte hole for the section length, which gets backpatched once the section ends.
+	//the first 4 bytes of the buffer are reserved for the packet length.
 
-	private ArrayList<Byte> curSection;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int PACKET_HEADER_SIZE = 4;
+
+	private ByteBuffer packet;
+
+	//for debugging, write every section name instead of it's id
+	public static boolean writeSectionNames = false;
+
+	private SectionRegistry sectionRegistry; //if null, section names get written
+
+	private boolean inSection = false;
+	private int curSectionLengthPtr; //where to backpatch the length of the current section
+	private int curSectionStartPtr;
 	private String curSectionName;
+	private int sectionCount = 0; //sections started since the last flush
+
+	private SectionStats sectionStats; //if not null, every section written is counted in here
 
 	public PacketSender() {
-		this.packet = new ArrayList<>();
+		this.packet = ByteBuffer.allocate(INITIAL_CAPACITY);
+		this.clear();
 	}
 
-	public void flush(Socket socket) throws IOException {
-		if (this.curSection != null) { //make sure to include last section before flushing. 
+	/**
+	 * Sets the registry used to look up section ids. Should be the same one the receiving side reads with. 
+	 * @param sectionRegistry
+	 */
+	public void setSectionRegistry(SectionRegistry sectionRegistry) {
+		this.sectionRegistry = sectionRegistry;
+	}
+
+	public SectionRegistry getSectionRegistry() {
+		return this.sectionRegistry;
+	}
+
+	/**
+	 * Counts every section written from now on, by name, including its header. Sections added with
+	 * {@link #writeSections(ByteBuffer)} aren't counted, as they were already counted by whoever wrote them.
+	 * @param sectionStats null to stop counting
+	 */
+	public void setSectionStats(SectionStats sectionStats) {
+		this.sectionStats = sectionStats;
+	}
+
+	/**
+	 * Returns how many sections have been started since the last flush or clear, not counting ones added with {@link #writeSections(ByteBuffer)}.
+	 * @return
+	 */
+	public int getSectionCount() {
+		return this.sectionCount;
+	}
+
+	/**
+	 * Discards everything that has been written since the last flush.
+	 */
+	public void clear() {
+		this.packet.clear();
+		this.packet.position(PACKET_HEADER_SIZE);
+		this.inSection = false;
+		this.sectionCount = 0;
+	}
+
+	//ends the last section, and fills in the packet length
+	private void finishPacket() {
+		if (this.inSection) { //make sure to include last section before flushing.
 			this.endSection();
 		}
 
-		int packetSize = this.packet.size();
-		byte[] packetArr = new byte[packetSize];
-		for (int i = 0; i < packetSize; i++) {
-			packetArr[i] = packet.get(i);
+		int packetSize = this.packet.position() - PACKET_HEADER_SIZE;
+		this.packet.putInt(0, packetSize);
+	}
+
+	public void flush(Socket socket) throws IOException {
+		this.finishPacket();
+		try {
+			OutputStream os = socket.getOutputStream();
+			os.write(this.packet.array(), 0, this.packet.position());
+			os.flush();
 		}
-		this.packet.clear();
+		finally {
+			this.clear();
+		}
+	}
 
-		DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
-		dos.writeInt(packetSize);
-		dos.write(packetArr);
-		dos.flush();
+	public void flush(ServerConnection connection) throws IOException {
+		this.finishPacket();
+		try {
+			this.packet.flip();
+			connection.send(this.packet);
+		}
+		finally {
+			this.clear();
+		}
+	}
+
+	/**
+	 * Returns the amount of bytes that have been written to the current packet, excluding the packet length header.
+	 * @return
+	 */
+	public int getPacketSize() {
+		return this.packet.position() - PACKET_HEADER_SIZE;
+	}
+
+	/**
+	 * Ends the current section, and returns a read only view of all the sections written so far. 
+	 * The view is only valid until this packet sender is flushed or cleared. 
+	 * @return
+	 */
+	public ByteBuffer getSections() {
+		if (this.inSection) {
+			this.endSection();
+		}
+		ByteBuffer ans = this.packet.asReadOnlyBuffer();
+		ans.limit(this.packet.position());
+		ans.position(PACKET_HEADER_SIZE);
+		return ans.slice();
+	}
+
+	/**
+	 * Appends already encoded sections, obtained from {@link #getSections()}, to this packet. 
+	 * @param sections
+	 */
+	public void writeSections(ByteBuffer sections) {
+		if (this.inSection) {
+			this.endSection();
+		}
+		this.ensureCapacity(sections.remaining());
+		this.packet.put(sections.duplicate());
 	}
 
 	public void startSection(String sectionName) {
-		if (this.curSection != null) {
+		if (this.inSection) {
 			this.endSection();
 		}
-		this.curSection = new ArrayList<Byte>();
+		this.inSection = true;
+		this.sectionCount++;
 		this.curSectionName = sectionName;
+		this.curSectionStartPtr = this.packet.position();
+		int id = 0;
+		if (this.sectionRegistry != null && !writeSectionNames) {
+			id = this.sectionRegistry.getID(sectionName);
+		}
+		this.writeVarInt(id);
+		if (id == 0) {
+			this.write(sectionName);
+		}
+		this.curSectionLengthPtr = this.packet.position();
+		this.write(0); //placeholder, gets overwritten in endSection()
 	}
 
 	public void endSection() {
-		if (this.curSection == null) {
+		if (!this.inSection) {
 			System.err.println("Packet Sender, tried to end null section");
 			return;
 		}
 
-		this.write(this.curSectionName, this.packet);
-		this.write(this.curSection.size(), this.packet);
-		this.packet.addAll(this.curSection);
+		int sectionSize = this.packet.position() - (this.curSectionLengthPtr + 4);
+		this.packet.putInt(this.curSectionLengthPtr, sectionSize);
+		if (this.sectionStats != null) {
+			this.sectionStats.record(this.curSectionName, this.packet.position() - this.curSectionStartPtr);
+		}
 
-		this.curSection = null;
+		this.inSection = false;
 	}
 
-	private void write(byte a, ArrayList<Byte> packet) {
-		if (packet == null) {
-			System.err.println("Can't write to a null packet");
+	private void ensureCapacity(int amt) {
+		if (this.packet.remaining() >= amt) {
+			return;
+		}
+		int newCapacity = this.packet.capacity() * 2;
+		while (newCapacity - this.packet.position() < amt) {
+			newCapacity *= 2;
 		}
-		packet.add(a);
+		ByteBuffer next = ByteBuffer.allocate(newCapacity);
+		next.put(this.packet.array(), 0, this.packet.position());
+		this.packet = next;
 	}
 
-	public void write(byte a) {
-		this.write(a, this.curSection);
+	/**
+	 * Writes an unsigned int using as few bytes as possible. 7 bits at a time, high bit set if there are more bytes.
+	 * @param a
+	 */
+	public void writeVarInt(int a) {
+		this.ensureCapacity(5);
+		while ((a & ~0x7F) != 0) {
+			this.packet.put((byte) ((a & 0x7F) | 0x80));
+			a >>>= 7;
+		}
+		this.packet.put((byte) a);
 	}
 
-	private void write(byte[] a, ArrayList<Byte> packet) {
-		for (byte b : a) {
-			write(b);
-		}
+	/**
+	 * Zigzag encodes the int before writing it as a varint, so that small negative numbers are also small.
+	 * @param a
+	 */
+	public void writeSignedVarInt(int a) {
+		this.writeVarInt((a << 1) ^ (a >> 31));
 	}
 
-	public void write(byte[] a) {
-		this.write(a, this.curSection);
+	public void write(byte a) {
+		this.ensureCapacity(1);
+		this.packet.put(a);
 	}
 
-	private void write(float a, ArrayList<Byte> packet) {
-		int bits = Float.floatToIntBits(a);
-		this.write(bits, packet);
+	public void write(byte[] a) {
+		this.ensureCapacity(a.length);
+		this.packet.put(a);
 	}
 
 	public void write(float a) {
-		this.write(a, this.curSection);
+		this.ensureCapacity(4);
+		this.packet.putFloat(a);
 	}
 
-	private void write(float[] a, ArrayList<Byte> packet) {
+	public void write(float[] a) {
+		this.ensureCapacity(a.length * 4);
 		for (float b : a) {
-			this.write(b, packet);
+			this.packet.putFloat(b);
 		}
 	}
 
-	public void write(float[] a) {
-		this.write(a, this.curSection);
-	}
-
-	private void write(Vec3 a, ArrayList<Byte> packet) {
-		this.write(a.x, packet);
-		this.write(a.y, packet);
-		this.write(a.z, packet);
-	}
-
 	public void write(Vec3 a) {
-		this.write(a, this.curSection);
-	}
-
-	private void write(Vec2 a, ArrayList<Byte> packet) {
-		this.write(a.x, packet);
-		this.write(a.y, packet);
+		this.ensureCapacity(12);
+		this.packet.putFloat(a.x);
+		this.packet.putFloat(a.y);
+		this.packet.putFloat(a.z);
 	}
 
 	public void write(Vec2 a) {
-		this.write(a, this.curSection);
-	}
-
-	private void write(long a, ArrayList<Byte> packet) {
-		this.write((byte) (0xFF & (a >> 56)), packet);
-		this.write((byte) (0xFF & (a >> 48)), packet);
-		this.write((byte) (0xFF & (a >> 40)), packet);
-		this.write((byte) (0xFF & (a >> 32)), packet);
-		this.write((byte) (0xFF & (a >> 24)), packet);
-		this.write((byte) (0xFF & (a >> 16)), packet);
-		this.write((byte) (0xFF & (a >> 8)), packet);
-		this.write((byte) (0xFF & (a >> 0)), packet);
+		this.ensureCapacity(8);
+		this.packet.putFloat(a.x);
+		this.packet.putFloat(a.y);
 	}
 
 	public void write(long a) {
-		this.write(a, this.curSection);
-	}
-
-	private void write(int a, ArrayList<Byte> packet) {
-		this.write((byte) (0xFF & (a >> 24)), packet);
-		this.write((byte) (0xFF & (a >> 16)), packet);
-		this.write((byte) (0xFF & (a >> 8)), packet);
-		this.write((byte) (0xFF & (a >> 0)), packet);
+		this.ensureCapacity(8);
+		this.packet.putLong(a);
 	}
 
 	public void write(int a) {
-		this.write(a, this.curSection);
-	}
-
-	private void write(int[] a, ArrayList<Byte> packet) {
-		for (int i : a) {
-			this.write(i, packet);
-		}
+		this.ensureCapacity(4);
+		this.packet.putInt(a);
 	}
 
 	public void write(int[] a) {
-		this.write(a, this.curSection);
-	}
-
-	private void write(String a, ArrayList<Byte> packet) {
-		this.write(a.length(), packet);
-		char[] arr = a.toCharArray();
-		for (char c : arr) {
-			this.write((byte) c, packet);
+		this.ensureCapacity(a.length * 4);
+		for (int i : a) {
+			this.packet.putInt(i);
 		}
 	}
 
 	/**
-	 * Writes the length of the string, then writes the string.
+	 * Writes the length of the string in bytes, then writes the string encoded as UTF-8.
 	 * @param a
 	 */
 	public void write(String a) {
-		this.write(a, this.curSection);
+		int len = a.length();
+		boolean isAscii = true;
+		for (int i = 0; i < len; i++) {
+			if (a.charAt(i) >= 0x80) {
+				isAscii = false;
+				break;
+			}
+		}
+
+		//most strings are ascii, so we can skip encoding them
+		if (!isAscii) {
+			byte[] encoded = a.getBytes(StandardCharsets.UTF_8);
+			this.ensureCapacity(4 + encoded.length);
+			this.packet.putInt(encoded.length);
+			this.packet.put(encoded);
+			return;
+		}
+
+		this.ensureCapacity(4 + len);
+		this.packet.putInt(len);
+		for (int i = 0; i < len; i++) {
+			this.packet.put((byte) a.charAt(i));
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,216 @@
+package server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RoomHost {
+	//hosts many game servers, called rooms, behind a single listening port.
+
+	//every connection is read by one shared transport. Before a connection belongs to a room, it has to say which room
+	//it wants: the first section a client sends has to be "join_room", with the name of the room. The rest of that packet,
+	//and everything after it, is left in the connection's packet listener for the room to read, so once it's routed the
+	//room can't tell it apart from a client that connected to it directly.
+
+	//rooms are made the first time someone asks for them, and they go away on their own, as a room shuts itself down
+	//once it's been empty for a while.
+
+	//instead of every room running its own thread, the room ticks, and the routing of new connections, are run on a
+	//shared tick scheduler with a fixed amount of workers, so hundreds of mostly idle rooms don't need hundreds of threads.
+
+	public static final String DEFAULT_ROOM = "default";
+	public static final int MAX_ROOM_NAME_LENGTH = 32;
+
+	private static final int ROUTING_TICK_RATE = 60; //rooms tick at whatever rate their game asks for
+	private static final long HANDSHAKE_TIMEOUT_MILLIS = 5000;
+
+	private String ip;
+	private int port;
+	private int maxRooms;
+
+	private ServerTransport transport;
+	private TickScheduler scheduler;
+
+	private ConcurrentHashMap<String, GameServer> rooms;
+
+	//connections that haven't said which room they want yet. Only touched by the routing task
+	private ArrayList<PendingConnection> pendingConnections;
+
+	private volatile boolean isRunning = true;
+
+	/**
+	 * @param ip
+	 * @param port
+	 * @param workerAmt how many threads the rooms are ticked on
+	 * @param maxRooms
+	 */
+	public RoomHost(String ip, int port, int workerAmt, int maxRooms) {
+		this.ip = ip;
+		this.port = port;
+		this.maxRooms = maxRooms;
+
+		this.rooms = new ConcurrentHashMap<>();
+		this.pendingConnections = new ArrayList<>();
+
+		this.transport = null;
+		try {
+			this.transport = new ServerTransport(this.ip, this.port);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			this.isRunning = false;
+			return;
+		}
+
+		this.scheduler = new TickScheduler(workerAmt, "RoomHost");
+		this.scheduler.schedule(this::routeConnections, ROUTING_TICK_RATE);
+	}
+
+	public boolean isListening() {
+		return this.transport != null;
+	}
+
+	public boolean isRunning() {
+		return this.isRunning;
+	}
+
+	public int getRoomAmt() {
+		return this.rooms.size();
+	}
+
+	public TickScheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	private boolean routeConnections() {
+		if (!this.isRunning) {
+			return false;
+		}
+
+		for (ServerConnection c : this.transport.getNewConnections()) {
+			this.pendingConnections.add(new PendingConnection(c));
+		}
+
+		Iterator<PendingConnection> it = this.pendingConnections.iterator();
+		while (it.hasNext()) {
+			PendingConnection p = it.next();
+			PacketListener packetListener = p.connection.getPacketListener();
+			if (p.connection.isClosed() || !packetListener.isConnected()) {
+				p.connection.close();
+				it.remove();
+				continue;
+			}
+
+			if (!packetListener.nextSection()) {
+				if (System.currentTimeMillis() - p.connectTime > HANDSHAKE_TIMEOUT_MILLIS) {
+					System.err.println("Client didn't join a room in time, closing connection");
+					p.connection.close();
+					it.remove();
+				}
+				continue;
+			}
+
+			it.remove();
+			String roomName = null;
+			if (packetListener.getSectionName().equals("join_room")) {
+				try {
+					roomName = packetListener.readString().trim();
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			if (roomName == null || roomName.length() > MAX_ROOM_NAME_LENGTH) {
+				System.err.println("Client didn't send a valid room to join, closing connection");
+				p.connection.close();
+				continue;
+			}
+			if (roomName.length() == 0) {
+				roomName = DEFAULT_ROOM;
+			}
+
+			if (!this.joinRoom(roomName, p.connection)) {
+				System.err.println("Too many rooms, closing connection");
+				p.connection.close();
+			}
+		}
+		return true;
+	}
+
+	//gives the connection to the room, creating it if it doesn't exist yet
+	private boolean joinRoom(String roomName, ServerConnection connection) {
+		while (true) {
+			GameServer room = this.rooms.get(roomName);
+			if (room == null) {
+				if (this.rooms.size() >= this.maxRooms) {
+					return false;
+				}
+				room = this.createRoom(roomName);
+			}
+			if (room.addConnection(connection)) {
+				return true;
+			}
+			//the room shut down just now, forget about it and make a new one
+			this.rooms.remove(roomName, room);
+		}
+	}
+
+	private GameServer createRoom(String roomName) {
+		GameServer room = new GameServer(roomName);
+		GameServer prev = this.rooms.putIfAbsent(roomName, room);
+		if (prev != null) {
+			room.exit();
+			return prev;
+		}
+
+		System.out.println("Opening room " + roomName + ", " + this.rooms.size() + " rooms open");
+		this.scheduler.schedule(() -> {
+			if (!this.isRunning) {
+				return false;
+			}
+			try {
+				room.update();
+			}
+			catch (RuntimeException e) {
+				//a room that can't tick anymore has to be closed here, otherwise its clients stay connected to it,
+				//and anyone joining it by name would be sent to a room that never ticks again
+				System.err.println("Room " + roomName + " threw an exception, closing it");
+				e.printStackTrace();
+				room.exit();
+			}
+			if (!room.isRunning()) {
+				this.rooms.remove(roomName, room);
+				return false;
+			}
+			return true;
+		}, room.getTimestep());
+		return room;
+	}
+
+	public void exit() {
+		System.out.println("Closing room host at " + ip + ":" + port);
+		this.isRunning = false;
+		if (this.scheduler != null) {
+			this.scheduler.exit();
+		}
+		for (GameServer room : this.rooms.values()) {
+			room.exit();
+		}
+		this.rooms.clear();
+		if (this.transport != null) {
+			this.transport.exit();
+		}
+	}
+
+	private static class PendingConnection {
+		ServerConnection connection;
+		long connectTime;
+
+		PendingConnection(ServerConnection connection) {
+			this.connection = connection;
+			this.connectTime = System.currentTimeMillis();
+		}
+	}
+
+}
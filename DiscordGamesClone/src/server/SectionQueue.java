@@ -0,0 +1,161 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SectionQueue {
+	//bounded single producer single consumer ring buffer of sections.
+	//the producer is whatever thread reads from the socket, the consumer is the server or client tick thread.
+
+	//each slot owns a byte buffer that gets reused, so once the buffers have grown to fit the largest sections,
+	//handing off a section doesn't allocate anything.
+
+	//the consumer holds on to the slot of the section it is currently reading, and only releases it
+	//when it moves on to the next section, so the producer can't overwrite it mid read.
+
+	private final int capacity;
+	private final int mask;
+
+	private final String[] names;
+	private final ByteBuffer[] contents;
+	private final int[] lengths;
+	private final long[] receiveTimes;
+
+	private final AtomicLong head; //next slot the consumer will read
+	private final AtomicLong tail; //next slot the producer will write
+
+	//only touched by the consumer
+	private boolean holdingCurrent = false;
+	private int current;
+
+	private final AtomicLong droppedSections;
+	private volatile int peakDepth = 0;
+
+	/**
+	 * @param capacity rounded up to the next power of two
+	 */
+	public SectionQueue(int capacity) {
+		int c = 1;
+		while (c < capacity) {
+			c <<= 1;
+		}
+		this.capacity = c;
+		this.mask = c - 1;
+
+		this.names = new String[c];
+		this.contents = new ByteBuffer[c];
+		this.lengths = new int[c];
+		this.receiveTimes = new long[c];
+		for (int i = 0; i < c; i++) {
+			this.contents[i] = ByteBuffer.allocate(0);
+		}
+
+		this.head = new AtomicLong(0);
+		this.tail = new AtomicLong(0);
+
+		this.droppedSections = new AtomicLong(0);
+	}
+
+	// -- PRODUCER --
+
+	/**
+	 * Copies the section into the next free slot. If the queue is full, the section is dropped.
+	 * @param name
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param receiveTime
+	 * @return false if the section was dropped
+	 */
+	public boolean offer(String name, byte[] src, int offset, int length, long receiveTime) {
+		long t = this.tail.get();
+		int depth = (int) (t - this.head.get());
+		if (depth >= this.capacity) {
+			this.droppedSections.incrementAndGet();
+			return false;
+		}
+
+		int i = (int) (t & this.mask);
+		if (this.contents[i].capacity() < length) {
+			this.contents[i] = ByteBuffer.allocate(Math.max(length, this.contents[i].capacity() * 2));
+		}
+		System.arraycopy(src, offset, this.contents[i].array(), 0, length);
+		this.names[i] = name;
+		this.lengths[i] = length;
+		this.receiveTimes[i] = receiveTime;
+
+		if (depth + 1 > this.peakDepth) {
+			this.peakDepth = depth + 1;
+		}
+
+		//publish the slot to the consumer
+		this.tail.lazySet(t + 1);
+		return true;
+	}
+
+	// -- CONSUMER --
+
+	/**
+	 * Releases the current section, and moves on to the next one.
+	 * @return false if there are no more sections
+	 */
+	public boolean next() {
+		long h = this.head.get();
+		if (this.holdingCurrent) {
+			h++;
+			this.head.lazySet(h);
+			this.holdingCurrent = false;
+		}
+		if (h == this.tail.get()) {
+			return false;
+		}
+		this.current = (int) (h & this.mask);
+		this.holdingCurrent = true;
+		return true;
+	}
+
+	public String getName() {
+		return this.names[this.current];
+	}
+
+	/**
+	 * Returns the contents of the current section, with position 0 and limit set to the length of the section. 
+	 * @return
+	 */
+	public ByteBuffer getContents() {
+		ByteBuffer ans = this.contents[this.current];
+		ans.clear();
+		ans.limit(this.lengths[this.current]);
+		return ans;
+	}
+
+	public int getLength() {
+		return this.lengths[this.current];
+	}
+
+	public long getReceiveTime() {
+		return this.receiveTimes[this.current];
+	}
+
+	// -- METRICS --
+
+	/**
+	 * Amount of sections waiting to be read, including the one currently being read.
+	 * @return
+	 */
+	public int getDepth() {
+		return (int) (this.tail.get() - this.head.get());
+	}
+
+	public int getPeakDepth() {
+		return this.peakDepth;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public long getDroppedSections() {
+		return this.droppedSections.get();
+	}
+}
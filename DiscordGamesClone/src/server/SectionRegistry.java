@@ -0,0 +1,97 @@
+package server;
+
+import java.util.HashMap;
+
+public class SectionRegistry {
+	//maps section names to small integer ids, so that sections don't have to carry their name on the wire.
+
+	//the server is the authority. When a client connects, the first section it receives is the server's registry,
+	//sent by name. From then on, both sides write section ids, and read them using the server's table.
+
+	//id 0 is reserved, and means that the section name follows the id. This is used for sections that aren't
+	//registered, and for everything when ids are turned off for debugging.
+
+	public static final String REGISTRY_SECTION_NAME = "_section_registry_";
+
+	//when adding a new section, add it's name here.
+	//the order doesn't have to match between client and server, as the client uses whatever the server sends.
+	private static final String[] DEFAULT_SECTION_NAMES = { "_base_server_",
+
+			//lobby
+			"join_room", "set_nickname", "start_game", "return_to_main_lobby", "disconnect", "connect", "server_messages", "player_info", "host_id",
+
+			//chess
+			"chess_create_game", "chess_create_computer_game", "chess_join_game", "chess_leave_game", "chess_make_move", "chess_lobby_updates", "chess_move_updates",
+
+			//scrabble
+			"scrabble_start_game", "scrabble_end_game", "scrabble_make_move", "scrabble_skip_move", "scrabble_next_player", "scrabble_player_hand", "scrabble_player_scores",
+
+			//blazing eights
+			"blazing_eights_start_game", "blazing_eights_end_game", "blazing_eights_perform_move", "blazing_eights_move_performed",
+
+			//crack heads
+			"crack_heads_start_game", "crack_heads_end_game", "crack_heads_draw_stroke", "crack_heads_clear_screen", "crack_heads_pick", "crack_heads_pick_phase", "crack_heads_draw_phase", "crack_heads_guess", "crack_heads_points", "crack_heads_hint",
+
+			//rocket league
+			"rocket_league_start_game", "rocket_league_end_game", "rocket_league_start_input_phase", "rocket_league_score", "rocket_league_assign_teams", "rocket_league_add_pegs", "rocket_league_remove_pegs", "rocket_league_assign_peg_type", "rocket_league_set_peg_type", "rocket_league_add_powerup", "rocket_league_remove_powerup", "rocket_league_peg_info", "rocket_league_batched_launches", "rocket_league_write_launch", "rocket_league_request_keyframe", };
+
+	public static final SectionRegistry DEFAULT = new SectionRegistry(DEFAULT_SECTION_NAMES);
+
+	private final String[] names; //index is the id, names[0] is unused
+	private final HashMap<String, Integer> ids;
+
+	public SectionRegistry(String[] sectionNames) {
+		this.names = new String[sectionNames.length + 1];
+		this.ids = new HashMap<>();
+		for (int i = 0; i < sectionNames.length; i++) {
+			//interned so that switching on the name only ever needs a reference comparison
+			String name = sectionNames[i].intern();
+			this.names[i + 1] = name;
+			this.ids.put(name, i + 1);
+		}
+	}
+
+	/**
+	 * Returns the id of the section, or 0 if the section isn't registered.
+	 * @param sectionName
+	 * @return
+	 */
+	public int getID(String sectionName) {
+		Integer id = this.ids.get(sectionName);
+		return id == null ? 0 : id;
+	}
+
+	/**
+	 * Returns the name of the section, or null if there is no section with this id.
+	 * @param id
+	 * @return
+	 */
+	public String getName(int id) {
+		if (id <= 0 || id >= this.names.length) {
+			return null;
+		}
+		return this.names[id];
+	}
+
+	/**
+	 * Amount of registered sections.
+	 * @return
+	 */
+	public int size() {
+		return this.names.length - 1;
+	}
+
+	/**
+	 * Writes the registry as a section, so that the other side can read section ids written using this registry.
+	 * @param packetSender
+	 */
+	public void write(PacketSender packetSender) {
+		packetSender.startSection(REGISTRY_SECTION_NAME);
+		packetSender.write(this.size());
+		for (int i = 1; i < this.names.length; i++) {
+			packetSender.write(this.names[i]);
+		}
+		packetSender.endSection();
+	}
+
+}
@@ -0,0 +1,88 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class SectionStats {
+	//counts sections and their bytes, by section name.
+
+	//the counters are indexed by section id, so counting a section is a hash lookup and two adds, with nothing allocated.
+	//sections that aren't in the registry are all counted together, under id 0.
+	//can be read from another thread while it's being counted into.
+
+	public static final String UNREGISTERED_NAME = "_unregistered_";
+
+	private final SectionRegistry sectionRegistry;
+	private final AtomicLongArray counts;
+	private final AtomicLongArray bytes;
+
+	public SectionStats(SectionRegistry sectionRegistry) {
+		this.sectionRegistry = sectionRegistry;
+		this.counts = new AtomicLongArray(sectionRegistry.size() + 1);
+		this.bytes = new AtomicLongArray(sectionRegistry.size() + 1);
+	}
+
+	public void record(String sectionName, int size) {
+		int id = this.sectionRegistry.getID(sectionName);
+		this.counts.incrementAndGet(id);
+		this.bytes.addAndGet(id, size);
+	}
+
+	/**
+	 * Adds the counts from other, times times. Other has to use the same registry.
+	 * @param other
+	 * @param times
+	 */
+	public void add(SectionStats other, long times) {
+		for (int i = 0; i < this.counts.length(); i++) {
+			long cnt = other.counts.get(i);
+			if (cnt != 0) {
+				this.counts.addAndGet(i, cnt * times);
+				this.bytes.addAndGet(i, other.bytes.get(i) * times);
+			}
+		}
+	}
+
+	public void clear() {
+		for (int i = 0; i < this.counts.length(); i++) {
+			this.counts.set(i, 0);
+			this.bytes.set(i, 0);
+		}
+	}
+
+	/**
+	 * Amount of ids, including id 0 for unregistered sections.
+	 * @return
+	 */
+	public int size() {
+		return this.counts.length();
+	}
+
+	public String getName(int id) {
+		return id == 0 ? UNREGISTERED_NAME : this.sectionRegistry.getName(id);
+	}
+
+	public long getCount(int id) {
+		return this.counts.get(id);
+	}
+
+	public long getBytes(int id) {
+		return this.bytes.get(id);
+	}
+
+	public long getTotalCount() {
+		long sum = 0;
+		for (int i = 0; i < this.counts.length(); i++) {
+			sum += this.counts.get(i);
+		}
+		return sum;
+	}
+
+	public long getTotalBytes() {
+		long sum = 0;
+		for (int i = 0; i < this.bytes.length(); i++) {
+			sum += this.bytes.get(i);
+		}
+		return sum;
+	}
+
+}
@@ -7,12 +7,14 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public abstract class Server implements Runnable {
 
@@ -26,54 +28,92 @@ public abstract class Server implements Runnable {
 	//maybe as convenience, if you call packetSender.startSection(sectionName), it'll end the current
 	//active section and start a new one. And when you send the packet, it'll end the current section. 
 
-	public static HashSet<Server> servers = new HashSet<>();
+	//a server either has its own socket and tick thread, or it's a room: connections are handed to it by a RoomHost,
+	//and it's ticked by the host's scheduler. See RoomHost.
 
-	private boolean isRunning = true;
+	public static Set<Server> servers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+	private volatile boolean isRunning = true;
 	private Thread thread;
 
-	private int FPS = 60;
-	private long targetTime = 1000 / FPS;
+	public static final int DEFAULT_TICK_RATE = 60;
+
+	private FixedTimestep timestep; //when ticks are due, and how long they've been taking
 
 	private String ip;
 	private int port;
+	private String name; //what the server is called in its metrics
+
+	private ServerMetrics metrics;
 
-	private ServerConnectionRequestListener serverConnectionRequestListener;
+	private ServerTransport transport; //accepts and reads from all clients on one thread, null for rooms
+	private ConcurrentLinkedQueue<ServerConnection> addedConnections; //connections routed here by a room host
 
-	private ServerSocket serverSocket;
 	private HashSet<Integer> clientIDs;
-	private HashMap<Integer, Socket> clientSockets;
+	private HashSet<Integer> clientsWithoutSectionRegistry; //new clients that still need to be told the section ids
+	private HashMap<Integer, ServerConnection> clientConnections;
 	private HashMap<Integer, PacketListener> packetListeners;
 	private PacketSender packetSender;
+	private PacketSender broadcastSender; //sections that are the same for every client get encoded once into here
 
 	private HashMap<Integer, Integer> clientCommunicationErrorCounter;
 
-	private long noClientTimeoutMillis = 15000;
+	private long noClientTimeoutMillis = 15000; //0 to never shut down
 	private long firstNoClientTime = 0;
 	private boolean prevTickNoClients = false;
 
 	public Server(String ip, int port) {
 		this.ip = ip;
 		this.port = port;
+		this.name = ip + ":" + port;
 
-		this.serverSocket = null;
+		this.transport = null;
 		try {
-			this.serverSocket = new ServerSocket(this.port, 8, InetAddress.getByName(this.ip));
+			this.transport = new ServerTransport(this.ip, this.port);
 		}
 		catch (Exception e) {
 			e.printStackTrace();
 		}
 
+		this.init();
+
+		this.start();
+	}
+
+	/**
+	 * Creates a room. It doesn't listen on a port or run its own thread, connections come from {@link #addConnection(ServerConnection)},
+	 * and whoever owns it has to call {@link #update()} every tick.
+	 * @param roomName
+	 */
+	protected Server(String roomName) {
+		this.ip = "room " + roomName;
+		this.port = 0;
+		this.name = roomName;
+		this.transport = null;
+
+		this.init();
+	}
+
+	private void init() {
+		this.timestep = new FixedTimestep(DEFAULT_TICK_RATE);
+		this.addedConnections = new ConcurrentLinkedQueue<>();
 		this.clientIDs = new HashSet<>();
-		this.clientSockets = new HashMap<>();
+		this.clientsWithoutSectionRegistry = new HashSet<>();
+		this.clientConnections = new HashMap<>();
 		this.packetListeners = new HashMap<>();
-		this.serverConnectionRequestListener = new ServerConnectionRequestListener(this.serverSocket);
 		this.packetSender = new PacketSender();
+		this.broadcastSender = new PacketSender();
+		this.packetSender.setSectionRegistry(SectionRegistry.DEFAULT);
+		this.broadcastSender.setSectionRegistry(SectionRegistry.DEFAULT);
 
 		this.clientCommunicationErrorCounter = new HashMap<>();
 
-		Server.servers.add(this);
+		this.metrics = new ServerMetrics(this, this.name);
+		this.metrics.register();
+		this.packetSender.setSectionStats(this.metrics.getSectionsOutStats());
+		this.broadcastSender.setSectionStats(this.metrics.getBroadcastSectionStats());
 
-		this.start();
+		Server.servers.add(this);
 	}
 
 	private void start() {
@@ -83,26 +123,35 @@ public abstract class Server implements Runnable {
 
 	@Override
 	public void run() {
-		long start, elapsed, wait;
-		while (isRunning) {
-			start = System.nanoTime();
+		this.timestep.run(() -> this.isRunning, this::update);
+	}
 
-			update();
+	/**
+	 * Sets how many times a second the server ticks. Takes effect from the next tick, and can be called from inside a tick.
+	 * @param tickRate
+	 */
+	public void setTickRate(int tickRate) {
+		this.timestep.setTickRate(tickRate);
+	}
 
-			elapsed = System.nanoTime() - start;
-			wait = targetTime - elapsed / 1000000;
+	public int getTickRate() {
+		return this.timestep.getTickRate();
+	}
 
-			if (wait < 0) {
-				wait = 5;
-			}
+	/**
+	 * Returns the timestep the server is ticked by. For rooms, this is what the room host schedules the room with.
+	 * @return
+	 */
+	public FixedTimestep getTimestep() {
+		return this.timestep;
+	}
 
-			try {
-				this.thread.sleep(wait);
-			}
-			catch (Exception e) {
-				e.printStackTrace();
-			}
-		}
+	public String getName() {
+		return this.name;
+	}
+
+	public ServerMetrics getMetrics() {
+		return this.metrics;
 	}
 
 	private int generateNewClientID() {
@@ -114,27 +163,30 @@ public abstract class Server implements Runnable {
 	}
 
 	public void update() {
-		if (this.serverConnectionRequestListener.hasNewClients()) {
-			ArrayList<Socket> newClients = this.serverConnectionRequestListener.getNewClients();
-			for (Socket s : newClients) {
-				PacketListener l = new PacketListener(s, "Server");
-				int ID = this.generateNewClientID();
-				this.clientIDs.add(ID);
-				this.clientSockets.put(ID, s);
-				this.packetListeners.put(ID, l);
-				this._clientConnect(ID);
+		this.metrics.startTick();
+		long phaseStart = System.nanoTime();
+
+		if (this.transport != null && this.transport.hasNewConnections()) {
+			for (ServerConnection c : this.transport.getNewConnections()) {
+				this.acceptConnection(c);
 			}
 		}
+		ServerConnection added;
+		while ((added = this.addedConnections.poll()) != null) {
+			this.acceptConnection(added);
+		}
 
 		// -- READ -- should open for whenever
 		ArrayList<Integer> disconnectedClients = new ArrayList<>();
 		for (int ID : this.clientIDs) {
-			if (!this.packetListeners.get(ID).isConnected()) {
+			if (this.clientConnections.get(ID).isClosed() || !this.packetListeners.get(ID).isConnected()) {
 				disconnectedClients.add(ID);
 				continue;
 			}
+			this.metrics.clientRead(ID);
 
 			while (this.packetListeners.get(ID).nextSection()) {
+				this.metrics.sectionRead(ID, this.packetListeners.get(ID));
 				try {
 					this.readSection(this.packetListeners.get(ID), ID);
 					if (this.clientCommunicationErrorCounter.containsKey(ID)) {
@@ -159,37 +211,53 @@ public abstract class Server implements Runnable {
 		for (int ID : disconnectedClients) {
 			// Client Disconnected
 			System.out.println("Client disconnected");
-			this.packetListeners.get(ID).exit();
 			this.packetListeners.remove(ID);
-			try {
-				this.clientSockets.get(ID).close();
-			}
-			catch (IOException e) {
-				e.printStackTrace();
-			}
-			this.clientSockets.remove(ID);
+			this.clientConnections.get(ID).close();
+			this.clientConnections.remove(ID);
 			this.clientIDs.remove(ID);
+			this.clientsWithoutSectionRegistry.remove(ID);
+			this.metrics.clientDisconnected(ID);
 			this._clientDisconnect(ID);
 		}
+		phaseStart = this.metrics.endPhase(ServerMetrics.PHASE_READ, phaseStart);
 
 		this._update();
+		phaseStart = this.metrics.endPhase(ServerMetrics.PHASE_UPDATE, phaseStart);
 
 		// -- WRITE -- //should run at set tickrate
+		this.writeBroadcast(this.broadcastSender);
+		ByteBuffer broadcast = this.broadcastSender.getSections();
+		int broadcastSectionAmt = this.broadcastSender.getSectionCount();
+		phaseStart = this.metrics.endPhase(ServerMetrics.PHASE_BROADCAST, phaseStart);
 		for (int ID : this.clientIDs) {
-			Socket s = this.clientSockets.get(ID);
+			ServerConnection c = this.clientConnections.get(ID);
 			try {
+				//has to be the first section, the client can't read section ids until it has the registry
+				if (this.clientsWithoutSectionRegistry.remove(ID)) {
+					SectionRegistry.DEFAULT.write(this.packetSender);
+				}
 				this.packetSender.startSection("_base_server_");
 				this.packetSender.write(ID);
+				this.packetSender.writeSections(broadcast);
 				this.writePacket(this.packetSender, ID);
-				this.packetSender.flush(s);
+				int sectionAmt = this.packetSender.getSectionCount() + broadcastSectionAmt;
+				int packetSize = this.packetSender.getPacketSize() + 4; //and the packet length
+				phaseStart = this.metrics.addPhaseTime(ServerMetrics.PHASE_WRITE, phaseStart);
+				this.packetSender.flush(c);
+				this.metrics.packetSent(ID, sectionAmt, packetSize);
 			}
 			catch (IOException e) {
 				e.printStackTrace();
 			}
+			phaseStart = this.metrics.addPhaseTime(ServerMetrics.PHASE_FLUSH, phaseStart);
 		}
+		this.metrics.broadcastSent(this.clientIDs.size());
+		this.broadcastSender.clear();
 		this.writePacketEND();
+		this.metrics.addPhaseTime(ServerMetrics.PHASE_WRITE, phaseStart);
+		this.metrics.endTick();
 
-		if (this.clientSockets.size() == 0) { // no more clients :((
+		if (this.clientConnections.size() == 0 && this.noClientTimeoutMillis > 0) { // no more clients :((
 			if (this.prevTickNoClients) {
 				if (System.currentTimeMillis() - this.firstNoClientTime > this.noClientTimeoutMillis) {
 					System.out.println("No clients, shutting down server");
@@ -206,10 +274,38 @@ public abstract class Server implements Runnable {
 		}
 	}
 
+	private void acceptConnection(ServerConnection c) {
+		int ID = this.generateNewClientID();
+		this.clientIDs.add(ID);
+		this.clientsWithoutSectionRegistry.add(ID);
+		this.clientConnections.put(ID, c);
+		this.packetListeners.put(ID, c.getPacketListener());
+		this.metrics.clientConnected(ID, c);
+		this._clientConnect(ID);
+	}
+
+	/**
+	 * Hands an already connected client to this server. It joins on the next tick.
+	 * @param connection
+	 * @return false if the server has already shut down, in which case the connection isn't taken
+	 */
+	public synchronized boolean addConnection(ServerConnection connection) {
+		if (!this.isRunning) {
+			return false;
+		}
+		this.addedConnections.add(connection);
+		return true;
+	}
+
 	//placed between read and write, allows the server to process the information just read in. 
 	public abstract void _update();
 
-	// use the packet sender to write a packet. The parent class will flush it for you
+	// write the sections that every client receives. This is only called once per tick, 
+	// and the encoded sections are copied into every client's packet
+	public abstract void writeBroadcast(PacketSender packetSender);
+
+	// use the packet sender to write the sections specific to one client. These are sent after the broadcast sections. 
+	// The parent class will flush it for you
 	public abstract void writePacket(PacketSender packetSender, int clientID);
 
 	// run once after all packets to clients have been sent. 
@@ -229,90 +325,43 @@ public abstract class Server implements Runnable {
 		return this.isRunning;
 	}
 
+	/**
+	 * Returns whether the server managed to open its socket.
+	 * @return
+	 */
+	public boolean isListening() {
+		return this.transport != null;
+	}
+
+	/**
+	 * How long the server waits with no clients connected before it shuts itself down.
+	 * @param noClientTimeoutMillis 0 to never shut down
+	 */
+	public void setNoClientTimeoutMillis(long noClientTimeoutMillis) {
+		this.noClientTimeoutMillis = noClientTimeoutMillis;
+	}
+
 	public void exit() {
 		System.out.println("Closing server at " + ip + ":" + port);
-		this.serverConnectionRequestListener.exit();
-
+		synchronized (this) {
+			this.isRunning = false;
+		}
 		for (int ID : this.clientIDs) {
-			try {
-				if (this.packetListeners.get(ID) != null) {
-					this.packetListeners.get(ID).exit();
-				}
-				if (this.clientSockets.get(ID) != null) {
-					this.clientSockets.get(ID).close();
-				}
-			}
-			catch (IOException e) {
-				e.printStackTrace();
+			if (this.clientConnections.get(ID) != null) {
+				this.clientConnections.get(ID).close();
 			}
 		}
-
-		try {
-			this.serverSocket.close();
+		ServerConnection added;
+		while ((added = this.addedConnections.poll()) != null) {
+			added.close();
 		}
-		catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-
-		this.isRunning = false;
-	}
-
-}
 
-class ServerConnectionRequestListener implements Runnable {
-	private boolean isRunning = true;
-	private Thread thread;
-
-	private ServerSocket serverSocket; // socket on which to listen for connection requests
-	private ArrayList<Socket> newClients;
-
-	public ServerConnectionRequestListener(ServerSocket serverSocket) {
-		this.serverSocket = serverSocket;
-		this.newClients = new ArrayList<>();
-		this.start();
-	}
-
-	private void start() {
-		this.thread = new Thread(this);
-		this.thread.start();
-	}
-
-	@Override
-	public void run() {
-		while (this.isRunning) {
-			Socket s = listenForServerRequest();
-			if (s != null) {
-				this.newClients.add(s);
-			}
+		if (this.transport != null) {
+			this.transport.exit();
 		}
-	}
 
-	public boolean hasNewClients() {
-		return this.newClients.size() != 0;
+		this.metrics.unregister();
+		Server.servers.remove(this);
 	}
 
-	public ArrayList<Socket> getNewClients() {
-		ArrayList<Socket> out = new ArrayList<>();
-		out.addAll(this.newClients);
-		this.newClients = new ArrayList<>();
-		return out;
-	}
-
-	private Socket listenForServerRequest() {
-		try {
-			System.out.println("Listening for connection requests");
-			Socket socket = this.serverSocket.accept();
-			System.out.println("Client has joined");
-			return socket;
-		}
-		catch (IOException e) {
-			System.out.println("No connection requests");
-		}
-		return null;
-	}
-
-	public void exit() {
-		this.isRunning = false;
-	}
-}
\ No newline at end of file
+}
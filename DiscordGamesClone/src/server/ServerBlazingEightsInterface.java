@@ -5,7 +5,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 
-import state.BlazingEightsState;
+import game.BlazingEightsGame;
 
 public class ServerBlazingEightsInterface extends ServerGameInterface {
 
@@ -35,7 +35,7 @@ public class ServerBlazingEightsInterface extends ServerGameInterface {
 	}
 
 	@Override
-	public void writePacket(PacketSender packetSender, int clientID) {
+	public void writeBroadcast(PacketSender packetSender) {
 		if (this.blazingEightsStartingGame) {
 			packetSender.startSection("blazing_eights_start_game");
 			packetSender.write(this.blazingEightsMoveOrder.size());
@@ -58,6 +58,11 @@ public class ServerBlazingEightsInterface extends ServerGameInterface {
 		}
 	}
 
+	@Override
+	public void writePacket(PacketSender packetSender, int clientID) {
+
+	}
+
 	@Override
 	public void writePacketEND() {
 		this.blazingEightsStartingGame = false;
@@ -97,39 +102,39 @@ public class ServerBlazingEightsInterface extends ServerGameInterface {
 			this.blazingEightsMovePerformed = true;
 
 			switch (this.blazingEightsMoveType) {
-			case BlazingEightsState.MOVE_PLAY: {
+			case BlazingEightsGame.MOVE_PLAY: {
 				this.blazingEightsCardAmt.put(clientID, this.blazingEightsCardAmt.get(clientID) - 1);
-				switch (BlazingEightsState.getCardSuitAndValue(this.blazingEightsMoveValue)[1]) {
-				case BlazingEightsState.VALUE_SKIP:
+				switch (BlazingEightsGame.getCardSuitAndValue(this.blazingEightsMoveValue)[1]) {
+				case BlazingEightsGame.VALUE_SKIP:
 					this.blazingEightsMoveIndex += this.blazingEightsMoveIndexIncrement;
 					break;
 
-				case BlazingEightsState.VALUE_REVERSE:
+				case BlazingEightsGame.VALUE_REVERSE:
 					this.blazingEightsMoveIndexIncrement *= -1;
 					break;
 
-				case BlazingEightsState.VALUE_ADDTWO:
+				case BlazingEightsGame.VALUE_ADDTWO:
 					this.blazingEightsDrawPenalty += 2;
 					break;
 
-				case BlazingEightsState.VALUE_ADDTWOHUNDRED:
+				case BlazingEightsGame.VALUE_ADDTWOHUNDRED:
 					this.blazingEightsDrawPenalty += 200;
 					break;
 
-				case BlazingEightsState.VALUE_WILDCARDADDFOUR:
+				case BlazingEightsGame.VALUE_WILDCARDADDFOUR:
 					this.blazingEightsDrawPenalty += 4;
 					break;
 				}
 				break;
 			}
 
-			case BlazingEightsState.MOVE_DRAW: {
+			case BlazingEightsGame.MOVE_DRAW: {
 				if (this.blazingEightsDrawPenalty != 0) {
 					this.blazingEightsMoveValue = this.blazingEightsDrawPenalty;
 					this.blazingEightsDrawPenalty = 0;
 				}
 				int curCardAmt = this.blazingEightsCardAmt.get(clientID);
-				this.blazingEightsMoveValue = Math.min(BlazingEightsState.CARD_AMT_LIMIT - curCardAmt, this.blazingEightsMoveValue);
+				this.blazingEightsMoveValue = Math.min(BlazingEightsGame.CARD_AMT_LIMIT - curCardAmt, this.blazingEightsMoveValue);
 				curCardAmt += this.blazingEightsMoveValue;
 				this.blazingEightsCardAmt.put(clientID, curCardAmt);
 				break;
@@ -2,8 +2,14 @@ package server;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import game.ChessEngine;
 import game.ChessGame;
+import game.ChessMove;
+import game.ChessPosition;
 import util.Pair;
 
 public class ServerChessInterface extends ServerGameInterface {
@@ -12,12 +18,21 @@ public class ServerChessInterface extends ServerGameInterface {
 	public static final int UPDATE = 1;
 	public static final int DELETE = 2;
 
+	//player id of the computer in play vs computer games
+	public static final int COMPUTER_ID = -2;
+
+	//how long the computer gets to think about each move
+	private static final long COMPUTER_MOVE_TIME_MILLIS = 1000;
+
 	//first two players to join a chess lobby will be the players
 	//any other players can spectate by querying the chess game associated with the lobby. 
 	private HashMap<Integer, Integer> playerToChessGames; //map player id to their chess games
 	private HashMap<Integer, ChessGame> chessGames;
 	private HashMap<Integer, Integer> chessLobbyUpdates; //lobby updates D:
-	private HashMap<Integer, Pair<Integer, int[][]>> chessMoveUpdates; //it just tells moves. pretty simple
+	private HashMap<Integer, Pair<Integer, Integer>> chessMoveUpdates; //map chess game id to who moved, and the packed move
+
+	//searches are done on the engine's worker threads, and the moves are played once they are done
+	private HashMap<Integer, Future<Integer>> computerMoves; //map chess game id to the search for its next move
 
 	public ServerChessInterface(GameServer server) {
 		super(server);
@@ -26,16 +41,68 @@ public class ServerChessInterface extends ServerGameInterface {
 		this.chessGames = new HashMap<>();
 		this.chessLobbyUpdates = new HashMap<>();
 		this.chessMoveUpdates = new HashMap<>();
+		this.computerMoves = new HashMap<>();
 	}
 
 	@Override
 	public void update() {
-		// TODO Auto-generated method stub
+		Iterator<Integer> it = this.computerMoves.keySet().iterator();
+		while (it.hasNext()) {
+			int whichGame = it.next();
+			Future<Integer> search = this.computerMoves.get(whichGame);
+
+			//only one move per game per packet
+			if (!search.isDone() || this.chessMoveUpdates.containsKey(whichGame)) {
+				continue;
+			}
+			it.remove();
+
+			ChessGame game = this.chessGames.get(whichGame);
+			if (game == null) {
+				continue;
+			}
+
+			int move;
+			try {
+				move = search.get();
+			}
+			catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+				continue;
+			}
+			if (move == ChessMove.NONE) {
+				continue;
+			}
 
+			if (game.performMove(move)) {
+				this.chessMoveUpdates.put(whichGame, new Pair<Integer, Integer>(COMPUTER_ID, move));
+			}
+		}
+	}
+
+	//ids only have to be unique within this server, every room has its own games
+	private int generateGameID() {
+		int newID = -1;
+		while (newID == -1 || this.chessGames.containsKey(newID)) {
+			newID = (int) (Math.random() * 1000000.0);
+		}
+		return newID;
+	}
+
+	//starts searching for the computer's move if it's the computer's turn
+	private void requestComputerMove(ChessGame game) {
+		ChessPosition position = game.getCurPosition();
+		if (position.whiteWin || position.blackWin || position.draw || this.computerMoves.containsKey(game.getID())) {
+			return;
+		}
+		int toMove = position.whiteMove ? game.getWhiteID() : game.getBlackID();
+		if (toMove == COMPUTER_ID) {
+			this.computerMoves.put(game.getID(), ChessEngine.searchAsync(position, COMPUTER_MOVE_TIME_MILLIS));
+		}
 	}
 
 	@Override
-	public void writePacket(PacketSender packetSender, int clientID) {
+	public void writeBroadcast(PacketSender packetSender) {
 		//send list of chess games currently being played
 		// - ID of chess game
 		// - ID of players, -1 if no player
@@ -68,28 +135,29 @@ public class ServerChessInterface extends ServerGameInterface {
 			}
 		}
 
-		//first which game, then the from and to. Clients will simulate the moves on their side. 
+		//first which game, then the move. Clients will simulate the moves on their side. 
 		//this should only send legal moves. 
 		// - ID of chess game
-		// - int[] from coordinate
-		// - int[] to coordinate
+		// - ID of the player that moved
+		// - packed move, so promotions other than to a queen make it through
 		if (this.chessMoveUpdates.size() != 0) {
 			packetSender.startSection("chess_move_updates");
 			packetSender.write(this.chessMoveUpdates.size());
 			for (int i : this.chessMoveUpdates.keySet()) {
 				int whichGame = i;
-				Pair<Integer, int[][]> next = this.chessMoveUpdates.get(i);
-				int playerID = next.first;
-				int[] from = next.second[0];
-				int[] to = next.second[1];
+				Pair<Integer, Integer> next = this.chessMoveUpdates.get(i);
 				packetSender.write(whichGame);
-				packetSender.write(playerID);
-				packetSender.write(from);
-				packetSender.write(to);
+				packetSender.write(next.first);
+				packetSender.write(next.second);
 			}
 		}
 	}
 
+	@Override
+	public void writePacket(PacketSender packetSender, int clientID) {
+
+	}
+
 	@Override
 	public void writePacketEND() {
 		this.chessLobbyUpdates.clear();
@@ -102,6 +170,7 @@ public class ServerChessInterface extends ServerGameInterface {
 		switch (packetListener.getSectionName()) {
 		case "chess_create_game": {
 			ChessGame newGame = new ChessGame();
+			newGame.setID(this.generateGameID());
 			newGame.setWhiteID(clientID);
 			this.chessGames.put(newGame.getID(), newGame);
 			this.chessLobbyUpdates.put(newGame.getID(), CREATE);
@@ -109,9 +178,23 @@ public class ServerChessInterface extends ServerGameInterface {
 			break;
 		}
 
+		case "chess_create_computer_game": {
+			ChessGame newGame = new ChessGame();
+			newGame.setID(this.generateGameID());
+			newGame.setWhiteID(clientID);
+			newGame.setBlackID(COMPUTER_ID);
+			this.chessGames.put(newGame.getID(), newGame);
+			this.chessLobbyUpdates.put(newGame.getID(), CREATE);
+			this.playerToChessGames.put(clientID, newGame.getID());
+			break;
+		}
+
 		case "chess_join_game": {
 			int whichGame = packetListener.readInt();
 			ChessGame game = this.chessGames.get(whichGame);
+			if (game == null) {
+				break;
+			}
 			if (game.getWhiteID() == -1) {
 				game.setWhiteID(clientID);
 			}
@@ -141,8 +224,16 @@ public class ServerChessInterface extends ServerGameInterface {
 				game.removeSpectator(clientID);
 			}
 			this.playerToChessGames.remove(clientID);
-			if (game.getWhiteID() == -1 && game.getBlackID() == -1) {
+
+			//the computer doesn't keep playing by itself
+			boolean whiteGone = game.getWhiteID() == -1 || game.getWhiteID() == COMPUTER_ID;
+			boolean blackGone = game.getBlackID() == -1 || game.getBlackID() == COMPUTER_ID;
+			if (whiteGone && blackGone) {
 				this.chessLobbyUpdates.put(game.getID(), DELETE);
+				Future<Integer> search = this.computerMoves.remove(game.getID());
+				if (search != null) {
+					search.cancel(true);
+				}
 			}
 			else {
 				this.chessLobbyUpdates.put(game.getID(), UPDATE);
@@ -152,22 +243,26 @@ public class ServerChessInterface extends ServerGameInterface {
 
 		case "chess_make_move": {
 			int whichGame = packetListener.readInt();
-			int playerID = packetListener.readInt();
+			packetListener.readInt(); //player id the client claims to be, we go off the connection instead
 			int[] from = packetListener.readNInts(2);
 			int[] to = packetListener.readNInts(2);
 			ChessGame game = this.chessGames.get(whichGame);
+			if (game == null) {
+				break;
+			}
+
+			//only the player whose turn it is can move, so spectators and the computer's opponent can't move for anyone else
+			int toMove = game.getCurPosition().whiteMove ? game.getWhiteID() : game.getBlackID();
+			if (toMove != clientID) {
+				break;
+			}
 			if (game.performMove(from, to)) {
-				this.chessMoveUpdates.put(whichGame, new Pair<Integer, int[][]>(playerID, new int[][] { from, to }));
+				int move = game.getMove(game.getMoveCount() - 1);
+				this.chessMoveUpdates.put(whichGame, new Pair<Integer, Integer>(clientID, move));
+				this.requestComputerMove(game);
 			}
 			break;
 		}
 		}
 	}
-
-	private void resetChessGameInfo() {
-		this.chessGames.clear();
-		this.chessLobbyUpdates.clear();
-		this.chessMoveUpdates.clear();
-		this.playerToChessGames.clear();
-	}
 }
@@ -0,0 +1,144 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+public class ServerConnection {
+	//one connected client. Reads are driven by the ServerTransport selector thread,
+	//writes come from the server tick thread.
+
+	//if a client stops reading, we don't want to buffer packets for it forever.
+	private static final int MAX_PENDING_BYTES = 8 * 1024 * 1024;
+
+	private ServerTransport transport;
+	private SocketChannel channel;
+	private SelectionKey key;
+
+	private PacketListener packetListener;
+
+	//bytes that the socket couldn't take right away. Flushed by the selector thread once the socket is writable.
+	private ByteBuffer pendingWrites;
+
+	private volatile boolean isClosed = false;
+
+	private volatile long bytesRead = 0; //only written by the selector thread
+
+	public ServerConnection(ServerTransport transport, SocketChannel channel, SelectionKey key) {
+		this.transport = transport;
+		this.channel = channel;
+		this.key = key;
+
+		this.packetListener = new PacketListener("Server");
+		this.packetListener.setSectionRegistry(SectionRegistry.DEFAULT);
+		this.pendingWrites = ByteBuffer.allocate(1024);
+	}
+
+	public PacketListener getPacketListener() {
+		return this.packetListener;
+	}
+
+	public boolean isClosed() {
+		return this.isClosed;
+	}
+
+	//called by the selector thread
+	protected void read() throws IOException {
+		int amt = this.packetListener.readFrom(this.channel);
+		if (amt == -1) {
+			this.close();
+			return;
+		}
+		this.bytesRead += amt;
+	}
+
+	/**
+	 * How many bytes have been read from the client so far.
+	 * @return
+	 */
+	public long getBytesRead() {
+		return this.bytesRead;
+	}
+
+	/**
+	 * How many bytes are waiting for the client's socket to accept them.
+	 * @return
+	 */
+	public synchronized int getPendingBytes() {
+		return this.pendingWrites.position();
+	}
+
+	/**
+	 * Writes as much of the packet as the socket will currently take, and buffers the rest.
+	 * @param packet
+	 * @throws IOException
+	 */
+	public synchronized void send(ByteBuffer packet) throws IOException {
+		if (this.isClosed) {
+			throw new IOException("Connection is closed");
+		}
+
+		if (this.pendingWrites.position() == 0) {
+			this.channel.write(packet);
+		}
+
+		if (!packet.hasRemaining()) {
+			return;
+		}
+
+		if (this.pendingWrites.position() + packet.remaining() > MAX_PENDING_BYTES) {
+			this.close();
+			throw new IOException("Client isn't reading, too many pending bytes");
+		}
+
+		if (this.pendingWrites.remaining() < packet.remaining()) {
+			int newCapacity = this.pendingWrites.capacity() * 2;
+			while (newCapacity - this.pendingWrites.position() < packet.remaining()) {
+				newCapacity *= 2;
+			}
+			ByteBuffer next = ByteBuffer.allocate(newCapacity);
+			this.pendingWrites.flip();
+			next.put(this.pendingWrites);
+			this.pendingWrites = next;
+		}
+		this.pendingWrites.put(packet);
+
+		//interest ops should only be changed from the selector thread
+		this.transport.requestWrite(this);
+	}
+
+	//called by the selector thread once the socket is writable
+	protected synchronized void writePending() throws IOException {
+		this.pendingWrites.flip();
+		this.channel.write(this.pendingWrites);
+		this.pendingWrites.compact();
+		this.updateInterestOps();
+	}
+
+	//called by the selector thread
+	protected synchronized void updateInterestOps() {
+		if (!this.key.isValid()) {
+			return;
+		}
+		if (this.pendingWrites.position() != 0) {
+			this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+		else {
+			this.key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+
+	public void close() {
+		this.isClosed = true;
+		this.packetListener.exit();
+		this.key.cancel();
+		try {
+			this.channel.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -5,15 +5,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 
-import state.CrackHeadsState;
+import game.CrackHeadsGame;
+import server.StrokeCodec.Stroke;
 import util.Pair;
-import util.Quad;
-import util.Vec2;
 
 public class ServerCrackHeadsInterface extends ServerGameInterface {
 
-	//want to be able to send line drawing updates in the form Vec2 a, Vec2 b, float size
-	private ArrayList<Quad<Vec2, Vec2, Float, Integer>> crackHeadsDrawnLines;
+	//drawing updates are sent as strokes, see StrokeCodec
+	private ArrayList<Stroke> crackHeadsDrawnStrokes;
+
+	//strokes are simplified before they're sent out, points closer than this many pixels to the simplified line are dropped. 0 to turn off
+	private float crackHeadsSimplifyTolerance = 0.5f;
 
 	private boolean crackHeadsStartingGame = false;
 	private boolean crackHeadsEndingGame = false;
@@ -53,7 +55,7 @@ public class ServerCrackHeadsInterface extends ServerGameInterface {
 	public ServerCrackHeadsInterface(GameServer server) {
 		super(server);
 
-		this.crackHeadsDrawnLines = new ArrayList<>();
+		this.crackHeadsDrawnStrokes = new ArrayList<>();
 		this.crackHeadsGuesses = new ArrayList<>();
 	}
 
@@ -75,16 +77,10 @@ public class ServerCrackHeadsInterface extends ServerGameInterface {
 	}
 
 	@Override
-	public void writePacket(PacketSender packetSender, int clientID) {
-		if (this.crackHeadsDrawnLines.size() != 0) {
-			packetSender.startSection("crack_heads_draw_line");
-			packetSender.write(this.crackHeadsDrawnLines.size());
-			for (Quad<Vec2, Vec2, Float, Integer> i : this.crackHeadsDrawnLines) {
-				packetSender.write(i.first);
-				packetSender.write(i.second);
-				packetSender.write(i.third);
-				packetSender.write(i.fourth);
-			}
+	public void writeBroadcast(PacketSender packetSender) {
+		if (this.crackHeadsDrawnStrokes.size() != 0) {
+			packetSender.startSection("crack_heads_draw_stroke");
+			StrokeCodec.write(packetSender, this.crackHeadsDrawnStrokes);
 		}
 
 		if (this.crackHeadsStartingGame) {
@@ -122,9 +118,9 @@ public class ServerCrackHeadsInterface extends ServerGameInterface {
 
 			//send words to pick from
 			packetSender.write(3);
-			packetSender.write(CrackHeadsState.getRandomWord());
-			packetSender.write(CrackHeadsState.getRandomWord());
-			packetSender.write(CrackHeadsState.getRandomWord());
+			packetSender.write(CrackHeadsGame.getRandomWord());
+			packetSender.write(CrackHeadsGame.getRandomWord());
+			packetSender.write(CrackHeadsGame.getRandomWord());
 		}
 
 		//sends the id of the client that is drawing, and the word that they are drawing. 
@@ -151,9 +147,14 @@ public class ServerCrackHeadsInterface extends ServerGameInterface {
 		}
 	}
 
+	@Override
+	public void writePacket(PacketSender packetSender, int clientID) {
+
+	}
+
 	@Override
 	public void writePacketEND() {
-		this.crackHeadsDrawnLines.clear();
+		this.crackHeadsDrawnStrokes.clear();
 		this.crackHeadsGuesses.clear();
 		this.crackHeadsStartingGame = false;
 		this.crackHeadsEndingGame = false;
@@ -167,14 +168,10 @@ public class ServerCrackHeadsInterface extends ServerGameInterface {
 	@Override
 	public void readSection(PacketListener packetListener, int clientID) throws IOException {
 		switch (packetListener.getSectionName()) {
-		case "crack_heads_draw_line": {
-			int amt = packetListener.readInt();
-			for (int i = 0; i < amt; i++) {
-				Vec2 a = packetListener.readVec2();
-				Vec2 b = packetListener.readVec2();
-				float size = packetListener.readFloat();
-				int colorIndex = packetListener.readInt();
-				this.crackHeadsDrawnLines.add(new Quad<Vec2, Vec2, Float, Integer>(a, b, size, colorIndex));
+		case "crack_heads_draw_stroke": {
+			for (Stroke stroke : StrokeCodec.read(packetListener)) {
+				StrokeCodec.simplify(stroke, this.crackHeadsSimplifyTolerance);
+				this.crackHeadsDrawnStrokes.add(stroke);
 			}
 			break;
 		}
@@ -253,9 +250,13 @@ public class ServerCrackHeadsInterface extends ServerGameInterface {
 		}
 	}
 
+	public void setCrackHeadsSimplifyTolerance(float tolerance) {
+		this.crackHeadsSimplifyTolerance = tolerance;
+	}
+
 	private void resetCrackHeadsGameInfo() {
 		this.crackHeadsCrackLevel = null;
-		this.crackHeadsDrawnLines.clear();
+		this.crackHeadsDrawnStrokes.clear();
 		this.crackHeadsGuesses.clear();
 		this.crackHeadsMoveOrder = null;
 	}
@@ -10,8 +10,27 @@ public abstract class ServerGameInterface {
 		this.server = server;
 	}
 
+	/**
+	 * How many times a second the server should tick while this game is being played.
+	 * @return
+	 */
+	public int getTickRate() {
+		return Server.DEFAULT_TICK_RATE;
+	}
+
+	/**
+	 * Called when a client leaves the server, so per client state can be dropped.
+	 * @param clientID
+	 */
+	public void clientDisconnected(int clientID) {
+	}
+
 	public abstract void update();
 
+	//sections that are the same for every client
+	public abstract void writeBroadcast(PacketSender packetSender);
+
+	//sections that are specific to one client, sent after the broadcast sections
 	public abstract void writePacket(PacketSender packetSender, int clientID);
 
 	public abstract void writePacketEND();
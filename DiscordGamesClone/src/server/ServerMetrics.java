@@ -0,0 +1,439 @@
+package server;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class ServerMetrics implements ServerMetricsMBean {
+	//where a server's tick time goes, and what it sends and receives.
+
+	//everything is counted by the tick thread as it goes, into counters and histograms that other threads can read at any time,
+	//so looking at the metrics never has to stop the server. Per tick, this costs a few nanoTime calls, and one lookup of how
+	//much the tick thread has allocated so far.
+
+	//the metrics are registered as an MBean, so they show up in jconsole or any other JMX client, and MetricsHttpServer
+	//can serve them to prometheus.
+
+	public static final int PHASE_READ = 0; //reading sections from every client
+	public static final int PHASE_UPDATE = 1; //the game logic, _update()
+	public static final int PHASE_BROADCAST = 2; //encoding the sections that go to everyone
+	public static final int PHASE_WRITE = 3; //encoding each client's own sections
+	public static final int PHASE_FLUSH = 4; //handing each client's packet to its socket
+	public static final String[] PHASE_NAMES = { "read", "update", "broadcast", "write", "flush" };
+
+	private static final String JMX_DOMAIN = "DiscordGamesClone";
+
+	private static ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+	private final Server server;
+	private final String name;
+	private ObjectName objectName;
+
+	private TickHistogram[] phaseDurations;
+	private long[] tickPhaseNanos; //for phases that happen once per client, summed up over the tick
+
+	private SectionStats sectionsIn;
+	private SectionStats sectionsOut;
+	private SectionStats broadcastSections; //sections encoded once this tick, to be counted once per client that gets them
+
+	private ConcurrentHashMap<Integer, ClientMetrics> clients;
+
+	private volatile long bytesIn = 0;
+	private volatile long bytesOut = 0;
+
+	private boolean allocationSupported;
+	private long tickStartAllocatedBytes;
+	private volatile long allocatedBytes = 0;
+	private volatile long lastTickAllocatedBytes = 0;
+
+	public ServerMetrics(Server server, String name) {
+		this.server = server;
+		this.name = name;
+
+		this.phaseDurations = new TickHistogram[PHASE_NAMES.length];
+		for (int i = 0; i < PHASE_NAMES.length; i++) {
+			this.phaseDurations[i] = new TickHistogram();
+		}
+		this.tickPhaseNanos = new long[PHASE_NAMES.length];
+
+		this.sectionsIn = new SectionStats(SectionRegistry.DEFAULT);
+		this.sectionsOut = new SectionStats(SectionRegistry.DEFAULT);
+		this.broadcastSections = new SectionStats(SectionRegistry.DEFAULT);
+
+		this.clients = new ConcurrentHashMap<>();
+
+		this.allocationSupported = threadMXBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported() && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server.
+	 */
+	public void register() {
+		try {
+			MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+			ObjectName on = new ObjectName(JMX_DOMAIN + ":type=Server,name=" + ObjectName.quote(this.name));
+			if (mbs.isRegistered(on)) {
+				//another server with the same name was never shut down properly, this one replaces it
+				mbs.unregisterMBean(on);
+			}
+			mbs.registerMBean(this, on);
+			this.objectName = on;
+		}
+		catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public void unregister() {
+		if (this.objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+		}
+		catch (JMException e) {
+			e.printStackTrace();
+		}
+		this.objectName = null;
+	}
+
+	// -- RECORDING, only called by the tick thread --
+
+	public void startTick() {
+		if (this.allocationSupported) {
+			this.tickStartAllocatedBytes = this.getCurrentThreadAllocatedBytes();
+		}
+	}
+
+	/**
+	 * Records how long the phase took.
+	 * @param phase
+	 * @param startTime the {@link System#nanoTime()} the phase started at
+	 * @return the current time, so the next phase can start from it
+	 */
+	public long endPhase(int phase, long startTime) {
+		long now = System.nanoTime();
+		this.phaseDurations[phase].record(now - startTime);
+		return now;
+	}
+
+	/**
+	 * Adds time to a phase that happens in bits over the tick. It's recorded when the tick ends.
+	 * @param phase
+	 * @param startTime
+	 * @return the current time
+	 */
+	public long addPhaseTime(int phase, long startTime) {
+		long now = System.nanoTime();
+		this.tickPhaseNanos[phase] += now - startTime;
+		return now;
+	}
+
+	public void endTick() {
+		for (int i = 0; i < this.tickPhaseNanos.length; i++) {
+			if (this.tickPhaseNanos[i] != 0) {
+				this.phaseDurations[i].record(this.tickPhaseNanos[i]);
+				this.tickPhaseNanos[i] = 0;
+			}
+		}
+
+		if (this.allocationSupported) {
+			long allocated = this.getCurrentThreadAllocatedBytes() - this.tickStartAllocatedBytes;
+			this.lastTickAllocatedBytes = allocated;
+			this.allocatedBytes += allocated;
+		}
+	}
+
+	private long getCurrentThreadAllocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	public void clientConnected(int clientID, ServerConnection connection) {
+		this.clients.put(clientID, new ClientMetrics(clientID, connection));
+	}
+
+	public void clientDisconnected(int clientID) {
+		ClientMetrics c = this.clients.remove(clientID);
+		if (c != null) {
+			this.updateBytesIn(c);
+		}
+	}
+
+	/**
+	 * Picks up how many bytes the client has sent since the last tick.
+	 * @param clientID
+	 */
+	public void clientRead(int clientID) {
+		ClientMetrics c = this.clients.get(clientID);
+		if (c != null) {
+			this.updateBytesIn(c);
+		}
+	}
+
+	private void updateBytesIn(ClientMetrics c) {
+		long read = c.connection.getBytesRead();
+		this.bytesIn += read - c.bytesIn;
+		c.bytesIn = read;
+	}
+
+	public void sectionRead(int clientID, PacketListener packetListener) {
+		this.sectionsIn.record(packetListener.getSectionName(), packetListener.getSectionSize());
+		ClientMetrics c = this.clients.get(clientID);
+		if (c != null) {
+			c.sectionsIn++;
+		}
+	}
+
+	/**
+	 * The broadcast sender should count into this while the broadcast is being written.
+	 * @return
+	 */
+	public SectionStats getBroadcastSectionStats() {
+		return this.broadcastSections;
+	}
+
+	/**
+	 * Per client sections should be counted into this.
+	 * @return
+	 */
+	public SectionStats getSectionsOutStats() {
+		return this.sectionsOut;
+	}
+
+	public SectionStats getSectionsInStats() {
+		return this.sectionsIn;
+	}
+
+	public void packetSent(int clientID, int sectionAmt, int bytes) {
+		this.bytesOut += bytes;
+		ClientMetrics c = this.clients.get(clientID);
+		if (c != null) {
+			c.sectionsOut += sectionAmt;
+			c.bytesOut += bytes;
+			c.packetsOut++;
+		}
+	}
+
+	/**
+	 * Counts the sections in this tick's broadcast once for every client it was sent to.
+	 * @param clientAmt
+	 */
+	public void broadcastSent(int clientAmt) {
+		this.sectionsOut.add(this.broadcastSections, clientAmt);
+		this.broadcastSections.clear();
+	}
+
+	// -- READING, from any thread --
+
+	public Server getServer() {
+		return this.server;
+	}
+
+	public TickHistogram getTickDurations() {
+		return this.server.getTimestep().getTickDurations();
+	}
+
+	public TickHistogram getPhaseDurations(int phase) {
+		return this.phaseDurations[phase];
+	}
+
+	public Iterable<ClientMetrics> getClients() {
+		return this.clients.values();
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public int getClientAmt() {
+		return this.clients.size();
+	}
+
+	@Override
+	public int getTickRate() {
+		return this.server.getTickRate();
+	}
+
+	@Override
+	public long getTickCount() {
+		return this.server.getTimestep().getTickCount();
+	}
+
+	@Override
+	public long getOverrunCount() {
+		return this.server.getTimestep().getOverrunCount();
+	}
+
+	@Override
+	public long getDroppedTickCount() {
+		return this.server.getTimestep().getDroppedTickCount();
+	}
+
+	@Override
+	public double getTickMeanMillis() {
+		return this.getTickDurations().getMeanNanos() / 1e6;
+	}
+
+	@Override
+	public double getTickP99Millis() {
+		return this.getTickDurations().getPercentileNanos(0.99) / 1e6;
+	}
+
+	@Override
+	public double getTickMaxMillis() {
+		return this.getTickDurations().getMaxNanos() / 1e6;
+	}
+
+	@Override
+	public long getBytesIn() {
+		return this.bytesIn;
+	}
+
+	@Override
+	public long getBytesOut() {
+		return this.bytesOut;
+	}
+
+	@Override
+	public long getSectionsIn() {
+		return this.sectionsIn.getTotalCount();
+	}
+
+	@Override
+	public long getSectionsOut() {
+		return this.sectionsOut.getTotalCount();
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return this.allocatedBytes;
+	}
+
+	@Override
+	public long getLastTickAllocatedBytes() {
+		return this.lastTickAllocatedBytes;
+	}
+
+	@Override
+	public int getMaxQueueDepth() {
+		int max = 0;
+		for (ClientMetrics c : this.clients.values()) {
+			max = Math.max(max, c.getQueueDepth());
+		}
+		return max;
+	}
+
+	@Override
+	public int getPendingWriteBytes() {
+		int sum = 0;
+		for (ClientMetrics c : this.clients.values()) {
+			sum += c.getPendingBytes();
+		}
+		return sum;
+	}
+
+	@Override
+	public String[] getPhaseTimings() {
+		String[] ret = new String[PHASE_NAMES.length];
+		for (int i = 0; i < PHASE_NAMES.length; i++) {
+			ret[i] = PHASE_NAMES[i] + ": " + this.phaseDurations[i];
+		}
+		return ret;
+	}
+
+	@Override
+	public String[] getSectionTraffic() {
+		ArrayList<String> ret = new ArrayList<>();
+		for (int i = 0; i < this.sectionsIn.size(); i++) {
+			if (this.sectionsIn.getCount(i) == 0 && this.sectionsOut.getCount(i) == 0) {
+				continue;
+			}
+			ret.add(this.sectionsIn.getName(i) + ": in " + this.sectionsIn.getCount(i) + " sections " + this.sectionsIn.getBytes(i) + " bytes, out " + this.sectionsOut.getCount(i) + " sections " + this.sectionsOut.getBytes(i) + " bytes");
+		}
+		return ret.toArray(new String[0]);
+	}
+
+	@Override
+	public String[] getClientTraffic() {
+		ArrayList<String> ret = new ArrayList<>();
+		for (Map.Entry<Integer, ClientMetrics> e : this.clients.entrySet()) {
+			ClientMetrics c = e.getValue();
+			ret.add(e.getKey() + ": in " + c.sectionsIn + " sections " + c.bytesIn + " bytes, out " + c.sectionsOut + " sections " + c.bytesOut + " bytes, queue depth " + c.getQueueDepth() + " (peak " + c.getPeakQueueDepth() + ", dropped " + c.getDroppedSections() + "), pending " + c.getPendingBytes() + " bytes");
+		}
+		return ret.toArray(new String[0]);
+	}
+
+	@Override
+	public void resetHistograms() {
+		this.getTickDurations().reset();
+		for (TickHistogram h : this.phaseDurations) {
+			h.reset();
+		}
+	}
+
+	public static class ClientMetrics {
+		private final int clientID;
+		private final ServerConnection connection;
+
+		//only written by the tick thread
+		private volatile long bytesIn = 0;
+		private volatile long sectionsIn = 0;
+		private volatile long bytesOut = 0;
+		private volatile long sectionsOut = 0;
+		private volatile long packetsOut = 0;
+
+		private ClientMetrics(int clientID, ServerConnection connection) {
+			this.clientID = clientID;
+			this.connection = connection;
+		}
+
+		public int getClientID() {
+			return this.clientID;
+		}
+
+		public long getBytesIn() {
+			return this.bytesIn;
+		}
+
+		public long getSectionsIn() {
+			return this.sectionsIn;
+		}
+
+		public long getBytesOut() {
+			return this.bytesOut;
+		}
+
+		public long getSectionsOut() {
+			return this.sectionsOut;
+		}
+
+		public long getPacketsOut() {
+			return this.packetsOut;
+		}
+
+		public int getQueueDepth() {
+			return this.connection.getPacketListener().getQueueDepth();
+		}
+
+		public int getPeakQueueDepth() {
+			return this.connection.getPacketListener().getPeakQueueDepth();
+		}
+
+		public long getDroppedSections() {
+			return this.connection.getPacketListener().getDroppedSections();
+		}
+
+		public int getPendingBytes() {
+			return this.connection.getPendingBytes();
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package server;
+
+public interface ServerMetricsMBean {
+	//what a server's metrics look like over JMX, see ServerMetrics.
+
+	String getName();
+
+	int getClientAmt();
+
+	int getTickRate();
+
+	long getTickCount();
+
+	long getOverrunCount();
+
+	long getDroppedTickCount();
+
+	double getTickMeanMillis();
+
+	double getTickP99Millis();
+
+	double getTickMaxMillis();
+
+	long getBytesIn();
+
+	long getBytesOut();
+
+	long getSectionsIn();
+
+	long getSectionsOut();
+
+	long getAllocatedBytes();
+
+	long getLastTickAllocatedBytes();
+
+	int getMaxQueueDepth();
+
+	int getPendingWriteBytes();
+
+	String[] getPhaseTimings();
+
+	String[] getSectionTraffic();
+
+	String[] getClientTraffic();
+
+	void resetHistograms();
+
+}
@@ -5,13 +5,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 
+import game.RocketLeagueGame;
 import impulse2d.Body;
 import impulse2d.Circle;
 import impulse2d.ImpulseMath;
 import impulse2d.ImpulseScene;
 import impulse2d.Polygon;
 import impulse2d.Shape;
-import state.RocketLeagueState;
 import util.MathUtils;
 import util.Pair;
 import util.Vec2;
@@ -26,6 +26,8 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 	private ImpulseScene impulseScene;
 
 	private HashMap<Integer, Body> pegs;
+	private BodySnapshotCodec pegSnapshotCodec; //only sends what changed since last tick
+	private HashSet<Integer> clientsWithPegBaseline; //clients that have been sent a keyframe, and haven't asked for another
 
 	private ArrayList<Integer> addPegList;
 	private ArrayList<Integer> removePegList;
@@ -76,6 +78,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 		super(server);
 
 		this.impulseScene = new ImpulseScene();
+		this.impulseScene.setDt(1f / RocketLeagueGame.TICK_RATE);
 		this.impulseScene.setDoGravity(false);
 		this.impulseScene.setDoCollision(true);
 		this.impulseScene.setSimulateOnSurface(true);
@@ -172,21 +175,23 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 		this.playerTeams = new HashMap<>();
 		this.assignTeams = true;
 		for (int playerID : this.server.getPlayersInGame()) {
-			this.playerTeams.put(playerID, RocketLeagueState.TEAM_WHITE);
+			this.playerTeams.put(playerID, RocketLeagueGame.TEAM_WHITE);
 		}
 
 		this.pegs = new HashMap<>();
+		this.pegSnapshotCodec = new BodySnapshotCodec();
+		this.clientsWithPegBaseline = new HashSet<>();
 		this.pegToPlayer = new HashMap<>();
 		this.pegTypes = new HashMap<>();
 		for (int playerID : this.server.getPlayersInGame()) {
 			//give each player 1 peg to control
 			for (int i = 0; i < 1; i++) {
-				int pegID = this.addPeg(playerID, RocketLeagueState.getRandomBasicPegType());
+				int pegID = this.addPeg(playerID, RocketLeagueGame.getRandomBasicPegType());
 			}
 		}
 
 		{
-			this.ballID = this.addPeg(-1, RocketLeagueState.PEG_TYPE_BALL);
+			this.ballID = this.addPeg(-1, RocketLeagueGame.PEG_TYPE_BALL);
 			Body pegBody = this.pegs.get(this.ballID);
 			pegBody.setMass(1);
 			pegBody.setRestitution(1f);
@@ -195,6 +200,11 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 		this.repositionPegs();
 	}
 
+	@Override
+	public int getTickRate() {
+		return RocketLeagueGame.TICK_RATE;
+	}
+
 	@Override
 	public void update() {
 		this.impulseScene.tick();
@@ -232,7 +242,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 			}
 
 			switch (this.pegTypes.get(pegID)) {
-			case RocketLeagueState.PEG_TYPE_DINGUS:
+			case RocketLeagueGame.PEG_TYPE_DINGUS:
 				b.angularVelocity = (float) Math.PI / 2;
 				break;
 			}
@@ -294,7 +304,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 	}
 
 	@Override
-	public void writePacket(PacketSender packetSender, int clientID) {
+	public void writeBroadcast(PacketSender packetSender) {
 		if (this.startGame) {
 			packetSender.startSection("rocket_league_start_game");
 		}
@@ -368,17 +378,8 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 			}
 		}
 
-		//sends the current state of the physics scene
-		packetSender.startSection("rocket_league_peg_info");
-		packetSender.write(this.pegs.size());
-		for (int id : this.pegs.keySet()) {
-			packetSender.write(id);
-
-			Body b = this.pegs.get(id);
-			packetSender.write(b.position);
-			packetSender.write(b.velocity);
-			packetSender.write(b.orient);
-		}
+		//sends the changes to the physics scene since last tick
+		this.pegSnapshotCodec.writeDelta(packetSender, "rocket_league_peg_info", this.pegs);
 
 		packetSender.startSection("rocket_league_batched_launches");
 		packetSender.write(this.batchedLaunches.size());
@@ -389,6 +390,20 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 
 	}
 
+	@Override
+	public void writePacket(PacketSender packetSender, int clientID) {
+		//clients that just joined don't have anything to apply the deltas to
+		if (!this.clientsWithPegBaseline.contains(clientID)) {
+			this.pegSnapshotCodec.writeKeyframe(packetSender, "rocket_league_peg_info");
+			this.clientsWithPegBaseline.add(clientID);
+		}
+	}
+
+	@Override
+	public void clientDisconnected(int clientID) {
+		this.clientsWithPegBaseline.remove(clientID);
+	}
+
 	@Override
 	public void writePacketEND() {
 		this.addPegList.clear();
@@ -417,6 +432,12 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 			break;
 		}
 
+		case "rocket_league_request_keyframe": {
+			//the client missed a delta, it gets a keyframe in its next packet
+			this.clientsWithPegBaseline.remove(clientID);
+			break;
+		}
+
 		case "rocket_league_start_game": {
 			if (!this.isInGame) {
 				this.initializeGame();
@@ -468,23 +489,23 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 		this.assignTeams = true;
 		for (int pegID : this.pegs.keySet()) {
 			int pegType = this.pegTypes.get(pegID);
-			if (pegType == RocketLeagueState.PEG_TYPE_BALL) {
+			if (pegType == RocketLeagueGame.PEG_TYPE_BALL) {
 				continue;
 			}
 
 			int playerID = this.pegToPlayer.get(pegID);
 			Body b = this.pegs.get(pegID);
 			if (b.position.x < 0) {
-				this.playerTeams.put(playerID, RocketLeagueState.TEAM_BLUE);
+				this.playerTeams.put(playerID, RocketLeagueGame.TEAM_BLUE);
 			}
 			else {
-				this.playerTeams.put(playerID, RocketLeagueState.TEAM_RED);
+				this.playerTeams.put(playerID, RocketLeagueGame.TEAM_RED);
 			}
 		}
 
 		//give everyone an extra peg
 		for (int playerID : this.server.getPlayersInGame()) {
-			this.addPeg(playerID, RocketLeagueState.getRandomBasicPegType());
+			this.addPeg(playerID, RocketLeagueGame.getRandomBasicPegType());
 		}
 
 		System.out.println(this.pegToPlayer);
@@ -503,7 +524,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 		HashSet<Integer> remove = new HashSet<>();
 		for (int pegID : this.pegs.keySet()) {
 			int pegType = this.pegTypes.get(pegID);
-			if (pegType == RocketLeagueState.PEG_TYPE_BALL) {
+			if (pegType == RocketLeagueGame.PEG_TYPE_BALL) {
 				continue;
 			}
 
@@ -520,7 +541,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 		}
 
 		for (int playerID : this.server.getPlayersInGame()) {
-			this.playerTeams.put(playerID, RocketLeagueState.TEAM_WHITE);
+			this.playerTeams.put(playerID, RocketLeagueGame.TEAM_WHITE);
 		}
 		this.assignTeams = true;
 
@@ -540,18 +561,18 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 			b.velocity.set(new Vec2(0));
 
 			int pegType = this.pegTypes.get(pegID);
-			if (pegType == RocketLeagueState.PEG_TYPE_BALL) {
+			if (pegType == RocketLeagueGame.PEG_TYPE_BALL) {
 				b.position.set(new Vec2(0, 0));
 				continue;
 			}
 
 			int pegTeam = this.playerTeams.get(this.pegToPlayer.get(pegID));
 			switch (pegTeam) {
-			case RocketLeagueState.TEAM_BLUE:
+			case RocketLeagueGame.TEAM_BLUE:
 				b.position.addi(new Vec2(-10, 0));
 				break;
 
-			case RocketLeagueState.TEAM_RED:
+			case RocketLeagueGame.TEAM_RED:
 				b.position.addi(new Vec2(10, 0));
 				break;
 			}
@@ -559,7 +580,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 	}
 
 	private void assignPegType(int pegID, int pegType) {
-		float mass = RocketLeagueState.pegTypeMasses.get(pegType);
+		float mass = RocketLeagueGame.pegTypeMasses.get(pegType);
 		this.pegs.get(pegID).setMass(mass);
 
 		this.pegTypes.put(pegID, pegType);
@@ -598,7 +619,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 			attCnt++;
 		}
 		int id = this.generatePowerupID();
-		this.powerups.put(id, new Pair<Vec2, Integer>(pos, RocketLeagueState.getRandomAdvancedPegType()));
+		this.powerups.put(id, new Pair<Vec2, Integer>(pos, RocketLeagueGame.getRandomAdvancedPegType()));
 		this.addPowerupList.add(id);
 		return id;
 	}
@@ -619,7 +640,7 @@ public class ServerRocketLeagueInterface extends ServerGameInterface {
 	private int addPeg(int playerID, int pegType) {
 		int pegID = this.generatePegID();
 		Body pegBody = new Body(new Circle(1f), 0, 0);
-		pegBody.setMass(RocketLeagueState.pegTypeMasses.get(pegType));
+		pegBody.setMass(RocketLeagueGame.pegTypeMasses.get(pegType));
 		pegBody.setRestitution(0.7f);
 		pegBody.dynamicFriction = 0.1f;
 		pegBody.staticFriction = 0.1f;
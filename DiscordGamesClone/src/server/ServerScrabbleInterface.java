@@ -3,7 +3,10 @@ package server;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import game.ScrabbleComputer;
 import game.ScrabbleGame;
 import util.Pair;
 
@@ -12,6 +15,16 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 	//players will communicate with the server what moves they want to perform, and the server will calculate the score
 	//server communicates all players scores after every move
 
+	//computer players get the ids COMPUTER_ID, COMPUTER_ID - 1, and so on, and take their turns in the move order like everyone else
+	public static final int COMPUTER_ID = -2;
+	public static final int MAX_COMPUTERS = 3;
+
+	//how long a computer gets to find each move. It's searched on worker threads, so the server keeps ticking in the meantime
+	private static final long COMPUTER_MOVE_TIME_MILLIS = 500;
+
+	//if the search still isn't done this long after its deadline, the computer just skips its turn
+	private static final long COMPUTER_MOVE_GRACE_MILLIS = 1000;
+
 	private ScrabbleGame scrabbleGame;
 
 	private HashMap<Integer, Integer> scrabblePlayerScores;
@@ -27,6 +40,15 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 	private HashMap<Integer, ArrayList<Character>> scrabblePlayerHands;
 
 	private int scrabbleRoundsLeft = 0;
+	private boolean scrabbleGameRunning = false;
+
+	private int scrabbleComputerAmt = 0;
+	private int scrabbleComputerStrength = ScrabbleComputer.STRENGTH_MEDIUM;
+	private HashMap<Integer, ScrabbleComputer> scrabbleComputers; //map computer id to the computer
+
+	private Future<ArrayList<Pair<int[], Character>>> scrabbleComputerMove;
+	private int scrabbleComputerMoveID; //which computer the search is for
+	private long scrabbleComputerMoveStartTime;
 
 	public ServerScrabbleInterface(GameServer server) {
 		super(server);
@@ -35,16 +57,73 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 		this.scrabblePlayerMoveOrder = new ArrayList<>();
 		this.scrabblePlayerScores = new HashMap<>();
 		this.scrabblePlayerHands = new HashMap<>();
+		this.scrabbleComputers = new HashMap<>();
 	}
 
 	@Override
 	public void update() {
-		// TODO Auto-generated method stub
+		if (!this.scrabbleGameRunning || this.scrabbleStartingGame || this.scrabbleEndingGame) {
+			this.cancelComputerMove();
+			return;
+		}
+
+		int toMove = this.scrabblePlayerMoveOrder.get(this.scrabbleMoveIndex);
+		ScrabbleComputer computer = this.scrabbleComputers.get(toMove);
+		if (this.scrabbleComputerMove != null && this.scrabbleComputerMoveID != toMove) {
+			this.cancelComputerMove();
+		}
+		if (computer == null) {
+			return;
+		}
+
+		if (this.scrabbleComputerMove == null) {
+			this.scrabbleComputerMove = computer.findMoveAsync(this.scrabbleGame, this.scrabblePlayerHands.get(toMove), COMPUTER_MOVE_TIME_MILLIS);
+			this.scrabbleComputerMoveID = toMove;
+			this.scrabbleComputerMoveStartTime = System.currentTimeMillis();
+			return;
+		}
+
+		//only one move per packet
+		if (this.scrabbleMovePerformed) {
+			return;
+		}
+
+		if (!this.scrabbleComputerMove.isDone()) {
+			if (System.currentTimeMillis() - this.scrabbleComputerMoveStartTime > COMPUTER_MOVE_TIME_MILLIS + COMPUTER_MOVE_GRACE_MILLIS) {
+				this.cancelComputerMove();
+				this.skipMove();
+			}
+			return;
+		}
 
+		ArrayList<Pair<int[], Character>> move = null;
+		try {
+			move = this.scrabbleComputerMove.get();
+		}
+		catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		}
+		this.scrabbleComputerMove = null;
+
+		if (move == null) {
+			//nothing to play
+			this.skipMove();
+			return;
+		}
+		this.scrabbleNextMove.clear();
+		this.scrabbleNextMove.addAll(move);
+		this.performMove(toMove);
+	}
+
+	private void cancelComputerMove() {
+		if (this.scrabbleComputerMove != null) {
+			this.scrabbleComputerMove.cancel(true);
+			this.scrabbleComputerMove = null;
+		}
 	}
 
 	@Override
-	public void writePacket(PacketSender packetSender, int clientID) {
+	public void writeBroadcast(PacketSender packetSender) {
 		if (this.scrabbleStartingGame) {
 			packetSender.startSection("scrabble_start_game");
 			this.scrabbleGame = new ScrabbleGame();
@@ -52,8 +131,14 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 			this.scrabblePlayerMoveOrder = new ArrayList<>();
 			this.scrabblePlayerScores.clear();
 			this.scrabblePlayerHands.clear();
-			for (int i : this.server.getPlayersInGame()) {
-				this.scrabblePlayerMoveOrder.add(i);
+			this.scrabbleComputers.clear();
+			this.cancelComputerMove();
+			this.scrabblePlayerMoveOrder.addAll(this.server.getPlayersInGame());
+			for (int i = 0; i < this.scrabbleComputerAmt; i++) {
+				this.scrabbleComputers.put(COMPUTER_ID - i, new ScrabbleComputer(this.scrabbleComputerStrength));
+				this.scrabblePlayerMoveOrder.add(COMPUTER_ID - i);
+			}
+			for (int i : this.scrabblePlayerMoveOrder) {
 				this.scrabblePlayerScores.put(i, 0);
 
 				ArrayList<Character> hand = new ArrayList<Character>();
@@ -63,6 +148,7 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 				this.scrabblePlayerHands.put(i, hand);
 			}
 			this.scrabbleMoveIndex = 0;
+			this.scrabbleGameRunning = true;
 		}
 
 		if (this.scrabbleMovePerformed || this.scrabbleStartingGame) {
@@ -71,17 +157,6 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 			packetSender.write(this.scrabblePlayerMoveOrder.get(this.scrabbleMoveIndex));
 		}
 
-		if (this.scrabbleMovePerformed || this.scrabbleStartingGame) {
-			packetSender.startSection("scrabble_player_hand");
-			packetSender.write(this.scrabblePlayerHands.size());
-			for (int i : this.scrabblePlayerHands.keySet()) {
-				packetSender.write(i);
-				for (char j : this.scrabblePlayerHands.get(i)) {
-					packetSender.write(j);
-				}
-			}
-		}
-
 		if (this.scrabbleMovePerformed) {
 			packetSender.startSection("scrabble_make_move");
 			packetSender.write(this.scrabbleNextMove.size());
@@ -102,6 +177,20 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 
 		if (this.scrabbleEndingGame) {
 			packetSender.startSection("scrabble_end_game");
+			this.scrabbleGameRunning = false;
+		}
+	}
+
+	@Override
+	public void writePacket(PacketSender packetSender, int clientID) {
+		//each player only needs to know their own hand
+		if ((this.scrabbleMovePerformed || this.scrabbleStartingGame) && this.scrabblePlayerHands.containsKey(clientID)) {
+			packetSender.startSection("scrabble_player_hand");
+			packetSender.write(1);
+			packetSender.write(clientID);
+			for (char j : this.scrabblePlayerHands.get(clientID)) {
+				packetSender.write(j);
+			}
 		}
 	}
 
@@ -118,6 +207,8 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 		switch (packetListener.getSectionName()) {
 		case "scrabble_start_game": {
 			this.scrabbleRoundsLeft = packetListener.readInt();
+			this.scrabbleComputerAmt = Math.max(0, Math.min(MAX_COMPUTERS, packetListener.readInt()));
+			this.scrabbleComputerStrength = packetListener.readInt();
 			this.scrabbleStartingGame = true;
 			break;
 		}
@@ -137,57 +228,65 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 				this.scrabbleNextMove.add(new Pair<int[], Character>(coords, letter));
 			}
 
-			if (clientID != this.scrabblePlayerMoveOrder.get(this.scrabbleMoveIndex)) {
+			if (!this.scrabbleGameRunning || clientID != this.scrabblePlayerMoveOrder.get(this.scrabbleMoveIndex)) {
 				//this player shouldn't be moving right now
 				this.scrabbleNextMove.clear();
 				break;
 			}
 
-			//play the move and figure out the score
-			int score = this.scrabbleGame.makeMove(this.scrabbleNextMove);
-			if (score == -1) {
-				//the move is invalid, or the player was just trying to swap out their tiles
-				score = 0;
-			}
+			this.performMove(clientID);
+			break;
+		}
 
-			//update, and move on to the next player
-			ArrayList<Character> hand = this.scrabblePlayerHands.get(clientID);
-			for (Pair<int[], Character> i : this.scrabbleNextMove) {
-				char c = i.second;
-				hand.remove((Character) c);
+		case "scrabble_skip_move": {
+			if (!this.scrabbleGameRunning || clientID != this.scrabblePlayerMoveOrder.get(this.scrabbleMoveIndex)) {
+				break;
 			}
+			this.skipMove();
+			break;
+		}
+		}
+	}
 
-			while (hand.size() != ScrabbleGame.handSize) {
-				hand.add(ScrabbleGame.getRandomLetter());
-			}
+	//plays scrabbleNextMove for the player, and moves on to the next player
+	private void performMove(int playerID) {
+		//play the move and figure out the score
+		int score = this.scrabbleGame.makeMove(this.scrabbleNextMove);
+		if (score == -1) {
+			//the move is invalid, or the player was just trying to swap out their tiles
+			score = 0;
+		}
 
-			this.scrabblePlayerScores.put(clientID, this.scrabblePlayerScores.get(clientID) + score);
-			this.scrabbleMoveIndex = (this.scrabbleMoveIndex + 1) % this.scrabblePlayerMoveOrder.size();
-			this.scrabbleMovePerformed = true;
+		//update, and move on to the next player
+		ArrayList<Character> hand = this.scrabblePlayerHands.get(playerID);
+		for (Pair<int[], Character> i : this.scrabbleNextMove) {
+			char c = i.second;
+			hand.remove((Character) c);
+		}
 
-			if (this.scrabbleMoveIndex == 0) {
-				this.scrabbleRoundsLeft--;
-			}
-			if (this.scrabbleRoundsLeft == 0) {
-				this.scrabbleEndingGame = true;
-			}
-			break;
+		while (hand.size() != ScrabbleGame.handSize) {
+			hand.add(ScrabbleGame.getRandomLetter());
 		}
 
-		case "scrabble_skip_move": {
-			//just move onto the next player
-			this.scrabbleNextMove.clear();
-			this.scrabbleMoveIndex = (this.scrabbleMoveIndex + 1) % this.scrabblePlayerMoveOrder.size();
-			this.scrabbleMovePerformed = true;
+		this.scrabblePlayerScores.put(playerID, this.scrabblePlayerScores.get(playerID) + score);
+		this.nextPlayer();
+	}
 
-			if (this.scrabbleMoveIndex == 0) {
-				this.scrabbleRoundsLeft--;
-			}
-			if (this.scrabbleRoundsLeft == 0) {
-				this.scrabbleEndingGame = true;
-			}
-			break;
+	private void skipMove() {
+		//just move onto the next player
+		this.scrabbleNextMove.clear();
+		this.nextPlayer();
+	}
+
+	private void nextPlayer() {
+		this.scrabbleMoveIndex = (this.scrabbleMoveIndex + 1) % this.scrabblePlayerMoveOrder.size();
+		this.scrabbleMovePerformed = true;
+
+		if (this.scrabbleMoveIndex == 0) {
+			this.scrabbleRoundsLeft--;
 		}
+		if (this.scrabbleRoundsLeft == 0) {
+			this.scrabbleEndingGame = true;
 		}
 	}
 
@@ -197,5 +296,8 @@ public class ServerScrabbleInterface extends ServerGameInterface {
 		this.scrabbleStartingGame = false;
 		this.scrabblePlayerHands.clear();
 		this.scrabbleRoundsLeft = 0;
+		this.scrabbleGameRunning = false;
+		this.scrabbleComputers.clear();
+		this.cancelComputerMove();
 	}
 }
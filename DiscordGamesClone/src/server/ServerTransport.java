@@ -0,0 +1,151 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class ServerTransport implements Runnable {
+	//accepts new clients, and reads from every connected client on a single thread using a selector.
+	//decoded sections are handed off to each connection's packet listener.
+
+	private volatile boolean isRunning = true;
+	private Thread thread;
+
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+
+	private ConcurrentLinkedQueue<ServerConnection> newConnections;
+	private ConcurrentLinkedQueue<ServerConnection> writeRequests; //connections that have pending writes
+
+	public ServerTransport(String ip, int port) throws IOException {
+		this.selector = Selector.open();
+
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.configureBlocking(false);
+		this.serverChannel.bind(new InetSocketAddress(InetAddress.getByName(ip), port), 8);
+		this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+
+		this.newConnections = new ConcurrentLinkedQueue<>();
+		this.writeRequests = new ConcurrentLinkedQueue<>();
+
+		this.start();
+	}
+
+	private void start() {
+		this.thread = new Thread(this);
+		this.thread.start();
+	}
+
+	@Override
+	public void run() {
+		System.out.println("Listening for connection requests");
+		while (this.isRunning) {
+			try {
+				this.selector.select();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+				break;
+			}
+
+			ServerConnection c;
+			while ((c = this.writeRequests.poll()) != null) {
+				c.updateInterestOps();
+			}
+
+			Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+			while (it.hasNext()) {
+				SelectionKey key = it.next();
+				it.remove();
+				if (!key.isValid()) {
+					continue;
+				}
+
+				if (key.isAcceptable()) {
+					this.accept();
+					continue;
+				}
+
+				ServerConnection connection = (ServerConnection) key.attachment();
+				try {
+					if (key.isReadable()) {
+						connection.read();
+					}
+					if (key.isValid() && key.isWritable()) {
+						connection.writePending();
+					}
+				}
+				catch (IOException e) {
+					// probably closed connection
+					System.err.println("Server closed connection");
+					e.printStackTrace();
+					connection.close();
+				}
+				catch (RuntimeException e) {
+					//a bug, or a client sending something we didn't expect. Either way only this connection should go down,
+					//not the thread that every other client is read on
+					System.err.println("Unexpected error on connection, closing it");
+					e.printStackTrace();
+					connection.close();
+				}
+			}
+		}
+
+		try {
+			this.serverChannel.close();
+			this.selector.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void accept() {
+		try {
+			SocketChannel channel = this.serverChannel.accept();
+			if (channel == null) {
+				return;
+			}
+			channel.configureBlocking(false);
+			SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+			ServerConnection connection = new ServerConnection(this, channel, key);
+			key.attach(connection);
+			this.newConnections.add(connection);
+			System.out.println("Client has joined");
+		}
+		catch (IOException e) {
+			System.out.println("No connection requests");
+		}
+	}
+
+	//the selector thread will pick this up and start listening for write readiness
+	protected void requestWrite(ServerConnection connection) {
+		this.writeRequests.add(connection);
+		this.selector.wakeup();
+	}
+
+	public boolean hasNewConnections() {
+		return !this.newConnections.isEmpty();
+	}
+
+	public ArrayList<ServerConnection> getNewConnections() {
+		ArrayList<ServerConnection> out = new ArrayList<>();
+		ServerConnection c;
+		while ((c = this.newConnections.poll()) != null) {
+			out.add(c);
+		}
+		return out;
+	}
+
+	public void exit() {
+		this.isRunning = false;
+		this.selector.wakeup();
+	}
+}
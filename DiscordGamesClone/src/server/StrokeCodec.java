@@ -0,0 +1,216 @@
+package server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import util.Quad;
+import util.Vec2;
+
+public class StrokeCodec {
+	//encodes crack heads drawing as strokes instead of separate line segments.
+
+	//while the mouse is held down, every frame draws a segment starting where the last one ended, with the same width and color.
+	//so instead of sending both ends of every segment along with its width and color, consecutive segments are joined into a
+	//stroke: a polyline with one width and color header.
+
+	//points are quantized to 1/4 of a pixel. The first point of a stroke is written as is, and every point after that as the change
+	//from the point before it, as zigzag varints, so the usual mouse movement of a few pixels a frame takes one or two bytes per axis.
+	//the deltas are taken between quantized points, so rounding error never builds up along the stroke.
+
+	//strokes can also be simplified with Ramer-Douglas-Peucker before they're sent, which drops points that are within some
+	//distance of the line through their neighbours.
+
+	private static final float POINT_SCALE = 4f;
+	private static final float WIDTH_SCALE = 8f;
+
+	public static class Stroke {
+		public float width;
+		public int colorIndex;
+		public ArrayList<Vec2> points;
+
+		public Stroke(float width, int colorIndex) {
+			this.width = width;
+			this.colorIndex = colorIndex;
+			this.points = new ArrayList<>();
+		}
+
+		/**
+		 * Returns whether a segment with this width and color starting at a continues this stroke.
+		 * @param a
+		 * @param width
+		 * @param colorIndex
+		 * @return
+		 */
+		public boolean continuesWith(Vec2 a, float width, int colorIndex) {
+			if (this.points.size() == 0 || this.width != width || this.colorIndex != colorIndex) {
+				return false;
+			}
+			Vec2 last = this.points.get(this.points.size() - 1);
+			return last.x == a.x && last.y == a.y;
+		}
+
+		/**
+		 * Adds the point to the end, unless it's the same as the last point.
+		 * @param p
+		 */
+		public void addPoint(Vec2 p) {
+			if (this.points.size() != 0) {
+				Vec2 last = this.points.get(this.points.size() - 1);
+				if (last.x == p.x && last.y == p.y) {
+					return;
+				}
+			}
+			this.points.add(new Vec2(p));
+		}
+
+		/**
+		 * Splits the stroke back up into line segments: a, b, width, color index.
+		 * A stroke with only one point is a single dot.
+		 * @param out
+		 */
+		public void toLines(ArrayList<Quad<Vec2, Vec2, Float, Integer>> out) {
+			if (this.points.size() == 1) {
+				out.add(new Quad<Vec2, Vec2, Float, Integer>(this.points.get(0), this.points.get(0), this.width, this.colorIndex));
+				return;
+			}
+			for (int i = 0; i + 1 < this.points.size(); i++) {
+				out.add(new Quad<Vec2, Vec2, Float, Integer>(this.points.get(i), this.points.get(i + 1), this.width, this.colorIndex));
+			}
+		}
+	}
+
+	/**
+	 * Appends the segment to the strokes, continuing the last stroke if it can.
+	 * @param strokes
+	 * @param a
+	 * @param b
+	 * @param width
+	 * @param colorIndex
+	 */
+	public static void addLine(ArrayList<Stroke> strokes, Vec2 a, Vec2 b, float width, int colorIndex) {
+		Stroke last = strokes.size() == 0 ? null : strokes.get(strokes.size() - 1);
+		if (last == null || !last.continuesWith(a, width, colorIndex)) {
+			last = new Stroke(width, colorIndex);
+			last.addPoint(a);
+			strokes.add(last);
+		}
+		last.addPoint(b);
+	}
+
+	public static void write(PacketSender packetSender, ArrayList<Stroke> strokes) {
+		packetSender.writeVarInt(strokes.size());
+		for (Stroke s : strokes) {
+			packetSender.writeVarInt(Math.max(0, Math.round(s.width * WIDTH_SCALE)));
+			packetSender.writeVarInt(s.colorIndex);
+			packetSender.writeVarInt(s.points.size());
+			int prevX = 0;
+			int prevY = 0;
+			for (Vec2 p : s.points) {
+				int x = Math.round(p.x * POINT_SCALE);
+				int y = Math.round(p.y * POINT_SCALE);
+				packetSender.writeSignedVarInt(x - prevX);
+				packetSender.writeSignedVarInt(y - prevY);
+				prevX = x;
+				prevY = y;
+			}
+		}
+	}
+
+	//the counts come from the other side, so they're checked against the bytes left in the section before anything is
+	//allocated for them. A stroke header takes at least 3 bytes, and a point at least 2.
+	public static ArrayList<Stroke> read(PacketListener packetListener) throws IOException {
+		int amt = packetListener.readVarInt();
+		if (amt < 0 || amt > packetListener.getRemainingBytes() / 3) {
+			throw new IOException("Invalid stroke amount " + amt);
+		}
+		ArrayList<Stroke> strokes = new ArrayList<>(amt);
+		for (int i = 0; i < amt; i++) {
+			float width = packetListener.readVarInt() / WIDTH_SCALE;
+			int colorIndex = packetListener.readVarInt();
+			Stroke s = new Stroke(width, colorIndex);
+			int pointAmt = packetListener.readVarInt();
+			if (pointAmt < 0 || pointAmt > packetListener.getRemainingBytes() / 2) {
+				throw new IOException("Invalid point amount " + pointAmt);
+			}
+			s.points.ensureCapacity(pointAmt);
+			int x = 0;
+			int y = 0;
+			for (int j = 0; j < pointAmt; j++) {
+				x += packetListener.readSignedVarInt();
+				y += packetListener.readSignedVarInt();
+				s.points.add(new Vec2(x / POINT_SCALE, y / POINT_SCALE));
+			}
+			strokes.add(s);
+		}
+		return strokes;
+	}
+
+	/**
+	 * Removes points that are closer than tolerance to the line between the points kept on either side of them,
+	 * using Ramer-Douglas-Peucker. The first and last points are always kept, so strokes that were split up
+	 * between packets still join up.
+	 * @param stroke
+	 * @param tolerance in pixels
+	 */
+	public static void simplify(Stroke stroke, float tolerance) {
+		int n = stroke.points.size();
+		if (n <= 2 || tolerance <= 0) {
+			return;
+		}
+		boolean[] keep = new boolean[n];
+		keep[0] = true;
+		keep[n - 1] = true;
+
+		//explicit stack of ranges, so long strokes don't recurse too deep
+		int[] stack = new int[n * 2];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		stack[stackSize++] = n - 1;
+		while (stackSize != 0) {
+			int last = stack[--stackSize];
+			int first = stack[--stackSize];
+
+			Vec2 a = stroke.points.get(first);
+			Vec2 b = stroke.points.get(last);
+			float maxDist = tolerance;
+			int farthest = -1;
+			for (int i = first + 1; i < last; i++) {
+				float dist = distanceToSegment(stroke.points.get(i), a, b);
+				if (dist > maxDist) {
+					maxDist = dist;
+					farthest = i;
+				}
+			}
+
+			if (farthest != -1) {
+				keep[farthest] = true;
+				stack[stackSize++] = first;
+				stack[stackSize++] = farthest;
+				stack[stackSize++] = farthest;
+				stack[stackSize++] = last;
+			}
+		}
+
+		ArrayList<Vec2> kept = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			if (keep[i]) {
+				kept.add(stroke.points.get(i));
+			}
+		}
+		stroke.points = kept;
+	}
+
+	private static float distanceToSegment(Vec2 p, Vec2 a, Vec2 b) {
+		float dx = b.x - a.x;
+		float dy = b.y - a.y;
+		float lengthSq = dx * dx + dy * dy;
+		float t = 0;
+		if (lengthSq != 0) {
+			t = Math.max(0, Math.min(1, ((p.x - a.x) * dx + (p.y - a.y) * dy) / lengthSq));
+		}
+		float ex = p.x - (a.x + t * dx);
+		float ey = p.y - (a.y + t * dy);
+		return (float) Math.sqrt(ex * ex + ey * ey);
+	}
+
+}
@@ -0,0 +1,109 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class TickHistogram {
+	//a histogram of durations, like how long each tick took.
+
+	//bucket i holds durations from 2^i up to 2^(i+1) microseconds, bucket 0 also holds anything under a microsecond,
+	//and the last bucket holds anything too long for the others. So percentiles are only accurate to within a factor of two,
+	//but recording is just a couple of atomic adds, and it can be read from another thread while it's being recorded to.
+
+	private static final int BUCKET_AMT = 24; //the last bucket starts at about 8 seconds
+
+	private AtomicLongArray buckets;
+	private AtomicLong count;
+	private AtomicLong totalNanos;
+	private AtomicLong maxNanos;
+
+	public TickHistogram() {
+		this.buckets = new AtomicLongArray(BUCKET_AMT);
+		this.count = new AtomicLong();
+		this.totalNanos = new AtomicLong();
+		this.maxNanos = new AtomicLong();
+	}
+
+	public void record(long nanos) {
+		long micros = Math.max(1, nanos / 1000);
+		int bucket = Math.min(BUCKET_AMT - 1, 63 - Long.numberOfLeadingZeros(micros));
+		this.buckets.incrementAndGet(bucket);
+		this.count.incrementAndGet();
+		this.totalNanos.addAndGet(nanos);
+		this.maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	public long getCount() {
+		return this.count.get();
+	}
+
+	public long getTotalNanos() {
+		return this.totalNanos.get();
+	}
+
+	public long getMaxNanos() {
+		return this.maxNanos.get();
+	}
+
+	public long getMeanNanos() {
+		long cnt = this.count.get();
+		return cnt == 0 ? 0 : this.totalNanos.get() / cnt;
+	}
+
+	public int getBucketAmt() {
+		return BUCKET_AMT;
+	}
+
+	public long getBucketCount(int bucket) {
+		return this.buckets.get(bucket);
+	}
+
+	/**
+	 * Returns the upper bound of the bucket, in nanoseconds. The last bucket has no upper bound, and returns Long.MAX_VALUE.
+	 * @param bucket
+	 * @return
+	 */
+	public long getBucketUpperBoundNanos(int bucket) {
+		if (bucket == BUCKET_AMT - 1) {
+			return Long.MAX_VALUE;
+		}
+		return (2L << bucket) * 1000;
+	}
+
+	/**
+	 * Returns a duration that at least the given fraction of the recorded durations were shorter than.
+	 * Rounded up to the end of a bucket, and never more than the longest recorded duration.
+	 * @param fraction between 0 and 1
+	 * @return
+	 */
+	public long getPercentileNanos(double fraction) {
+		long cnt = this.count.get();
+		if (cnt == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(cnt * Math.max(0, Math.min(1, fraction)));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_AMT; i++) {
+			seen += this.buckets.get(i);
+			if (seen >= target) {
+				return Math.min(this.getBucketUpperBoundNanos(i), this.maxNanos.get());
+			}
+		}
+		return this.maxNanos.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_AMT; i++) {
+			this.buckets.set(i, 0);
+		}
+		this.count.set(0);
+		this.totalNanos.set(0);
+		this.maxNanos.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d ticks, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms", this.getCount(), this.getMeanNanos() / 1e6, this.getPercentileNanos(0.5) / 1e6, this.getPercentileNanos(0.99) / 1e6, this.getMaxNanos() / 1e6);
+	}
+
+}
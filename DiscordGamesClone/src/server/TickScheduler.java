@@ -0,0 +1,192 @@
+package server;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TickScheduler {
+	//runs many fixed rate tasks, like room ticks, on a fixed amount of worker threads.
+
+	//every task has its own fixed timestep, and waits in a delay queue ordered by when its next tick is due, so whichever
+	//worker is free always picks up the task that is due soonest. A task is only ever run by one worker at a time, as it's
+	//taken out of the queue while it runs, and put back in afterwards.
+
+	//a task that falls behind catches up, and drops ticks, the same way a loop on its own thread would, see FixedTimestep.
+	//a task only runs one tick each time a worker takes it, so while it's catching up it goes back in the queue like any other task,
+	//ordered by when its next tick was due, and other rooms still get their turn in between.
+
+	private volatile boolean isRunning = true;
+
+	private DelayQueue<Task> queue;
+	private Thread[] workers;
+
+	private AtomicLong ticks = new AtomicLong();
+	private AtomicLong overruns = new AtomicLong();
+
+	public TickScheduler(int workerAmt, String name) {
+		this.queue = new DelayQueue<>();
+		this.workers = new Thread[Math.max(1, workerAmt)];
+		for (int i = 0; i < this.workers.length; i++) {
+			this.workers[i] = new Thread(this::work, name + "-" + (i + 1));
+			this.workers[i].start();
+		}
+	}
+
+	/**
+	 * Runs the tick at the given rate, starting right away, until it's cancelled or returns false.
+	 * @param tick
+	 * @param tickRate ticks per second
+	 * @return a handle that can be used to cancel the task
+	 */
+	public Task schedule(Tick tick, int tickRate) {
+		return this.schedule(tick, new FixedTimestep(tickRate));
+	}
+
+	/**
+	 * Runs the tick whenever the timestep says it's due, until it's cancelled or returns false.
+	 * The timestep's tick rate can be changed while it's scheduled, even from inside the tick.
+	 * @param tick
+	 * @param timestep shouldn't be used by anything else while it's scheduled
+	 * @return a handle that can be used to cancel the task
+	 */
+	public Task schedule(Tick tick, FixedTimestep timestep) {
+		Task task = new Task(tick, timestep);
+		this.queue.add(task);
+		return task;
+	}
+
+	public int getTaskAmt() {
+		return this.queue.size();
+	}
+
+	public int getWorkerAmt() {
+		return this.workers.length;
+	}
+
+	/**
+	 * How many ticks have been run in total.
+	 * @return
+	 */
+	public long getTickCount() {
+		return this.ticks.get();
+	}
+
+	/**
+	 * How many ticks took longer than their period, across every task.
+	 * @return
+	 */
+	public long getOverrunCount() {
+		return this.overruns.get();
+	}
+
+	private void work() {
+		while (this.isRunning) {
+			Task task;
+			try {
+				task = this.queue.take();
+			}
+			catch (InterruptedException e) {
+				continue;
+			}
+			if (task.cancelled) {
+				continue;
+			}
+
+			long prevTicks = task.timestep.getTickCount();
+			long prevOverruns = task.timestep.getOverrunCount();
+			try {
+				task.timestep.tickIfDue(task);
+			}
+			catch (RuntimeException e) {
+				//one broken task shouldn't take the worker down with it
+				System.err.println("Tick threw an exception, cancelling task");
+				e.printStackTrace();
+				task.cancelled = true;
+			}
+			this.ticks.addAndGet(task.timestep.getTickCount() - prevTicks);
+			this.overruns.addAndGet(task.timestep.getOverrunCount() - prevOverruns);
+
+			if (task.cancelled) {
+				continue;
+			}
+			task.deadline = task.timestep.getNextTickTime();
+			this.queue.add(task);
+		}
+	}
+
+	/**
+	 * Stops the workers, and waits for them to finish the ticks they're currently running. Tasks still in the queue aren't run again.
+	 */
+	public void exit() {
+		this.isRunning = false;
+		for (Thread t : this.workers) {
+			t.interrupt();
+		}
+		for (Thread t : this.workers) {
+			if (t == Thread.currentThread()) {
+				continue;
+			}
+			try {
+				t.join(1000);
+			}
+			catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	public interface Tick {
+		/**
+		 * Runs one tick.
+		 * @return false to stop being scheduled
+		 */
+		boolean tick();
+	}
+
+	public static class Task implements Delayed, Runnable {
+		private final Tick tick;
+		private final FixedTimestep timestep;
+		private long deadline; //only changed while the task is out of the queue
+		private volatile boolean cancelled = false;
+
+		private Task(Tick tick, FixedTimestep timestep) {
+			this.tick = tick;
+			this.timestep = timestep;
+			this.deadline = timestep.getNextTickTime();
+		}
+
+		@Override
+		public void run() {
+			if (!this.tick.tick()) {
+				this.cancelled = true;
+			}
+		}
+
+		/**
+		 * Stops the task from being run again. If it's currently running, the tick is allowed to finish.
+		 */
+		public void cancel() {
+			this.cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		public FixedTimestep getTimestep() {
+			return this.timestep;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			return Long.compare(this.deadline, ((Task) o).deadline);
+		}
+	}
+
+}
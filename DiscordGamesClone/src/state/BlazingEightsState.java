@@ -1,5 +1,6 @@
 package state;
 
+import static game.BlazingEightsGame.*;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL12.*;
 import static org.lwjgl.opengl.GL13.*;
@@ -58,31 +59,6 @@ public class BlazingEightsState extends GameState {
 
 	private UIScreen uiScreen;
 
-	private static final int SUIT_DIAMOND = 0;
-	private static final int SUIT_CLUB = 1;
-	private static final int SUIT_HEART = 2;
-	private static final int SUIT_SPADE = 3;
-
-	public static final int VALUE_ACE = 0;
-	public static final int VALUE_TWO = 1;
-	public static final int VALUE_THREE = 2;
-	public static final int VALUE_FOUR = 3;
-	public static final int VALUE_FIVE = 4;
-	public static final int VALUE_SIX = 5;
-	public static final int VALUE_SEVEN = 6;
-	public static final int VALUE_EIGHT = 7;
-	public static final int VALUE_NINE = 8;
-	public static final int VALUE_TEN = 9;
-	public static final int VALUE_SKIP = 10;
-	public static final int VALUE_REVERSE = 11;
-	public static final int VALUE_ADDTWO = 12;
-	public static final int VALUE_ADDTWOHUNDRED = 13;
-	public static final int VALUE_WILDCARD = 14;
-	public static final int VALUE_WILDCARDADDFOUR = 15;
-
-	private static final int NR_SUITS = 4;
-	private static final int NR_VALUES = 16;
-	private static final int NR_CARDS = NR_SUITS * NR_VALUES;
 
 	private static final float ZOFFSET_TABLE = -100;
 	private static final float ZOFFSET_DECK = -200;
@@ -90,11 +66,6 @@ public class BlazingEightsState extends GameState {
 
 	private static final float ZOFFSET_OPPONENT_HAND = 0;
 
-	public static final int MOVE_PLAY = 0;
-	public static final int MOVE_DRAW = 1;
-
-	public static final int CARD_AMT_LIMIT = 200;
-
 	private ClientBlazingEightsInterface gameInterface;
 
 	//we'll use these rects to generate the uifilled rectangles
@@ -313,31 +284,6 @@ public class BlazingEightsState extends GameState {
 		UIElement.alignAllUIElements();
 	}
 
-	//suit major card sorting. 
-	public static int getCardType(int suit, int value) {
-		return suit * NR_VALUES + value;
-	}
-
-	public static int[] getCardSuitAndValue(int type) {
-		return new int[] { type / NR_VALUES, type % NR_VALUES };
-	}
-
-	public static int generateRandomCardType() {
-		if (Math.random() < 0.001) {
-			return getCardType((int) (Math.random() * NR_SUITS), VALUE_ADDTWOHUNDRED);
-		}
-		int type = -1;
-		while (type == -1 || getCardSuitAndValue(type)[1] == VALUE_ADDTWOHUNDRED) {
-			type = (int) (Math.random() * NR_CARDS);
-		}
-		return type;
-	}
-
-	public static boolean isWildcard(int type) {
-		int value = getCardSuitAndValue(type)[1];
-		return value == VALUE_WILDCARD || value == VALUE_WILDCARDADDFOUR;
-	}
-
 	private UIFilledRectangle generateCardFront(int type) {
 		FilledRectangle frect = this.cardFrontRects.get(type);
 		UIFilledRectangle rect = new UIFilledRectangle(0, 0, 1, this.cardWidthPx, this.cardHeightPx, frect, CARD_SCENE);
@@ -32,6 +32,7 @@ import scene.Scene;
 import screen.PerspectiveScreen;
 import screen.UIScreen;
 import server.GameServer;
+import server.ServerChessInterface;
 import ui.Text;
 import ui.UIElement;
 import ui.UIFilledRectangle;
@@ -199,6 +200,16 @@ public class ChessState extends GameState {
 		this.uiScreen.kill();
 	}
 
+	private String getPlayerName(int playerID) {
+		if (playerID == -1) {
+			return "Empty Slot";
+		}
+		if (playerID == ServerChessInterface.COMPUTER_ID) {
+			return "Computer";
+		}
+		return this.client.getPlayers().get(playerID);
+	}
+
 	private void drawLobby() {
 		// -- UI BACKGROUND --
 		this.clearScene(BACKGROUND_UI_SCENE);
@@ -222,6 +233,11 @@ public class ChessState extends GameState {
 		createGameBtn.setContentAlignmentStyle(UIElement.ALIGN_RIGHT, UIElement.ALIGN_BOTTOM);
 		createGameBtn.bind(lobbyBackground);
 
+		Button createComputerGameBtn = new Button(220, 10, 200, 30, "btn_create_computer_game", "Play Computer", FontUtils.ggsans.deriveFont(Font.BOLD), 24, DYNAMIC_UI_SCENE);
+		createComputerGameBtn.setFrameAlignmentStyle(UIElement.FROM_RIGHT, UIElement.FROM_BOTTOM);
+		createComputerGameBtn.setContentAlignmentStyle(UIElement.ALIGN_RIGHT, UIElement.ALIGN_BOTTOM);
+		createComputerGameBtn.bind(lobbyBackground);
+
 		// -- Game Selector Buttons --
 		int xOffset = this.lobbyBackgroundMargin + 10;
 		int yOffset = this.lobbyBackgroundMargin + 10;
@@ -234,8 +250,8 @@ public class ChessState extends GameState {
 
 		for (int i : this.gameInterface.getChessGames().keySet()) {
 			ChessGame game = this.gameInterface.getChessGames().get(i);
-			String whiteNickname = game.getWhiteID() == -1 ? "Empty Slot" : this.client.getPlayers().get(game.getWhiteID());
-			String blackNickname = game.getBlackID() == -1 ? "Empty Slot" : this.client.getPlayers().get(game.getBlackID());
+			String whiteNickname = this.getPlayerName(game.getWhiteID());
+			String blackNickname = this.getPlayerName(game.getBlackID());
 
 			Text whitePlayerText = new Text(xOffset + 10, yOffset + 10, whiteNickname, FontUtils.ggsans, 24, Color.WHITE, STATIC_UI_SCENE);
 			whitePlayerText.setFrameAlignmentStyle(UIElement.FROM_LEFT, UIElement.FROM_TOP);
@@ -397,8 +413,8 @@ public class ChessState extends GameState {
 		int playerID = this.isWhite ? this.curChessGame.getWhiteID() : this.curChessGame.getBlackID();
 		int opponentID = this.isWhite ? this.curChessGame.getBlackID() : this.curChessGame.getWhiteID();
 
-		String playerStr = playerID == -1 ? "Empty Slot" : this.client.getPlayers().get(playerID);
-		String opponentStr = opponentID == -1 ? "Empty Slot" : this.client.getPlayers().get(opponentID);
+		String playerStr = this.getPlayerName(playerID);
+		String opponentStr = this.getPlayerName(opponentID);
 
 		float labelWidth = this.chessBoardBackground.getLeftBorder() - this.toEdgeMargin * 2;
 
@@ -516,6 +532,9 @@ public class ChessState extends GameState {
 		else if (curPosition.stalemate) {
 			winString = "Stalemate";
 		}
+		else if (curPosition.draw) {
+			winString = "Draw by Repetition";
+		}
 
 		if (winString.length() == 0) {
 			return;
@@ -698,6 +717,11 @@ public class ChessState extends GameState {
 			break;
 		}
 
+		case "btn_create_computer_game": {
+			this.gameInterface.chessCreateComputerGame();
+			break;
+		}
+
 		case "btn_leave_game": {
 			this.gameInterface.chessLeaveGame();
 			this.curChessGameID = -1;
@@ -10,10 +10,7 @@ import static org.lwjgl.glfw.GLFW.GLFW_KEY_ENTER;
 
 import java.awt.Color;
 import java.awt.Font;
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -21,6 +18,7 @@ import java.util.HashSet;
 
 import client.ClientCrackHeadsInterface;
 import client.GameClient;
+import game.CrackHeadsGame;
 import graphics.Framebuffer;
 import graphics.Material;
 import graphics.Texture;
@@ -36,7 +34,6 @@ import screen.UIScreen;
 import ui.Text;
 import ui.UIElement;
 import ui.UIFilledRectangle;
-import util.FileUtils;
 import util.FontUtils;
 import util.NoiseGenerator;
 import util.Pair;
@@ -125,8 +122,6 @@ public class CrackHeadsState extends GameState {
 
 	private UIFilledRectangle logo;
 
-	private static ArrayList<String> wordList;
-
 	private boolean doCanvasHueShifting = false;
 	private boolean doColorSwapping = false;
 	private boolean doLineShifting = false;
@@ -152,23 +147,7 @@ public class CrackHeadsState extends GameState {
 
 	@Override
 	public void _load() {
-		if (wordList == null) {
-			wordList = new ArrayList<String>();
-			try {
-				BufferedReader fin = new BufferedReader(new FileReader(FileUtils.loadFile("/crack_heads/crack_heads_words.txt")));
-				String next = fin.readLine();
-				while (next != null) {
-					next = next.toUpperCase();
-					next = next.trim();
-					wordList.add(next);
-					next = fin.readLine();
-				}
-			}
-			catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		}
+		CrackHeadsGame.loadWordList();
 
 		this.crackLevelDescriptionStrings = new String[] { "You should take some crack, no balls", "A little bit of crack, cmon man, you can take more than that", "Zooted", "Uh Oh", "Overdose", };
 		this.crackMultiplierStrings = new String[] { "1.0x", "1.25x", "1.5x", "2.0x" };
@@ -230,10 +209,6 @@ public class CrackHeadsState extends GameState {
 		UIElement.alignAllUIElements();
 	}
 
-	public static String getRandomWord() {
-		return wordList.get((int) (Math.random() * wordList.size()));
-	}
-
 	@Override
 	public void _kill() {
 		this.uiScreen.kill();
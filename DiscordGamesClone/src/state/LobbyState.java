@@ -64,6 +64,7 @@ public class LobbyState extends State {
 	private String ip;
 	private int port;
 	private boolean hosting;
+	private String room; //null when joining a plain server
 
 	private HashMap<Integer, String> players;
 	private int hostID;
@@ -120,10 +121,22 @@ public class LobbyState extends State {
 	private boolean failedToConnect = false;
 
 	public LobbyState(StateManager sm, String ip, int port, boolean hosting) {
+		this(sm, ip, port, null, hosting);
+	}
+
+	/**
+	 * @param sm
+	 * @param ip
+	 * @param port
+	 * @param room the room to join if the server is a room host, or null
+	 * @param hosting
+	 */
+	public LobbyState(StateManager sm, String ip, int port, String room, boolean hosting) {
 		super(sm);
 
 		this.ip = ip;
 		this.port = port;
+		this.room = room;
 		this.hosting = hosting;
 
 		if (this.hosting) {
@@ -200,7 +213,7 @@ public class LobbyState extends State {
 	}
 
 	private boolean connect() {
-		return this.client.connect(this.ip, this.port);
+		return this.client.connect(this.ip, this.port, this.room);
 	}
 
 	private void disconnect() {
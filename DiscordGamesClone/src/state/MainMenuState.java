@@ -146,6 +146,11 @@ public class MainMenuState extends State {
 		tfJoinPort.setFrameAlignmentStyle(UIElement.FROM_LEFT, UIElement.FROM_CENTER_BOTTOM);
 		tfJoinPort.setContentAlignmentStyle(UIElement.ALIGN_LEFT, UIElement.ALIGN_BOTTOM);
 
+		//leave empty to join a plain server, anything else asks a room host for that room
+		TextField tfJoinRoom = new TextField(740, 40, 180, 30, "tf_join_room", "Room", FontUtils.ggsans, 16, DYNAMIC_UI_SCENE);
+		tfJoinRoom.setFrameAlignmentStyle(UIElement.FROM_LEFT, UIElement.FROM_CENTER_BOTTOM);
+		tfJoinRoom.setContentAlignmentStyle(UIElement.ALIGN_LEFT, UIElement.ALIGN_BOTTOM);
+
 		Button rightSideButton = new Button((int) this.sideButtonBaseOffset, 0, this.sideButtonWidth, Main.windowHeight, "btn_side", ">", FontUtils.ggsans.deriveFont(Font.BOLD), 48, DYNAMIC_UI_SCENE);
 		rightSideButton.setFrameAlignmentStyle(UIElement.FROM_RIGHT, UIElement.FROM_BOTTOM);
 		rightSideButton.setContentAlignmentStyle(UIElement.ALIGN_LEFT, UIElement.ALIGN_BOTTOM);
@@ -227,7 +232,11 @@ public class MainMenuState extends State {
 			try {
 				int port = Integer.parseInt(Input.getText("tf_join_port"));
 				String ip = Input.getText("tf_join_ip");
-				this.sm.switchState(new LobbyState(this.sm, ip, port, false));
+				String room = Input.getText("tf_join_room");
+				if (room != null && room.trim().length() == 0) {
+					room = null;
+				}
+				this.sm.switchState(new LobbyState(this.sm, ip, port, room, false));
 			}
 			catch (NumberFormatException e) {
 				System.err.println("BAD PORT");
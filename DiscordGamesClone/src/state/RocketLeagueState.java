@@ -1,5 +1,6 @@
 package state;
 
+import static game.RocketLeagueGame.*;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_C;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_P;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_B;
@@ -61,32 +62,8 @@ public class RocketLeagueState extends GameState {
 	//hardcoded from the peg model height. use so we can properly align the models that go ontop of the pegs
 	private static float pegHeight = 0.3f;
 
-	public static final int PEG_TYPE_BALL = -1;
-	public static final int PEG_TYPE_OCTANE = 0;
-	public static final int PEG_TYPE_DOMINUS = 1;
-	public static final int PEG_TYPE_FENNEC = 2;
-	public static final int PEG_TYPE_DINGUS = 3;
-	public static final int PEG_TYPE_TANK = 4;
-	public static final int PEG_TYPE_SMART_CAR = 5;
-
-	public static final int TEAM_WHITE = 0;
-	public static final int TEAM_RED = 1;
-	public static final int TEAM_BLUE = 2;
-
 	public static HashMap<Integer, Model> pegTopperModels;
 
-	public static HashMap<Integer, Float> pegTypeMasses = new HashMap<Integer, Float>() {
-		{
-			put(PEG_TYPE_BALL, 1f);
-			put(PEG_TYPE_OCTANE, 1f);
-			put(PEG_TYPE_DOMINUS, 1f);
-			put(PEG_TYPE_FENNEC, 1f);
-			put(PEG_TYPE_DINGUS, 4f);
-			put(PEG_TYPE_TANK, 2f);
-			put(PEG_TYPE_SMART_CAR, 0.5f);
-		}
-	};
-
 	private static float maxLaunchStrength = 20;
 	private static float maxLaunchPx = 300; //distance in screen pixels to achieve maximum force
 	private static float maxLaunchArrowLen = 2; //maximum visual size of the 3d arrow indicator
@@ -270,16 +247,6 @@ public class RocketLeagueState extends GameState {
 		this.timerText.setWidth(this.timerText.getTextWidth());
 	}
 
-	public static int getRandomBasicPegType() {
-		int[] basicPegs = new int[] { PEG_TYPE_OCTANE, PEG_TYPE_DOMINUS, PEG_TYPE_FENNEC };
-		return basicPegs[(int) (Math.random() * basicPegs.length)];
-	}
-
-	public static int getRandomAdvancedPegType() {
-		int[] advPegs = new int[] { PEG_TYPE_DINGUS, PEG_TYPE_TANK, PEG_TYPE_SMART_CAR };
-		return advPegs[(int) (Math.random() * advPegs.length)];
-	}
-
 	@Override
 	public void _kill() {
 		this.perspectiveScreen.kill();
@@ -300,6 +267,7 @@ public class RocketLeagueState extends GameState {
 		}
 
 		// -- NETWORKING --
+		this.gameInterface.interpolatePegs();
 		if (this.gameInterface.gameStarted()) {
 			this.startGameRect.easeYOffset(-100);
 			this.scoreboard.easeYOffset(0);
@@ -361,7 +329,7 @@ public class RocketLeagueState extends GameState {
 
 			int type = this.gameInterface.getPowerups().get(powerupID).second;
 
-			long modelInstanceID = Model.addInstance(RocketLeagueState.pegTopperModels.get(type), Mat4.identity(), WORLD_SCENE);
+			long modelInstanceID = Model.addInstance(pegTopperModels.get(type), Mat4.identity(), WORLD_SCENE);
 			this.powerupModelInstances.put(powerupID, modelInstanceID);
 		}
 		for (int powerupID : removedPowerups) {
@@ -14,6 +14,7 @@ import audio.Sound;
 import client.ClientScrabbleInterface;
 import client.GameClient;
 import entity.Entity;
+import game.ScrabbleComputer;
 import game.ScrabbleGame;
 import graphics.Framebuffer;
 import graphics.Material;
@@ -34,6 +35,7 @@ import screen.PerspectiveScreen;
 import screen.Screen;
 import screen.UIScreen;
 import server.GameServer;
+import server.ServerScrabbleInterface;
 import ui.Text;
 import ui.UIElement;
 import ui.UIFilledRectangle;
@@ -165,6 +167,8 @@ public class ScrabbleState extends GameState {
 	private int uiElementGap = 20;
 
 	private int numRounds = 5;
+	private int numComputers = 0;
+	private int computerStrength = ScrabbleComputer.STRENGTH_MEDIUM;
 
 	private HashMap<Integer, Integer> playerScores;
 
@@ -253,7 +257,7 @@ public class ScrabbleState extends GameState {
 	private void drawPregameMenu() {
 		if (this.client.isHost()) {
 			int rectWidth = this.cellSizePx * 3 + this.uiElementGap * 2;
-			int rectHeight = this.cellSizePx * 2 + this.uiElementGap * 3;
+			int rectHeight = this.cellSizePx * 3 + this.uiElementGap * 4;
 
 			UIFilledRectangle backgroundRect = new UIFilledRectangle(this.uiElementGap, this.uiElementGap, 0, rectWidth, rectHeight, HUD_SCENE);
 			backgroundRect.setFrameAlignmentStyle(UIElement.FROM_RIGHT, UIElement.FROM_BOTTOM);
@@ -265,6 +269,18 @@ public class ScrabbleState extends GameState {
 			startGameBtn.setContentAlignmentStyle(UIElement.ALIGN_RIGHT, UIElement.ALIGN_BOTTOM);
 			startGameBtn.bind(backgroundRect);
 
+			int computerBtnWidth = (this.cellSizePx * 3 - this.uiElementGap) / 2;
+			int computerBtnY = this.uiElementGap * 2 + this.cellSizePx;
+			Button computerAmtBtn = new Button(this.uiElementGap, computerBtnY, computerBtnWidth, this.cellSizePx, "btn_computer_amt", "Bots: " + this.numComputers, FontUtils.ggsans.deriveFont(Font.BOLD), 24, INPUT_SCENE);
+			computerAmtBtn.setFrameAlignmentStyle(UIElement.FROM_LEFT, UIElement.FROM_BOTTOM);
+			computerAmtBtn.setContentAlignmentStyle(UIElement.ALIGN_LEFT, UIElement.ALIGN_BOTTOM);
+			computerAmtBtn.bind(backgroundRect);
+
+			Button computerStrengthBtn = new Button(this.uiElementGap, computerBtnY, computerBtnWidth, this.cellSizePx, "btn_computer_strength", ScrabbleComputer.STRENGTH_NAMES[this.computerStrength], FontUtils.ggsans.deriveFont(Font.BOLD), 24, INPUT_SCENE);
+			computerStrengthBtn.setFrameAlignmentStyle(UIElement.FROM_RIGHT, UIElement.FROM_BOTTOM);
+			computerStrengthBtn.setContentAlignmentStyle(UIElement.ALIGN_RIGHT, UIElement.ALIGN_BOTTOM);
+			computerStrengthBtn.bind(backgroundRect);
+
 			Button incrementRounds = new Button(this.uiElementGap, this.uiElementGap, this.cellSizePx, this.cellSizePx, "btn_increment_rounds", ">", FontUtils.ggsans.deriveFont(Font.BOLD), 36, INPUT_SCENE);
 			incrementRounds.setFrameAlignmentStyle(UIElement.FROM_RIGHT, UIElement.FROM_TOP);
 			incrementRounds.setContentAlignmentStyle(UIElement.ALIGN_RIGHT, UIElement.ALIGN_TOP);
@@ -288,18 +304,24 @@ public class ScrabbleState extends GameState {
 		}
 	}
 
+	private String getPlayerName(int playerID) {
+		if (playerID <= ServerScrabbleInterface.COMPUTER_ID) {
+			return "Computer " + (ServerScrabbleInterface.COMPUTER_ID - playerID + 1);
+		}
+		return this.client.getPlayers().get(playerID);
+	}
+
 	private void drawScoreDisplay() {
 		// -- SCORE DISPLAY --
 		if (this.playerScores == null) {
 			return;
 		}
-		HashMap<Integer, String> players = this.client.getPlayers();
 
 		int playerRectWidth = 250;
 		int playerRectHeight = 50;
 		int playerRectGap = 5;
 		int scoreboardWidth = playerRectWidth + playerRectGap * 2;
-		int scoreboardHeight = playerRectHeight * players.size() + playerRectGap * (players.size() + 1);
+		int scoreboardHeight = playerRectHeight * this.playerScores.size() + playerRectGap * (this.playerScores.size() + 1);
 
 		UIFilledRectangle scoreboardBackground = new UIFilledRectangle(this.uiElementGap, this.uiElementGap, 0, scoreboardWidth, scoreboardHeight, HUD_SCENE);
 		scoreboardBackground.setFrameAlignmentStyle(UIElement.FROM_LEFT, UIElement.FROM_BOTTOM);
@@ -310,7 +332,7 @@ public class ScrabbleState extends GameState {
 		int xOffset = playerRectGap;
 		for (int id : this.playerScores.keySet()) {
 			int score = this.playerScores.get(id);
-			String nick = players.get(id);
+			String nick = this.getPlayerName(id);
 
 			UIFilledRectangle playerRect = new UIFilledRectangle(xOffset, yOffset, 0, playerRectWidth, playerRectHeight, HUD_SCENE);
 			playerRect.setFrameAlignmentStyle(UIElement.FROM_LEFT, UIElement.FROM_TOP);
@@ -343,7 +365,7 @@ public class ScrabbleState extends GameState {
 		moveIndicatorRect.setMaterial(this.gray);
 
 		int nextPlayer = this.gameInterface.scrabbleGetNextPlayer();
-		String indicatorString = this.client.getPlayers().get(nextPlayer) + "'s Move";
+		String indicatorString = this.getPlayerName(nextPlayer) + "'s Move";
 		if (nextPlayer == this.client.getID()) {
 			indicatorString = "Your Move";
 		}
@@ -710,11 +732,12 @@ public class ScrabbleState extends GameState {
 				this.placeTileOnCell(-1, i, hand.get(i), true);
 			}
 
-			//reset player scores
+			//reset player scores, the server sends them along with the start of the game, computers included
 			this.playerScores = new HashMap<>();
 			for (int i : this.client.getPlayers().keySet()) {
 				this.playerScores.put(i, 0);
 			}
+			this.playerScores.putAll(this.gameInterface.scrabbleGetPlayerScores());
 
 			this.drawUI();
 		}
@@ -880,7 +903,19 @@ public class ScrabbleState extends GameState {
 			if (this.isInGame) {
 				break;
 			}
-			this.gameInterface.scrabbleStartGame(this.numRounds);
+			this.gameInterface.scrabbleStartGame(this.numRounds, this.numComputers, this.computerStrength);
+			break;
+		}
+
+		case "btn_computer_amt": {
+			this.numComputers = (this.numComputers + 1) % (ServerScrabbleInterface.MAX_COMPUTERS + 1);
+			this.drawUI();
+			break;
+		}
+
+		case "btn_computer_strength": {
+			this.computerStrength = (this.computerStrength + 1) % ScrabbleComputer.STRENGTH_NAMES.length;
+			this.drawUI();
 			break;
 		}
 
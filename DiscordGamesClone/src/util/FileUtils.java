@@ -53,11 +53,12 @@ public class FileUtils {
 	}
 
 	public static File loadFile(String filepath) {
-		String resDirectory = SystemUtils.getWorkingDirectory() + "\\res\\";
+		//built with File so that it also works where the separator isn't a backslash, like on a dedicated server
+		File resDirectory = new File(SystemUtils.getWorkingDirectory(), "res");
 
 		System.out.print("LOADING FILE: " + resDirectory + filepath);
 		File file = null;
-		file = new File(resDirectory + filepath);
+		file = new File(resDirectory, filepath);
 		System.out.println(" SUCCESS");
 
 		return file;